@@ -0,0 +1,321 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Records what an output folder was generated from: for every term, a hash
+ * of its definition and the terms its page links to. The manifest is kept in
+ * the output folder so the next build can tell which pages are out of date.
+ *
+ * <p>
+ * The file starts with a header line naming the page format and the style
+ * pages were rendered in, a fingerprint of their templates. A manifest
+ * written for a different format or style is ignored, which forces a full
+ * rebuild whenever the way pages are rendered changes.
+ *
+ * @author Yakob Getu
+ *
+ */
+public final class BuildManifest {
+
+    /**
+     * Name of the manifest file in the output folder.
+     */
+    public static final String FILE_NAME = ".glossary-manifest";
+
+    /**
+     * Header line naming the page format. Change it whenever pages would be
+     * rendered differently from the same definitions.
+     */
+    static final String FORMAT = "glossary-manifest 2";
+
+    /**
+     * FNV-1a 64-bit offset basis.
+     */
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+
+    /**
+     * FNV-1a 64-bit prime.
+     */
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    /**
+     * What one page was generated from.
+     */
+    static final class Record {
+
+        /**
+         * Hash of the definition.
+         */
+        private final long hash;
+
+        /**
+         * Terms the page links to, in order and with repeats.
+         */
+        private final String[] links;
+
+        /**
+         * Creates a record.
+         *
+         * @param hash
+         *            hash of the definition
+         * @param links
+         *            terms the page links to
+         */
+        Record(long hash, String[] links) {
+            this.hash = hash;
+            this.links = links;
+        }
+
+        /**
+         * Returns the hash of the definition.
+         *
+         * @return the hash
+         */
+        long hash() {
+            return this.hash;
+        }
+
+        /**
+         * Returns the terms the page links to.
+         *
+         * @return the linked terms
+         */
+        String[] links() {
+            return this.links;
+        }
+    }
+
+    /**
+     * Record of every term.
+     */
+    private final Map<String, Record> records = new HashMap<>();
+
+    /**
+     * Fingerprint of the templates the pages were rendered from.
+     */
+    private final String style;
+
+    /**
+     * Creates an empty manifest for pages rendered in {@code style}.
+     *
+     * @param style
+     *            fingerprint of the templates pages are rendered from
+     */
+    public BuildManifest(String style) {
+        this.style = style;
+    }
+
+    /**
+     * Returns the header line of a manifest for pages rendered in
+     * {@code style}.
+     *
+     * @param style
+     *            fingerprint of the templates
+     * @return the header line
+     */
+    private static String header(String style) {
+        return FORMAT + "\t" + style;
+    }
+
+    /**
+     * Returns a hash of {@code text}.
+     *
+     * @param text
+     *            the text to hash
+     * @return the 64-bit FNV-1a hash of the characters of {@code text}
+     */
+    public static long contentHash(String text) {
+        final int byteBits = 8;
+        final int byteMask = 0xff;
+        long h = FNV_OFFSET;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            h = (h ^ (c & byteMask)) * FNV_PRIME;
+            h = (h ^ (c >>> byteBits)) * FNV_PRIME;
+        }
+        return h;
+    }
+
+    /**
+     * Records that the page of {@code term} was generated from
+     * {@code definition} and links to {@code links}.
+     *
+     * @param term
+     *            the term
+     * @param definition
+     *            its definition
+     * @param links
+     *            the terms its page links to
+     */
+    public void put(String term, String definition, List<String> links) {
+        this.records.put(term, new Record(contentHash(definition),
+                links.toArray(new String[links.size()])));
+    }
+
+    /**
+     * Returns the record of {@code term}.
+     *
+     * @param term
+     *            the term
+     * @return its record, or null if the term is not in the manifest
+     */
+    Record get(String term) {
+        return this.records.get(term);
+    }
+
+    /**
+     * Returns the terms in the manifest.
+     *
+     * @return the terms
+     */
+    public Set<String> terms() {
+        return this.records.keySet();
+    }
+
+    /**
+     * Returns the number of terms in the manifest.
+     *
+     * @return the number of terms
+     */
+    public int size() {
+        return this.records.size();
+    }
+
+    /**
+     * Escapes tabs, newlines and backslashes in {@code s}.
+     *
+     * @param s
+     *            the string
+     * @return the escaped string
+     */
+    private static String escape(String s) {
+        String result = s;
+        if (result.indexOf('\\') >= 0 || result.indexOf('\t') >= 0
+                || result.indexOf('\n') >= 0) {
+            result = result.replace("\\", "\\\\").replace("\t", "\\t")
+                    .replace("\n", "\\n");
+        }
+        return result;
+    }
+
+    /**
+     * Reverses {@link #escape}.
+     *
+     * @param s
+     *            the escaped string
+     * @return the original string
+     */
+    private static String unescape(String s) {
+        String result = s;
+        if (s.indexOf('\\') >= 0) {
+            StringBuilder out = new StringBuilder(s.length());
+            int i = 0;
+            while (i < s.length()) {
+                char c = s.charAt(i);
+                if (c == '\\' && i + 1 < s.length()) {
+                    i++;
+                    char e = s.charAt(i);
+                    if (e == 't') {
+                        c = '\t';
+                    } else if (e == 'n') {
+                        c = '\n';
+                    } else {
+                        c = e;
+                    }
+                }
+                out.append(c);
+                i++;
+            }
+            result = out.toString();
+        }
+        return result;
+    }
+
+    /**
+     * Reads the manifest of {@code folder}.
+     *
+     * @param folder
+     *            the output folder
+     * @param style
+     *            fingerprint of the templates pages are now rendered from
+     * @return the manifest, or null if the folder has none or it was written
+     *         for a different page format or style
+     */
+    public static BuildManifest read(String folder, String style) {
+        Path path = Paths.get(folder, FILE_NAME);
+        BuildManifest manifest = null;
+        if (Files.isRegularFile(path)) {
+            try (BufferedReader in = Files.newBufferedReader(path,
+                    StandardCharsets.UTF_8)) {
+                if (header(style).equals(in.readLine())) {
+                    manifest = new BuildManifest(style);
+                    String line = in.readLine();
+                    while (line != null) {
+                        String[] fields = line.split("\t", -1);
+                        String[] links = new String[fields.length - 2];
+                        for (int i = 0; i < links.length; i++) {
+                            links[i] = unescape(fields[i + 2]);
+                        }
+                        manifest.records.put(unescape(fields[0]),
+                                new Record(Long.parseUnsignedLong(fields[1],
+                                        Character.MAX_RADIX), links));
+                        line = in.readLine();
+                    }
+                }
+            } catch (IOException | RuntimeException e) {
+                // A damaged manifest just means a full rebuild
+                manifest = null;
+            }
+        }
+        return manifest;
+    }
+
+    /**
+     * Writes this manifest into {@code folder}. The file is replaced
+     * atomically, so an interrupted build leaves the old manifest in place.
+     *
+     * @param folder
+     *            the output folder
+     * @throws UncheckedIOException
+     *             if the manifest cannot be written
+     */
+    public void write(String folder) {
+        Path path = Paths.get(folder, FILE_NAME);
+        Path temp = Paths.get(folder, FILE_NAME + ".tmp");
+        try {
+            try (BufferedWriter out = Files.newBufferedWriter(temp,
+                    StandardCharsets.UTF_8)) {
+                out.write(header(this.style));
+                out.write('\n');
+                for (Map.Entry<String, Record> entry : this.records
+                        .entrySet()) {
+                    out.write(escape(entry.getKey()));
+                    out.write('\t');
+                    out.write(Long.toUnsignedString(entry.getValue().hash,
+                            Character.MAX_RADIX));
+                    for (String link : entry.getValue().links) {
+                        out.write('\t');
+                        out.write(escape(link));
+                    }
+                    out.write('\n');
+                }
+            }
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+}
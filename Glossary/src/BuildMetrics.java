@@ -0,0 +1,222 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.OperatingSystemMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Times the stages of a build and reports them, with the counters of the
+ * sink and the peak heap, as JSON. A stage costs two clock reads and two
+ * reads of the process CPU time, and the counters an add per page, so the
+ * instrumentation is always on and only writing the report is optional.
+ *
+ * <p>
+ * CPU time is that of the whole process while the stage ran, so it includes
+ * worker threads, compression threads and the garbage collector, and can
+ * exceed the wall time of a parallel stage. A stage run on a thread of its
+ * own while others go on is timed by that thread, and its CPU time is that
+ * thread's. CPU time is reported as -1 where the JVM cannot measure it.
+ *
+ * @author Yakob Getu
+ *
+ */
+public final class BuildMetrics {
+
+    /**
+     * Nanoseconds per millisecond.
+     */
+    private static final double NANOS_PER_MILLI = 1e6;
+
+    /**
+     * Wall and CPU nanoseconds of every finished stage, in the order they
+     * started; a stage run twice adds up.
+     */
+    private final Map<String, long[]> stages = new LinkedHashMap<>();
+
+    /**
+     * The stage running, or null.
+     */
+    private String stage;
+
+    /**
+     * Wall clock when the running stage started.
+     */
+    private long stageWall;
+
+    /**
+     * Process CPU time when the running stage started.
+     */
+    private long stageCpu;
+
+    /**
+     * Returns the CPU time used by the whole process so far.
+     *
+     * @return the CPU time in nanoseconds, or -1 if it cannot be measured
+     */
+    private static long processCpuTime() {
+        OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
+        long result = -1;
+        if (os instanceof com.sun.management.OperatingSystemMXBean) {
+            result = ((com.sun.management.OperatingSystemMXBean) os)
+                    .getProcessCpuTime();
+        }
+        return result;
+    }
+
+    /**
+     * Returns the highest heap use of the process so far: the sum of the
+     * peaks of every heap memory pool.
+     *
+     * @return the peak heap in bytes
+     */
+    private static long peakHeap() {
+        long result = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory
+                .getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP
+                    && pool.getPeakUsage() != null) {
+                result += pool.getPeakUsage().getUsed();
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Starts timing stage {@code name}, ending the stage running if any.
+     *
+     * @param name
+     *            the stage
+     */
+    public synchronized void start(String name) {
+        this.end();
+        this.stage = name;
+        this.stageWall = System.nanoTime();
+        this.stageCpu = processCpuTime();
+    }
+
+    /**
+     * Ends the stage running, if any, adding its times to the stage's.
+     */
+    public synchronized void end() {
+        if (this.stage != null) {
+            long wall = System.nanoTime() - this.stageWall;
+            long cpu = -1;
+            if (this.stageCpu >= 0) {
+                cpu = processCpuTime() - this.stageCpu;
+            }
+            this.add(this.stage, wall, cpu);
+            this.stage = null;
+        }
+    }
+
+    /**
+     * Adds the times of stage {@code name}, run on a thread of its own while
+     * other stages ran, to the stage's.
+     *
+     * @param name
+     *            the stage
+     * @param wallNanos
+     *            the wall time of the stage
+     * @param cpuNanos
+     *            the CPU time of the stage's thread, or -1 if it could not
+     *            be measured
+     */
+    public synchronized void add(String name, long wallNanos,
+            long cpuNanos) {
+        long[] times = this.stages.computeIfAbsent(name,
+                s -> new long[] { 0, 0 });
+        times[0] += wallNanos;
+        if (times[1] >= 0) {
+            times[1] = cpuNanos < 0 ? -1 : times[1] + cpuNanos;
+        }
+    }
+
+    /**
+     * Returns the wall time of stage {@code name}.
+     *
+     * @param name
+     *            the stage
+     * @return its wall time in nanoseconds, or -1 if it has not run
+     */
+    public synchronized long wallNanos(String name) {
+        long[] times = this.stages.get(name);
+        long result = -1;
+        if (times != null) {
+            result = times[0];
+        }
+        return result;
+    }
+
+    /**
+     * Returns the report of the stages, {@code stats} and the peak heap as a
+     * JSON object, ending the stage running if any.
+     *
+     * @param stats
+     *            what the build's sink wrote
+     * @return the report
+     */
+    public synchronized String report(PageStats stats) {
+        this.end();
+        StringBuilder json = new StringBuilder("{\n  \"stages\": {");
+        String separator = "\n";
+        for (Map.Entry<String, long[]> entry : this.stages.entrySet()) {
+            long cpu = entry.getValue()[1];
+            json.append(separator).append("    \"").append(entry.getKey())
+                    .append("\": { \"wallMillis\": ")
+                    .append(String.format(Locale.ROOT, "%.3f",
+                            entry.getValue()[0] / NANOS_PER_MILLI))
+                    .append(", \"cpuMillis\": ");
+            if (cpu < 0) {
+                json.append(-1);
+            } else {
+                json.append(String.format(Locale.ROOT, "%.3f",
+                        cpu / NANOS_PER_MILLI));
+            }
+            json.append(" }");
+            separator = ",\n";
+        }
+        json.append("\n  },\n");
+        long[] counts = { stats.definitions(), stats.tokens(), stats.links(),
+                stats.pages(), stats.bytes(), stats.files(), stats.calls(),
+                peakHeap() };
+        String[] names = { "terms", "tokens", "links", "pages",
+                "bytesWritten", "filesOpened", "systemCalls",
+                "peakHeapBytes" };
+        for (int i = 0; i < names.length; i++) {
+            json.append("  \"").append(names[i]).append("\": ")
+                    .append(counts[i]);
+            if (i < names.length - 1) {
+                json.append(",");
+            }
+            json.append("\n");
+        }
+        return json.append("}\n").toString();
+    }
+
+    /**
+     * Writes {@link #report} of {@code stats} to the file {@code name}.
+     *
+     * @param name
+     *            the report file
+     * @param stats
+     *            what the build's sink wrote
+     * @throws UncheckedIOException
+     *             if the file cannot be written
+     */
+    public void write(String name, PageStats stats) {
+        try {
+            Files.write(Paths.get(name),
+                    this.report(stats).getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+}
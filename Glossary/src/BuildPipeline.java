@@ -0,0 +1,208 @@
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+/**
+ * Overlaps the stages of a build that do not wait on each other's data.
+ * Parsing runs on a thread of its own, handing entries over through a
+ * bounded queue while the glossary is filled; once the terms are sorted,
+ * stages that need nothing more, such as the index page, run on threads of
+ * their own while the linker is built and the pages rendered. Every stage
+ * writes to its own part of an {@link OrderedSink}, taken in the order the
+ * build writes them serially, so the output is the same, byte for byte, as
+ * that of a serial build.
+ *
+ * @author Yakob Getu
+ *
+ */
+public final class BuildPipeline implements AutoCloseable {
+
+    /**
+     * Entries handed from the parsing thread at a time.
+     */
+    private static final int BATCH_SIZE = 1024;
+
+    /**
+     * Batches parsed ahead of the thread filling the glossary.
+     */
+    private static final int QUEUED_BATCHES = 64;
+
+    /**
+     * The batch ending the entries.
+     */
+    private static final List<GlossaryEntry> END = new ArrayList<>();
+
+    /**
+     * Where the stages write, in order.
+     */
+    private final OrderedSink ordered;
+
+    /**
+     * Where the stages are timed.
+     */
+    private final BuildMetrics metrics;
+
+    /**
+     * The threads running the stages.
+     */
+    private final ExecutorService pool = Executors.newCachedThreadPool();
+
+    /**
+     * The stages started, in order.
+     */
+    private final List<Future<?>> stages = new ArrayList<>();
+
+    /**
+     * Creates a pipeline whose stages write to {@code sink} and are timed in
+     * {@code metrics}.
+     *
+     * @param sink
+     *            where the stages write
+     * @param metrics
+     *            where the stages are timed
+     */
+    public BuildPipeline(PageSink sink, BuildMetrics metrics) {
+        this.ordered = new OrderedSink(sink);
+        this.metrics = metrics;
+    }
+
+    /**
+     * Parses the terms file {@code inputFile} on a thread of its own and
+     * hands its entries, in order, to {@code add} on this thread.
+     *
+     * @param inputFile
+     *            the terms file
+     * @param malformed
+     *            called, on the parsing thread, with each malformed block
+     * @param add
+     *            called with each entry
+     * @throws java.io.UncheckedIOException
+     *             if the file cannot be read
+     * @throws IllegalStateException
+     *             if the thread is interrupted
+     */
+    public static void parse(String inputFile,
+            Consumer<GlossaryFormatException> malformed,
+            Consumer<GlossaryEntry> add) {
+        BlockingQueue<List<GlossaryEntry>> batches = new ArrayBlockingQueue<>(
+                QUEUED_BATCHES);
+        ExecutorService reader = Executors.newSingleThreadExecutor();
+        Future<?> parsed = reader.submit(() -> {
+            try (GlossaryReader fileReader = GlossaryReader.open(inputFile,
+                    malformed)) {
+                List<GlossaryEntry> batch = new ArrayList<>(BATCH_SIZE);
+                while (fileReader.hasNext()) {
+                    batch.add(fileReader.next());
+                    if (batch.size() == BATCH_SIZE) {
+                        batches.put(batch);
+                        batch = new ArrayList<>(BATCH_SIZE);
+                    }
+                }
+                if (!batch.isEmpty()) {
+                    batches.put(batch);
+                }
+            } finally {
+                // Ends the entries even if parsing failed
+                batches.put(END);
+            }
+            return null;
+        });
+        try {
+            List<GlossaryEntry> batch = batches.take();
+            while (batch != END) {
+                for (GlossaryEntry entry : batch) {
+                    add.accept(entry);
+                }
+                batch = batches.take();
+            }
+            parsed.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("parsing interrupted", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            reader.shutdownNow();
+        }
+    }
+
+    /**
+     * Returns the next part of the sink, for pages written on this thread
+     * after those of every stage and part started before and before those
+     * of every one started after.
+     *
+     * @return the part, to be closed once its pages are written
+     */
+    public PageSink part() {
+        return this.ordered.part();
+    }
+
+    /**
+     * Starts {@code work} on a thread of its own, writing to the next part
+     * of the sink, and times it as stage {@code name}.
+     *
+     * @param name
+     *            the stage
+     * @param work
+     *            the work, given the part it writes to
+     */
+    public void stage(String name, Consumer<PageSink> work) {
+        PageSink part = this.ordered.part();
+        this.stages.add(this.pool.submit(() -> {
+            ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+            long wall = System.nanoTime();
+            long cpu = threads.getCurrentThreadCpuTime();
+            try {
+                work.accept(part);
+            } finally {
+                part.close();
+                if (cpu >= 0) {
+                    cpu = threads.getCurrentThreadCpuTime() - cpu;
+                }
+                this.metrics.add(name, System.nanoTime() - wall, cpu);
+            }
+        }));
+    }
+
+    /**
+     * Waits for every stage to finish writing.
+     *
+     * @throws IllegalStateException
+     *             if a stage fails or the thread is interrupted
+     */
+    public void finish() {
+        try {
+            for (Future<?> stage : this.stages) {
+                stage.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("build interrupted", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * Stops every stage still running, as when the build failed.
+     */
+    @Override
+    public void close() {
+        this.pool.shutdownNow();
+    }
+
+}
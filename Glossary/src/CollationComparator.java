@@ -0,0 +1,58 @@
+import java.text.CollationKey;
+import java.text.Collator;
+import java.util.Comparator;
+import java.util.Locale;
+
+/**
+ * Orders terms as a dictionary of a given locale does: "apple" before
+ * "Zebra", and accented letters next to their base letters rather than
+ * after "z". Strings the collator finds equal, such as ones differing only
+ * in ignorable characters, fall back to {@link String#compareTo} so the
+ * order is total.
+ *
+ * <p>
+ * Comparing with a {@link Collator} means decomposing both strings on every
+ * comparison. As {@link SortKeys}, it gives each term the bytes of its
+ * {@link CollationKey}, which compare as fast as byte arrays, so sorting
+ * computes the key of every term once. Each thread compares and computes
+ * keys with a copy of the collator of its own.
+ *
+ * @author Yakob Getu
+ *
+ */
+public final class CollationComparator
+        implements Comparator<String>, SortKeys {
+
+    /**
+     * The collator of the locale used by each thread.
+     */
+    private final ThreadLocal<Collator> collators;
+
+    /**
+     * Creates a comparator ordering strings as {@code locale} does.
+     *
+     * @param locale
+     *            the locale whose collation rules are used
+     */
+    public CollationComparator(Locale locale) {
+        // Never used itself, only copied
+        Collator prototype = Collator.getInstance(locale);
+        this.collators = ThreadLocal
+                .withInitial(() -> (Collator) prototype.clone());
+    }
+
+    @Override
+    public int compare(String str1, String str2) {
+        int result = this.collators.get().compare(str1, str2);
+        if (result == 0) {
+            result = str1.compareTo(str2);
+        }
+        return result;
+    }
+
+    @Override
+    public byte[] key(String term) {
+        return this.collators.get().getCollationKey(term).toByteArray();
+    }
+
+}
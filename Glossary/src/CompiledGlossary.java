@@ -0,0 +1,385 @@
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import components.map.Map;
+
+/**
+ * A glossary compiled into one binary file, so later builds map it into
+ * memory instead of parsing the terms file again. The file holds, in order:
+ * a header naming the terms file it was compiled from, the number of terms
+ * {@code n}, the {@code n + 1} offsets of the
+ * terms and then of the definitions in the string pool, the {@code n + 1}
+ * row starts and then the rows of the link table of a {@link LinkGraph}, and
+ * the string pool of UTF-8 terms and definitions. Term ids are positions in
+ * index order, so the terms come out already sorted.
+ *
+ * <p>
+ * Offsets are {@code int}s, so a compiled glossary is at most 2 GB.
+ *
+ * @author Yakob Getu
+ *
+ */
+public final class CompiledGlossary {
+
+    /**
+     * First four bytes of a compiled glossary: "GLSY".
+     */
+    private static final int MAGIC = 0x474C5359;
+
+    /**
+     * Version of the format, changed whenever the layout changes.
+     */
+    private static final int VERSION = 2;
+
+    /**
+     * Bytes of the fixed part of the header: the magic number, version,
+     * length of the header, and the size and modification time of the terms
+     * file. The absolute path of the terms file follows in UTF-8, and the term
+     * count follows the header.
+     */
+    private static final int STAMP_BYTES = 3 * Integer.BYTES
+            + 2 * Long.BYTES;
+
+    /**
+     * The mapped file.
+     */
+    private final ByteBuffer data;
+
+    /**
+     * Number of terms.
+     */
+    private final int size;
+
+    /**
+     * Position of the term offsets in {@code data}.
+     */
+    private final int termStarts;
+
+    /**
+     * Position of the definition offsets in {@code data}.
+     */
+    private final int definitionStarts;
+
+    /**
+     * Position of the string pool in {@code data}.
+     */
+    private final int pool;
+
+    /**
+     * The link table, read back on first use.
+     */
+    private LinkGraph links;
+
+    /**
+     * Wraps the mapped file {@code data}.
+     *
+     * @param data
+     *            the contents of a compiled glossary
+     * @throws IllegalArgumentException
+     *             if {@code data} is not a compiled glossary of this version
+     */
+    private CompiledGlossary(ByteBuffer data) {
+        if (data.capacity() < STAMP_BYTES || data.getInt(0) != MAGIC
+                || data.getInt(Integer.BYTES) != VERSION) {
+            throw new IllegalArgumentException("not a compiled glossary");
+        }
+        this.data = data;
+        int header = data.getInt(2 * Integer.BYTES);
+        this.size = data.getInt(header);
+        this.termStarts = header + Integer.BYTES;
+        this.definitionStarts = this.termStarts
+                + (this.size + 1) * Integer.BYTES;
+        int linkStarts = this.definitionStarts
+                + (this.size + 1) * Integer.BYTES;
+        int edges = data.getInt(linkStarts + this.size * Integer.BYTES);
+        this.pool = linkStarts + (this.size + 1 + edges) * Integer.BYTES;
+    }
+
+    /**
+     * Returns the header of a glossary compiled now from the terms file
+     * {@code source}.
+     *
+     * @param source
+     *            the terms file
+     * @return the header, from position 0 to its limit
+     * @throws IOException
+     *             if {@code source} cannot be read
+     */
+    private static ByteBuffer header(String source) throws IOException {
+        Path text = Paths.get(source).toAbsolutePath().normalize();
+        byte[] path = text.toString().getBytes(StandardCharsets.UTF_8);
+        ByteBuffer header = ByteBuffer.allocate(STAMP_BYTES + path.length);
+        header.putInt(MAGIC).putInt(VERSION).putInt(header.capacity())
+                .putLong(Files.size(text))
+                .putLong(Files.getLastModifiedTime(text).toMillis())
+                .put(path);
+        return header.flip();
+    }
+
+    /**
+     * Returns whether {@code binary} holds a compiled glossary of the terms
+     * file {@code source} as it is now: the path, size and modification time
+     * recorded when it was compiled must all match, so neither an edited
+     * terms file nor a different one loads the glossary compiled before.
+     *
+     * @param binary
+     *            the compiled glossary file
+     * @param source
+     *            the terms file it was compiled from
+     * @return true if {@code binary} can be loaded instead of parsing
+     *         {@code source}
+     */
+    public static boolean isCurrent(String binary, String source) {
+        Path compiled = Paths.get(binary);
+        boolean result = false;
+        try {
+            ByteBuffer expected = header(source);
+            if (Files.isRegularFile(compiled) && Files.size(
+                    compiled) >= expected.limit() + Integer.BYTES) {
+                try (FileChannel channel = FileChannel.open(compiled)) {
+                    ByteBuffer header = ByteBuffer.allocate(expected.limit());
+                    channel.read(header, 0);
+                    result = header.flip().equals(expected);
+                }
+            }
+        } catch (IOException e) {
+            // Unreadable, so parse the terms file instead
+            result = false;
+        }
+        return result;
+    }
+
+    /**
+     * Maps the compiled glossary {@code binary} into memory.
+     *
+     * @param binary
+     *            the compiled glossary file
+     * @return the compiled glossary
+     * @throws UncheckedIOException
+     *             if the file cannot be read
+     * @throws IllegalArgumentException
+     *             if the file is not a compiled glossary of this version
+     */
+    public static CompiledGlossary load(String binary) {
+        try (FileChannel channel = FileChannel.open(Paths.get(binary))) {
+            return new CompiledGlossary(channel
+                    .map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Compiles the glossary {@code m}, read from the terms file
+     * {@code source}, with its terms in the order of {@code terms} and its
+     * links in {@code links}, into {@code binary}. The file is written beside
+     * {@code binary} and then moved over it, so a failed compile never leaves
+     * a file that looks current.
+     *
+     * @param binary
+     *            the compiled glossary file
+     * @param source
+     *            the terms file {@code m} was read from
+     * @param terms
+     *            the terms of {@code m}, in index order
+     * @param m
+     *            the map containing all the terms and definitions
+     * @param links
+     *            the link graph of {@code m}, with the same ids
+     * @throws UncheckedIOException
+     *             if the file cannot be written
+     * @throws IllegalArgumentException
+     *             if the glossary is too large to compile
+     */
+    public static void write(String binary, String source,
+            Iterable<String> terms, Map<String, String> m, LinkGraph links) {
+        ByteBuffer header;
+        try {
+            header = header(source);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        int n = links.size();
+        byte[][] strings = new byte[2 * n][];
+        long poolBytes = 0;
+        int i = 0;
+        for (String term : terms) {
+            strings[i] = term.getBytes(StandardCharsets.UTF_8);
+            strings[n + i] = m.value(term).getBytes(StandardCharsets.UTF_8);
+            poolBytes += strings[i].length + strings[n + i].length;
+            i++;
+        }
+        int edges = 0;
+        for (int id = 0; id < n; id++) {
+            edges += links.linkCount(id);
+        }
+        long tableBytes = header.limit() + Integer.BYTES
+                + (3L * (n + 1) + edges) * Integer.BYTES;
+        if (tableBytes + poolBytes > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException(
+                    "glossary too large to compile");
+        }
+
+        Path target = Paths.get(binary).toAbsolutePath();
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(temp,
+                        StandardOpenOption.CREATE,
+                        StandardOpenOption.TRUNCATE_EXISTING)))) {
+            out.write(header.array(), 0, header.limit());
+            out.writeInt(n);
+            // Offsets of terms, then of definitions, run on through the pool
+            int offset = 0;
+            for (int s = 0; s < n; s++) {
+                out.writeInt(offset);
+                offset += strings[s].length;
+            }
+            out.writeInt(offset);
+            for (int s = n; s < 2 * n; s++) {
+                out.writeInt(offset);
+                offset += strings[s].length;
+            }
+            out.writeInt(offset);
+            int row = 0;
+            for (int id = 0; id < n; id++) {
+                out.writeInt(row);
+                row += links.linkCount(id);
+            }
+            out.writeInt(row);
+            for (int id = 0; id < n; id++) {
+                for (int k = 0; k < links.linkCount(id); k++) {
+                    out.writeInt(links.link(id, k));
+                }
+            }
+            for (byte[] s : strings) {
+                out.write(s);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        try {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Decodes the string whose offset is at {@code at} in {@code data}; the
+     * next offset ends it.
+     *
+     * @param at
+     *            position of the string's offset
+     * @return the string
+     */
+    private String string(int at) {
+        int start = this.data.getInt(at);
+        byte[] bytes = new byte[this.data.getInt(at + Integer.BYTES) - start];
+        this.data.get(this.pool + start, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Returns the number of terms.
+     *
+     * @return the number of terms
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Returns the term with id {@code id}.
+     *
+     * @param id
+     *            the term id, its position in index order
+     * @return the term
+     * @requires 0 <= id < size()
+     */
+    public String term(int id) {
+        return this.string(this.termStarts + id * Integer.BYTES);
+    }
+
+    /**
+     * Returns the definition of the term with id {@code id}.
+     *
+     * @param id
+     *            the term id, its position in index order
+     * @return the definition
+     * @requires 0 <= id < size()
+     */
+    public String definition(int id) {
+        return this.string(this.definitionStarts + id * Integer.BYTES);
+    }
+
+    /**
+     * Returns the link graph stored with the glossary, so it need not be
+     * found again.
+     *
+     * @return the link graph
+     */
+    public synchronized LinkGraph links() {
+        if (this.links == null) {
+            int linkStarts = this.definitionStarts
+                    + (this.size + 1) * Integer.BYTES;
+            int[] linkStart = new int[this.size + 1];
+            this.data.slice(linkStarts, linkStart.length * Integer.BYTES)
+                    .asIntBuffer().get(linkStart);
+            int[] rows = new int[linkStart[this.size]];
+            this.data.slice(linkStarts + linkStart.length * Integer.BYTES,
+                    rows.length * Integer.BYTES).asIntBuffer().get(rows);
+            String[] terms = new String[this.size];
+            for (int id = 0; id < this.size; id++) {
+                terms[id] = this.term(id);
+            }
+            this.links = LinkGraph.of(terms, linkStart, rows);
+        }
+        return this.links;
+    }
+
+    /**
+     * Returns the terms and definitions, in index order.
+     *
+     * @return an iterator over the entries
+     */
+    public Iterator<GlossaryEntry> entries() {
+        return new Iterator<GlossaryEntry>() {
+
+            /**
+             * Id of the next entry.
+             */
+            private int next;
+
+            @Override
+            public boolean hasNext() {
+                return this.next < CompiledGlossary.this.size;
+            }
+
+            @Override
+            public GlossaryEntry next() {
+                if (!this.hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                GlossaryEntry entry = new GlossaryEntry(
+                        CompiledGlossary.this.term(this.next),
+                        CompiledGlossary.this.definition(this.next));
+                this.next++;
+                return entry;
+            }
+        };
+    }
+
+}
@@ -0,0 +1,324 @@
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Writes a gzip-compressed copy of every page, named with {@code .gz} after
+ * the page's name, next to the page or instead of it, so static file servers
+ * can send it without compressing on every request. Compression is a stage of
+ * its own: pages are copied and handed to a pool of compressing threads, so
+ * rendering goes on while earlier pages are compressed. A semaphore caps the
+ * pages waiting to be compressed, and so the memory they hold. Pages are
+ * compressed in whatever order the threads get to them; a target whose
+ * output depends on that order gets them through an {@link OrderedSink}, each
+ * page followed by its compressed copy in the order they were written.
+ *
+ * @author Yakob Getu
+ *
+ */
+public final class CompressingSink implements PageSink {
+
+    /**
+     * Name of the compressing threads.
+     */
+    public static final String THREAD_NAME = "gzip";
+
+    /**
+     * Suffix of the compressed copy of a page.
+     */
+    public static final String SUFFIX = ".gz";
+
+    /**
+     * Pages waiting for each compressing thread before writers wait too.
+     */
+    private static final int QUEUE_PER_THREAD = 16;
+
+    /**
+     * Bytes of the gzip header.
+     */
+    private static final int HEADER_BYTES = 10;
+
+    /**
+     * Bytes of the gzip trailer, the CRC-32 and size of the page.
+     */
+    private static final int TRAILER_BYTES = 8;
+
+    /**
+     * Where the pages and their compressed copies are written.
+     */
+    private final PageSink target;
+
+    /**
+     * The deflate compression level, from 1, fastest, to 9, smallest.
+     */
+    private final int level;
+
+    /**
+     * Whether the uncompressed page is written too.
+     */
+    private final boolean keepOriginal;
+
+    /**
+     * The compressing threads.
+     */
+    private final ExecutorService pool;
+
+    /**
+     * Maximum number of pages waiting to be compressed.
+     */
+    private final int maxQueued;
+
+    /**
+     * Permits for the pages waiting to be compressed.
+     */
+    private final Semaphore queued;
+
+    /**
+     * Puts the pages back in the order they were written, or null if the
+     * target does not depend on it.
+     */
+    private final OrderedSink ordered;
+
+    /**
+     * Deflaters not in use, reused so each is only allocated once.
+     */
+    private final ConcurrentLinkedQueue<Deflater> deflaters =
+            new ConcurrentLinkedQueue<>();
+
+    /**
+     * The first failure of a compressing thread.
+     */
+    private final AtomicReference<Throwable> failure =
+            new AtomicReference<>();
+
+    /**
+     * Number of pages compressed.
+     */
+    private final LongAdder pages = new LongAdder();
+
+    /**
+     * Bytes of the pages before compression.
+     */
+    private final LongAdder uncompressed = new LongAdder();
+
+    /**
+     * Bytes of the pages after compression.
+     */
+    private final LongAdder compressed = new LongAdder();
+
+    /**
+     * Creates a sink compressing pages at {@code level} on {@code threads}
+     * threads and writing them to {@code target}.
+     *
+     * @param target
+     *            where the pages are written
+     * @param level
+     *            the deflate compression level, from 1 to 9
+     * @param keepOriginal
+     *            whether to write the uncompressed page as well
+     * @param threads
+     *            the number of compressing threads
+     * @requires 1 <= level <= 9 and threads > 0
+     */
+    public CompressingSink(PageSink target, int level, boolean keepOriginal,
+            int threads) {
+        assert Deflater.BEST_SPEED <= level
+                && level <= Deflater.BEST_COMPRESSION
+                : "Violation of: 1 <= level <= 9";
+        assert threads > 0 : "Violation of: threads > 0";
+        this.target = target;
+        this.level = level;
+        this.keepOriginal = keepOriginal;
+        this.pool = Executors.newFixedThreadPool(threads,
+                task -> new Thread(task, THREAD_NAME));
+        this.maxQueued = QUEUE_PER_THREAD * threads;
+        this.queued = new Semaphore(this.maxQueued);
+        if (target.ordered()) {
+            this.ordered = new OrderedSink(target);
+        } else {
+            this.ordered = null;
+        }
+    }
+
+    @Override
+    public void write(String name, ByteBuffer page) {
+        this.rethrowFailure();
+        // The caller reuses its buffer, so compress a copy
+        byte[] bytes = new byte[page.remaining()];
+        page.get(bytes);
+        PageSink copies = this.ordered == null ? this.target
+                : this.ordered.part();
+        if (this.keepOriginal) {
+            copies.write(name, ByteBuffer.wrap(bytes));
+        }
+        try {
+            // Wait for room so only maxQueued pages are ever held
+            this.queued.acquire();
+        } catch (InterruptedException e) {
+            this.finish(copies);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("compression interrupted", e);
+        }
+        this.pool.execute(() -> {
+            try {
+                copies.write(name + SUFFIX, this.gzip(bytes));
+            } catch (RuntimeException | Error e) {
+                this.failure.compareAndSet(null, e);
+            } finally {
+                this.finish(copies);
+                this.queued.release();
+            }
+        });
+    }
+
+    /**
+     * Closes {@code copies} if it is a part of {@link #ordered}, handing the
+     * target over to the next page.
+     *
+     * @param copies
+     *            where a page and its compressed copy were written
+     */
+    private void finish(PageSink copies) {
+        if (copies != this.target) {
+            copies.close();
+        }
+    }
+
+    /**
+     * Returns {@code bytes} in the gzip format.
+     *
+     * @param bytes
+     *            the page
+     * @return the compressed page
+     */
+    private ByteBuffer gzip(byte[] bytes) {
+        Deflater deflater = this.deflaters.poll();
+        if (deflater == null) {
+            deflater = new Deflater(this.level, true);
+        }
+        // Deflated text is rarely larger than the text; grow if it is
+        byte[] out = new byte[HEADER_BYTES + bytes.length / 2 + 64];
+        final int extraFlags;
+        if (this.level == Deflater.BEST_COMPRESSION) {
+            extraFlags = 2;
+        } else if (this.level == Deflater.BEST_SPEED) {
+            extraFlags = 4;
+        } else {
+            extraFlags = 0;
+        }
+        final int unknownSystem = 255;
+        byte[] header = { 0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0,
+                (byte) extraFlags, (byte) unknownSystem };
+        System.arraycopy(header, 0, out, 0, HEADER_BYTES);
+        int length = HEADER_BYTES;
+        deflater.setInput(bytes);
+        deflater.finish();
+        while (!deflater.finished()) {
+            if (length == out.length) {
+                out = Arrays.copyOf(out, 2 * out.length);
+            }
+            length += deflater.deflate(out, length, out.length - length);
+        }
+        deflater.reset();
+        this.deflaters.add(deflater);
+
+        CRC32 crc = new CRC32();
+        crc.update(bytes);
+        if (out.length < length + TRAILER_BYTES) {
+            out = Arrays.copyOf(out, length + TRAILER_BYTES);
+        }
+        ByteBuffer result = ByteBuffer.wrap(out, 0, length + TRAILER_BYTES);
+        result.order(ByteOrder.LITTLE_ENDIAN)
+                .putInt(length, (int) crc.getValue())
+                .putInt(length + Integer.BYTES, bytes.length);
+
+        this.pages.increment();
+        this.uncompressed.add(bytes.length);
+        this.compressed.add(length + TRAILER_BYTES);
+        return result;
+    }
+
+    /**
+     * Throws the first failure of a compressing thread, if there was one.
+     *
+     * @throws IllegalStateException
+     *             if a page could not be compressed or written
+     */
+    private void rethrowFailure() {
+        if (this.failure.get() != null) {
+            throw new IllegalStateException("compression failed",
+                    this.failure.get());
+        }
+    }
+
+    @Override
+    public PageStats stats() {
+        return this.target.stats();
+    }
+
+    @Override
+    public boolean ordered() {
+        return this.target.ordered();
+    }
+
+    /**
+     * Returns a one-line summary of the bytes compressed so far.
+     *
+     * @return the summary
+     */
+    public String report() {
+        long n = this.pages.sum();
+        long before = this.uncompressed.sum();
+        long after = this.compressed.sum();
+        final double percent = 100.0;
+        return String.format(
+                "%d pages from %d bytes to %d bytes (%.1f%%)", n,
+                before, after, percent * after / Math.max(before, 1));
+    }
+
+    /**
+     * Stops compressing at once, for a build that failed: pages not yet
+     * compressed are dropped, the compressing threads are interrupted and
+     * end, and the target is left as it is.
+     */
+    public void abort() {
+        this.pool.shutdownNow();
+    }
+
+    /**
+     * Waits for every page to be compressed and written, then closes the
+     * target.
+     *
+     * @throws IllegalStateException
+     *             if a page could not be compressed or written, or the
+     *             thread is interrupted
+     */
+    @Override
+    public void close() {
+        try {
+            // Every permit is free again once the last page is written
+            this.queued.acquire(this.maxQueued);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("compression interrupted", e);
+        } finally {
+            this.pool.shutdownNow();
+            Deflater deflater = this.deflaters.poll();
+            while (deflater != null) {
+                deflater.end();
+                deflater = this.deflaters.poll();
+            }
+        }
+        this.rethrowFailure();
+        this.target.close();
+    }
+
+}
@@ -0,0 +1,46 @@
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Counts the writes that reach a file, so a sink writing through a buffer can
+ * report the system calls it made.
+ *
+ * @author Yakob Getu
+ *
+ */
+final class CountingStream extends FilterOutputStream {
+
+    /**
+     * Number of writes made since last asked.
+     */
+    private long writes;
+
+    /**
+     * Creates a stream counting the writes to {@code out}.
+     *
+     * @param out
+     *            the file stream
+     */
+    CountingStream(OutputStream out) {
+        super(out);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        this.out.write(b, off, len);
+        this.writes++;
+    }
+
+    /**
+     * Returns the number of writes since the last call, and resets it.
+     *
+     * @return the number of writes
+     */
+    long takeWrites() {
+        long result = this.writes;
+        this.writes = 0;
+        return result;
+    }
+
+}
@@ -0,0 +1,180 @@
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * An append-only file of definitions, each found again by the offset
+ * {@link #append} returned for it. Definitions stay on disk, so only their
+ * offsets need to be kept in memory. Every record is a 4-byte length followed
+ * by that many bytes of UTF-8.
+ *
+ * <p>
+ * Reads use positional channel reads, so once {@link #finish} has been called
+ * any number of threads can read at once.
+ *
+ * @author Yakob Getu
+ *
+ */
+public final class DefinitionStore implements Closeable {
+
+    /**
+     * Size of the write buffer.
+     */
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /**
+     * Size of a record length.
+     */
+    private static final int LENGTH_BYTES = Integer.BYTES;
+
+    /**
+     * The file holding the definitions.
+     */
+    private final Path path;
+
+    /**
+     * Appends records to the file, or null once writing has finished.
+     */
+    private DataOutputStream out;
+
+    /**
+     * Reads records from the file once writing has finished.
+     */
+    private FileChannel in;
+
+    /**
+     * Offset the next record is appended at.
+     */
+    private long size;
+
+    /**
+     * Creates an empty store in the file {@code path}, replacing any file
+     * already there.
+     *
+     * @param path
+     *            the file to keep the definitions in
+     * @throws UncheckedIOException
+     *             if the file cannot be created
+     */
+    public DefinitionStore(Path path) {
+        this.path = path;
+        try {
+            this.out = new DataOutputStream(new BufferedOutputStream(
+                    Files.newOutputStream(path), BUFFER_SIZE));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Appends {@code definition} to the store.
+     *
+     * @param definition
+     *            the definition
+     * @return the offset to read the definition back from
+     * @throws UncheckedIOException
+     *             if the definition cannot be written
+     * @requires [finish has not been called]
+     */
+    public long append(String definition) {
+        assert this.out != null : "Violation of: finish has not been called";
+        byte[] bytes = definition.getBytes(StandardCharsets.UTF_8);
+        long offset = this.size;
+        try {
+            this.out.writeInt(bytes.length);
+            this.out.write(bytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        this.size += LENGTH_BYTES + bytes.length;
+        return offset;
+    }
+
+    /**
+     * Ends writing and opens the store for reading.
+     *
+     * @throws UncheckedIOException
+     *             if the file cannot be flushed or opened
+     */
+    public void finish() {
+        try {
+            this.out.close();
+            this.out = null;
+            this.in = FileChannel.open(this.path, StandardOpenOption.READ);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Reads {@code length} bytes at {@code offset} into a new buffer.
+     *
+     * @param offset
+     *            the file offset
+     * @param length
+     *            the number of bytes
+     * @return the buffer, flipped for reading
+     * @throws IOException
+     *             if the bytes cannot be read
+     */
+    private ByteBuffer readFully(long offset, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            int read = this.in.read(buffer, offset + buffer.position());
+            if (read < 0) {
+                throw new IOException("definition store is truncated");
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * Reads the definition appended at {@code offset}.
+     *
+     * @param offset
+     *            an offset returned by {@link #append}
+     * @return the definition
+     * @throws UncheckedIOException
+     *             if the definition cannot be read
+     * @requires [finish has been called]
+     */
+    public String read(long offset) {
+        assert this.in != null : "Violation of: finish has been called";
+        try {
+            int length = this.readFully(offset, LENGTH_BYTES).getInt();
+            ByteBuffer bytes = this.readFully(offset + LENGTH_BYTES, length);
+            return new String(bytes.array(), 0, length,
+                    StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Closes and deletes the file.
+     */
+    @Override
+    public void close() {
+        try {
+            if (this.out != null) {
+                this.out.close();
+            }
+            if (this.in != null) {
+                this.in.close();
+            }
+            Files.deleteIfExists(this.path);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+}
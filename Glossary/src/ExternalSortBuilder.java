@@ -0,0 +1,250 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Builds a glossary too large to hold in memory. Definitions are streamed
+ * from the terms file into a {@link DefinitionStore}, and terms are sorted by
+ * an {@link ExternalTermSorter} within a fixed memory budget; the index and
+ * the term pages are then generated from the merged, sorted stream, reading
+ * each definition back only when its page is written. Only the term keys, in
+ * the {@link TermLinker}, stay in memory for the whole build, along with the
+ * {@link LinkGraph} when pages list the terms referring to them.
+ *
+ * @author Yakob Getu
+ *
+ */
+public final class ExternalSortBuilder {
+
+    /**
+     * Private constructor so this utility class cannot be instantiated.
+     */
+    private ExternalSortBuilder() {
+    }
+
+    /**
+     * A folder for the temporary files of one build, deleted with the files
+     * directly in it when closed, whether the build succeeded or not.
+     */
+    private static final class ScratchFolder implements AutoCloseable {
+
+        /**
+         * The folder.
+         */
+        private final Path path;
+
+        /**
+         * Creates a new, empty folder in {@code parent}.
+         *
+         * @param parent
+         *            the folder to create it in
+         * @throws UncheckedIOException
+         *             if the folder cannot be created
+         */
+        ScratchFolder(Path parent) {
+            try {
+                this.path = Files.createTempDirectory(parent, ".sort");
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        /**
+         * Returns the file {@code name} in the folder.
+         *
+         * @param name
+         *            the file name
+         * @return its path
+         */
+        Path resolve(String name) {
+            return this.path.resolve(name);
+        }
+
+        /**
+         * Deletes the folder and the files directly in it.
+         *
+         * @throws UncheckedIOException
+         *             if a file cannot be deleted
+         */
+        @Override
+        public void close() {
+            try {
+                try (Stream<Path> files = Files.list(this.path)) {
+                    Iterator<Path> it = files.iterator();
+                    while (it.hasNext()) {
+                        Files.delete(it.next());
+                    }
+                }
+                Files.delete(this.path);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+    }
+
+    /**
+     * Reads the terms file of {@code options} and writes the index and one
+     * page per term to {@code sink}, sorted by {@code order}, keeping at most
+     * about {@link GlossaryOptions#externalSortBudget} bytes of terms in the
+     * sort buffer. Temporary files go in the output folder, or next to it
+     * when it names an archive.
+     *
+     * @param options
+     *            the build options
+     * @param order
+     *            ordering of the terms
+     * @param malformed
+     *            called with each malformed block of the terms file
+     * @param sink
+     *            where the pages are written
+     * @return the number of term pages written
+     * @throws UncheckedIOException
+     *             if a temporary file cannot be written or read
+     * @requires options.externalSortBudget() > 0
+     */
+    public static int build(GlossaryOptions options, Comparator<String> order,
+            Consumer<GlossaryFormatException> malformed, PageSink sink) {
+        return build(options, order, null, malformed, sink,
+                new BuildMetrics());
+    }
+
+    /**
+     * Builds the glossary as the overload without metrics does, sorting on
+     * the keys of {@code keys} if there are any, and timing its stages in
+     * {@code metrics}.
+     *
+     * @param options
+     *            the build options
+     * @param order
+     *            ordering of the terms
+     * @param keys
+     *            the sort keys of {@code order}, or null if the terms are
+     *            sorted with {@code order}
+     * @param malformed
+     *            called with each malformed block of the terms file
+     * @param sink
+     *            where the pages are written
+     * @param metrics
+     *            where the stages are timed
+     * @return the number of term pages written
+     * @throws UncheckedIOException
+     *             if a temporary file cannot be written or read
+     * @requires options.externalSortBudget() > 0
+     */
+    public static int build(GlossaryOptions options, Comparator<String> order,
+            SortKeys keys, Consumer<GlossaryFormatException> malformed,
+            PageSink sink, BuildMetrics metrics) {
+        Path scratch = Paths.get(options.outputFolder()).toAbsolutePath();
+        if (!Files.isDirectory(scratch)) {
+            scratch = scratch.getParent();
+        }
+        AtomicInteger count = new AtomicInteger();
+        // Closed last, so the temporary files are deleted once closed
+        try (ScratchFolder temp = new ScratchFolder(scratch);
+                DefinitionStore store = new DefinitionStore(
+                        temp.resolve("definitions"));
+                ExternalTermSorter sorter = new ExternalTermSorter(order,
+                        keys, options.externalSortBudget(), temp.path)) {
+            metrics.start("parse");
+            Consumer<GlossaryEntry> add = entry -> {
+                sorter.add(entry.term(), store.append(entry.definition()));
+                count.incrementAndGet();
+            };
+            if (options.threads() > 1) {
+                // Parse on a thread of its own while the entries are stored
+                BuildPipeline.parse(options.inputFile(), malformed, add);
+            } else {
+                GlossaryReader reader = GlossaryReader
+                        .open(options.inputFile(), malformed);
+                while (reader.hasNext()) {
+                    add.accept(reader.next());
+                }
+                reader.close();
+            }
+            store.finish();
+            metrics.start("sort");
+            sorter.finish();
+
+            try (BuildPipeline pipeline = options.threads() > 1
+                    ? new BuildPipeline(sink, metrics)
+                    : null) {
+                PageSink pages = sink;
+                if (pipeline != null) {
+                    // Every sorted iteration reads the runs on its own, so
+                    // the index is written while the pages are rendered
+                    pipeline.stage("index", part -> GlossaryClass
+                            .generateIndex(sorter.terms(), options, part));
+                    pages = pipeline.part();
+                } else {
+                    metrics.start("index");
+                    GlossaryClass.generateIndex(sorter.terms(), options, sink);
+                }
+                metrics.start("link");
+                TermLinker linker = new TermLinker(sorter.terms(),
+                        TermLinker.DEFAULT_SEPARATORS);
+                LinkGraph references = null;
+                if (options.referencedBy()) {
+                    // One extra pass over the definitions finds every link
+                    references = LinkGraph.build(sorter.terms(),
+                            sorter.entries(store), linker);
+                }
+                LinkGraph.Collector links = null;
+                if (options.analysis() != null && references == null) {
+                    // Record the links as the pages are rendered
+                    links = new LinkGraph.Collector(sorter.terms(), linker);
+                }
+                if (pipeline != null) {
+                    pipeline.stage("search",
+                            part -> GlossaryClass.generateSearchIndex(
+                                    sorter.entries(store), linker, options,
+                                    part));
+                }
+                metrics.start("pages");
+                Iterator<GlossaryEntry> entries = sorter.entries(store);
+                if (options.threads() > 1) {
+                    new ParallelPageGenerator(options.threads(),
+                            options.maxOpenFiles(), options.templates())
+                                    .generatePages(entries, pages, linker,
+                                            references, links);
+                } else {
+                    while (entries.hasNext()) {
+                        GlossaryEntry entry = entries.next();
+                        GlossaryClass.generatePage(entry.term(),
+                                entry.definition(), linker,
+                                options.templates(), references, links,
+                                sink);
+                    }
+                }
+                if (pipeline != null) {
+                    pages.close();
+                    metrics.start("wait");
+                    pipeline.finish();
+                } else {
+                    metrics.start("search");
+                    GlossaryClass.generateSearchIndex(sorter.entries(store),
+                            linker, options, sink);
+                }
+                if (options.analysis() != null) {
+                    // Report orphans, dead ends and cycles of the links
+                    metrics.start("analyze");
+                    LinkGraph graph = references;
+                    if (graph == null) {
+                        graph = links.graph();
+                    }
+                    GraphAnalysis.of(graph).write(options.analysis());
+                }
+            }
+            metrics.end();
+        }
+        return count.get();
+    }
+
+}
@@ -0,0 +1,618 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+
+/**
+ * Sorts terms that may not fit in memory. Terms are buffered, each with the
+ * offset of its definition in a {@link DefinitionStore}, until the buffer
+ * reaches its memory budget; the buffer is then sorted and spilled to a run
+ * file. {@link #finish} merges the runs with a k-way merge into one sorted
+ * file, which can then be streamed any number of times.
+ *
+ * <p>
+ * The buffers of the runs being merged count against the same budget, and
+ * at most {@link #MAX_FAN_IN} runs are open at once. When there are more
+ * runs than that, consecutive runs are merged in passes into fewer, longer
+ * runs until one merge can take them all.
+ *
+ * <p>
+ * With {@link SortKeys}, the key of each term is computed once as it is
+ * added and written to the runs with it, so neither sorting a run nor
+ * merging runs computes it again.
+ *
+ * <p>
+ * The sort is stable: runs hold consecutive input in order, and each merge
+ * takes equal terms from earlier runs first.
+ *
+ * @author Yakob Getu
+ *
+ */
+public final class ExternalTermSorter implements Closeable {
+
+    /**
+     * Size of the buffers of run files.
+     */
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /**
+     * Estimated bytes of memory a buffered term takes besides its characters:
+     * the string and array headers, the pending entry and the array slot.
+     */
+    private static final int ENTRY_OVERHEAD = 80;
+
+    /**
+     * Most runs merged at once, whatever the budget, to bound the files open.
+     */
+    private static final int MAX_FAN_IN = 128;
+
+    /**
+     * A buffered term and the offset of its definition.
+     */
+    private static final class Pending {
+
+        /**
+         * The term.
+         */
+        private final String term;
+
+        /**
+         * The offset of its definition in the definition store.
+         */
+        private final long offset;
+
+        /**
+         * The sort key of the term, or null if terms are compared.
+         */
+        private final byte[] key;
+
+        /**
+         * Creates a pending entry.
+         *
+         * @param term
+         *            the term
+         * @param offset
+         *            the offset of its definition
+         * @param key
+         *            the sort key of the term, or null
+         */
+        Pending(String term, long offset, byte[] key) {
+            this.term = term;
+            this.offset = offset;
+            this.key = key;
+        }
+    }
+
+    /**
+     * Reads (term, offset, key) records from a run or sorted file.
+     */
+    private static final class RunReader implements Closeable {
+
+        /**
+         * The file being read.
+         */
+        private final DataInputStream in;
+
+        /**
+         * Position of the run among all runs, to keep the merge stable.
+         */
+        private final int index;
+
+        /**
+         * Whether records hold sort keys.
+         */
+        private final boolean keyed;
+
+        /**
+         * The current term, or null at the end of the file.
+         */
+        private String term;
+
+        /**
+         * The offset of the current term's definition.
+         */
+        private long offset;
+
+        /**
+         * The sort key of the current term, or null if records hold none.
+         */
+        private byte[] key;
+
+        /**
+         * Opens {@code path} and reads its first record.
+         *
+         * @param path
+         *            the file
+         * @param index
+         *            position of the run among all runs
+         * @param keyed
+         *            whether records hold sort keys
+         * @throws IOException
+         *             if the file cannot be read
+         */
+        RunReader(Path path, int index, boolean keyed) throws IOException {
+            this.in = new DataInputStream(new BufferedInputStream(
+                    Files.newInputStream(path), BUFFER_SIZE));
+            this.index = index;
+            this.keyed = keyed;
+            this.advance();
+        }
+
+        /**
+         * Reads the next record, closing the file at its end.
+         *
+         * @throws IOException
+         *             if the file cannot be read
+         */
+        void advance() throws IOException {
+            int length;
+            try {
+                length = this.in.readInt();
+            } catch (EOFException e) {
+                length = -1;
+            }
+            if (length < 0) {
+                this.term = null;
+                this.in.close();
+            } else {
+                byte[] bytes = new byte[length];
+                this.in.readFully(bytes);
+                this.term = new String(bytes, StandardCharsets.UTF_8);
+                this.offset = this.in.readLong();
+                if (this.keyed) {
+                    this.key = new byte[this.in.readInt()];
+                    this.in.readFully(this.key);
+                }
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            this.in.close();
+        }
+    }
+
+    /**
+     * Ordering of the terms.
+     */
+    private final Comparator<String> order;
+
+    /**
+     * The sort keys of {@code order}, or null if terms are compared with it.
+     */
+    private final SortKeys keys;
+
+    /**
+     * Memory budget of the buffer, in estimated bytes.
+     */
+    private final long budget;
+
+    /**
+     * Folder the run files and sorted file are written to.
+     */
+    private final Path folder;
+
+    /**
+     * Terms buffered since the last spill.
+     */
+    private final List<Pending> buffer = new ArrayList<>();
+
+    /**
+     * Estimated bytes of memory taken by the buffer.
+     */
+    private long buffered;
+
+    /**
+     * Most runs merged at once, so their buffers fit in the budget.
+     */
+    private final int fanIn;
+
+    /**
+     * Run files spilled so far, in input order.
+     */
+    private final List<Path> runs = new ArrayList<>();
+
+    /**
+     * Run files written by merge passes before the last.
+     */
+    private final List<Path> merged = new ArrayList<>();
+
+    /**
+     * The merged file, once {@link #finish} has been called.
+     */
+    private Path sorted;
+
+    /**
+     * Creates a sorter ordering terms by {@code order}, buffering at most
+     * about {@code budget} bytes of terms in memory, and spilling into
+     * {@code folder}.
+     *
+     * @param order
+     *            ordering by which to sort
+     * @param budget
+     *            memory budget of the buffer, in bytes
+     * @param folder
+     *            folder for the temporary run files
+     * @requires budget > 0
+     */
+    public ExternalTermSorter(Comparator<String> order, long budget,
+            Path folder) {
+        this(order, null, budget, folder);
+    }
+
+    /**
+     * Creates a sorter ordering terms by {@code order} as the other
+     * constructor does, sorting and merging on the keys of {@code keys} if
+     * there are any.
+     *
+     * @param order
+     *            ordering by which to sort
+     * @param keys
+     *            the sort keys of {@code order}, or null if terms are
+     *            compared with it
+     * @param budget
+     *            memory budget of the buffer, in bytes
+     * @param folder
+     *            folder for the temporary run files
+     * @requires budget > 0
+     */
+    public ExternalTermSorter(Comparator<String> order, SortKeys keys,
+            long budget, Path folder) {
+        this.order = order;
+        this.keys = keys;
+        this.budget = budget;
+        this.folder = folder;
+        this.fanIn = (int) Math.max(2,
+                Math.min(MAX_FAN_IN, budget / BUFFER_SIZE));
+    }
+
+    /**
+     * Writes one (term, offset, key) record.
+     *
+     * @param out
+     *            the file being written
+     * @param term
+     *            the term
+     * @param offset
+     *            the offset of its definition
+     * @param key
+     *            the sort key of the term, or null if records hold none
+     * @throws IOException
+     *             if the record cannot be written
+     */
+    private static void writeRecord(DataOutputStream out, String term,
+            long offset, byte[] key) throws IOException {
+        byte[] bytes = term.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+        out.writeLong(offset);
+        if (key != null) {
+            out.writeInt(key.length);
+            out.write(key);
+        }
+    }
+
+    /**
+     * Compares two terms in the order of this sorter, by their keys if it
+     * has {@link SortKeys}.
+     *
+     * @param term1
+     *            the first term
+     * @param key1
+     *            the key of the first term, or null
+     * @param term2
+     *            the second term
+     * @param key2
+     *            the key of the second term, or null
+     * @return a negative integer, zero, or a positive integer as the first
+     *         term is less than, equal to, or greater than the second
+     */
+    private int compare(String term1, byte[] key1, String term2,
+            byte[] key2) {
+        int result;
+        if (this.keys != null) {
+            result = SortKeys.compare(key1, term1, key2, term2);
+        } else {
+            result = this.order.compare(term1, term2);
+        }
+        return result;
+    }
+
+    /**
+     * Adds {@code term}, whose definition is at {@code offset}.
+     *
+     * @param term
+     *            the term
+     * @param offset
+     *            the offset of its definition in the definition store
+     * @throws UncheckedIOException
+     *             if a run cannot be spilled
+     * @requires [finish has not been called]
+     */
+    public void add(String term, long offset) {
+        byte[] key = null;
+        if (this.keys != null) {
+            key = this.keys.key(term);
+            this.buffered += key.length;
+        }
+        this.buffer.add(new Pending(term, offset, key));
+        this.buffered += 2L * term.length() + ENTRY_OVERHEAD;
+        if (this.buffered >= this.budget) {
+            this.spill();
+        }
+    }
+
+    /**
+     * Sorts the buffer and writes it to a new run file.
+     *
+     * @throws UncheckedIOException
+     *             if the run cannot be written
+     */
+    private void spill() {
+        Pending[] entries = this.buffer.toArray(new Pending[0]);
+        this.buffer.clear();
+        this.buffered = 0;
+        // Arrays.sort on objects is a stable merge sort
+        Arrays.sort(entries,
+                (a, b) -> this.compare(a.term, a.key, b.term, b.key));
+        Path run = this.folder.resolve("run" + this.runs.size());
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(run),
+                        BUFFER_SIZE))) {
+            for (Pending entry : entries) {
+                writeRecord(out, entry.term, entry.offset, entry.key);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        this.runs.add(run);
+    }
+
+    /**
+     * Returns the number of runs spilled.
+     *
+     * @return the number of runs
+     */
+    public int runCount() {
+        return this.runs.size();
+    }
+
+    /**
+     * Returns the most runs merged at once.
+     *
+     * @return the fan-in of a merge
+     */
+    public int fanIn() {
+        return this.fanIn;
+    }
+
+    /**
+     * Spills the last run and merges all runs into one sorted file.
+     *
+     * @throws UncheckedIOException
+     *             if a run cannot be read or the sorted file written
+     */
+    public void finish() {
+        if (!this.buffer.isEmpty() || this.runs.isEmpty()) {
+            this.spill();
+        }
+        this.sorted = this.folder.resolve("sorted");
+        try {
+            if (this.runs.size() == 1) {
+                Files.move(this.runs.get(0), this.sorted,
+                        StandardCopyOption.REPLACE_EXISTING);
+            } else {
+                this.merge();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Merges every run into the sorted file, in passes of at most
+     * {@link #fanIn} runs, and deletes the runs.
+     *
+     * @throws IOException
+     *             if a run cannot be read or the sorted file written
+     */
+    private void merge() throws IOException {
+        List<Path> level = this.runs;
+        while (level.size() > this.fanIn) {
+            List<Path> next = new ArrayList<>();
+            for (int i = 0; i < level.size(); i += this.fanIn) {
+                List<Path> group = level.subList(i,
+                        Math.min(i + this.fanIn, level.size()));
+                if (group.size() == 1) {
+                    next.add(group.get(0));
+                } else {
+                    Path run = this.folder
+                            .resolve("merge" + this.merged.size());
+                    this.merged.add(run);
+                    this.merge(group, run);
+                    next.add(run);
+                }
+            }
+            level = next;
+        }
+        this.merge(level, this.sorted);
+    }
+
+    /**
+     * Merges the runs {@code inputs}, which hold consecutive input in order,
+     * into {@code output} and deletes them.
+     *
+     * @param inputs
+     *            the runs to merge
+     * @param output
+     *            the merged run
+     * @throws IOException
+     *             if a run cannot be read or the merged run written
+     */
+    private void merge(List<Path> inputs, Path output) throws IOException {
+        PriorityQueue<RunReader> heads = new PriorityQueue<>(inputs.size(),
+                (a, b) -> {
+                    int result = this.compare(a.term, a.key, b.term,
+                            b.key);
+                    if (result == 0) {
+                        result = Integer.compare(a.index, b.index);
+                    }
+                    return result;
+                });
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(output),
+                        BUFFER_SIZE))) {
+            for (int i = 0; i < inputs.size(); i++) {
+                RunReader run = new RunReader(inputs.get(i), i,
+                        this.keys != null);
+                if (run.term != null) {
+                    heads.add(run);
+                }
+            }
+            while (!heads.isEmpty()) {
+                RunReader smallest = heads.poll();
+                writeRecord(out, smallest.term, smallest.offset,
+                        smallest.key);
+                smallest.advance();
+                if (smallest.term != null) {
+                    heads.add(smallest);
+                }
+            }
+        } finally {
+            for (RunReader run : heads) {
+                run.close();
+            }
+        }
+        for (Path run : inputs) {
+            Files.delete(run);
+        }
+    }
+
+    /**
+     * An iterator over the sorted file, closing it at its end.
+     *
+     * @param <T>
+     *            the type of element returned
+     */
+    private abstract class SortedIterator<T> implements Iterator<T> {
+
+        /**
+         * Reads the sorted file.
+         */
+        private final RunReader reader;
+
+        /**
+         * Opens the sorted file.
+         */
+        SortedIterator() {
+            assert ExternalTermSorter.this.sorted != null
+                    : "Violation of: finish has been called";
+            try {
+                this.reader = new RunReader(ExternalTermSorter.this.sorted,
+                        0, ExternalTermSorter.this.keys != null);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        /**
+         * Returns the element for the current record.
+         *
+         * @param term
+         *            the current term
+         * @param offset
+         *            the offset of its definition
+         * @return the element
+         */
+        abstract T element(String term, long offset);
+
+        @Override
+        public boolean hasNext() {
+            return this.reader.term != null;
+        }
+
+        @Override
+        public T next() {
+            if (this.reader.term == null) {
+                throw new NoSuchElementException();
+            }
+            T result = this.element(this.reader.term, this.reader.offset);
+            try {
+                this.reader.advance();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Returns the sorted terms. Each iteration streams the sorted file from
+     * the start.
+     *
+     * @return the sorted terms
+     * @requires [finish has been called]
+     */
+    public Iterable<String> terms() {
+        return () -> new SortedIterator<String>() {
+            @Override
+            String element(String term, long offset) {
+                return term;
+            }
+        };
+    }
+
+    /**
+     * Returns the sorted terms with their definitions, read from
+     * {@code store} one at a time.
+     *
+     * @param store
+     *            the store holding the definitions
+     * @return an iterator over the sorted entries
+     * @requires [finish has been called on this and store]
+     */
+    public Iterator<GlossaryEntry> entries(DefinitionStore store) {
+        return new SortedIterator<GlossaryEntry>() {
+            @Override
+            GlossaryEntry element(String term, long offset) {
+                return new GlossaryEntry(term, store.read(offset));
+            }
+        };
+    }
+
+    /**
+     * Deletes the run files and sorted file.
+     */
+    @Override
+    public void close() {
+        try {
+            for (Path run : this.runs) {
+                Files.deleteIfExists(run);
+            }
+            for (Path run : this.merged) {
+                Files.deleteIfExists(run);
+            }
+            if (this.sorted != null) {
+                Files.deleteIfExists(this.sorted);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+}
@@ -0,0 +1,77 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Writes every page to its own file in a folder. Each page costs an open, one
+ * channel write (more only if the kernel accepts part of the page) and a
+ * close, however many lines it has.
+ *
+ * @author Yakob Getu
+ *
+ */
+public final class FileSink implements PageSink {
+
+    /**
+     * The folder the pages are written to.
+     */
+    private final Path folder;
+
+    /**
+     * What has been written.
+     */
+    private final PageStats stats = new PageStats();
+
+    /**
+     * Creates a sink writing into {@code folder}, which must already exist.
+     *
+     * @param folder
+     *            the output folder
+     */
+    public FileSink(String folder) {
+        this.folder = Paths.get(folder);
+    }
+
+    /**
+     * Returns the folder the pages are written to.
+     *
+     * @return the output folder
+     */
+    public Path folder() {
+        return this.folder;
+    }
+
+    @Override
+    public void write(String name, ByteBuffer page) {
+        int size = page.remaining();
+        // open and close
+        long calls = 2;
+        try (FileChannel channel = FileChannel.open(this.folder.resolve(name),
+                StandardOpenOption.WRITE, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            do {
+                channel.write(page);
+                calls++;
+            } while (page.hasRemaining());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        this.stats.recordOpen();
+        this.stats.recordPage(size, calls);
+    }
+
+    @Override
+    public PageStats stats() {
+        return this.stats;
+    }
+
+    @Override
+    public void close() {
+        // every page is written and closed as soon as it is handed over
+    }
+
+}
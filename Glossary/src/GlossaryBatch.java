@@ -0,0 +1,287 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+import components.simplereader.SimpleReader;
+import components.simplereader.SimpleReader1L;
+import components.simplewriter.SimpleWriter;
+import components.simplewriter.SimpleWriter1L;
+
+/**
+ * Builds many glossaries in one run, so JVM startup and JIT warm-up are paid
+ * once and the tokenizer, linker and page buffers are already compiled when
+ * all but the first glossaries are built. Each line of the manifest holds
+ * the arguments of one build, {@code <input file> <output folder> [-flag
+ * [value]]...}, as {@code GlossaryClass} takes them; blank lines and lines
+ * starting with {@code #} are skipped. Glossaries are built concurrently on
+ * a bounded pool, and each one's messages and timing are printed, in
+ * manifest order, once it is done.
+ *
+ * @author Yakob Getu
+ *
+ */
+public final class GlossaryBatch {
+
+    /**
+     * Usage message of the batch program.
+     */
+    public static final String USAGE = "usage: GlossaryBatch <manifest file> "
+            + "[-jobs n]";
+
+    /**
+     * Nanoseconds per millisecond.
+     */
+    private static final long NANOS_PER_MILLI = 1_000_000L;
+
+    /**
+     * Private constructor so this utility class cannot be instantiated.
+     */
+    private GlossaryBatch() {
+    }
+
+    /**
+     * The outcome of building one glossary.
+     */
+    public static final class Result {
+
+        /**
+         * The manifest line the glossary was built from.
+         */
+        private final String line;
+
+        /**
+         * Lines the build reported.
+         */
+        private final List<String> messages;
+
+        /**
+         * What the sink wrote, or null if the build failed.
+         */
+        private final PageStats stats;
+
+        /**
+         * Why the build failed, or null if it did not.
+         */
+        private final String failure;
+
+        /**
+         * Time the build took in nanoseconds.
+         */
+        private final long nanos;
+
+        /**
+         * Creates a result.
+         *
+         * @param line
+         *            the manifest line the glossary was built from
+         * @param messages
+         *            lines the build reported
+         * @param stats
+         *            what the sink wrote, or null if the build failed
+         * @param failure
+         *            why the build failed, or null if it did not
+         * @param nanos
+         *            time the build took in nanoseconds
+         */
+        Result(String line, List<String> messages, PageStats stats,
+                String failure, long nanos) {
+            this.line = line;
+            this.messages = messages;
+            this.stats = stats;
+            this.failure = failure;
+            this.nanos = nanos;
+        }
+
+        /**
+         * Returns the manifest line the glossary was built from.
+         *
+         * @return the line
+         */
+        public String line() {
+            return this.line;
+        }
+
+        /**
+         * Returns the lines the build reported, such as malformed blocks.
+         *
+         * @return the messages
+         */
+        public List<String> messages() {
+            return this.messages;
+        }
+
+        /**
+         * Returns what the sink wrote.
+         *
+         * @return the sink statistics, or null if the build failed
+         */
+        public PageStats stats() {
+            return this.stats;
+        }
+
+        /**
+         * Returns why the build failed.
+         *
+         * @return the failure, or null if the build succeeded
+         */
+        public String failure() {
+            return this.failure;
+        }
+
+        /**
+         * Returns the time the build took.
+         *
+         * @return the elapsed time in milliseconds
+         */
+        public long millis() {
+            return this.nanos / NANOS_PER_MILLI;
+        }
+
+        /**
+         * Returns a one-line summary of the build.
+         *
+         * @return the summary
+         */
+        public String report() {
+            String outcome;
+            if (this.failure == null) {
+                outcome = this.stats.pages() + " pages";
+            } else {
+                outcome = "failed, " + this.failure;
+            }
+            return this.line + ": " + outcome + " in " + this.millis()
+                    + " ms";
+        }
+    }
+
+    /**
+     * Builds the glossary whose arguments are {@code line}.
+     *
+     * @param line
+     *            a manifest line
+     * @return the outcome
+     */
+    static Result build(String line) {
+        long start = System.nanoTime();
+        List<String> messages = new ArrayList<>();
+        PageStats stats = null;
+        String failure = null;
+        try {
+            GlossaryOptions options = GlossaryOptions
+                    .parse(line.trim().split("\\s+"));
+            if (options.servePort() > 0) {
+                throw new IllegalArgumentException(
+                        "-serve cannot be used in a batch");
+            }
+            if (options.watch()) {
+                throw new IllegalArgumentException(
+                        "-watch cannot be used in a batch");
+            }
+            stats = GlossaryClass.build(options, messages::add);
+        } catch (RuntimeException e) {
+            failure = e.getMessage();
+            if (failure == null) {
+                failure = e.toString();
+            }
+        }
+        return new Result(line, messages, stats, failure,
+                System.nanoTime() - start);
+    }
+
+    /**
+     * Builds the glossary of every line of {@code manifest}, at most
+     * {@code jobs} at once, handing each outcome to {@code done} in manifest
+     * order.
+     *
+     * @param manifest
+     *            the manifest lines
+     * @param jobs
+     *            the most glossaries built at once
+     * @param done
+     *            called with the outcome of every glossary
+     * @return the number of glossaries that failed
+     * @requires jobs > 0
+     */
+    public static int buildAll(List<String> manifest, int jobs,
+            Consumer<Result> done) {
+        assert jobs > 0 : "Violation of: jobs > 0";
+        ExecutorService pool = Executors.newFixedThreadPool(jobs);
+        List<Future<Result>> results = new ArrayList<>();
+        for (String line : manifest) {
+            String trimmed = line.trim();
+            if (!trimmed.isEmpty() && !trimmed.startsWith("#")) {
+                results.add(pool.submit(() -> build(trimmed)));
+            }
+        }
+        pool.shutdown();
+        int failures = 0;
+        try {
+            for (Future<Result> future : results) {
+                Result result = future.get();
+                if (result.failure() != null) {
+                    failures++;
+                }
+                done.accept(result);
+            }
+        } catch (InterruptedException e) {
+            pool.shutdownNow();
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            // build catches every exception, so only errors get here
+            pool.shutdownNow();
+            throw new IllegalStateException(e.getCause());
+        }
+        return failures;
+    }
+
+    /**
+     * Builds every glossary of the manifest {@code args[0]}, at most
+     * {@code -jobs} at once, by default one per processor.
+     *
+     * @param args
+     *            the manifest file and options
+     */
+    public static void main(String[] args) {
+        SimpleWriter writer = new SimpleWriter1L();
+        int jobs = Runtime.getRuntime().availableProcessors();
+        boolean usable = args.length == 1;
+        if (args.length == 3 && args[1].equals("-jobs")) {
+            try {
+                jobs = Integer.parseInt(args[2]);
+                usable = jobs > 0;
+            } catch (NumberFormatException e) {
+                usable = false;
+            }
+        }
+        if (!usable) {
+            writer.println(USAGE);
+        } else {
+            List<String> manifest = new ArrayList<>();
+            SimpleReader reader = new SimpleReader1L(args[0]);
+            while (!reader.atEOS()) {
+                manifest.add(reader.nextLine());
+            }
+            reader.close();
+
+            long start = System.nanoTime();
+            int[] built = new int[1];
+            int failures = buildAll(manifest, jobs, result -> {
+                for (String message : result.messages()) {
+                    writer.println(message);
+                }
+                writer.println(result.report());
+                built[0]++;
+            });
+            long millis = (System.nanoTime() - start) / NANOS_PER_MILLI;
+            writer.println("Built " + (built[0] - failures) + " of "
+                    + built[0] + " glossaries in " + millis + " ms on "
+                    + jobs + " jobs");
+        }
+        writer.close();
+    }
+
+}
@@ -1,11 +1,14 @@
+import java.util.Arrays;
 import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Consumer;
 
 import components.map.Map;
 import components.map.Map1L;
 import components.queue.Queue;
 import components.queue.Queue1L;
 import components.set.Set;
-import components.set.Set1L;
 import components.simplereader.SimpleReader;
 import components.simplereader.SimpleReader1L;
 import components.simplewriter.SimpleWriter;
@@ -19,6 +22,11 @@ import components.simplewriter.SimpleWriter1L;
  */
 public final class GlossaryClass {
 
+    /**
+     * Initial room for the links of a definition recorded for a link graph.
+     */
+    private static final int INITIAL_TARGETS = 8;
+
     /**
      * Private constructor so this utility class cannot be instantiated.
      */
@@ -76,7 +84,7 @@ public final class GlossaryClass {
         // Loop through each element in the queue to find the minimum value
         for (String str : q) {
             if (order.compare(str, minVal) < 0) {
-                minVal = str + "";
+                minVal = str;
             }
         }
         boolean removed = false;
@@ -105,6 +113,57 @@ public final class GlossaryClass {
      * @ensures q = [#q ordered by the relation computed by order.compare]
      */
     public static void sortQueue(Queue<String> q, Comparator<String> order) {
+        // Drain the queue into an array so it can be sorted in O(n log n)
+        int lengthOfInputQueue = q.length();
+        String[] entries = new String[lengthOfInputQueue];
+        for (int i = 0; i < lengthOfInputQueue; i++) {
+            entries[i] = q.dequeue();
+        }
+        // Arrays.parallelSort is a stable merge sort, so duplicates keep
+        // their original relative order
+        Arrays.parallelSort(entries, order);
+        for (String entry : entries) {
+            q.enqueue(entry);
+        }
+    }
+
+    /**
+     * Sorts {@code q} into the order of the sort keys of {@code keys},
+     * computing the key of each term once rather than doing its work on
+     * every comparison.
+     *
+     * @param q
+     *            the queue
+     * @param keys
+     *            the sort keys by which to sort
+     * @updates q
+     * @ensures q = [#q ordered by the keys of keys, then by compareTo]
+     */
+    public static void sortQueueByKeys(Queue<String> q, SortKeys keys) {
+        int lengthOfInputQueue = q.length();
+        String[] entries = new String[lengthOfInputQueue];
+        for (int i = 0; i < lengthOfInputQueue; i++) {
+            entries[i] = q.dequeue();
+        }
+        keys.sort(entries);
+        for (String entry : entries) {
+            q.enqueue(entry);
+        }
+    }
+
+    /**
+     * Sorts {@code q} by repeatedly removing its minimum value. This is the
+     * original quadratic sort, kept only as a baseline for benchmarks.
+     *
+     * @param q
+     *            the queue
+     * @param order
+     *            ordering by which to sort
+     * @updates q
+     * @requires [the relation computed by order.compare is a total preorder]
+     * @ensures q = [#q ordered by the relation computed by order.compare]
+     */
+    static void selectionSortQueue(Queue<String> q, Comparator<String> order) {
         // Create a temporary queue to store sorted elements
         Queue<String> tempQueue = new Queue1L<String>();
         int lengthOfInputQueue = q.length();
@@ -172,33 +231,46 @@ public final class GlossaryClass {
      */
     public static String findNextWordOrSeparator(String text, int position,
             Set<Character> separators) {
-        String result = "";
-        int currentIndex = position;
-
-        // Check if the character at the given position is a separator
-        if (position < text.length()
-                && separators.contains(text.charAt(position))) {
-            while (separators.contains(text.charAt(currentIndex))) {
-                currentIndex++;
-            }
-            result = text.substring(position, currentIndex);
-
-        } else {
-            // Move the current index forward until a separator character is found
-            while (position < text.length()
-                    && !separators.contains(text.charAt(currentIndex))) {
-                currentIndex++;
-            }
-            result = text.substring(position, currentIndex);
-        }
+        return findNextWordOrSeparator(text, position,
+                SeparatorTable.of(separators));
+    }
 
-        return result;
+    /**
+     * Returns the first "word" or "separator string" in the given {@code text}
+     * starting at the given {@code position}, as
+     * {@link #findNextWordOrSeparator(String, int, Set)} does, with the
+     * separators compiled into a {@link SeparatorTable}. Callers that only
+     * need the bounds of the token should use
+     * {@link SeparatorTable#tokenEnd(String, int)} or a {@link TokenCursor},
+     * which do not allocate.
+     *
+     * @param text
+     *            the {@code String} from which to get the word or separator
+     *            string
+     * @param position
+     *            the starting index
+     * @param separators
+     *            the table of separator characters
+     * @return the first word or separator string found in {@code text} starting
+     *         at index {@code position}
+     * @requires 0 <= position <= |text|
+     * @ensures <pre>
+     * nextWordOrSeparator =
+     *   text[position, separators.tokenEnd(text, position))
+     * </pre>
+     */
+    public static String findNextWordOrSeparator(String text, int position,
+            SeparatorTable separators) {
+        return text.substring(position, separators.tokenEnd(text, position));
     }
 
     /**
      * Takes the the term and a map containing all terms and definitions and the
      * output folder. Outputs an html file with the term and definition in the
-     * output folder.
+     * output folder. The terms of {@code m} are compiled into a new
+     * {@link TermLinker} for every call; callers generating many pages should
+     * build one linker and use
+     * {@link #generatePage(String, Map, String, TermLinker)} instead.
      *
      * @param term
      *            the term for which the page is being created
@@ -207,54 +279,315 @@ public final class GlossaryClass {
      * @param folder
      *            the output folder of all the html files
      * @updates out.content
-     * @requires [term has no spaces] and out.is_open
+     * @requires out.is_open
      * @ensures <pre>
      * out.content = #out.content *
      *   [an HTML page with the term and definition]
      * </pre>
      */
     public static void generatePage(String term, Map<String, String> m,
-            // Create a writer for the HTML file corresponding to the term
             String folder) {
-        SimpleWriter writer = new SimpleWriter1L(
-                folder + "//" + term + ".html");
+        generatePage(term, m, folder, TermLinker.forGlossary(m));
+    }
+
+    /**
+     * Takes the the term, a map containing all terms and definitions, the
+     * output folder and a linker built from the terms of the map. Outputs an
+     * html file with the term and definition in the output folder, with every
+     * term found by {@code linker} in the definition linked to its page.
+     *
+     * @param term
+     *            the term for which the page is being created
+     * @param m
+     *            the map containing all the terms and definitions
+     * @param folder
+     *            the output folder of all the html files
+     * @param linker
+     *            the linker for the terms of {@code m}
+     * @updates out.content
+     * @requires out.is_open
+     * @ensures <pre>
+     * out.content = #out.content *
+     *   [an HTML page with the term and definition]
+     * </pre>
+     */
+    public static void generatePage(String term, Map<String, String> m,
+            String folder, TermLinker linker) {
+        generatePage(term, m.value(term), folder, linker);
+    }
 
-        // Prints header
-        writer.println(
-                "<html>\n<head>\n\t<title>" + term + "</title>\n</head>");
+    /**
+     * Takes the the term, its definition, the output folder and a linker built
+     * from all the terms of the glossary. Outputs an html file with the term
+     * and definition in the output folder, with every term found by
+     * {@code linker} in the definition linked to its page. This lets pages be
+     * generated from definitions that are not held in a {@code Map}.
+     *
+     * @param term
+     *            the term for which the page is being created
+     * @param definition
+     *            the definition of the term
+     * @param folder
+     *            the output folder of all the html files
+     * @param linker
+     *            the linker for all the terms of the glossary
+     * @updates out.content
+     * @requires out.is_open
+     * @ensures <pre>
+     * out.content = #out.content *
+     *   [an HTML page with the term and definition]
+     * </pre>
+     */
+    public static void generatePage(String term, String definition,
+            String folder, TermLinker linker) {
+        generatePage(term, definition, linker, new FileSink(folder));
+    }
 
-        // Prints term
-        writer.println("<body>\n<h2><b><i><font color=\"red\">" + term
-                + "</font></i></b></h2>\n");
-        writer.print("<blockquote>");
+    /**
+     * Takes the the term, its definition, a linker built from all the terms
+     * of the glossary and the sink pages go to. Renders the html page of the
+     * term into this thread's {@code PageBuffer} and hands it to {@code sink}
+     * whole, so writing it takes the same few system calls however long the
+     * definition is.
+     *
+     * @param term
+     *            the term for which the page is being created
+     * @param definition
+     *            the definition of the term
+     * @param linker
+     *            the linker for all the terms of the glossary
+     * @param sink
+     *            where the page is written
+     * @ensures [sink has an HTML page with the term and definition]
+     */
+    public static void generatePage(String term, String definition,
+            TermLinker linker, PageSink sink) {
+        generatePage(term, definition, linker, PageTemplates.DEFAULT, sink);
+    }
 
-        int currentPosition = 0;
+    /**
+     * Takes the the term, its definition, a linker built from all the terms
+     * of the glossary, the templates to render with and the sink pages go to.
+     * Renders the term page template into this thread's {@code PageBuffer},
+     * filling its body with the definition, and hands the page to
+     * {@code sink} whole.
+     *
+     * @param term
+     *            the term for which the page is being created
+     * @param definition
+     *            the definition of the term
+     * @param linker
+     *            the linker for all the terms of the glossary
+     * @param templates
+     *            the templates of the page and of its links
+     * @param sink
+     *            where the page is written
+     * @ensures [sink has an HTML page with the term and definition]
+     */
+    public static void generatePage(String term, String definition,
+            TermLinker linker, PageTemplates templates, PageSink sink) {
+        generatePage(term, definition, linker, templates, null, sink);
+    }
 
-        String definition = m.value(term);
-        // Create a set of separators
-        Set<Character> separators = new Set1L<Character>();
-        generateAndAddElements(" \t,.", separators);
-        // Loop through the definition to extract tokens
-        while (currentPosition < definition.length() - 1) {
-            String token = findNextWordOrSeparator(definition, currentPosition,
-                    separators);
-            if (m.hasKey(token)) {
-                writer.println(
-                        "<a href=\"" + token + ".html\">" + token + "</a>");
-            } else {
-                writer.println(token);
-            }
-            currentPosition += token.length();
+    /**
+     * Takes the the term, its definition, a linker built from all the terms
+     * of the glossary, the templates to render with, the link graph of the
+     * glossary and the sink pages go to. Renders the term page as the
+     * overload without a link graph does, with a "Referenced by" section
+     * listing the terms whose definitions link to {@code term}, if there are
+     * any.
+     *
+     * @param term
+     *            the term for which the page is being created
+     * @param definition
+     *            the definition of the term
+     * @param linker
+     *            the linker for all the terms of the glossary
+     * @param templates
+     *            the templates of the page and of its links
+     * @param references
+     *            the link graph of the glossary, or null for no "Referenced
+     *            by" section
+     * @param sink
+     *            where the page is written
+     * @ensures [sink has an HTML page with the term and definition]
+     */
+    public static void generatePage(String term, String definition,
+            TermLinker linker, PageTemplates templates, LinkGraph references,
+            PageSink sink) {
+        generatePage(term, definition, linker, templates, references, null,
+                sink);
+    }
+
+    /**
+     * Generates the page of {@code term} as the overload without
+     * {@code links} does, recording the terms its definition links to in
+     * {@code links}.
+     *
+     * @param term
+     *            the term for which the page is being created
+     * @param definition
+     *            the definition of the term
+     * @param linker
+     *            the linker for all the terms of the glossary
+     * @param templates
+     *            the templates of the page and of its links
+     * @param references
+     *            the link graph of the glossary, or null for no "Referenced
+     *            by" section
+     * @param links
+     *            where the links of the definition are recorded, or null
+     * @param sink
+     *            where the page is written
+     * @ensures [sink has an HTML page with the term and definition]
+     */
+    static void generatePage(String term, String definition,
+            TermLinker linker, PageTemplates templates, LinkGraph references,
+            LinkGraph.Collector links, PageSink sink) {
+        int source = -1;
+        if (links != null) {
+            source = links.id(term, 0, term.length());
         }
+        int id = source;
+        writePage(term,
+                body -> renderDefinition(body, definition, linker,
+                        templates.link(), sink.stats(), links, id),
+                templates, references, sink);
+    }
 
-        writer.print("</blockquote>\n");
+    /**
+     * Renders the term page of {@code entry}, whose definition is already
+     * split into tokens and links, exactly as the overload taking the
+     * definition and a linker renders it.
+     *
+     * @param entry
+     *            the term and its tokenized definition
+     * @param templates
+     *            the templates of the page and of its links
+     * @param references
+     *            the link graph of the glossary, or null for no "Referenced
+     *            by" section
+     * @param sink
+     *            where the page is written
+     * @ensures [sink has an HTML page with the term and definition]
+     */
+    public static void generatePage(LinkedDefinition entry,
+            PageTemplates templates, LinkGraph references, PageSink sink) {
+        writePage(entry.term(), body -> {
+            for (int i = 0; i < entry.tokenCount(); i++) {
+                if (entry.isLink(i)) {
+                    String term = entry.token(i);
+                    templates.link().render(body, term, TermLinker.href(term),
+                            null);
+                } else {
+                    body.print(entry.definition(), entry.start(i),
+                            entry.end(i)).newLine();
+                }
+            }
+        }, templates, references, sink);
+    }
 
-        // Prints footer
-        writer.println(
-                "<hr />\r\n<p>Return to <a href=\"index.html\">index</a>."
-                        + "</p>\r\n</body>\r\n</html>");
+    /**
+     * Renders the term page of {@code term} with {@code definition} as its
+     * body, and a "Referenced by" section if {@code references} has terms
+     * linking to it, and writes it to {@code sink}.
+     *
+     * @param term
+     *            the term for which the page is being created
+     * @param definition
+     *            renders the definition
+     * @param templates
+     *            the templates of the page and of its links
+     * @param references
+     *            the link graph of the glossary, or null for no "Referenced
+     *            by" section
+     * @param sink
+     *            where the page is written
+     */
+    private static void writePage(String term,
+            PageTemplate.Content definition, PageTemplates templates,
+            LinkGraph references, PageSink sink) {
+        PageBuffer page = PageBuffer.forThread();
+        PageTemplate.Content referencedBy = null;
+        if (references != null) {
+            int id = references.id(term);
+            if (id >= 0 && references.referrerCount(id) > 0) {
+                referencedBy = section -> templates.referencedBy().render(
+                        section, term, TermLinker.href(term), entries -> {
+                            for (int k = 0; k < references
+                                    .referrerCount(id); k++) {
+                                String referrer = references.term(
+                                        references.referrer(id, k));
+                                templates.indexEntry().render(entries,
+                                        referrer, TermLinker.href(referrer),
+                                        null);
+                            }
+                        });
+            }
+        }
+        templates.termPage().render(page, term, TermLinker.href(term),
+                definition, referencedBy);
+        page.writeTo(sink, TermLinker.pageName(term));
+    }
 
-        writer.close();
+    /**
+     * Renders {@code definition} into {@code out}, with the longest term
+     * found by {@code linker} at each word rendered by {@code link} and
+     * everything else copied token by token, one token per line.
+     *
+     * @param out
+     *            the page being rendered
+     * @param definition
+     *            the definition
+     * @param linker
+     *            the linker for all the terms of the glossary
+     * @param link
+     *            the template of a link
+     * @param stats
+     *            where the tokens and links rendered are counted
+     * @param collector
+     *            where the terms linked to are recorded, or null
+     * @param source
+     *            the id of the term of {@code definition} in
+     *            {@code collector}, or -1 to record nothing
+     */
+    private static void renderDefinition(PageBuffer out, String definition,
+            TermLinker linker, PageTemplate link, PageStats stats,
+            LinkGraph.Collector collector, int source) {
+        SeparatorTable separators = linker.separators();
+        int currentPosition = 0;
+        int tokens = 0;
+        int links = 0;
+        int[] targets = null;
+        if (source >= 0) {
+            targets = new int[INITIAL_TARGETS];
+        }
+        while (currentPosition < definition.length() - 1) {
+            int linkEnd = linker.match(definition, currentPosition);
+            if (linkEnd > 0) {
+                String term = definition.substring(currentPosition, linkEnd);
+                link.render(out, term, TermLinker.href(term), null);
+                if (targets != null) {
+                    if (links == targets.length) {
+                        targets = Arrays.copyOf(targets, 2 * links);
+                    }
+                    targets[links] = collector.id(definition,
+                            currentPosition, linkEnd);
+                }
+                currentPosition = linkEnd;
+                links++;
+            } else {
+                int tokenEnd = separators.tokenEnd(definition,
+                        currentPosition);
+                out.print(definition, currentPosition, tokenEnd).newLine();
+                currentPosition = tokenEnd;
+            }
+            tokens++;
+        }
+        stats.recordDefinition(tokens, links);
+        if (targets != null) {
+            collector.record(source, targets, links);
+        }
     }
 
     /**
@@ -273,81 +606,578 @@ public final class GlossaryClass {
      * </pre>
      */
     public static void generateIndexPage(Queue<String> terms, String folder) {
-        // Create a writer for the index.html file
-        SimpleWriter writer = new SimpleWriter1L(folder + "//index.html");
-
-        // Print HTML header and body header
-        writer.println("<html>\r\n" + "<head>\r\n"
-                + "<title>Glossary</title>\r\n" + "</head>");
-        writer.println("<body>\r\n" + "<h2>Glossary</h2>\r\n" + "<hr />\r\n"
-                + "<h3>Index</h3>\r\n" + "<ul>");
-
-        // Print term page links
-        Queue<String> temporaryQueue = new Queue1L<String>();
-        while (terms.length() > 0) {
-            String term = terms.dequeue();
-            writer.println(
-                    "<li><a href=\"" + term + ".html\">" + term + "</a></li>");
-            temporaryQueue.enqueue(term);
+        generateIndexPage((Iterable<String>) terms, new FileSink(folder));
+    }
+
+    /**
+     * Takes the sorted terms, in any iterable form, and an output folder, and
+     * creates an html file in the output folder with a list of all the terms
+     * hyperlinked. The terms are visited once, so they can be streamed from
+     * disk.
+     *
+     * @param terms
+     *            the terms, in index order
+     * @param folder
+     *            the output folder of all the html files
+     * @updates out.content
+     * @requires out.is_open
+     * @ensures <pre>
+     * out.content = #out.content *
+     *   [an HTML page with the terms]
+     * </pre>
+     */
+    public static void generateIndexPage(Iterable<String> terms,
+            String folder) {
+        generateIndexPage(terms, new FileSink(folder));
+    }
+
+    /**
+     * Takes the sorted terms and the sink pages go to, and writes the index
+     * page listing all the terms hyperlinked to {@code sink} in one piece.
+     *
+     * @param terms
+     *            the terms, in index order
+     * @param sink
+     *            where the page is written
+     * @ensures [sink has an HTML page with the terms]
+     */
+    public static void generateIndexPage(Iterable<String> terms,
+            PageSink sink) {
+        generateIndexPage(terms, PageTemplates.DEFAULT, sink);
+    }
+
+    /**
+     * Takes the sorted terms, the templates to render with and the sink pages
+     * go to, and writes the index page template to {@code sink} with its
+     * links filled by one index entry per term.
+     *
+     * @param terms
+     *            the terms, in index order
+     * @param templates
+     *            the templates of the index and of its entries
+     * @param sink
+     *            where the page is written
+     * @ensures [sink has an HTML page with the terms]
+     */
+    public static void generateIndexPage(Iterable<String> terms,
+            PageTemplates templates, PageSink sink) {
+        PageBuffer page = PageBuffer.forThread();
+        PageTemplate entry = templates.indexEntry();
+        templates.indexPage().render(page, null, null, links -> {
+            for (String term : terms) {
+                entry.render(links, term, TermLinker.href(term), null);
+            }
+        });
+        page.writeTo(sink, "index.html");
+    }
+
+    /**
+     * Writes the index of {@code terms} to {@code sink}: a single index page,
+     * or the shards and navigation page of a sharded index when
+     * {@code options} asks for one.
+     *
+     * @param terms
+     *            the terms, in index order
+     * @param options
+     *            the templates and index shard mode to use
+     * @param sink
+     *            where the pages are written
+     * @return the number of shards written, 0 for a single index page
+     */
+    static int generateIndex(Iterable<String> terms, GlossaryOptions options,
+            PageSink sink) {
+        int shards = 0;
+        if (options.indexShards() == null) {
+            generateIndexPage(terms, options.templates(), sink);
+        } else {
+            shards = new ShardedIndex(options.indexShards(),
+                    options.collation()).write(terms, options.templates(),
+                    sink);
+        }
+        return shards;
+    }
+
+    /**
+     * Writes the search index of {@code entries} to {@code sink} if
+     * {@code options} asks for one.
+     *
+     * @param entries
+     *            the terms and definitions, in index order
+     * @param linker
+     *            the linker whose separators split definitions into words
+     * @param options
+     *            what to put in the search index
+     * @param sink
+     *            where the files are written
+     */
+    static void generateSearchIndex(Iterator<GlossaryEntry> entries,
+            TermLinker linker, GlossaryOptions options, PageSink sink) {
+        if (options.search() != null) {
+            new SearchIndexWriter(SearchIndexWriter.DEFAULT_CHUNK_SIZE,
+                    options.search().equals(SearchIndexWriter.WORDS))
+                            .write(entries, linker.separators(), sink);
         }
-        terms.transferFrom(temporaryQueue);
+    }
 
-        // Print HTML footer and close the writer
-        writer.println("</ul>\r\n" + "</body>\r\n" + "</html>");
-        writer.close();
+    /**
+     * Returns the link graph of {@code m} if {@code options} asks for
+     * "Referenced by" sections, and null otherwise.
+     *
+     * @param terms
+     *            the sorted terms of {@code m}
+     * @param m
+     *            the map containing all the terms and definitions
+     * @param linker
+     *            the linker for the terms of {@code m}
+     * @param options
+     *            whether to render reverse links
+     * @return the link graph, or null
+     */
+    static LinkGraph referencesFor(Queue<String> terms, Map<String, String> m,
+            TermLinker linker, GlossaryOptions options) {
+        LinkGraph references = null;
+        if (options.referencedBy()) {
+            references = LinkGraph.build(terms, GlossaryEntry.entries(terms, m),
+                    linker);
+        }
+        return references;
     }
 
     /**
-     * Main method.
+     * Generates the page of every term in {@code terms} into {@code folder},
+     * on a worker pool when {@code options} asks for more than one thread.
      *
-     * @param args
-     *            the command line arguments
+     * @param terms
+     *            the terms to generate pages for
+     * @param m
+     *            the map containing all the terms and definitions
+     * @param folder
+     *            the output folder of all the html files
+     * @param linker
+     *            the linker for the terms of {@code m}
+     * @param options
+     *            how many threads and open files to use
+     * @requires [every term in terms is in DOMAIN(m)]
+     * @ensures [a page for every term in terms is written to folder]
      */
-    public static void main(String[] args) {
-        // Create reader and writer for input and output
-        SimpleReader reader = new SimpleReader1L();
-        SimpleWriter writer = new SimpleWriter1L();
+    static void generatePages(Queue<String> terms, Map<String, String> m,
+            String folder, TermLinker linker, GlossaryOptions options) {
+        generatePages(terms, m, new FileSink(folder), linker, null, options);
+    }
+
+    /**
+     * Generates the page of every term in {@code terms} into {@code sink}, on
+     * a worker pool when {@code options} asks for more than one thread.
+     *
+     * @param terms
+     *            the terms to generate pages for
+     * @param m
+     *            the map containing all the terms and definitions
+     * @param sink
+     *            where the pages are written
+     * @param linker
+     *            the linker for the terms of {@code m}
+     * @param references
+     *            the link graph of {@code m}, or null for no "Referenced by"
+     *            sections
+     * @param options
+     *            how many threads and open files to use
+     * @requires [every term in terms is in DOMAIN(m)]
+     * @ensures [a page for every term in terms is written to sink]
+     */
+    static void generatePages(Queue<String> terms, Map<String, String> m,
+            PageSink sink, TermLinker linker, LinkGraph references,
+            GlossaryOptions options) {
+        generatePages(terms, m, sink, linker, references, null, options);
+    }
+
+    /**
+     * Generates the page of every term in {@code terms} into {@code sink} as
+     * the overload without {@code links} does, recording the terms every
+     * definition links to in {@code links}.
+     *
+     * @param terms
+     *            the terms to generate pages for
+     * @param m
+     *            the map containing all the terms and definitions
+     * @param sink
+     *            where the pages are written
+     * @param linker
+     *            the linker for the terms of {@code m}
+     * @param references
+     *            the link graph of {@code m}, or null for no "Referenced by"
+     *            sections
+     * @param links
+     *            where the links of every definition are recorded, or null
+     * @param options
+     *            how many threads and open files to use
+     * @requires [every term in terms is in DOMAIN(m)]
+     * @ensures [a page for every term in terms is written to sink]
+     */
+    static void generatePages(Queue<String> terms, Map<String, String> m,
+            PageSink sink, TermLinker linker, LinkGraph references,
+            LinkGraph.Collector links, GlossaryOptions options) {
+        if (options.threads() > 1) {
+            new ParallelPageGenerator(options.threads(),
+                    options.maxOpenFiles(), options.templates()).generatePages(
+                            GlossaryEntry.entries(terms, m), sink, linker,
+                            references, links);
+        } else {
+            Queue<String> tempQueue = new Queue1L<String>();
+            while (terms.length() > 0) {
+                String term = terms.dequeue();
+                generatePage(term, m.value(term), linker,
+                        options.templates(), references, links, sink);
+                tempQueue.enqueue(term);
+            }
+            terms.transferFrom(tempQueue);
+        }
+    }
 
-        // Prompt user for input file name and output folder name
-        writer.println("Enter the input file name:");
-        String inputFileName = reader.nextLine();
-        writer.println("Enter the output folder name:");
-        String outputFolderName = reader.nextLine();
+    /**
+     * Builds the glossary described by {@code options} holding every term and
+     * definition in memory, and reports the outcome of an incremental build
+     * to {@code writer}. With more than one thread, stages that do not wait
+     * on each other's data overlap through a {@link BuildPipeline}, with the
+     * same output as the serial build.
+     *
+     * @param options
+     *            the build options
+     * @param order
+     *            ordering of the terms
+     * @param keys
+     *            the sort keys of {@code order}, or null if the terms are
+     *            sorted with {@code order}
+     * @param malformed
+     *            called with each malformed block of the terms file
+     * @param sink
+     *            where the pages are written, or null if the glossary is
+     *            served instead
+     * @param console
+     *            called with each line reported
+     * @param metrics
+     *            where the stages are timed
+     */
+    private static void buildInMemory(GlossaryOptions options,
+            Comparator<String> order, SortKeys keys,
+            Consumer<GlossaryFormatException> malformed, PageSink sink,
+            Consumer<String> console, BuildMetrics metrics) {
 
-        // Read terms and definitions from input file
         Queue<String> termQueue = new Queue1L<String>();
         Map<String, String> glossaryMap = new Map1L<>();
-        SimpleReader fileReader = new SimpleReader1L(inputFileName);
-        while (!fileReader.atEOS()) {
-            String term = fileReader.nextLine();
-            termQueue.enqueue(term);
-            String definition = "";
-            String line = "";
-            do {
-                line = fileReader.nextLine();
-                definition += " " + line;
-            } while (!line.equals(""));
-            glossaryMap.add(term, definition);
+        LinkGraph links = null;
+        boolean current = options.compiled() != null && CompiledGlossary
+                .isCurrent(options.compiled(), options.inputFile());
+        if (current) {
+            // Map the compiled glossary, whose terms are already sorted
+            metrics.start("load");
+            CompiledGlossary compiled = CompiledGlossary
+                    .load(options.compiled());
+            Iterator<GlossaryEntry> entries = compiled.entries();
+            while (entries.hasNext()) {
+                GlossaryEntry entry = entries.next();
+                termQueue.enqueue(entry.term());
+                glossaryMap.add(entry.term(), entry.definition());
+            }
+            if (options.referencedBy()) {
+                links = compiled.links();
+            }
+        } else {
+            // Read terms and definitions from input file, skipping and
+            // reporting malformed blocks
+            metrics.start("parse");
+            Consumer<GlossaryEntry> add = entry -> {
+                termQueue.enqueue(entry.term());
+                glossaryMap.add(entry.term(), entry.definition());
+            };
+            if (options.threads() > 1) {
+                // Parse on a thread of its own while the entries are added
+                BuildPipeline.parse(options.inputFile(), malformed, add);
+            } else {
+                GlossaryReader fileReader = GlossaryReader
+                        .open(options.inputFile(), malformed);
+                while (fileReader.hasNext()) {
+                    add.accept(fileReader.next());
+                }
+                fileReader.close();
+            }
+
+            // Sort the terms alphabetically
+            metrics.start("sort");
+            if (keys != null) {
+                sortQueueByKeys(termQueue, keys);
+            } else {
+                sortQueue(termQueue, order);
+            }
+        }
+
+        BuildPipeline pipeline = null;
+        PageSink pages = sink;
+        if (options.threads() > 1 && sink != null && !options.incremental()
+                && options.formats().equals(List.of(GlossaryRenderer.HTML))) {
+            // The index needs only the sorted terms, so it is written while
+            // the terms are linked and their pages rendered
+            pipeline = new BuildPipeline(sink, metrics);
+            pipeline.stage("index",
+                    part -> generateIndex(termQueue, options, part));
+            pages = pipeline.part();
+        }
+        try {
+            buildSorted(options, termQueue, glossaryMap, links, current,
+                    pipeline, pages, console, metrics);
+        } finally {
+            if (pipeline != null) {
+                pipeline.close();
+            }
+        }
+    }
+
+    /**
+     * Builds the glossary of the sorted terms {@code termQueue} and the map
+     * {@code glossaryMap} as {@link #buildInMemory} does, with the index
+     * already being written by {@code pipeline} if there is one.
+     *
+     * @param options
+     *            the build options
+     * @param termQueue
+     *            the terms, sorted
+     * @param glossaryMap
+     *            the map containing all the terms and definitions
+     * @param compiledLinks
+     *            the link graph of the compiled glossary loaded, or null
+     * @param current
+     *            whether the glossary was loaded from its compiled form
+     * @param pipeline
+     *            the stages writing alongside this thread, or null if the
+     *            build is serial
+     * @param sink
+     *            where the pages are written: the build's sink, or the part
+     *            of {@code pipeline} following the index, or null if the
+     *            glossary is served instead
+     * @param console
+     *            called with each line reported
+     * @param metrics
+     *            where the stages are timed
+     */
+    private static void buildSorted(GlossaryOptions options,
+            Queue<String> termQueue, Map<String, String> glossaryMap,
+            LinkGraph compiledLinks, boolean current, BuildPipeline pipeline,
+            PageSink sink, Consumer<String> console, BuildMetrics metrics) {
+        LinkGraph links = compiledLinks;
+        metrics.start("link");
+        // Created from the terms in index order, so it numbers them by id
+        TermLinker linker = new TermLinker(termQueue,
+                TermLinker.DEFAULT_SEPARATORS);
+        if (options.compiled() != null && !current) {
+            // Compile the glossary so the next build can skip parsing it
+            links = LinkGraph.build(termQueue,
+                    GlossaryEntry.entries(termQueue, glossaryMap), linker);
+            CompiledGlossary.write(options.compiled(), options.inputFile(),
+                    termQueue, glossaryMap, links);
+        }
+        LinkGraph references = null;
+        if (options.referencedBy() && !options.incremental()) {
+            // The terms linking to each term, for its "Referenced by" list
+            references = links;
+            if (references == null) {
+                references = referencesFor(termQueue, glossaryMap, linker,
+                        options);
+            }
         }
+        LinkGraph analysed = references;
+        if (analysed == null) {
+            analysed = links;
+        }
+        LinkGraph.Collector collector = null;
+        if (options.analysis() != null && analysed == null) {
+            // Record the links as the pages are rendered, or find them
+            // in a pass of their own when not every page is
+            if (!options.incremental() && options.formats()
+                    .equals(List.of(GlossaryRenderer.HTML))) {
+                collector = new LinkGraph.Collector(termQueue, linker);
+            } else {
+                metrics.start("analyze");
+                analysed = LinkGraph.build(termQueue,
+                        GlossaryEntry.entries(termQueue, glossaryMap), linker);
+            }
+        }
+        if (options.servePort() > 0) {
+            // Render each term page when it is first requested
+            GlossaryServer server = new GlossaryServer(termQueue, glossaryMap,
+                    linker, references, options);
+            metrics.end();
+            server.start(options.servePort());
+            console.accept(
+                    "Serving http://localhost:" + server.port() + "/");
+        } else if (options.incremental()) {
+            // Regenerate only the pages whose inputs changed
+            metrics.start("incremental");
+            IncrementalBuilder.Result result = IncrementalBuilder.build(
+                    termQueue, glossaryMap, options.outputFolder(), sink,
+                    linker, options);
+            console.accept("Regenerated " + result.pagesWritten() + " of "
+                    + termQueue.length() + " pages, deleted "
+                    + result.pagesDeleted() + ", index "
+                    + (result.indexWritten() ? "rewritten" : "unchanged"));
+        } else if (!options.formats().equals(List.of(GlossaryRenderer.HTML))) {
+            // Tokenize and link every definition once for all the formats
+            MultiFormatBuilder.build(termQueue, glossaryMap, linker,
+                    references, options, sink, metrics);
+        } else if (pipeline != null) {
+            // Write the search index while the pages are rendered; the
+            // terms are only read until every stage is done
+            pipeline.stage("search",
+                    part -> generateSearchIndex(
+                            GlossaryEntry.entries(termQueue, glossaryMap),
+                            linker, options, part));
+            metrics.start("pages");
+            generatePages(termQueue, glossaryMap, sink, linker, references,
+                    collector, options);
+            sink.close();
+            metrics.start("wait");
+            pipeline.finish();
+        } else {
+            // Create index page
+            metrics.start("index");
+            generateIndex(termQueue, options, sink);
+
+            // Create page for each term, with the terms linking to it
+            metrics.start("pages");
+            generatePages(termQueue, glossaryMap, sink, linker, references,
+                    collector, options);
+
+            // Create the search index
+            metrics.start("search");
+            generateSearchIndex(GlossaryEntry.entries(termQueue, glossaryMap),
+                    linker, options, sink);
+        }
+        if (options.analysis() != null) {
+            // Report orphans, dead ends and cycles of the links
+            metrics.start("analyze");
+            if (collector != null) {
+                analysed = collector.graph();
+            }
+            GraphAnalysis.of(analysed).write(options.analysis());
+        }
+    }
 
-        // Sort the terms alphabetically
+    /**
+     * Builds the glossary described by {@code options}, or serves or watches
+     * it if {@code options} asks to, reporting malformed blocks, the outcome
+     * of an incremental build and, if asked for, what was written to
+     * {@code console}, and writing the timings of its stages to the metrics
+     * file if {@code options} names one.
+     *
+     * @param options
+     *            the build options
+     * @param console
+     *            called with each line reported
+     * @return what the sink wrote, or null if the glossary is served or
+     *         watched
+     */
+    static PageStats build(GlossaryOptions options, Consumer<String> console) {
+        Consumer<GlossaryFormatException> malformed = e -> console
+                .accept("Skipping malformed block, " + e.getMessage());
         Comparator<String> stringComparator = new StringComparator();
-        sortQueue(termQueue, stringComparator);
+        SortKeys keys = null;
+        if (options.collation() != null) {
+            // Sorted on collation keys, computed once per term
+            CollationComparator collation = new CollationComparator(
+                    options.collation());
+            stringComparator = collation;
+            keys = collation;
+        }
 
-        // Create index page
-        generateIndexPage(termQueue, outputFolderName);
+        BuildMetrics metrics = new BuildMetrics();
+        PageStats stats = null;
+        if (options.watch()) {
+            // Rewrite the pages every save affects until the process is
+            // stopped
+            new GlossaryWatcher(options, stringComparator, console).watch();
+        } else if (options.servePort() > 0) {
+            // Serve until the process is stopped, writing nothing
+            buildInMemory(options, stringComparator, keys, malformed, null,
+                    console, metrics);
+        } else {
+            PageSink sink = PageSink.open(options.sink(),
+                    options.outputFolder());
+            CompressingSink compressing = null;
+            if (options.gzipLevel() > 0) {
+                // Compress pages on threads of their own while rendering
+                // goes on
+                compressing = new CompressingSink(sink, options.gzipLevel(),
+                        !options.gzipOnly(), options.threads());
+                sink = compressing;
+            }
+            boolean closed = false;
+            try {
+                if (options.externalSortBudget() > 0) {
+                    // Sort on disk and keep definitions there, for
+                    // glossaries larger than the heap
+                    ExternalSortBuilder.build(options, stringComparator, keys,
+                            malformed, sink, metrics);
+                } else {
+                    buildInMemory(options, stringComparator, keys, malformed,
+                            sink, console, metrics);
+                }
+                metrics.start("close");
+                sink.close();
+                closed = true;
+            } finally {
+                if (!closed && compressing != null) {
+                    // Pages may wait on others that will never be written,
+                    // so stop the compressing threads rather than close
+                    compressing.abort();
+                }
+            }
+            stats = sink.stats();
+            if (options.metrics() != null) {
+                metrics.write(options.metrics(), stats);
+            }
+            if (options.stats()) {
+                console.accept("Wrote " + stats.report());
+                if (compressing != null) {
+                    console.accept("Compressed " + compressing.report());
+                }
+            }
+        }
+        return stats;
+    }
 
-        // Create page for each term
-        Queue<String> tempQueue = new Queue1L<String>();
-        while (termQueue.length() > 0) {
-            String term = termQueue.dequeue();
-            generatePage(term, glossaryMap, outputFolderName);
-            tempQueue.enqueue(term);
+    /**
+     * Main method. With no arguments the input file and output folder are
+     * read from the console; otherwise they and any options are taken from
+     * {@code args} as described by {@link GlossaryOptions#USAGE}.
+     *
+     * @param args
+     *            the command line arguments
+     */
+    public static void main(String[] args) {
+        // Create reader and writer for input and output
+        SimpleReader reader = new SimpleReader1L();
+        SimpleWriter writer = new SimpleWriter1L();
+
+        GlossaryOptions options;
+        if (args.length == 0) {
+            // Prompt user for input file name and output folder name
+            writer.println("Enter the input file name:");
+            String inputFileName = reader.nextLine();
+            writer.println("Enter the output folder name:");
+            String outputFolderName = reader.nextLine();
+            options = new GlossaryOptions(inputFileName, outputFolderName);
+        } else {
+            try {
+                options = GlossaryOptions.parse(args);
+            } catch (IllegalArgumentException e) {
+                writer.println(e.getMessage());
+                reader.close();
+                writer.close();
+                return;
+            }
         }
-        termQueue.transferFrom(tempQueue);
+        build(options, writer::println);
 
         // Close input and output streams
-        fileReader.close();
         reader.close();
         writer.close();
     }
@@ -0,0 +1,87 @@
+import java.util.Iterator;
+
+import components.map.Map;
+
+/**
+ * A term and its definition as read from a terms file.
+ *
+ * @author Yakob Getu
+ *
+ */
+public final class GlossaryEntry {
+
+    /**
+     * The term being defined.
+     */
+    private final String term;
+
+    /**
+     * The definition of the term.
+     */
+    private final String definition;
+
+    /**
+     * Creates an entry for {@code term} with the given {@code definition}.
+     *
+     * @param term
+     *            the term being defined
+     * @param definition
+     *            the definition of the term
+     */
+    public GlossaryEntry(String term, String definition) {
+        this.term = term;
+        this.definition = definition;
+    }
+
+    /**
+     * Returns the entries of {@code terms}, in order, with their definitions
+     * looked up in {@code m} as each entry is taken.
+     *
+     * @param terms
+     *            the terms
+     * @param m
+     *            the map containing all the terms and definitions
+     * @return an iterator over the entries
+     * @requires [every term in terms is in DOMAIN(m)]
+     */
+    public static Iterator<GlossaryEntry> entries(Iterable<String> terms,
+            Map<String, String> m) {
+        Iterator<String> it = terms.iterator();
+        return new Iterator<GlossaryEntry>() {
+            @Override
+            public boolean hasNext() {
+                return it.hasNext();
+            }
+
+            @Override
+            public GlossaryEntry next() {
+                String term = it.next();
+                return new GlossaryEntry(term, m.value(term));
+            }
+        };
+    }
+
+    /**
+     * Returns the term being defined.
+     *
+     * @return the term
+     */
+    public String term() {
+        return this.term;
+    }
+
+    /**
+     * Returns the definition of the term.
+     *
+     * @return the definition
+     */
+    public String definition() {
+        return this.definition;
+    }
+
+    @Override
+    public String toString() {
+        return this.term + ":" + this.definition;
+    }
+
+}
@@ -0,0 +1,41 @@
+/**
+ * Thrown or reported when a block of a terms file is malformed.
+ *
+ * @author Yakob Getu
+ *
+ */
+public final class GlossaryFormatException extends RuntimeException {
+
+    /**
+     * Serial version UID.
+     */
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Line of the terms file the malformed block starts on, counting from 1.
+     */
+    private final int line;
+
+    /**
+     * Creates an exception for a malformed block starting on {@code line}.
+     *
+     * @param line
+     *            the line the block starts on, counting from 1
+     * @param message
+     *            what is wrong with the block
+     */
+    public GlossaryFormatException(int line, String message) {
+        super("line " + line + ": " + message);
+        this.line = line;
+    }
+
+    /**
+     * Returns the line the malformed block starts on.
+     *
+     * @return the line number, counting from 1
+     */
+    public int line() {
+        return this.line;
+    }
+
+}
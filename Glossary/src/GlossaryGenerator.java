@@ -0,0 +1,437 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Random;
+
+import components.simplewriter.SimpleWriter;
+import components.simplewriter.SimpleWriter1L;
+
+/**
+ * Writes reproducible random terms files in the format {@code GlossaryClass}
+ * reads, so builds of any size can be measured on the same input. Terms are
+ * made of two or more syllables spelled from the index of the term, so they
+ * are unique without being checked; a term spelled in the Unicode alphabet
+ * mixes accented Latin, Greek, Cyrillic, CJK and a character outside the
+ * Basic Multilingual Plane. Definitions mix filler words with references to
+ * other terms, and their length is drawn from a fixed, uniform or geometric
+ * distribution around a mean; the geometric one has a long tail of long
+ * definitions.
+ *
+ * @author Yakob Getu
+ *
+ */
+public final class GlossaryGenerator {
+
+    /**
+     * Usage message of the generator program.
+     */
+    public static final String USAGE = "usage: GlossaryGenerator "
+            + "<output file> <terms> [-seed n] [-words mean] "
+            + "[-lengths fixed|uniform|geometric] [-lines n] "
+            + "[-links percent] [-unicode percent]";
+
+    /**
+     * Every definition has the mean number of words.
+     */
+    public static final String FIXED = "fixed";
+
+    /**
+     * Definition lengths are uniform in [1, 2 * mean - 1].
+     */
+    public static final String UNIFORM = "uniform";
+
+    /**
+     * Definition lengths are one more than a geometric variable.
+     */
+    public static final String GEOMETRIC = "geometric";
+
+    /**
+     * Syllables of ASCII terms; no two start with the same character, so
+     * different indices never spell the same term.
+     */
+    private static final String[] SYLLABLES = { "ba", "ce", "di", "fo", "gu",
+            "ka", "le", "mi", "no", "pu", "ra", "se", "ti", "vo", "wu",
+            "ze" };
+
+    /**
+     * Syllables of Unicode terms, each with a non-ASCII character and, like
+     * {@link #SYLLABLES}, a first character no other one starts with.
+     */
+    private static final String[] UNICODE_SYLLABLES = { "b\u00e1", "\u00e7e",
+            "d\u00ef", "f\u00f6", "g\u00fc", "\u03ba\u03b1", "\u03bb\u03b5",
+            "\u03bc\u03b9", "\u03bd\u03bf", "\u043f\u0443", "\u0440\u0430",
+            "\u65e5", "\u672c", "\u6c34", "\u706b", "\ud83c\udf1f" };
+
+    /**
+     * Filler words of definitions; none is two or more {@link #SYLLABLES}.
+     */
+    private static final String[] WORDS = { "a", "an", "the", "of", "and",
+            "that", "with", "which", "used", "when", "every", "value",
+            "defined", "related", "similar", "process" };
+
+    /**
+     * Filler words of definitions with Unicode content.
+     */
+    private static final String[] UNICODE_WORDS = { "caf\u00e9",
+            "na\u00efve", "\u00fcber", "\u03bb\u03cc\u03b3\u03bf\u03c2",
+            "\u0441\u043b\u043e\u0432\u043e", "\u6f22\u5b57",
+            "\ud83d\udcd6" };
+
+    /**
+     * A comma follows one in this many words.
+     */
+    private static final int COMMA_EVERY = 6;
+
+    /**
+     * Seed of the random glossary unless another is set.
+     */
+    private static final long DEFAULT_SEED = 42L;
+
+    /**
+     * Percentages are out of this.
+     */
+    private static final int PERCENT = 100;
+
+    /**
+     * Number of terms.
+     */
+    private final int size;
+
+    /**
+     * Seed of the random glossary.
+     */
+    private long seed = DEFAULT_SEED;
+
+    /**
+     * Mean number of words of a definition.
+     */
+    private int words = 12;
+
+    /**
+     * Distribution of the definition lengths.
+     */
+    private String lengths = GEOMETRIC;
+
+    /**
+     * The most lines a definition is split over.
+     */
+    private int lines = 1;
+
+    /**
+     * Percentage of definition words that are references to terms.
+     */
+    private int links = 25;
+
+    /**
+     * Percentage of terms and filler words with Unicode content.
+     */
+    private int unicode;
+
+    /**
+     * Creates a generator of {@code size} terms with single-line definitions
+     * of 12 words on average, a quarter of them references, and no Unicode
+     * content.
+     *
+     * @param size
+     *            the number of terms
+     * @requires size > 0
+     */
+    public GlossaryGenerator(int size) {
+        assert size > 0 : "Violation of: size > 0";
+        this.size = size;
+    }
+
+    /**
+     * Sets the seed; the same seed and settings write the same file.
+     *
+     * @param value
+     *            the seed
+     * @return this generator
+     */
+    public GlossaryGenerator seed(long value) {
+        this.seed = value;
+        return this;
+    }
+
+    /**
+     * Sets the mean and distribution of the definition lengths.
+     *
+     * @param mean
+     *            the mean number of words
+     * @param distribution
+     *            {@link #FIXED}, {@link #UNIFORM} or {@link #GEOMETRIC}
+     * @return this generator
+     * @throws IllegalArgumentException
+     *             if {@code mean} is not positive or the distribution is not
+     *             known
+     */
+    public GlossaryGenerator words(int mean, String distribution) {
+        if (mean < 1) {
+            throw new IllegalArgumentException(
+                    "-words must be positive: " + mean);
+        }
+        if (!distribution.equals(FIXED) && !distribution.equals(UNIFORM)
+                && !distribution.equals(GEOMETRIC)) {
+            throw new IllegalArgumentException(
+                    "unknown length distribution: " + distribution);
+        }
+        this.words = mean;
+        this.lengths = distribution;
+        return this;
+    }
+
+    /**
+     * Sets the most lines a definition is split over; each definition is
+     * split over a uniform number of lines up to it and its word count.
+     *
+     * @param most
+     *            the most lines
+     * @return this generator
+     * @throws IllegalArgumentException
+     *             if {@code most} is not positive
+     */
+    public GlossaryGenerator lines(int most) {
+        if (most < 1) {
+            throw new IllegalArgumentException(
+                    "-lines must be positive: " + most);
+        }
+        this.lines = most;
+        return this;
+    }
+
+    /**
+     * Sets the percentage of definition words that are references to terms.
+     *
+     * @param percent
+     *            the percentage
+     * @return this generator
+     * @throws IllegalArgumentException
+     *             if {@code percent} is not in [0, 100]
+     */
+    public GlossaryGenerator links(int percent) {
+        this.links = checkPercent("-links", percent);
+        return this;
+    }
+
+    /**
+     * Sets the percentage of terms and filler words with Unicode content.
+     *
+     * @param percent
+     *            the percentage
+     * @return this generator
+     * @throws IllegalArgumentException
+     *             if {@code percent} is not in [0, 100]
+     */
+    public GlossaryGenerator unicode(int percent) {
+        this.unicode = checkPercent("-unicode", percent);
+        return this;
+    }
+
+    /**
+     * Returns {@code percent} if it is a percentage.
+     *
+     * @param flag
+     *            the flag it was given with
+     * @param percent
+     *            the value
+     * @return {@code percent}
+     * @throws IllegalArgumentException
+     *             if {@code percent} is not in [0, 100]
+     */
+    private static int checkPercent(String flag, int percent) {
+        if (percent < 0 || percent > PERCENT) {
+            throw new IllegalArgumentException(
+                    flag + " must be a percentage: " + percent);
+        }
+        return percent;
+    }
+
+    /**
+     * Spells term {@code index} as two or more syllables of
+     * {@code syllables}, as the digits of {@code index + syllables.length} in
+     * base {@code syllables.length}.
+     *
+     * @param index
+     *            the index of the term
+     * @param syllables
+     *            the alphabet
+     * @return the term
+     */
+    private static String spell(int index, String[] syllables) {
+        StringBuilder term = new StringBuilder();
+        long digits = (long) index + syllables.length;
+        while (digits > 0) {
+            term.insert(0, syllables[(int) (digits % syllables.length)]);
+            digits /= syllables.length;
+        }
+        return term.toString();
+    }
+
+    /**
+     * Draws the number of words of a definition.
+     *
+     * @param random
+     *            the source of randomness
+     * @return the number of words, at least 1
+     */
+    private int drawLength(Random random) {
+        int result = this.words;
+        if (this.lengths.equals(UNIFORM)) {
+            result = 1 + random.nextInt(2 * this.words - 1);
+        } else if (this.lengths.equals(GEOMETRIC) && this.words > 1) {
+            // Failures before the first success, with mean words - 1
+            double p = 1.0 / this.words;
+            double u = 1.0 - random.nextDouble();
+            result = 1 + (int) Math.floor(Math.log(u) / Math.log(1.0 - p));
+        }
+        return result;
+    }
+
+    /**
+     * Writes the terms file to {@code out}.
+     *
+     * @param out
+     *            where the terms file is written
+     * @throws IOException
+     *             if {@code out} cannot be written
+     */
+    public void write(Writer out) throws IOException {
+        Random random = new Random(this.seed);
+        String[] terms = new String[this.size];
+        for (int i = 0; i < this.size; i++) {
+            if (random.nextInt(PERCENT) < this.unicode) {
+                terms[i] = spell(i, UNICODE_SYLLABLES);
+            } else {
+                terms[i] = spell(i, SYLLABLES);
+            }
+        }
+        StringBuilder block = new StringBuilder();
+        for (String term : terms) {
+            block.setLength(0);
+            block.append(term).append('\n');
+            int length = this.drawLength(random);
+            int lineCount = 1 + random.nextInt(Math.min(this.lines, length));
+            for (int j = 0; j < length; j++) {
+                if (random.nextInt(PERCENT) < this.links) {
+                    block.append(terms[random.nextInt(this.size)]);
+                } else if (random.nextInt(PERCENT) < this.unicode) {
+                    block.append(UNICODE_WORDS[random
+                            .nextInt(UNICODE_WORDS.length)]);
+                } else {
+                    block.append(WORDS[random.nextInt(WORDS.length)]);
+                }
+                if (j == length - 1) {
+                    block.append('.');
+                } else if (j % COMMA_EVERY == COMMA_EVERY - 1) {
+                    block.append(',');
+                }
+                // Break the words into lineCount nearly equal lines
+                if ((long) (j + 1) * lineCount / length != (long) j
+                        * lineCount / length) {
+                    block.append('\n');
+                } else {
+                    block.append(' ');
+                }
+            }
+            block.append('\n');
+            out.append(block);
+        }
+        out.flush();
+    }
+
+    /**
+     * Writes the terms file to the UTF-8 file {@code fileName}.
+     *
+     * @param fileName
+     *            the name of the terms file
+     * @throws UncheckedIOException
+     *             if the file cannot be written
+     */
+    public void write(String fileName) {
+        try (BufferedWriter out = Files.newBufferedWriter(
+                Paths.get(fileName), StandardCharsets.UTF_8)) {
+            this.write(out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Parses the arguments of the generator program after the output file.
+     *
+     * @param args
+     *            the command-line arguments
+     * @return the configured generator
+     * @throws IllegalArgumentException
+     *             if the arguments are malformed
+     */
+    static GlossaryGenerator parse(String[] args) {
+        if (args.length < 2 || args.length % 2 != 0) {
+            throw new IllegalArgumentException(USAGE);
+        }
+        try {
+            int size = Integer.parseInt(args[1]);
+            if (size < 1) {
+                throw new IllegalArgumentException(
+                        "the number of terms must be positive: " + size);
+            }
+            GlossaryGenerator generator = new GlossaryGenerator(size);
+            int mean = generator.words;
+            String distribution = generator.lengths;
+            for (int i = 2; i < args.length; i += 2) {
+                String value = args[i + 1];
+                switch (args[i]) {
+                    case "-seed":
+                        generator.seed(Long.parseLong(value));
+                        break;
+                    case "-words":
+                        mean = Integer.parseInt(value);
+                        break;
+                    case "-lengths":
+                        distribution = value;
+                        break;
+                    case "-lines":
+                        generator.lines(Integer.parseInt(value));
+                        break;
+                    case "-links":
+                        generator.links(Integer.parseInt(value));
+                        break;
+                    case "-unicode":
+                        generator.unicode(Integer.parseInt(value));
+                        break;
+                    default:
+                        throw new IllegalArgumentException(
+                                "unknown option: " + args[i]);
+                }
+            }
+            return generator.words(mean, distribution);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(
+                    "not a number: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Writes a terms file of {@code args[1]} terms to {@code args[0]}.
+     *
+     * @param args
+     *            the output file, the number of terms and options
+     */
+    public static void main(String[] args) {
+        SimpleWriter writer = new SimpleWriter1L();
+        try {
+            parse(args).write(args[0]);
+        } catch (IllegalArgumentException e) {
+            writer.println(e.getMessage());
+            if (!e.getMessage().equals(USAGE)) {
+                writer.println(USAGE);
+            }
+        }
+        writer.close();
+    }
+
+}
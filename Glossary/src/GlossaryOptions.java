@@ -0,0 +1,632 @@
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.zip.Deflater;
+
+/**
+ * Command line options for building a glossary.
+ *
+ * @author Yakob Getu
+ *
+ */
+public final class GlossaryOptions {
+
+    /**
+     * Usage message printed when the arguments cannot be parsed.
+     */
+    public static final String USAGE = "usage: GlossaryClass <input file> "
+            + "<output folder> [-threads n] [-maxOpenFiles n] [-incremental] "
+            + "[-externalSort megabytes] [-sink file|zip|pack|memory] [-stats] "
+            + "[-templates folder] [-indexShards letter|n] "
+            + "[-search terms|words] [-referencedBy] [-compiled file] "
+            + "[-gzip level] [-gzipOnly] [-serve port] "
+            + "[-cacheMegabytes n] [-collate locale] [-metrics file] "
+            + "[-formats html,json,markdown] [-watch] [-analyze file]";
+
+    /**
+     * Highest TCP port number.
+     */
+    private static final int MAX_PORT = 65535;
+
+    /**
+     * Default size of the rendered page cache of the server in megabytes.
+     */
+    private static final int DEFAULT_CACHE_MEGABYTES = 64;
+
+    /**
+     * Name of the terms file to read.
+     */
+    private final String inputFile;
+
+    /**
+     * Name of the folder the pages are written to.
+     */
+    private final String outputFolder;
+
+    /**
+     * Number of worker threads generating pages, more than one of which also
+     * overlaps the stages of the build; 1 means serial.
+     */
+    private int threads = 1;
+
+    /**
+     * Maximum number of pages in flight at once, and so of files open.
+     */
+    private int maxOpenFiles;
+
+    /**
+     * Whether to regenerate only the pages that are out of date.
+     */
+    private boolean incremental;
+
+    /**
+     * Memory budget of the external sort buffer in megabytes; 0 sorts in
+     * memory.
+     */
+    private int externalSortMegabytes;
+
+    /**
+     * Kind of {@link PageSink} the pages are written to.
+     */
+    private String sink = PageSink.FILE;
+
+    /**
+     * Whether to report what the sink wrote.
+     */
+    private boolean stats;
+
+    /**
+     * The templates pages are rendered from.
+     */
+    private PageTemplates templates = PageTemplates.DEFAULT;
+
+    /**
+     * How to shard the index, or null for a single index page.
+     */
+    private String indexShards;
+
+    /**
+     * What to put in the search index, or null to write none.
+     */
+    private String search;
+
+    /**
+     * Whether term pages list the terms whose definitions link to them.
+     */
+    private boolean referencedBy;
+
+    /**
+     * Compiled glossary file loaded instead of the terms file when current,
+     * and written otherwise, or null to always parse the terms file.
+     */
+    private String compiled;
+
+    /**
+     * Compression level of the gzip copy of every page, or 0 for none.
+     */
+    private int gzipLevel;
+
+    /**
+     * Whether only the gzip copy of every page is written.
+     */
+    private boolean gzipOnly;
+
+    /**
+     * Port the glossary is served on instead of being written, or 0 to write
+     * it.
+     */
+    private int servePort;
+
+    /**
+     * Size of the rendered page cache of the server in megabytes.
+     */
+    private int cacheMegabytes = DEFAULT_CACHE_MEGABYTES;
+
+    /**
+     * Locale whose dictionary order sorts the terms, or null to sort by
+     * UTF-16 code unit.
+     */
+    private Locale collation;
+
+    /**
+     * File the build's timings and counters are written to, or null.
+     */
+    private String metrics;
+
+    /**
+     * Formats the glossary is written in, in the order given.
+     */
+    private List<String> formats = List.of(GlossaryRenderer.HTML);
+
+    /**
+     * Whether to keep the glossary in memory and rewrite the pages a change
+     * to the terms file affects whenever it is saved.
+     */
+    private boolean watch;
+
+    /**
+     * File a report of the orphans, dead ends and cycles of the links is
+     * written to, or null.
+     */
+    private String analysis;
+
+    /**
+     * Creates options for a serial build of {@code inputFile} into
+     * {@code outputFolder}.
+     *
+     * @param inputFile
+     *            the terms file to read
+     * @param outputFolder
+     *            the folder the pages are written to
+     */
+    public GlossaryOptions(String inputFile, String outputFolder) {
+        this.inputFile = inputFile;
+        this.outputFolder = outputFolder;
+    }
+
+    /**
+     * Parses {@code args} of the form
+     * {@code <input file> <output folder> [-flag [value]]...}.
+     *
+     * @param args
+     *            the command line arguments
+     * @return the parsed options
+     * @throws IllegalArgumentException
+     *             if the arguments are missing, unknown or malformed
+     */
+    public static GlossaryOptions parse(String[] args) {
+        if (args.length < 2) {
+            throw new IllegalArgumentException(USAGE);
+        }
+        GlossaryOptions options = new GlossaryOptions(args[0], args[1]);
+        int i = 2;
+        while (i < args.length) {
+            String flag = args[i];
+            i++;
+            if (flag.equals("-incremental")) {
+                options.incremental = true;
+            } else if (flag.equals("-stats")) {
+                options.stats = true;
+            } else if (flag.equals("-referencedBy")) {
+                options.referencedBy = true;
+            } else if (flag.equals("-gzipOnly")) {
+                options.gzipOnly = true;
+            } else if (flag.equals("-watch")) {
+                options.watch = true;
+            } else {
+                if (i >= args.length) {
+                    throw new IllegalArgumentException(
+                            "missing value for " + flag);
+                }
+                String value = args[i];
+                i++;
+                switch (flag) {
+                    case "-threads":
+                        options.threads = positiveInt(flag, value);
+                        break;
+                    case "-maxOpenFiles":
+                        options.maxOpenFiles = positiveInt(flag, value);
+                        break;
+                    case "-sink":
+                        if (!value.equals(PageSink.FILE)
+                                && !value.equals(PageSink.ZIP)
+                                && !value.equals(PageSink.PACK)
+                                && !value.equals(PageSink.MEMORY)) {
+                            throw new IllegalArgumentException(
+                                    "unknown sink " + value + "\n" + USAGE);
+                        }
+                        options.sink = value;
+                        break;
+                    case "-templates":
+                        options.templates = templates(value);
+                        break;
+                    case "-indexShards":
+                        // Fail now rather than after every page is written
+                        new ShardedIndex(value);
+                        options.indexShards = value;
+                        break;
+                    case "-search":
+                        if (!value.equals(SearchIndexWriter.TERMS)
+                                && !value.equals(SearchIndexWriter.WORDS)) {
+                            throw new IllegalArgumentException(
+                                    "unknown search index " + value + "\n"
+                                            + USAGE);
+                        }
+                        options.search = value;
+                        break;
+                    case "-gzip":
+                        options.gzipLevel = positiveInt(flag, value);
+                        if (options.gzipLevel > Deflater.BEST_COMPRESSION) {
+                            throw new IllegalArgumentException(
+                                    flag + " must be at most "
+                                            + Deflater.BEST_COMPRESSION);
+                        }
+                        break;
+                    case "-compiled":
+                        options.compiled = value;
+                        break;
+                    case "-serve":
+                        options.servePort = positiveInt(flag, value);
+                        if (options.servePort > MAX_PORT) {
+                            throw new IllegalArgumentException(
+                                    flag + " must be at most " + MAX_PORT);
+                        }
+                        break;
+                    case "-cacheMegabytes":
+                        options.cacheMegabytes = positiveInt(flag, value);
+                        break;
+                    case "-formats":
+                        options.formats = formats(value);
+                        break;
+                    case "-metrics":
+                        options.metrics = value;
+                        break;
+                    case "-analyze":
+                        options.analysis = value;
+                        break;
+                    case "-collate":
+                        options.collation = Locale.forLanguageTag(value);
+                        if (options.collation.getLanguage().isEmpty()) {
+                            throw new IllegalArgumentException(
+                                    "unknown locale " + value + "\n" + USAGE);
+                        }
+                        break;
+                    case "-externalSort":
+                        options.externalSortMegabytes = positiveInt(flag,
+                                value);
+                        break;
+                    default:
+                        throw new IllegalArgumentException(
+                                "unknown option " + flag + "\n" + USAGE);
+                }
+            }
+        }
+        if (options.incremental && options.externalSortMegabytes > 0) {
+            throw new IllegalArgumentException(
+                    "-incremental cannot be combined with -externalSort");
+        }
+        if (options.compiled != null && options.externalSortMegabytes > 0) {
+            throw new IllegalArgumentException(
+                    "-compiled cannot be combined with -externalSort");
+        }
+        if (options.gzipOnly && options.gzipLevel == 0) {
+            throw new IllegalArgumentException("-gzipOnly needs -gzip");
+        }
+        if (options.servePort > 0
+                && (options.incremental || options.externalSortMegabytes > 0)) {
+            throw new IllegalArgumentException("-serve cannot be combined "
+                    + "with -incremental or -externalSort");
+        }
+        if (options.collation != null
+                && (options.search != null || options.compiled != null)) {
+            // The search script and compiled files rely on code unit order
+            throw new IllegalArgumentException("-collate cannot be combined "
+                    + "with -search or -compiled");
+        }
+        if (!options.formats.equals(List.of(GlossaryRenderer.HTML))
+                && (options.incremental || options.externalSortMegabytes > 0
+                        || options.servePort > 0)) {
+            throw new IllegalArgumentException("-formats cannot be combined "
+                    + "with -incremental, -externalSort or -serve");
+        }
+        if (options.incremental && !options.sink.equals(PageSink.FILE)) {
+            throw new IllegalArgumentException(
+                    "-incremental needs the file sink");
+        }
+        if (options.watch && (options.incremental
+                || options.externalSortMegabytes > 0 || options.servePort > 0
+                || options.compiled != null
+                || !options.formats.equals(List.of(GlossaryRenderer.HTML)))) {
+            throw new IllegalArgumentException("-watch cannot be combined "
+                    + "with -incremental, -externalSort, -serve, -compiled "
+                    + "or -formats");
+        }
+        if (options.watch && !options.sink.equals(PageSink.FILE)) {
+            throw new IllegalArgumentException("-watch needs the file sink");
+        }
+        if (options.analysis != null
+                && (options.servePort > 0 || options.watch)) {
+            throw new IllegalArgumentException(
+                    "-analyze cannot be combined with -serve or -watch");
+        }
+        return options;
+    }
+
+    /**
+     * Parses {@code value} as a positive integer for {@code flag}.
+     *
+     * @param flag
+     *            the option being parsed, for error messages
+     * @param value
+     *            the text to parse
+     * @return the parsed value
+     * @throws IllegalArgumentException
+     *             if {@code value} is not a positive integer
+     */
+    private static int positiveInt(String flag, String value) {
+        int result;
+        try {
+            result = Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(
+                    flag + " expects a number, got " + value, e);
+        }
+        if (result <= 0) {
+            throw new IllegalArgumentException(flag + " must be positive");
+        }
+        return result;
+    }
+
+    /**
+     * Parses the comma-separated formats {@code list}, dropping repeats.
+     *
+     * @param list
+     *            the formats
+     * @return the formats, in the order first given
+     * @throws IllegalArgumentException
+     *             if a format is not known
+     */
+    private static List<String> formats(String list) {
+        List<String> result = new ArrayList<>();
+        for (String format : list.split(",")) {
+            if (!format.equals(GlossaryRenderer.HTML)
+                    && !format.equals(GlossaryRenderer.JSON)
+                    && !format.equals(GlossaryRenderer.MARKDOWN)) {
+                throw new IllegalArgumentException(
+                        "unknown format " + format + "\n" + USAGE);
+            }
+            if (!result.contains(format)) {
+                result.add(format);
+            }
+        }
+        return Collections.unmodifiableList(result);
+    }
+
+    /**
+     * Loads the templates in {@code folder}.
+     *
+     * @param folder
+     *            the template folder
+     * @return the templates
+     * @throws IllegalArgumentException
+     *             if a template cannot be read or uses a slot it cannot fill
+     */
+    private static PageTemplates templates(String folder) {
+        try {
+            return PageTemplates.load(folder);
+        } catch (UncheckedIOException e) {
+            throw new IllegalArgumentException(
+                    "cannot read templates: " + e.getCause().getMessage(), e);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(
+                    "bad template in " + folder + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Returns the terms file to read.
+     *
+     * @return the input file name
+     */
+    public String inputFile() {
+        return this.inputFile;
+    }
+
+    /**
+     * Returns the folder the pages are written to.
+     *
+     * @return the output folder name
+     */
+    public String outputFolder() {
+        return this.outputFolder;
+    }
+
+    /**
+     * Returns the number of page generation threads.
+     *
+     * @return the thread count, 1 for a serial build
+     */
+    public int threads() {
+        return this.threads;
+    }
+
+    /**
+     * Returns the maximum number of pages in flight at once. Defaults to twice
+     * the thread count so workers never wait for work.
+     *
+     * @return the maximum number of open page files
+     */
+    public int maxOpenFiles() {
+        int result = this.maxOpenFiles;
+        if (result == 0) {
+            result = 2 * this.threads;
+        }
+        return result;
+    }
+
+    /**
+     * Returns whether to regenerate only the pages that are out of date.
+     *
+     * @return true for an incremental build
+     */
+    public boolean incremental() {
+        return this.incremental;
+    }
+
+    /**
+     * Returns the memory budget of the external sort buffer.
+     *
+     * @return the budget in bytes, or 0 to sort in memory
+     */
+    public long externalSortBudget() {
+        final long bytesPerMegabyte = 1L << 20;
+        return this.externalSortMegabytes * bytesPerMegabyte;
+    }
+
+    /**
+     * Returns the kind of sink the pages are written to: the output folder
+     * for {@link PageSink#FILE}, an archive or pack file named by the output
+     * folder for {@link PageSink#ZIP} or {@link PageSink#PACK}, or memory for
+     * {@link PageSink#MEMORY}.
+     *
+     * @return the sink kind
+     */
+    public String sink() {
+        return this.sink;
+    }
+
+    /**
+     * Returns whether to report the bytes and system calls per page written.
+     *
+     * @return true to report sink statistics
+     */
+    public boolean stats() {
+        return this.stats;
+    }
+
+    /**
+     * Returns the templates pages are rendered from.
+     *
+     * @return the templates, the defaults unless a folder was given
+     */
+    public PageTemplates templates() {
+        return this.templates;
+    }
+
+    /**
+     * Returns how to shard the index: {@link ShardedIndex#BY_LETTER}, a
+     * number of terms per shard, or null for a single index page.
+     *
+     * @return the index shard mode, or null
+     */
+    public String indexShards() {
+        return this.indexShards;
+    }
+
+    /**
+     * Returns what to put in the search index: {@link SearchIndexWriter#TERMS}
+     * for a prefix index of the terms, {@link SearchIndexWriter#WORDS} to add
+     * an inverted index of definition words, or null for no search index.
+     *
+     * @return the search index mode, or null
+     */
+    public String search() {
+        return this.search;
+    }
+
+    /**
+     * Returns whether each term page gets a "Referenced by" section listing
+     * the terms whose definitions link to it.
+     *
+     * @return true to render reverse links
+     */
+    public boolean referencedBy() {
+        return this.referencedBy;
+    }
+
+    /**
+     * Returns the compiled glossary file: it is loaded instead of parsing the
+     * terms file when it is at least as new, and compiled from the terms file
+     * otherwise.
+     *
+     * @return the compiled glossary file name, or null
+     */
+    public String compiled() {
+        return this.compiled;
+    }
+
+    /**
+     * Returns the deflate level, from 1 to 9, of the gzip copy written with
+     * every page.
+     *
+     * @return the compression level, or 0 to write no compressed copies
+     */
+    public int gzipLevel() {
+        return this.gzipLevel;
+    }
+
+    /**
+     * Returns whether the gzip copy of every page is written instead of the
+     * page, rather than next to it.
+     *
+     * @return true to write only compressed pages
+     */
+    public boolean gzipOnly() {
+        return this.gzipOnly;
+    }
+
+    /**
+     * Returns the port the glossary is served on, rendering term pages when
+     * they are first requested, instead of writing it to the output folder.
+     *
+     * @return the port, or 0 to write the glossary
+     */
+    public int servePort() {
+        return this.servePort;
+    }
+
+    /**
+     * Returns the most bytes of rendered term pages the server keeps.
+     *
+     * @return the size of the page cache in bytes
+     */
+    public long cacheBytes() {
+        final long bytesPerMegabyte = 1L << 20;
+        return this.cacheMegabytes * bytesPerMegabyte;
+    }
+
+    /**
+     * Returns the locale whose dictionary order sorts the terms.
+     *
+     * @return the locale, or null to sort by UTF-16 code unit
+     */
+    public Locale collation() {
+        return this.collation;
+    }
+
+    /**
+     * Returns the file a JSON report of the build's stage timings, counters
+     * and peak heap is written to once the pages are written.
+     *
+     * @return the metrics file name, or null to write no report
+     */
+    public String metrics() {
+        return this.metrics;
+    }
+
+    /**
+     * Returns the formats the glossary is written in. HTML goes to the
+     * output folder; each other format goes to a tree of its own, as
+     * {@link MultiFormatBuilder} describes.
+     *
+     * @return the formats, by default only {@link GlossaryRenderer#HTML}
+     */
+    public List<String> formats() {
+        return this.formats;
+    }
+
+    /**
+     * Returns whether the glossary is kept in memory after it is built and
+     * the pages a change affects are rewritten whenever the terms file is
+     * saved, until the process is stopped.
+     *
+     * @return true to watch the terms file
+     */
+    public boolean watch() {
+        return this.watch;
+    }
+
+    /**
+     * Returns the file a JSON report of the terms nobody links to, the
+     * definitions linking to nothing and the cycles of links is written to,
+     * as {@link GraphAnalysis} describes.
+     *
+     * @return the report file name, or null to analyse nothing
+     */
+    public String analysis() {
+        return this.analysis;
+    }
+
+}
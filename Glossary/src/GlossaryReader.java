@@ -0,0 +1,249 @@
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Streams the entries of a terms file in a single pass. A terms file is a
+ * sequence of blocks, each a term on one line followed by one or more
+ * definition lines and ended by an empty line or the end of the file.
+ * Definitions are built the same way {@code GlossaryClass.main} always built
+ * them: every definition line, and the ending empty line, is appended after a
+ * single space.
+ *
+ * <p>
+ * Entries are handed out as soon as their block has been read, so callers can
+ * start on the first terms before the rest of the file is parsed. Malformed
+ * blocks are passed to a handler as {@link GlossaryFormatException}s and
+ * skipped; the {@link #STRICT} handler throws them instead.
+ *
+ * @author Yakob Getu
+ *
+ */
+public final class GlossaryReader
+        implements Iterator<GlossaryEntry>, Closeable {
+
+    /**
+     * Handler that rejects the input at the first malformed block.
+     */
+    public static final Consumer<GlossaryFormatException> STRICT = e -> {
+        throw e;
+    };
+
+    /**
+     * Initial capacity of the definition buffer; it grows as needed.
+     */
+    private static final int DEFINITION_CAPACITY = 256;
+
+    /**
+     * Source of the terms file.
+     */
+    private final BufferedReader in;
+
+    /**
+     * Receives every malformed block.
+     */
+    private final Consumer<GlossaryFormatException> malformed;
+
+    /**
+     * Terms read so far, to report duplicates.
+     */
+    private final Set<String> seen = new HashSet<>();
+
+    /**
+     * Reused buffer the current definition is built in.
+     */
+    private final StringBuilder definition = new StringBuilder(
+            DEFINITION_CAPACITY);
+
+    /**
+     * Number of lines read so far.
+     */
+    private int lineNumber;
+
+    /**
+     * Number of blocks skipped because their term was already defined.
+     */
+    private int repeated;
+
+    /**
+     * Next entry to return, or null if it has not been read yet.
+     */
+    private GlossaryEntry next;
+
+    /**
+     * Whether the end of the input has been reached.
+     */
+    private boolean atEnd;
+
+    /**
+     * Creates a reader over {@code in} that reports malformed blocks to
+     * {@code malformed}.
+     *
+     * @param in
+     *            the terms file contents
+     * @param malformed
+     *            handler for malformed blocks, such as {@link #STRICT}
+     */
+    public GlossaryReader(Reader in,
+            Consumer<GlossaryFormatException> malformed) {
+        this(in, 0, malformed);
+    }
+
+    /**
+     * Creates a reader over {@code in}, a part of a terms file starting
+     * after its first {@code linesBefore} lines, that reports malformed
+     * blocks to {@code malformed} with their lines in the whole file.
+     *
+     * @param in
+     *            the terms file contents from the start of a block
+     * @param linesBefore
+     *            number of lines of the file before {@code in}
+     * @param malformed
+     *            handler for malformed blocks, such as {@link #STRICT}
+     * @requires linesBefore >= 0
+     */
+    public GlossaryReader(Reader in, int linesBefore,
+            Consumer<GlossaryFormatException> malformed) {
+        if (in instanceof BufferedReader) {
+            this.in = (BufferedReader) in;
+        } else {
+            this.in = new BufferedReader(in);
+        }
+        this.lineNumber = linesBefore;
+        this.malformed = malformed;
+    }
+
+    /**
+     * Opens a reader over the UTF-8 terms file {@code fileName}.
+     *
+     * @param fileName
+     *            the name of the terms file
+     * @param malformed
+     *            handler for malformed blocks, such as {@link #STRICT}
+     * @return the reader
+     * @throws UncheckedIOException
+     *             if the file cannot be opened
+     */
+    public static GlossaryReader open(String fileName,
+            Consumer<GlossaryFormatException> malformed) {
+        try {
+            return new GlossaryReader(Files.newBufferedReader(
+                    Paths.get(fileName), StandardCharsets.UTF_8), malformed);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Reads the next line of input.
+     *
+     * @return the line, or null at the end of the input
+     */
+    private String readLine() {
+        String line;
+        try {
+            line = this.in.readLine();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (line != null) {
+            this.lineNumber++;
+        }
+        return line;
+    }
+
+    /**
+     * Reads blocks until a well-formed one is found or the input ends.
+     *
+     * @return the next well-formed entry, or null at the end of the input
+     */
+    private GlossaryEntry readEntry() {
+        GlossaryEntry entry = null;
+        while (entry == null && !this.atEnd) {
+            String term = this.readLine();
+            if (term == null) {
+                this.atEnd = true;
+            } else if (term.trim().isEmpty()) {
+                // Report stray blank lines on their own so the block after
+                // them is still read
+                this.malformed.accept(new GlossaryFormatException(
+                        this.lineNumber,
+                        "expected a term but found an empty line"));
+            } else {
+                int start = this.lineNumber;
+                this.definition.setLength(0);
+                int definitionLines = 0;
+                String line = this.readLine();
+                while (line != null && !line.isEmpty()) {
+                    this.definition.append(' ').append(line);
+                    definitionLines++;
+                    line = this.readLine();
+                }
+                // The ending empty line contributes a final space
+                this.definition.append(' ');
+                this.atEnd = line == null;
+
+                if (definitionLines == 0) {
+                    this.malformed.accept(new GlossaryFormatException(start,
+                            "term \"" + term + "\" has no definition"));
+                } else if (!this.seen.add(term)) {
+                    this.repeated++;
+                    this.malformed.accept(new GlossaryFormatException(start,
+                            "term \"" + term + "\" is defined twice"));
+                } else {
+                    entry = new GlossaryEntry(term,
+                            this.definition.toString());
+                }
+            }
+        }
+        return entry;
+    }
+
+    /**
+     * Returns the number of blocks skipped so far because their term was
+     * already defined by an earlier block.
+     *
+     * @return the number of repeated terms skipped
+     */
+    int repeated() {
+        return this.repeated;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (this.next == null) {
+            this.next = this.readEntry();
+        }
+        return this.next != null;
+    }
+
+    @Override
+    public GlossaryEntry next() {
+        if (!this.hasNext()) {
+            throw new NoSuchElementException();
+        }
+        GlossaryEntry result = this.next;
+        this.next = null;
+        return result;
+    }
+
+    @Override
+    public void close() {
+        try {
+            this.in.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+}
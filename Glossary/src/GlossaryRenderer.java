@@ -0,0 +1,86 @@
+import java.util.List;
+
+/**
+ * Renders a glossary into one output format from its {@link LinkedDefinition}
+ * model, so the definitions are tokenized and linked once whatever the number
+ * of formats. A renderer writes its index and then one page per term to a
+ * sink of its own, and may be run at the same time as other renderers.
+ *
+ * @author Yakob Getu
+ *
+ */
+public interface GlossaryRenderer {
+
+    /**
+     * Format of the HTML pages, the index and the search index.
+     */
+    String HTML = "html";
+
+    /**
+     * Format of one JSON document per term and a JSON index.
+     */
+    String JSON = "json";
+
+    /**
+     * Format of one Markdown page per term and a Markdown index.
+     */
+    String MARKDOWN = "markdown";
+
+    /**
+     * Writes the index of the glossary, and anything else that covers every
+     * term, to {@code sink}.
+     *
+     * @param entries
+     *            the terms and their definitions, in index order
+     * @param sink
+     *            where the files are written
+     */
+    void renderIndex(List<LinkedDefinition> entries, PageSink sink);
+
+    /**
+     * Writes the page of {@code entry} to {@code sink}.
+     *
+     * @param entry
+     *            the term and its definition
+     * @param references
+     *            the link graph of the glossary, or null for no "Referenced
+     *            by" section
+     * @param sink
+     *            where the page is written
+     */
+    void renderTerm(LinkedDefinition entry, LinkGraph references,
+            PageSink sink);
+
+    /**
+     * Creates the renderer of {@code format}.
+     *
+     * @param format
+     *            one of {@link #HTML}, {@link #JSON} or {@link #MARKDOWN}
+     * @param linker
+     *            the linker for the terms of the glossary
+     * @param options
+     *            the templates, index shards and search index of HTML
+     * @return the renderer
+     * @throws IllegalArgumentException
+     *             if {@code format} is not a known format
+     */
+    static GlossaryRenderer forFormat(String format, TermLinker linker,
+            GlossaryOptions options) {
+        GlossaryRenderer renderer;
+        switch (format) {
+            case HTML:
+                renderer = new HtmlRenderer(linker, options);
+                break;
+            case JSON:
+                renderer = new JsonRenderer();
+                break;
+            case MARKDOWN:
+                renderer = new MarkdownRenderer();
+                break;
+            default:
+                throw new IllegalArgumentException("unknown format " + format);
+        }
+        return renderer;
+    }
+
+}
@@ -0,0 +1,262 @@
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.HashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import components.map.Map;
+
+/**
+ * Serves a glossary over HTTP without writing it out first. The index, and the
+ * search index when one is asked for, are rendered into memory when the
+ * server is created; a term page is rendered by
+ * {@code GlossaryClass.generatePage} only when it is first requested, and
+ * kept in a {@link PageCache} of bounded size. Requests are handled on a
+ * fixed pool of threads, and the server listens on the loopback address
+ * only, for previewing.
+ *
+ * @author Yakob Getu
+ *
+ */
+public final class GlossaryServer {
+
+    /**
+     * Least number of threads handling requests.
+     */
+    private static final int MIN_THREADS = 4;
+
+    /**
+     * HTTP status of a page that was found.
+     */
+    private static final int OK = 200;
+
+    /**
+     * HTTP status of a page that was not found.
+     */
+    private static final int NOT_FOUND = 404;
+
+    /**
+     * HTTP status of a request that is not GET or HEAD.
+     */
+    private static final int BAD_METHOD = 405;
+
+    /**
+     * Definitions by term, readable from every handling thread.
+     */
+    private final HashMap<String, String> definitions = new HashMap<>();
+
+    /**
+     * The linker for the terms of the glossary.
+     */
+    private final TermLinker linker;
+
+    /**
+     * The link graph, or null for no "Referenced by" sections.
+     */
+    private final LinkGraph references;
+
+    /**
+     * The templates pages are rendered from.
+     */
+    private final PageTemplates templates;
+
+    /**
+     * The index and search files, rendered up front.
+     */
+    private final MemorySink fixed = new MemorySink();
+
+    /**
+     * Term pages already rendered.
+     */
+    private final PageCache cache;
+
+    /**
+     * Number of threads handling requests.
+     */
+    private final int threads;
+
+    /**
+     * The running server, or null if it is not started.
+     */
+    private HttpServer server;
+
+    /**
+     * The threads handling requests, or null if it is not started.
+     */
+    private ExecutorService pool;
+
+    /**
+     * Creates a server for the glossary {@code m}, rendering its index and
+     * search files as {@code options} asks.
+     *
+     * @param terms
+     *            the sorted terms of {@code m}
+     * @param m
+     *            the map containing all the terms and definitions
+     * @param linker
+     *            the linker for the terms of {@code m}
+     * @param references
+     *            the link graph of {@code m}, or null for no "Referenced by"
+     *            sections
+     * @param options
+     *            the templates, index and search index to use, the number of
+     *            threads and the size of the page cache
+     */
+    public GlossaryServer(Iterable<String> terms, Map<String, String> m,
+            TermLinker linker, LinkGraph references, GlossaryOptions options) {
+        for (String term : terms) {
+            this.definitions.put(term, m.value(term));
+        }
+        this.linker = linker;
+        this.references = references;
+        this.templates = options.templates();
+        this.cache = new PageCache(options.cacheBytes());
+        this.threads = Math.max(options.threads(), MIN_THREADS);
+        GlossaryClass.generateIndex(terms, options, this.fixed);
+        GlossaryClass.generateSearchIndex(GlossaryEntry.entries(terms, m),
+                linker, options, this.fixed);
+    }
+
+    /**
+     * Returns the page at {@code path}, rendering it if it is a term page
+     * not in the cache.
+     *
+     * @param path
+     *            the decoded path of the request, such as {@code /term.html}
+     * @return the page's bytes, or null if there is no such page
+     */
+    byte[] page(String path) {
+        String name = path.substring(path.lastIndexOf('/') + 1);
+        if (name.isEmpty()) {
+            name = "index.html";
+        }
+        byte[] page = this.fixed.page(name);
+        if (page == null && name.endsWith(".html")) {
+            String term = name.substring(0,
+                    name.length() - ".html".length());
+            String definition = this.definitions.get(term);
+            if (definition != null) {
+                page = this.cache.get(name);
+                if (page == null) {
+                    MemorySink rendered = new MemorySink();
+                    GlossaryClass.generatePage(term, definition, this.linker,
+                            this.templates, this.references, rendered);
+                    page = rendered.page(name);
+                    this.cache.put(name, page);
+                }
+            }
+        }
+        return page;
+    }
+
+    /**
+     * Returns the content type of the file {@code name}.
+     *
+     * @param name
+     *            the file name
+     * @return its content type
+     */
+    private static String contentType(String name) {
+        String type = "text/html; charset=utf-8";
+        if (name.endsWith(".json")) {
+            type = "application/json";
+        } else if (name.endsWith(".js")) {
+            type = "text/javascript; charset=utf-8";
+        }
+        return type;
+    }
+
+    /**
+     * Answers one request.
+     *
+     * @param exchange
+     *            the request and its response
+     * @throws IOException
+     *             if the response cannot be sent
+     */
+    private void handle(HttpExchange exchange) throws IOException {
+        String method = exchange.getRequestMethod();
+        String path = exchange.getRequestURI().getPath();
+        byte[] page = null;
+        int status = BAD_METHOD;
+        if (method.equals("GET") || method.equals("HEAD")) {
+            page = this.page(path);
+            status = NOT_FOUND;
+            if (page != null) {
+                status = OK;
+                String name = path.substring(path.lastIndexOf('/') + 1);
+                exchange.getResponseHeaders().set("Content-Type",
+                        contentType(name));
+            }
+        }
+        if (page == null || method.equals("HEAD")) {
+            exchange.sendResponseHeaders(status, -1);
+        } else {
+            exchange.sendResponseHeaders(status, page.length);
+            try (OutputStream body = exchange.getResponseBody()) {
+                body.write(page);
+            }
+        }
+        exchange.close();
+    }
+
+    /**
+     * Starts serving on {@code port} of the loopback address.
+     *
+     * @param port
+     *            the port, or 0 for any free port
+     * @throws UncheckedIOException
+     *             if the port cannot be bound
+     * @requires [the server is not started]
+     */
+    public void start(int port) {
+        try {
+            this.server = HttpServer.create(new InetSocketAddress(
+                    InetAddress.getLoopbackAddress(), port), 0);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        this.pool = Executors.newFixedThreadPool(this.threads);
+        this.server.setExecutor(this.pool);
+        this.server.createContext("/", this::handle);
+        this.server.start();
+    }
+
+    /**
+     * Returns the port the server listens on.
+     *
+     * @return the port
+     * @requires [the server is started]
+     */
+    public int port() {
+        return this.server.getAddress().getPort();
+    }
+
+    /**
+     * Returns the cache of rendered term pages.
+     *
+     * @return the cache
+     */
+    public PageCache cache() {
+        return this.cache;
+    }
+
+    /**
+     * Stops serving, letting requests being answered finish.
+     *
+     * @requires [the server is started]
+     */
+    public void stop() {
+        this.server.stop(0);
+        this.pool.shutdown();
+        this.server = null;
+        this.pool = null;
+    }
+
+}
@@ -0,0 +1,611 @@
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Keeps a glossary in memory and rewrites only the pages a change to its
+ * terms file affects, every time the file is saved. The terms, definitions,
+ * the links of every definition, the linker, the link graph and the bytes of
+ * the terms file stay resident between saves. A watch event does not say
+ * which part of the file changed, so a save is compared with the previous
+ * bytes from both ends and only the blocks between the first and the last
+ * differing byte are read again, before and after, to find the terms added,
+ * removed and changed. Only the changed definitions are linked again; when
+ * terms are added or removed the linker is rebuilt and only the definitions
+ * mentioning an added term, or linking to a removed one, are linked again.
+ * Which block of a term defined twice counts depends on the whole file, so
+ * while a term is, every save reads the whole file.
+ *
+ * <p>
+ * A page is rewritten when its definition changed, when its term is new, or
+ * when the terms it links to changed. When pages list the terms referring to
+ * them, a page is also rewritten when a term starts or stops linking to it.
+ * The index is rewritten only when the set of terms changes, and the search
+ * index whenever anything does. Several events arriving in quick succession,
+ * as editors saving through a temporary file produce, are handled as one
+ * save.
+ *
+ * @author Yakob Getu
+ *
+ */
+public final class GlossaryWatcher {
+
+    /**
+     * How long the terms file must go without events before it is read.
+     */
+    private static final long QUIET_MILLIS = 50;
+
+    /**
+     * When more terms than this are added at once, every definition is
+     * linked again instead of searching them for each added term.
+     */
+    private static final int SEARCH_LIMIT = 16;
+
+    /**
+     * Nanoseconds per millisecond.
+     */
+    private static final long NANOS_PER_MILLI = 1_000_000L;
+
+    /**
+     * The build options.
+     */
+    private final GlossaryOptions options;
+
+    /**
+     * Called with each line reported.
+     */
+    private final Consumer<String> console;
+
+    /**
+     * The terms, in index order.
+     */
+    private final TreeSet<String> terms;
+
+    /**
+     * The definition of every term.
+     */
+    private final HashMap<String, String> definitions = new HashMap<>();
+
+    /**
+     * The terms every definition links to, in order and with repeats.
+     */
+    private final HashMap<String, String[]> links = new HashMap<>();
+
+    /**
+     * The terms file as last read, or null before the first update.
+     */
+    private byte[] contents;
+
+    /**
+     * Whether no term of the terms file as last read is defined twice.
+     */
+    private boolean unique;
+
+    /**
+     * The linker for the terms, or null before the first update.
+     */
+    private TermLinker linker;
+
+    /**
+     * The link graph of the resident glossary, or null if pages do not list
+     * the terms referring to them.
+     */
+    private LinkGraph references;
+
+    /**
+     * Creates a watcher of the terms file of {@code options}, whose pages
+     * are written to its output folder.
+     *
+     * @param options
+     *            the build options
+     * @param order
+     *            ordering of the terms
+     * @param console
+     *            called with each line reported
+     */
+    public GlossaryWatcher(GlossaryOptions options, Comparator<String> order,
+            Consumer<String> console) {
+        this.options = options;
+        this.terms = new TreeSet<>(order);
+        this.console = console;
+    }
+
+    /**
+     * Returns whether a block of a terms file may start at {@code i}, because
+     * the line before it is empty.
+     *
+     * @param bytes
+     *            the terms file
+     * @param i
+     *            the position
+     * @return true if {@code i} follows an empty line
+     */
+    private static boolean followsEmptyLine(byte[] bytes, int i) {
+        return i >= 2 && bytes[i - 1] == '\n' && (bytes[i - 2] == '\n'
+                || i >= 3 && bytes[i - 2] == '\r' && bytes[i - 3] == '\n');
+    }
+
+    /**
+     * Returns where the block holding position {@code at} starts.
+     *
+     * @param bytes
+     *            the terms file
+     * @param at
+     *            the position
+     * @return the last position at or before {@code at} following an empty
+     *         line, or 0
+     */
+    private static int blockStart(byte[] bytes, int at) {
+        int i = at;
+        while (i > 0 && !followsEmptyLine(bytes, i)) {
+            i--;
+        }
+        return i;
+    }
+
+    /**
+     * Returns where the first block starts whose empty line before it, and
+     * the end of the line before that, lie after position {@code at}.
+     *
+     * @param bytes
+     *            the terms file
+     * @param at
+     *            the position
+     * @return the first such position following an empty line, or the length
+     *         of the file
+     */
+    private static int blockEnd(byte[] bytes, int at) {
+        int i = at + 3;
+        while (i < bytes.length && !followsEmptyLine(bytes, i)) {
+            i++;
+        }
+        return Math.min(i, bytes.length);
+    }
+
+    /**
+     * Reads the blocks of {@code bytes} from {@code from} up to {@code to},
+     * reporting malformed blocks if {@code report}.
+     *
+     * @param bytes
+     *            the terms file
+     * @param from
+     *            where the first block starts
+     * @param to
+     *            where the last block ends
+     * @param report
+     *            whether to report malformed blocks and record terms defined
+     *            twice
+     * @return the terms and definitions, in the order of the file
+     */
+    private Map<String, String> read(byte[] bytes, int from, int to,
+            boolean report) {
+        int linesBefore = 0;
+        Consumer<GlossaryFormatException> malformed = e -> {
+        };
+        if (report) {
+            for (int i = 0; i < from; i++) {
+                if (bytes[i] == '\n') {
+                    linesBefore++;
+                }
+            }
+            malformed = e -> {
+                this.console.accept("Skipping malformed block, "
+                        + e.getMessage());
+            };
+        }
+        Map<String, String> result = new LinkedHashMap<>();
+        GlossaryReader reader = new GlossaryReader(
+                new InputStreamReader(
+                        new ByteArrayInputStream(bytes, from, to - from),
+                        StandardCharsets.UTF_8),
+                linesBefore, malformed);
+        while (reader.hasNext()) {
+            GlossaryEntry entry = reader.next();
+            result.put(entry.term(), entry.definition());
+        }
+        if (report && reader.repeated() > 0) {
+            this.unique = false;
+        }
+        reader.close();
+        return result;
+    }
+
+    /**
+     * Returns the distinct terms of {@code linked}, other than {@code term}.
+     *
+     * @param term
+     *            the term whose links they are
+     * @param linked
+     *            the terms linked to, or null for none
+     * @return the distinct terms
+     */
+    private static Set<String> targets(String term, String[] linked) {
+        Set<String> result = new LinkedHashSet<>();
+        if (linked != null) {
+            result.addAll(Arrays.asList(linked));
+            result.remove(term);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the link graph of the resident glossary.
+     *
+     * @return the graph
+     */
+    private LinkGraph graph() {
+        String[] byId = this.terms.toArray(new String[0]);
+        HashMap<String, Integer> ids = new HashMap<>();
+        for (int i = 0; i < byId.length; i++) {
+            ids.put(byId[i], i);
+        }
+        int[] linkStart = new int[byId.length + 1];
+        int[] rows = new int[Math.max(byId.length, 1)];
+        // lastSource[t] is 1 + the last term found linking to t
+        int[] lastSource = new int[byId.length];
+        int edges = 0;
+        for (int source = 0; source < byId.length; source++) {
+            linkStart[source] = edges;
+            for (String link : this.links.get(byId[source])) {
+                int target = ids.get(link);
+                if (target != source && lastSource[target] != source + 1) {
+                    lastSource[target] = source + 1;
+                    if (edges == rows.length) {
+                        rows = Arrays.copyOf(rows, 2 * edges);
+                    }
+                    rows[edges] = target;
+                    edges++;
+                }
+            }
+        }
+        linkStart[byId.length] = edges;
+        return LinkGraph.of(byId, linkStart, Arrays.copyOf(rows, edges));
+    }
+
+    /**
+     * Returns the resident terms and definitions.
+     *
+     * @return the entries, in index order
+     */
+    private Iterator<GlossaryEntry> entries() {
+        return this.terms.stream()
+                .map(term -> new GlossaryEntry(term,
+                        this.definitions.get(term)))
+                .iterator();
+    }
+
+    /**
+     * Re-reads the terms file and brings the output folder up to date with
+     * it. The first update writes every page.
+     *
+     * @return what the update did
+     * @throws UncheckedIOException
+     *             if the terms file cannot be read or a page cannot be
+     *             written or deleted
+     */
+    IncrementalBuilder.Result update() {
+        String folder = this.options.outputFolder();
+        byte[] now;
+        try {
+            if (this.contents == null) {
+                // Pages will no longer match an incremental build's manifest
+                Files.deleteIfExists(
+                        Paths.get(folder, BuildManifest.FILE_NAME));
+            }
+            now = Files.readAllBytes(Paths.get(this.options.inputFile()));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        // Read only the blocks between the first and last changed bytes
+        Map<String, String> before = this.definitions;
+        Map<String, String> after = null;
+        if (this.contents != null && this.unique) {
+            byte[] old = this.contents;
+            int prefix = Arrays.mismatch(old, now);
+            if (prefix < 0) {
+                return new IncrementalBuilder.Result(0, 0, false);
+            }
+            int most = Math.min(old.length, now.length) - prefix;
+            int suffix = 0;
+            while (suffix < most
+                    && old[old.length - 1 - suffix] == now[now.length - 1
+                            - suffix]) {
+                suffix++;
+            }
+            int from = blockStart(now, prefix);
+            int oldTo = blockEnd(old, old.length - suffix);
+            before = this.read(old, from, oldTo, false);
+            after = this.read(now, from, oldTo + now.length - old.length,
+                    true);
+            for (Map.Entry<String, String> entry : before.entrySet()) {
+                if (!entry.getValue()
+                        .equals(this.definitions.get(entry.getKey()))) {
+                    after = null;
+                }
+            }
+            if (after != null) {
+                for (String term : after.keySet()) {
+                    if (!before.containsKey(term)
+                            && this.definitions.containsKey(term)) {
+                        after = null;
+                        break;
+                    }
+                }
+            }
+        }
+        if (after == null) {
+            // First save, a term defined twice, or a term of the region also
+            // defined outside it
+            before = this.definitions;
+            this.unique = true;
+            after = this.read(now, 0, now.length, true);
+        }
+        this.contents = now;
+
+        Set<String> added = new HashSet<>();
+        HashMap<String, String> edited = new HashMap<>();
+        for (Map.Entry<String, String> entry : after.entrySet()) {
+            String was = before.get(entry.getKey());
+            if (was == null) {
+                added.add(entry.getKey());
+            }
+            if (!entry.getValue().equals(was)) {
+                edited.put(entry.getKey(), entry.getValue());
+            }
+        }
+        Set<String> removed = new HashSet<>();
+        for (String term : before.keySet()) {
+            if (!after.containsKey(term)) {
+                removed.add(term);
+            }
+        }
+
+        // Definitions to link again: the edited ones and, when the terms
+        // change, those that may link differently
+        Set<String> relink = new HashSet<>(edited.keySet());
+        boolean termsChanged = this.linker == null || !added.isEmpty()
+                || !removed.isEmpty();
+        if (termsChanged) {
+            this.terms.removeAll(removed);
+            this.terms.addAll(added);
+            this.linker = new TermLinker(this.terms,
+                    TermLinker.DEFAULT_SEPARATORS);
+            if (added.size() > SEARCH_LIMIT) {
+                relink.addAll(this.definitions.keySet());
+            } else {
+                for (Map.Entry<String, String> entry : this.definitions
+                        .entrySet()) {
+                    for (String term : added) {
+                        if (entry.getValue().contains(term)) {
+                            relink.add(entry.getKey());
+                        }
+                    }
+                }
+            }
+            if (!removed.isEmpty()) {
+                for (Map.Entry<String, String[]> entry : this.links
+                        .entrySet()) {
+                    for (String target : entry.getValue()) {
+                        if (removed.contains(target)) {
+                            relink.add(entry.getKey());
+                        }
+                    }
+                }
+            }
+        }
+        relink.removeAll(removed);
+
+        // Apply the edits, and find the pages whose links or referrers
+        // changed
+        Set<String> dirty = new HashSet<>(edited.keySet());
+        for (String term : removed) {
+            String[] was = this.links.remove(term);
+            this.definitions.remove(term);
+            for (String target : targets(term, was)) {
+                if (!removed.contains(target)) {
+                    dirty.add(target);
+                }
+            }
+        }
+        this.definitions.putAll(edited);
+        Set<String> rerouted = new HashSet<>();
+        for (String term : relink) {
+            String[] is = this.linker.links(this.definitions.get(term))
+                    .toArray(new String[0]);
+            String[] was = this.links.put(term, is);
+            if (!Arrays.equals(was, is)) {
+                dirty.add(term);
+                Set<String> wasTargets = targets(term, was);
+                Set<String> isTargets = targets(term, is);
+                if (!wasTargets.equals(isTargets)) {
+                    rerouted.add(term);
+                }
+                if (this.options.referencedBy()) {
+                    for (String target : wasTargets) {
+                        if (!isTargets.contains(target)
+                                && !removed.contains(target)) {
+                            dirty.add(target);
+                        }
+                    }
+                    for (String target : isTargets) {
+                        if (!wasTargets.contains(target)) {
+                            dirty.add(target);
+                        }
+                    }
+                }
+            }
+        }
+
+        // Patch the rows of the link graph unless the terms, and so the
+        // ids, changed
+        if (this.options.referencedBy()) {
+            if (termsChanged) {
+                this.references = this.graph();
+            } else if (!rerouted.isEmpty()) {
+                Map<Integer, int[]> rows = new HashMap<>();
+                for (String term : rerouted) {
+                    Set<String> row = targets(term, this.links.get(term));
+                    int[] ids = new int[row.size()];
+                    int k = 0;
+                    for (String target : row) {
+                        ids[k] = this.references.id(target);
+                        k++;
+                    }
+                    rows.put(this.references.id(term), ids);
+                }
+                this.references = this.references.withRows(rows);
+            }
+        }
+
+        // Write the pages
+        PageSink sink = new FileSink(folder);
+        if (this.options.gzipLevel() > 0) {
+            sink = new CompressingSink(sink, this.options.gzipLevel(),
+                    !this.options.gzipOnly(), this.options.threads());
+        }
+        try {
+            if (termsChanged) {
+                int shards = GlossaryClass.generateIndex(this.terms,
+                        this.options, sink);
+                IncrementalBuilder.deleteShardsAfter(folder, shards);
+            }
+            for (String term : removed) {
+                IncrementalBuilder.deletePage(folder,
+                        TermLinker.pageName(term));
+            }
+            TreeSet<String> stale = new TreeSet<>(this.terms.comparator());
+            stale.addAll(dirty);
+            List<GlossaryEntry> pages = new ArrayList<>();
+            for (String term : stale) {
+                pages.add(new GlossaryEntry(term, this.definitions.get(term)));
+            }
+            if (this.options.threads() > 1) {
+                new ParallelPageGenerator(this.options.threads(),
+                        this.options.maxOpenFiles(),
+                        this.options.templates()).generatePages(
+                                pages.iterator(), sink, this.linker,
+                                this.references);
+            } else {
+                for (GlossaryEntry entry : pages) {
+                    GlossaryClass.generatePage(entry.term(),
+                            entry.definition(), this.linker,
+                            this.options.templates(), this.references,
+                            sink);
+                }
+            }
+            if (termsChanged || !pages.isEmpty()) {
+                GlossaryClass.generateSearchIndex(this.entries(), this.linker,
+                        this.options, sink);
+            }
+            return new IncrementalBuilder.Result(pages.size(), removed.size(),
+                    termsChanged);
+        } finally {
+            sink.close();
+        }
+    }
+
+    /**
+     * Runs {@link #update} and reports what it did and how long it took.
+     */
+    private void updateAndReport() {
+        long start = System.nanoTime();
+        try {
+            IncrementalBuilder.Result result = this.update();
+            this.console.accept("Rewrote " + result.pagesWritten() + " of "
+                    + this.terms.size() + " pages, deleted "
+                    + result.pagesDeleted() + ", index "
+                    + (result.indexWritten() ? "rewritten" : "unchanged")
+                    + " in " + (System.nanoTime() - start) / NANOS_PER_MILLI
+                    + " ms");
+        } catch (UncheckedIOException e) {
+            // Keep watching; the next save may well succeed
+            this.console.accept("Update failed, " + e.getCause());
+        }
+    }
+
+    /**
+     * Returns whether {@code key} has an event about {@code file}, or lost
+     * events, and resets it.
+     *
+     * @param key
+     *            the signalled key of the folder of {@code file}
+     * @param file
+     *            the name of the terms file
+     * @return true if the terms file may have changed
+     */
+    private static boolean touches(WatchKey key, Path file) {
+        boolean result = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            result |= event.kind() == StandardWatchEventKinds.OVERFLOW
+                    || file.equals(event.context());
+        }
+        key.reset();
+        return result;
+    }
+
+    /**
+     * Builds the glossary, then rewrites the pages a save of the terms file
+     * affects after every save, until the thread is interrupted.
+     *
+     * @throws UncheckedIOException
+     *             if the folder of the terms file cannot be watched
+     */
+    public void watch() {
+        this.updateAndReport();
+        Path input = Paths.get(this.options.inputFile()).toAbsolutePath();
+        Path file = input.getFileName();
+        try (WatchService service = input.getFileSystem()
+                .newWatchService()) {
+            input.getParent().register(service,
+                    StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY);
+            this.console.accept("Watching " + input);
+            while (!Thread.currentThread().isInterrupted()) {
+                boolean saved = touches(service.take(), file);
+                if (saved) {
+                    // Wait for the editor to finish writing
+                    WatchKey more = service.poll(QUIET_MILLIS,
+                            TimeUnit.MILLISECONDS);
+                    while (more != null) {
+                        touches(more, file);
+                        more = service.poll(QUIET_MILLIS,
+                                TimeUnit.MILLISECONDS);
+                    }
+                    if (Files.isRegularFile(input)) {
+                        this.updateAndReport();
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
@@ -0,0 +1,363 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * The shape of the links of a glossary: the terms no definition links to,
+ * the definitions linking to no term, and the groups of terms whose
+ * definitions link to each other in a cycle. The groups are the strongly
+ * connected components of the {@link LinkGraph}, found by Tarjan's algorithm
+ * run with an explicit stack so a long chain of links cannot overflow the
+ * thread's. Degrees come straight from the rows of the graph, so the whole
+ * analysis takes time linear in the number of terms and links and a few
+ * {@code int}s per term.
+ *
+ * @author Yakob Getu
+ *
+ */
+public final class GraphAnalysis {
+
+    /**
+     * Marks a term Tarjan's algorithm has not reached yet.
+     */
+    private static final int UNVISITED = -1;
+
+    /**
+     * The graph analysed.
+     */
+    private final LinkGraph graph;
+
+    /**
+     * The component of every term, numbered in the order they are completed.
+     */
+    private final int[] component;
+
+    /**
+     * The number of terms in every component.
+     */
+    private final int[] componentSize;
+
+    /**
+     * Analyses {@code graph}.
+     *
+     * @param graph
+     *            the graph
+     */
+    private GraphAnalysis(LinkGraph graph) {
+        this.graph = graph;
+        int n = graph.size();
+        this.component = new int[n];
+        int[] sizes = new int[Math.max(n, 1)];
+        int components = 0;
+
+        // order[v] is the visiting order of v, low[v] the lowest order
+        // reachable from v through the terms still on the stack
+        int[] order = new int[n];
+        Arrays.fill(order, UNVISITED);
+        int[] low = new int[n];
+        boolean[] onStack = new boolean[n];
+        int[] stack = new int[n];
+        int stackSize = 0;
+        // The depth-first path, and the next link to follow from each term
+        int[] path = new int[n];
+        int[] nextLink = new int[n];
+        int visited = 0;
+        for (int root = 0; root < n; root++) {
+            if (order[root] == UNVISITED) {
+                int depth = 0;
+                path[0] = root;
+                order[root] = visited;
+                low[root] = visited;
+                visited++;
+                stack[stackSize] = root;
+                stackSize++;
+                onStack[root] = true;
+                while (depth >= 0) {
+                    int v = path[depth];
+                    if (nextLink[v] < graph.linkCount(v)) {
+                        int w = graph.link(v, nextLink[v]);
+                        nextLink[v]++;
+                        if (order[w] == UNVISITED) {
+                            depth++;
+                            path[depth] = w;
+                            order[w] = visited;
+                            low[w] = visited;
+                            visited++;
+                            stack[stackSize] = w;
+                            stackSize++;
+                            onStack[w] = true;
+                        } else if (onStack[w]) {
+                            low[v] = Math.min(low[v], order[w]);
+                        }
+                    } else {
+                        // Every link of v followed: v may close a component
+                        if (low[v] == order[v]) {
+                            int w;
+                            do {
+                                stackSize--;
+                                w = stack[stackSize];
+                                onStack[w] = false;
+                                this.component[w] = components;
+                                sizes[components]++;
+                            } while (w != v);
+                            components++;
+                        }
+                        depth--;
+                        if (depth >= 0) {
+                            int parent = path[depth];
+                            low[parent] = Math.min(low[parent], low[v]);
+                        }
+                    }
+                }
+            }
+        }
+        this.componentSize = Arrays.copyOf(sizes, components);
+    }
+
+    /**
+     * Analyses the links of {@code graph}.
+     *
+     * @param graph
+     *            the graph
+     * @return the analysis
+     */
+    public static GraphAnalysis of(LinkGraph graph) {
+        return new GraphAnalysis(graph);
+    }
+
+    /**
+     * Returns the number of terms no definition links to.
+     *
+     * @return the number of orphans
+     */
+    public int orphans() {
+        int result = 0;
+        for (int i = 0; i < this.graph.size(); i++) {
+            if (this.graph.referrerCount(i) == 0) {
+                result++;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the number of terms whose definitions link to no term.
+     *
+     * @return the number of dead ends
+     */
+    public int deadEnds() {
+        int result = 0;
+        for (int i = 0; i < this.graph.size(); i++) {
+            if (this.graph.linkCount(i) == 0) {
+                result++;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the number of strongly connected components, counting every
+     * term outside a cycle as a component of its own.
+     *
+     * @return the number of components
+     */
+    public int components() {
+        return this.componentSize.length;
+    }
+
+    /**
+     * Returns the groups of terms whose definitions link to each other in a
+     * cycle, largest first and then by their first term, with the terms of
+     * each group in index order.
+     *
+     * @return the ids of the terms of every component of more than one term
+     */
+    public int[][] cycles() {
+        int[] count = new int[this.componentSize.length];
+        int cycles = 0;
+        for (int c = 0; c < count.length; c++) {
+            if (this.componentSize[c] > 1) {
+                cycles++;
+            }
+        }
+        // Terms are visited in index order, so groups start out ordered by
+        // their first term
+        int[][] result = new int[cycles][];
+        int[] slot = new int[this.componentSize.length];
+        Arrays.fill(slot, UNVISITED);
+        int next = 0;
+        for (int i = 0; i < this.component.length; i++) {
+            int c = this.component[i];
+            if (this.componentSize[c] > 1) {
+                if (slot[c] == UNVISITED) {
+                    slot[c] = next;
+                    result[next] = new int[this.componentSize[c]];
+                    next++;
+                }
+                result[slot[c]][count[c]] = i;
+                count[c]++;
+            }
+        }
+        // A stable sort keeps groups of the same size in that order
+        Integer[] byId = new Integer[cycles];
+        for (int k = 0; k < cycles; k++) {
+            byId[k] = k;
+        }
+        Arrays.sort(byId, (a, b) -> result[b].length - result[a].length);
+        int[][] sorted = new int[cycles][];
+        for (int k = 0; k < cycles; k++) {
+            sorted[k] = result[byId[k]];
+        }
+        return sorted;
+    }
+
+    /**
+     * Appends the terms of ids {@code ids} to {@code out} as a JSON array.
+     *
+     * @param out
+     *            the buffer
+     * @param ids
+     *            the ids of the terms
+     * @param count
+     *            the number of ids to append
+     */
+    private void appendTerms(PageBuffer out, int[] ids, int count) {
+        out.print("[");
+        for (int k = 0; k < count; k++) {
+            if (k > 0) {
+                out.print(", ");
+            }
+            SearchIndexWriter.quote(out, this.graph.term(ids[k]));
+        }
+        out.print("]");
+    }
+
+    /**
+     * Appends the terms with the most links of each kind to {@code out}.
+     *
+     * @param out
+     *            the buffer
+     * @param name
+     *            the JSON key
+     * @param referrers
+     *            whether to count referrers rather than links
+     */
+    private void appendMost(PageBuffer out, String name, boolean referrers) {
+        int best = UNVISITED;
+        int most = 0;
+        for (int i = 0; i < this.graph.size(); i++) {
+            int degree = this.graph.linkCount(i);
+            if (referrers) {
+                degree = this.graph.referrerCount(i);
+            }
+            if (degree > most) {
+                best = i;
+                most = degree;
+            }
+        }
+        out.print("  \"").print(name).print("\": ");
+        if (best == UNVISITED) {
+            out.print("null");
+        } else {
+            out.print("{ \"term\": ");
+            SearchIndexWriter.quote(out, this.graph.term(best));
+            out.print(", \"count\": ").print(Integer.toString(most))
+                    .print(" }");
+        }
+        out.println(",");
+    }
+
+    /**
+     * Returns the report of the analysis as a JSON object: the counts, the
+     * terms with the most referrers and links, and every orphan, dead end
+     * and cycle.
+     *
+     * @return the report, as UTF-8
+     */
+    public PageBuffer report() {
+        int n = this.graph.size();
+        int links = 0;
+        int[] orphans = new int[n];
+        int orphanCount = 0;
+        int[] deadEnds = new int[n];
+        int deadEndCount = 0;
+        for (int i = 0; i < n; i++) {
+            links += this.graph.linkCount(i);
+            if (this.graph.referrerCount(i) == 0) {
+                orphans[orphanCount] = i;
+                orphanCount++;
+            }
+            if (this.graph.linkCount(i) == 0) {
+                deadEnds[deadEndCount] = i;
+                deadEndCount++;
+            }
+        }
+        int[][] cycles = this.cycles();
+
+        PageBuffer out = new PageBuffer();
+        out.println("{");
+        String[] names = { "terms", "links", "orphans", "deadEnds",
+                "components", "cycles" };
+        int[] counts = { n, links, orphanCount, deadEndCount,
+                this.components(), cycles.length };
+        for (int i = 0; i < names.length; i++) {
+            out.print("  \"").print(names[i]).print("Count\": ")
+                    .print(Integer.toString(counts[i])).println(",");
+        }
+        double mean = 0;
+        if (n > 0) {
+            mean = (double) links / n;
+        }
+        out.print("  \"meanLinks\": ")
+                .print(String.format(Locale.ROOT, "%.3f", mean)).println(",");
+        this.appendMost(out, "mostReferenced", true);
+        this.appendMost(out, "mostLinks", false);
+        out.print("  \"orphans\": ");
+        this.appendTerms(out, orphans, orphanCount);
+        out.println(",");
+        out.print("  \"deadEnds\": ");
+        this.appendTerms(out, deadEnds, deadEndCount);
+        out.println(",");
+        out.print("  \"cycles\": [");
+        for (int k = 0; k < cycles.length; k++) {
+            if (k > 0) {
+                out.print(",");
+            }
+            out.newLine().print("    ");
+            this.appendTerms(out, cycles[k], cycles[k].length);
+        }
+        if (cycles.length > 0) {
+            out.newLine().print("  ");
+        }
+        out.println("]");
+        out.println("}");
+        return out;
+    }
+
+    /**
+     * Writes {@link #report} to the file {@code name}.
+     *
+     * @param name
+     *            the report file
+     * @throws UncheckedIOException
+     *             if the file cannot be written
+     */
+    public void write(String name) {
+        ByteBuffer bytes = this.report().bytes();
+        try (FileChannel channel = FileChannel.open(Paths.get(name),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (bytes.hasRemaining()) {
+                channel.write(bytes);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+}
@@ -0,0 +1,57 @@
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Renders the HTML glossary from the {@link LinkedDefinition} model: the
+ * same index, term pages and search index a build without other formats
+ * writes.
+ *
+ * @author Yakob Getu
+ *
+ */
+public final class HtmlRenderer implements GlossaryRenderer {
+
+    /**
+     * The linker, whose separators split definitions into search words.
+     */
+    private final TermLinker linker;
+
+    /**
+     * The templates, index shards and search index to use.
+     */
+    private final GlossaryOptions options;
+
+    /**
+     * Creates an HTML renderer.
+     *
+     * @param linker
+     *            the linker for the terms of the glossary
+     * @param options
+     *            the templates, index shards and search index to use
+     */
+    public HtmlRenderer(TermLinker linker, GlossaryOptions options) {
+        this.linker = linker;
+        this.options = options;
+    }
+
+    @Override
+    public void renderIndex(List<LinkedDefinition> entries, PageSink sink) {
+        List<String> terms = new ArrayList<>(entries.size());
+        List<GlossaryEntry> glossary = new ArrayList<>(entries.size());
+        for (LinkedDefinition entry : entries) {
+            terms.add(entry.term());
+            glossary.add(new GlossaryEntry(entry.term(), entry.definition()));
+        }
+        GlossaryClass.generateIndex(terms, this.options, sink);
+        GlossaryClass.generateSearchIndex(glossary.iterator(), this.linker,
+                this.options, sink);
+    }
+
+    @Override
+    public void renderTerm(LinkedDefinition entry, LinkGraph references,
+            PageSink sink) {
+        GlossaryClass.generatePage(entry, this.options.templates(),
+                references, sink);
+    }
+
+}
@@ -0,0 +1,414 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import components.map.Map;
+import components.queue.Queue;
+import components.queue.Queue1L;
+
+/**
+ * Rebuilds only the pages of an output folder that are out of date. The
+ * {@link BuildManifest} of the previous build says which definition every
+ * page was generated from and which terms it linked to. A page is
+ * regenerated when its definition changed, when it is new, or when it links
+ * to a term that was added or removed. The pages linking to an added or
+ * removed term are found through the reverse of the link graph. When pages
+ * list the terms referring to them, a page is also regenerated when a term
+ * starts or stops linking to it. The index is rewritten only when the set of
+ * terms changes.
+ *
+ * @author Yakob Getu
+ *
+ */
+public final class IncrementalBuilder {
+
+    /**
+     * Private constructor so this utility class cannot be instantiated.
+     */
+    private IncrementalBuilder() {
+    }
+
+    /**
+     * What an incremental build did.
+     */
+    public static final class Result {
+
+        /**
+         * Number of term pages written.
+         */
+        private final int pagesWritten;
+
+        /**
+         * Number of term pages deleted because their term was removed.
+         */
+        private final int pagesDeleted;
+
+        /**
+         * Whether the index page was rewritten.
+         */
+        private final boolean indexWritten;
+
+        /**
+         * Creates a result.
+         *
+         * @param pagesWritten
+         *            number of term pages written
+         * @param pagesDeleted
+         *            number of term pages deleted
+         * @param indexWritten
+         *            whether the index page was rewritten
+         */
+        Result(int pagesWritten, int pagesDeleted, boolean indexWritten) {
+            this.pagesWritten = pagesWritten;
+            this.pagesDeleted = pagesDeleted;
+            this.indexWritten = indexWritten;
+        }
+
+        /**
+         * Returns the number of term pages written.
+         *
+         * @return the number of pages written
+         */
+        public int pagesWritten() {
+            return this.pagesWritten;
+        }
+
+        /**
+         * Returns the number of term pages deleted.
+         *
+         * @return the number of pages deleted
+         */
+        public int pagesDeleted() {
+            return this.pagesDeleted;
+        }
+
+        /**
+         * Returns whether the index page was rewritten.
+         *
+         * @return true if the index was rewritten
+         */
+        public boolean indexWritten() {
+            return this.indexWritten;
+        }
+    }
+
+    /**
+     * A sink that deletes the uncompressed copy of every page before it is
+     * written compressed only, so a folder built with both copies keeps
+     * none of its plain pages once it is rebuilt in full.
+     */
+    private static final class PlainPageDeleter implements PageSink {
+
+        /**
+         * The output folder.
+         */
+        private final String folder;
+
+        /**
+         * Where the pages are written, compressed only.
+         */
+        private final PageSink target;
+
+        /**
+         * Creates a sink deleting the plain pages of {@code folder} and
+         * writing to {@code target}.
+         *
+         * @param folder
+         *            the output folder
+         * @param target
+         *            where the pages are written, compressed only
+         */
+        PlainPageDeleter(String folder, PageSink target) {
+            this.folder = folder;
+            this.target = target;
+        }
+
+        @Override
+        public void write(String name, ByteBuffer page) {
+            try {
+                Files.deleteIfExists(Paths.get(this.folder, name));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            this.target.write(name, page);
+        }
+
+        @Override
+        public PageStats stats() {
+            return this.target.stats();
+        }
+
+        @Override
+        public boolean ordered() {
+            return this.target.ordered();
+        }
+
+        /**
+         * Leaves the target open; its owner closes it.
+         */
+        @Override
+        public void close() {
+        }
+
+    }
+
+    /**
+     * Deletes the index shards of {@code folder} numbered above
+     * {@code shards}, left over from an index that had more of them.
+     *
+     * @param folder
+     *            the output folder
+     * @param shards
+     *            the number of shards just written
+     * @throws UncheckedIOException
+     *             if a shard cannot be deleted
+     */
+    static void deleteShardsAfter(String folder, int shards) {
+        int n = shards + 1;
+        while (deletePage(folder, ShardedIndex.shardName(n))) {
+            n++;
+        }
+    }
+
+    /**
+     * Deletes the page {@code name} of {@code folder} and its compressed
+     * copy.
+     *
+     * @param folder
+     *            the output folder
+     * @param name
+     *            the page's file name
+     * @return whether the page or its copy existed
+     * @throws UncheckedIOException
+     *             if the page cannot be deleted
+     */
+    static boolean deletePage(String folder, String name) {
+        try {
+            boolean page = Files.deleteIfExists(Paths.get(folder, name));
+            boolean copy = Files.deleteIfExists(
+                    Paths.get(folder, name + CompressingSink.SUFFIX));
+            return page || copy;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Returns the distinct terms {@code term} links to in {@code manifest}.
+     *
+     * @param manifest
+     *            the manifest
+     * @param term
+     *            the term
+     * @return the terms linked to, empty if {@code term} is not in
+     *         {@code manifest}
+     */
+    private static Set<String> linkSet(BuildManifest manifest, String term) {
+        Set<String> links = new HashSet<>();
+        BuildManifest.Record record = manifest.get(term);
+        if (record != null) {
+            links.addAll(Arrays.asList(record.links()));
+        }
+        return links;
+    }
+
+    /**
+     * Brings the pages in {@code folder} up to date with {@code m}, then
+     * records the new state in the manifest of {@code folder}. Without a
+     * usable manifest, or without an index page, every page is written.
+     *
+     * @param terms
+     *            the sorted terms of {@code m}
+     * @param m
+     *            the map containing all the terms and definitions
+     * @param folder
+     *            the output folder of all the html files
+     * @param linker
+     *            the linker for the terms of {@code m}
+     * @param options
+     *            how to generate pages
+     * @return what the build did
+     * @throws UncheckedIOException
+     *             if a stale page cannot be deleted or the manifest cannot be
+     *             written
+     */
+    public static Result build(Queue<String> terms, Map<String, String> m,
+            String folder, TermLinker linker, GlossaryOptions options) {
+        return build(terms, m, new FileSink(folder), linker, options);
+    }
+
+    /**
+     * Brings the pages written by {@code sink} up to date with {@code m}, as
+     * {@link #build(Queue, Map, String, TermLinker, GlossaryOptions)} does
+     * for the sink's folder, counting what is written in its statistics.
+     *
+     * @param terms
+     *            the sorted terms of {@code m}
+     * @param m
+     *            the map containing all the terms and definitions
+     * @param sink
+     *            the sink writing into the output folder
+     * @param linker
+     *            the linker for the terms of {@code m}
+     * @param options
+     *            how to generate pages
+     * @return what the build did
+     * @throws UncheckedIOException
+     *             if a stale page cannot be deleted or the manifest cannot be
+     *             written
+     */
+    public static Result build(Queue<String> terms, Map<String, String> m,
+            FileSink sink, TermLinker linker, GlossaryOptions options) {
+        return build(terms, m, sink.folder().toString(), sink, linker,
+                options);
+    }
+
+    /**
+     * Brings the pages of {@code folder} up to date with {@code m}, as
+     * {@link #build(Queue, Map, String, TermLinker, GlossaryOptions)} does,
+     * writing them through {@code sink}, such as a {@link CompressingSink}
+     * over the folder.
+     *
+     * @param terms
+     *            the sorted terms of {@code m}
+     * @param m
+     *            the map containing all the terms and definitions
+     * @param folder
+     *            the output folder of all the html files
+     * @param sink
+     *            the sink writing into {@code folder}
+     * @param linker
+     *            the linker for the terms of {@code m}
+     * @param options
+     *            how to generate pages
+     * @return what the build did
+     * @throws UncheckedIOException
+     *             if a stale page cannot be deleted or the manifest cannot be
+     *             written
+     */
+    public static Result build(Queue<String> terms, Map<String, String> m,
+            String folder, PageSink sink, TermLinker linker,
+            GlossaryOptions options) {
+        String style = options.templates().fingerprint() + "/"
+                + options.indexShards() + "/" + options.search() + "/"
+                + options.referencedBy() + "/" + options.gzipLevel() + "/"
+                + options.gzipOnly() + "/" + options.collation();
+        BuildManifest previous = BuildManifest.read(folder, style);
+        String index = "index.html";
+        if (options.gzipOnly()) {
+            index += CompressingSink.SUFFIX;
+        }
+        if (!Files.isRegularFile(Paths.get(folder, index))) {
+            previous = null;
+        }
+
+        // Record the new state and find new and changed pages
+        BuildManifest current = new BuildManifest(style);
+        Set<String> added = new HashSet<>();
+        Set<String> dirty = new HashSet<>();
+        for (String term : terms) {
+            current.put(term, m.value(term), linker.links(m.value(term)));
+            BuildManifest.Record before = null;
+            if (previous != null) {
+                before = previous.get(term);
+            }
+            if (before == null) {
+                added.add(term);
+                dirty.add(term);
+            } else if (before.hash() != current.get(term).hash()) {
+                dirty.add(term);
+            }
+        }
+        Set<String> removed = new HashSet<>();
+        if (previous != null) {
+            for (String term : previous.terms()) {
+                if (current.get(term) == null) {
+                    removed.add(term);
+                }
+            }
+        }
+
+        // Pages now linking to an added term, and pages that linked to a
+        // removed one, change too
+        if (previous != null && !added.isEmpty()) {
+            for (String term : terms) {
+                for (String link : current.get(term).links()) {
+                    if (added.contains(link)) {
+                        dirty.add(term);
+                    }
+                }
+            }
+        }
+        if (!removed.isEmpty()) {
+            for (String term : previous.terms()) {
+                for (String link : previous.get(term).links()) {
+                    if (removed.contains(link) && !removed.contains(term)) {
+                        dirty.add(term);
+                    }
+                }
+            }
+        }
+
+        // Pages a term started or stopped linking to list different
+        // referrers
+        if (previous != null && options.referencedBy()) {
+            Set<String> sources = new HashSet<>(previous.terms());
+            sources.addAll(current.terms());
+            for (String source : sources) {
+                Set<String> before = linkSet(previous, source);
+                Set<String> after = linkSet(current, source);
+                if (!before.equals(after)) {
+                    Set<String> changed = new HashSet<>(before);
+                    changed.addAll(after);
+                    for (String target : changed) {
+                        if (!target.equals(source)
+                                && before.contains(target) != after
+                                        .contains(target)
+                                && current.get(target) != null) {
+                            dirty.add(target);
+                        }
+                    }
+                }
+            }
+        }
+
+        boolean indexWritten = previous == null || !added.isEmpty()
+                || !removed.isEmpty();
+        PageSink pages = sink;
+        if (previous == null && options.gzipOnly()) {
+            // The folder may hold plain copies of pages from a build without
+            // -gzipOnly, which nothing would delete after this one
+            pages = new PlainPageDeleter(folder, sink);
+        }
+        if (indexWritten) {
+            int shards = GlossaryClass.generateIndex(terms, options, pages);
+            deleteShardsAfter(folder, shards);
+        }
+        for (String term : removed) {
+            deletePage(folder, TermLinker.pageName(term));
+        }
+        Queue<String> stale = new Queue1L<>();
+        for (String term : terms) {
+            if (dirty.contains(term)) {
+                stale.enqueue(term);
+            }
+        }
+        GlossaryClass.generatePages(stale, m, pages, linker,
+                GlossaryClass.referencesFor(terms, m, linker, options),
+                options);
+        if (indexWritten || stale.length() > 0) {
+            GlossaryClass.generateSearchIndex(GlossaryEntry.entries(terms, m),
+                    linker, options, pages);
+        }
+
+        // Only record the new state once every page matches it
+        current.write(folder);
+        return new Result(stale.length(), removed.size(), indexWritten);
+    }
+
+}
@@ -0,0 +1,97 @@
+import java.util.List;
+
+/**
+ * Renders the glossary as JSON: {@code index.json} lists every term and the
+ * file holding it, and {@code <term>.json} holds the term and its definition
+ * as segments, each either text copied from the definition or a link to a
+ * term, and, when there is a link graph, the terms referring to it.
+ *
+ * @author Yakob Getu
+ *
+ */
+public final class JsonRenderer implements GlossaryRenderer {
+
+    /**
+     * Extension of the files written.
+     */
+    private static final String EXTENSION = ".json";
+
+    /**
+     * Writes the term and file of {@code term} as a JSON object.
+     *
+     * @param out
+     *            the file being rendered
+     * @param term
+     *            the term
+     */
+    private static void termObject(PageBuffer out, String term) {
+        out.print("{ \"term\": ");
+        SearchIndexWriter.quote(out, term);
+        out.print(", \"href\": ");
+        SearchIndexWriter.quote(out, TermLinker.href(term, EXTENSION));
+        out.print(" }");
+    }
+
+    @Override
+    public void renderIndex(List<LinkedDefinition> entries, PageSink sink) {
+        PageBuffer out = PageBuffer.forThread();
+        out.print("{").newLine().print("  \"terms\": [");
+        String separator = "";
+        for (LinkedDefinition entry : entries) {
+            out.print(separator).newLine().print("    ");
+            termObject(out, entry.term());
+            separator = ",";
+        }
+        out.newLine().print("  ]").newLine().print("}").newLine();
+        out.writeTo(sink, "index" + EXTENSION);
+    }
+
+    @Override
+    public void renderTerm(LinkedDefinition entry, LinkGraph references,
+            PageSink sink) {
+        PageBuffer out = PageBuffer.forThread();
+        out.print("{").newLine().print("  \"term\": ");
+        SearchIndexWriter.quote(out, entry.term());
+        out.print(",").newLine().print("  \"definition\": [");
+        String separator = "";
+        int i = 0;
+        while (i < entry.tokenCount()) {
+            out.print(separator).newLine().print("    ");
+            if (entry.isLink(i)) {
+                out.print("{ \"link\": ");
+                SearchIndexWriter.quote(out, entry.token(i));
+                out.print(", \"href\": ");
+                SearchIndexWriter.quote(out,
+                        TermLinker.href(entry.token(i), EXTENSION));
+                out.print(" }");
+                i++;
+            } else {
+                // Runs of plain tokens make one text segment
+                int start = entry.start(i);
+                while (i < entry.tokenCount() && !entry.isLink(i)) {
+                    i++;
+                }
+                out.print("{ \"text\": ");
+                SearchIndexWriter.quote(out, entry.definition()
+                        .substring(start, entry.end(i - 1)));
+                out.print(" }");
+            }
+            separator = ",";
+        }
+        out.newLine().print("  ]");
+        if (references != null) {
+            out.print(",").newLine().print("  \"referencedBy\": [");
+            int id = references.id(entry.term());
+            separator = "";
+            for (int k = 0; id >= 0 && k < references.referrerCount(id); k++) {
+                out.print(separator).newLine().print("    ");
+                termObject(out, references.term(references.referrer(id, k)));
+                separator = ",";
+            }
+            out.newLine().print("  ]");
+        }
+        out.newLine().print("}").newLine();
+        out.writeTo(sink, TermLinker.pageName(entry.term(), EXTENSION));
+    }
+
+}
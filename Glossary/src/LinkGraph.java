@@ -0,0 +1,461 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToIntFunction;
+
+/**
+ * The links between the terms of a glossary, and their reverse. Every term
+ * gets an id, its position in index order, and the links are kept as
+ * compressed rows of ids: the terms linked from term {@code i} are
+ * {@code links[linkStart[i]]} to {@code links[linkStart[i + 1] - 1]}. The
+ * reverse rows are filled by counting the links into each term, turning the
+ * counts into row starts and then placing every link, so building both takes
+ * time linear in the number of terms and links and two {@code int}s per link.
+ *
+ * <p>
+ * A term linking to itself, or to the same term twice, counts once, and
+ * never as its own referrer.
+ *
+ * @author Yakob Getu
+ *
+ */
+public final class LinkGraph {
+
+    /**
+     * The terms, by id.
+     */
+    private final String[] terms;
+
+    /**
+     * Returns the id of every term, or -1 for a string that is not one.
+     */
+    private final ToIntFunction<String> ids;
+
+    /**
+     * Start of the row of links from each term, and the number of links at
+     * the end.
+     */
+    private final int[] linkStart;
+
+    /**
+     * The terms linked to, row by row.
+     */
+    private final int[] links;
+
+    /**
+     * Start of the row of referrers of each term, and the number of links at
+     * the end.
+     */
+    private final int[] referrerStart;
+
+    /**
+     * The terms linking to each term, row by row, in increasing order.
+     */
+    private final int[] referrers;
+
+    /**
+     * Creates a graph from its forward rows and inverts them.
+     *
+     * @param terms
+     *            the terms, by id
+     * @param ids
+     *            returns the id of every term, or -1 for a string that is not
+     *            one
+     * @param linkStart
+     *            start of the row of links from each term
+     * @param links
+     *            the terms linked to, row by row
+     */
+    private LinkGraph(String[] terms, ToIntFunction<String> ids,
+            int[] linkStart, int[] links) {
+        this.terms = terms;
+        this.ids = ids;
+        this.linkStart = linkStart;
+        this.links = links;
+        int n = terms.length;
+        int edges = linkStart[n];
+
+        // Count the links into each term, one row over
+        this.referrerStart = new int[n + 1];
+        for (int e = 0; e < edges; e++) {
+            this.referrerStart[links[e] + 1]++;
+        }
+        for (int i = 0; i < n; i++) {
+            this.referrerStart[i + 1] += this.referrerStart[i];
+        }
+
+        // Place every link; sources come in increasing order, so rows do too
+        this.referrers = new int[edges];
+        int[] next = Arrays.copyOf(this.referrerStart, n);
+        for (int source = 0; source < n; source++) {
+            for (int e = linkStart[source]; e < linkStart[source + 1]; e++) {
+                this.referrers[next[links[e]]] = source;
+                next[links[e]]++;
+            }
+        }
+    }
+
+    /**
+     * Builds the graph of the links {@code linker} finds in the definitions
+     * of {@code entries}.
+     *
+     * @param terms
+     *            the terms, in index order
+     * @param entries
+     *            the terms and definitions, in the same order
+     * @param linker
+     *            the linker for all the terms
+     * @return the graph
+     * @requires [entries has the terms of terms, in the same order]
+     */
+    public static LinkGraph build(Iterable<String> terms,
+            Iterator<GlossaryEntry> entries, TermLinker linker) {
+        HashMap<String, Integer> ids = new HashMap<>();
+        int n = 0;
+        for (String term : terms) {
+            ids.put(term, n);
+            n++;
+        }
+        String[] byId = new String[n];
+        int[] linkStart = new int[n + 1];
+        int[] links = new int[Math.max(n, 1)];
+        // lastSource[t] is 1 + the last term found linking to t
+        int[] lastSource = new int[n];
+        int edges = 0;
+        int source = 0;
+        while (entries.hasNext()) {
+            GlossaryEntry entry = entries.next();
+            byId[source] = entry.term();
+            linkStart[source] = edges;
+            for (String link : linker.links(entry.definition())) {
+                int target = ids.get(link);
+                if (target != source && lastSource[target] != source + 1) {
+                    lastSource[target] = source + 1;
+                    if (edges == links.length) {
+                        links = Arrays.copyOf(links, 2 * edges);
+                    }
+                    links[edges] = target;
+                    edges++;
+                }
+            }
+            source++;
+        }
+        linkStart[n] = edges;
+        return new LinkGraph(byId, lookup(ids), linkStart,
+                Arrays.copyOf(links, edges));
+    }
+
+    /**
+     * Collects the rows of a graph from the links found while the pages of
+     * the terms are rendered, so the graph of a glossary whose pages are
+     * written anyway takes no pass over the definitions of its own. The ids
+     * of the terms are their numbers in the trie of a linker created from
+     * them in index order, which are found without hashing any string. The
+     * pages of different terms may be rendered on different threads at once.
+     */
+    public static final class Collector {
+
+        /**
+         * The terms, by id.
+         */
+        private final String[] terms;
+
+        /**
+         * The linker numbering the terms with their ids.
+         */
+        private final TermLinker linker;
+
+        /**
+         * The row of links of every term, or null until one is recorded.
+         */
+        private final int[][] rows;
+
+        /**
+         * Each thread's stamps: lastSource[t] is 1 + the last term whose row
+         * the thread found linking to t. Rows are recorded on several
+         * threads at once, so each has its own.
+         */
+        private final ThreadLocal<int[]> lastSource;
+
+        /**
+         * Creates a collector with no rows for {@code terms}, which
+         * {@code linker} was created from.
+         *
+         * @param terms
+         *            the terms, in index order
+         * @param linker
+         *            the linker created from {@code terms}, in the same order
+         * @requires [terms are distinct, and linker was created from terms in
+         *           the same order]
+         */
+        public Collector(Iterable<String> terms, TermLinker linker) {
+            List<String> byId = new ArrayList<>();
+            for (String term : terms) {
+                byId.add(term);
+            }
+            this.terms = byId.toArray(new String[0]);
+            this.linker = linker;
+            this.rows = new int[this.terms.length][];
+            int n = this.terms.length;
+            this.lastSource = ThreadLocal.withInitial(() -> new int[n]);
+        }
+
+        /**
+         * Returns the id of the term {@code text[start, end)}.
+         *
+         * @param text
+         *            the text holding the term
+         * @param start
+         *            the index the term starts at
+         * @param end
+         *            the index just past the term
+         * @return its id, or -1 if it is not in the glossary
+         * @requires 0 <= start <= end <= |text|
+         */
+        int id(String text, int start, int end) {
+            return this.linker.number(text, start, end);
+        }
+
+        /**
+         * Records that the definition of term {@code source} links to the
+         * terms {@code targets[0, count)}, in order and with repeats.
+         *
+         * @param source
+         *            the id of the term
+         * @param targets
+         *            the ids of the terms linked to
+         * @param count
+         *            the number of links
+         * @requires 0 <= source < [number of terms] and [every target is an
+         *           id] and [no row was recorded for source before]
+         */
+        void record(int source, int[] targets, int count) {
+            int[] stamps = this.lastSource.get();
+            int[] row = new int[count];
+            int length = 0;
+            for (int k = 0; k < count; k++) {
+                int target = targets[k];
+                if (target != source && stamps[target] != source + 1) {
+                    stamps[target] = source + 1;
+                    row[length] = target;
+                    length++;
+                }
+            }
+            this.rows[source] = Arrays.copyOf(row, length);
+        }
+
+        /**
+         * Returns the graph of the rows recorded, once every page is
+         * rendered. A term with no row recorded links to nothing.
+         *
+         * @return the graph
+         */
+        public LinkGraph graph() {
+            int n = this.terms.length;
+            int[] linkStart = new int[n + 1];
+            for (int i = 0; i < n; i++) {
+                int length = 0;
+                if (this.rows[i] != null) {
+                    length = this.rows[i].length;
+                }
+                linkStart[i + 1] = linkStart[i] + length;
+            }
+            int[] links = new int[linkStart[n]];
+            for (int i = 0; i < n; i++) {
+                if (this.rows[i] != null) {
+                    System.arraycopy(this.rows[i], 0, links, linkStart[i],
+                            this.rows[i].length);
+                }
+            }
+            TermLinker numbers = this.linker;
+            return new LinkGraph(this.terms,
+                    term -> numbers.number(term, 0, term.length()), linkStart,
+                    links);
+        }
+    }
+
+    /**
+     * Returns a lookup of the ids in {@code ids}.
+     *
+     * @param ids
+     *            the id of every term
+     * @return the lookup, returning -1 for a string that is not a term
+     */
+    private static ToIntFunction<String> lookup(HashMap<String, Integer> ids) {
+        return term -> {
+            Integer id = ids.get(term);
+            int result = -1;
+            if (id != null) {
+                result = id;
+            }
+            return result;
+        };
+    }
+
+    /**
+     * Returns the graph whose rows of links have already been found, such as
+     * those read back from a {@link CompiledGlossary}.
+     *
+     * @param terms
+     *            the terms, in index order
+     * @param linkStart
+     *            start of the row of links from each term, and the number of
+     *            links at the end
+     * @param links
+     *            the ids of the terms linked to, row by row
+     * @return the graph
+     * @requires linkStart.length = terms.length + 1 and [every row is free of
+     *           repeats and of its own term]
+     */
+    static LinkGraph of(String[] terms, int[] linkStart, int[] links) {
+        HashMap<String, Integer> ids = new HashMap<>();
+        for (int i = 0; i < terms.length; i++) {
+            ids.put(terms[i], i);
+        }
+        return new LinkGraph(terms, lookup(ids), linkStart, links);
+    }
+
+    /**
+     * Returns a graph of the same terms with the rows of links of
+     * {@code rows} in place of those of this graph. Unchanged rows are copied
+     * in runs, so only the reverse rows take time linear in the size of the
+     * graph.
+     *
+     * @param rows
+     *            the new row of links of each changed term, by id
+     * @return the graph
+     * @requires [every key of rows is an id, and every row is free of repeats
+     *           and of its own term]
+     */
+    LinkGraph withRows(Map<Integer, int[]> rows) {
+        int n = this.terms.length;
+        int edges = this.linkStart[n];
+        for (Map.Entry<Integer, int[]> row : rows.entrySet()) {
+            edges += row.getValue().length - this.linkCount(row.getKey());
+        }
+        int[] changed = new int[rows.size() + 1];
+        int c = 0;
+        for (int id : rows.keySet()) {
+            changed[c] = id;
+            c++;
+        }
+        Arrays.sort(changed, 0, c);
+        changed[c] = n;
+
+        int[] start = new int[n + 1];
+        int[] links = new int[edges];
+        int at = 0;
+        int source = 0;
+        for (int id : changed) {
+            // Copy the unchanged rows before the changed one in one run
+            int length = this.linkStart[id] - this.linkStart[source];
+            System.arraycopy(this.links, this.linkStart[source], links, at,
+                    length);
+            int shift = at - this.linkStart[source];
+            for (int i = source; i < id; i++) {
+                start[i] = this.linkStart[i] + shift;
+            }
+            at += length;
+            if (id < n) {
+                int[] row = rows.get(id);
+                start[id] = at;
+                System.arraycopy(row, 0, links, at, row.length);
+                at += row.length;
+            }
+            source = id + 1;
+        }
+        start[n] = at;
+        return new LinkGraph(this.terms, this.ids, start, links);
+    }
+
+    /**
+     * Returns the number of terms.
+     *
+     * @return the number of terms
+     */
+    public int size() {
+        return this.terms.length;
+    }
+
+    /**
+     * Returns the id of {@code term}.
+     *
+     * @param term
+     *            the term
+     * @return its id, or -1 if it is not in the glossary
+     */
+    public int id(String term) {
+        return this.ids.applyAsInt(term);
+    }
+
+    /**
+     * Returns the term with id {@code id}.
+     *
+     * @param id
+     *            the id
+     * @return the term
+     * @requires 0 <= id < size()
+     */
+    public String term(int id) {
+        return this.terms[id];
+    }
+
+    /**
+     * Returns the number of terms the definition of term {@code id} links
+     * to.
+     *
+     * @param id
+     *            the term id
+     * @return the number of links
+     * @requires 0 <= id < size()
+     */
+    public int linkCount(int id) {
+        return this.linkStart[id + 1] - this.linkStart[id];
+    }
+
+    /**
+     * Returns the {@code k}th term the definition of term {@code id} links
+     * to, in the order the links appear.
+     *
+     * @param id
+     *            the term id
+     * @param k
+     *            the position of the link
+     * @return the id of the term linked to
+     * @requires 0 <= id < size() and 0 <= k < linkCount(id)
+     */
+    public int link(int id, int k) {
+        return this.links[this.linkStart[id] + k];
+    }
+
+    /**
+     * Returns the number of terms whose definitions link to term {@code id}.
+     *
+     * @param id
+     *            the term id
+     * @return the number of referrers
+     * @requires 0 <= id < size()
+     */
+    public int referrerCount(int id) {
+        return this.referrerStart[id + 1] - this.referrerStart[id];
+    }
+
+    /**
+     * Returns the {@code k}th term, in index order, whose definition links to
+     * term {@code id}.
+     *
+     * @param id
+     *            the term id
+     * @param k
+     *            the position of the referrer
+     * @return the id of the referring term
+     * @requires 0 <= id < size() and 0 <= k < referrerCount(id)
+     */
+    public int referrer(int id, int k) {
+        return this.referrers[this.referrerStart[id] + k];
+    }
+
+}
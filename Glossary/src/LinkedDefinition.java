@@ -0,0 +1,191 @@
+import java.util.Arrays;
+
+/**
+ * A term and its definition split into tokens once, each token either words
+ * and separators copied as they are or a term the definition links to. This
+ * is the model every output format renders from, so the definition is
+ * tokenized and its links resolved once however many formats are written.
+ * The tokens are those the HTML page renders one per line: the definition
+ * up to, and not including, its last character.
+ *
+ * @author Yakob Getu
+ *
+ */
+public final class LinkedDefinition {
+
+    /**
+     * The term defined.
+     */
+    private final String term;
+
+    /**
+     * The definition.
+     */
+    private final String definition;
+
+    /**
+     * The end of every token; token {@code i} starts where token
+     * {@code i - 1} ends, and token 0 at 0.
+     */
+    private final int[] ends;
+
+    /**
+     * Whether each token is a link.
+     */
+    private final boolean[] links;
+
+    /**
+     * Number of links.
+     */
+    private final int linkCount;
+
+    /**
+     * Creates the model of one definition.
+     *
+     * @param term
+     *            the term defined
+     * @param definition
+     *            the definition
+     * @param ends
+     *            the end of every token
+     * @param links
+     *            whether each token is a link
+     * @param linkCount
+     *            the number of links
+     */
+    private LinkedDefinition(String term, String definition, int[] ends,
+            boolean[] links, int linkCount) {
+        this.term = term;
+        this.definition = definition;
+        this.ends = ends;
+        this.links = links;
+        this.linkCount = linkCount;
+    }
+
+    /**
+     * Splits {@code definition} into tokens, finding the longest term at
+     * each word with {@code linker}.
+     *
+     * @param term
+     *            the term defined
+     * @param definition
+     *            the definition
+     * @param linker
+     *            the linker for all the terms of the glossary
+     * @return the model of the definition
+     */
+    public static LinkedDefinition resolve(String term, String definition,
+            TermLinker linker) {
+        SeparatorTable separators = linker.separators();
+        int[] ends = new int[Math.max(definition.length() - 1, 0)];
+        boolean[] links = new boolean[ends.length];
+        int tokens = 0;
+        int linkCount = 0;
+        int currentPosition = 0;
+        while (currentPosition < definition.length() - 1) {
+            int linkEnd = linker.match(definition, currentPosition);
+            if (linkEnd > 0) {
+                currentPosition = linkEnd;
+                links[tokens] = true;
+                linkCount++;
+            } else {
+                currentPosition = separators.tokenEnd(definition,
+                        currentPosition);
+            }
+            ends[tokens] = currentPosition;
+            tokens++;
+        }
+        return new LinkedDefinition(term, definition,
+                Arrays.copyOf(ends, tokens), Arrays.copyOf(links, tokens),
+                linkCount);
+    }
+
+    /**
+     * Returns the term defined.
+     *
+     * @return the term
+     */
+    public String term() {
+        return this.term;
+    }
+
+    /**
+     * Returns the definition.
+     *
+     * @return the definition
+     */
+    public String definition() {
+        return this.definition;
+    }
+
+    /**
+     * Returns the number of tokens.
+     *
+     * @return the token count
+     */
+    public int tokenCount() {
+        return this.ends.length;
+    }
+
+    /**
+     * Returns the number of tokens that are links.
+     *
+     * @return the link count
+     */
+    public int linkCount() {
+        return this.linkCount;
+    }
+
+    /**
+     * Returns where token {@code i} starts in the definition.
+     *
+     * @param i
+     *            the token
+     * @return its start
+     * @requires 0 <= i < tokenCount()
+     */
+    public int start(int i) {
+        int result = 0;
+        if (i > 0) {
+            result = this.ends[i - 1];
+        }
+        return result;
+    }
+
+    /**
+     * Returns where token {@code i} ends in the definition.
+     *
+     * @param i
+     *            the token
+     * @return its end
+     * @requires 0 <= i < tokenCount()
+     */
+    public int end(int i) {
+        return this.ends[i];
+    }
+
+    /**
+     * Returns whether token {@code i} is a link to the term it spells.
+     *
+     * @param i
+     *            the token
+     * @return true if it is a link
+     * @requires 0 <= i < tokenCount()
+     */
+    public boolean isLink(int i) {
+        return this.links[i];
+    }
+
+    /**
+     * Returns the text of token {@code i}.
+     *
+     * @param i
+     *            the token
+     * @return the token, the linked term if it is a link
+     * @requires 0 <= i < tokenCount()
+     */
+    public String token(int i) {
+        return this.definition.substring(this.start(i), this.ends[i]);
+    }
+
+}
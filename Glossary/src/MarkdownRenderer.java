@@ -0,0 +1,122 @@
+import java.util.List;
+
+/**
+ * Renders the glossary as Markdown: {@code index.md} lists every term, and
+ * {@code <term>.md} has the term as its heading, the definition as a
+ * paragraph with links to the terms it uses and, when there is a link graph,
+ * a list of the terms referring to it.
+ *
+ * @author Yakob Getu
+ *
+ */
+public final class MarkdownRenderer implements GlossaryRenderer {
+
+    /**
+     * Extension of the files written.
+     */
+    private static final String EXTENSION = ".md";
+
+    /**
+     * Characters with a meaning in Markdown text, escaped with a backslash.
+     */
+    private static final String SPECIAL = "\\`*_[]<>#";
+
+    /**
+     * Writes {@code text[start, end)} to {@code out}, escaping the characters
+     * Markdown would interpret and joining lines.
+     *
+     * @param out
+     *            the page being rendered
+     * @param text
+     *            the text
+     * @param start
+     *            where the text to write starts
+     * @param end
+     *            where it ends
+     */
+    private static void text(PageBuffer out, String text, int start,
+            int end) {
+        int from = start;
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (SPECIAL.indexOf(c) >= 0 || c == '\n' || c == '\r') {
+                out.print(text, from, i);
+                if (c == '\n' || c == '\r') {
+                    out.print(" ");
+                } else {
+                    out.print("\\").print(text, i, i + 1);
+                }
+                from = i + 1;
+            }
+        }
+        out.print(text, from, end);
+    }
+
+    /**
+     * Writes a link to the page of {@code term}.
+     *
+     * @param out
+     *            the page being rendered
+     * @param term
+     *            the term
+     */
+    private static void link(PageBuffer out, String term) {
+        out.print("[");
+        text(out, term, 0, term.length());
+        out.print("](").print(TermLinker.href(term, EXTENSION)).print(")");
+    }
+
+    @Override
+    public void renderIndex(List<LinkedDefinition> entries, PageSink sink) {
+        PageBuffer out = PageBuffer.forThread();
+        out.print("# Glossary").newLine().newLine();
+        for (LinkedDefinition entry : entries) {
+            out.print("- ");
+            link(out, entry.term());
+            out.newLine();
+        }
+        out.writeTo(sink, "index" + EXTENSION);
+    }
+
+    @Override
+    public void renderTerm(LinkedDefinition entry, LinkGraph references,
+            PageSink sink) {
+        PageBuffer out = PageBuffer.forThread();
+        out.print("# ");
+        text(out, entry.term(), 0, entry.term().length());
+        out.newLine().newLine();
+        String definition = entry.definition();
+        // Leave out the blank space around the definition
+        int first = 0;
+        int last = entry.tokenCount() - 1;
+        while (first <= last && !entry.isLink(first)
+                && entry.token(first).isBlank()) {
+            first++;
+        }
+        while (last >= first && !entry.isLink(last)
+                && entry.token(last).isBlank()) {
+            last--;
+        }
+        for (int i = first; i <= last; i++) {
+            if (entry.isLink(i)) {
+                link(out, entry.token(i));
+            } else {
+                text(out, definition, entry.start(i), entry.end(i));
+            }
+        }
+        out.newLine();
+        if (references != null) {
+            int id = references.id(entry.term());
+            if (id >= 0 && references.referrerCount(id) > 0) {
+                out.newLine().print("## Referenced by").newLine().newLine();
+                for (int k = 0; k < references.referrerCount(id); k++) {
+                    out.print("- ");
+                    link(out, references.term(references.referrer(id, k)));
+                    out.newLine();
+                }
+            }
+        }
+        out.writeTo(sink, TermLinker.pageName(entry.term(), EXTENSION));
+    }
+
+}
@@ -0,0 +1,64 @@
+import java.nio.ByteBuffer;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Keeps every page in memory, by name. Useful to test and measure rendering
+ * without any file system cost; it makes no system calls.
+ *
+ * @author Yakob Getu
+ *
+ */
+public final class MemorySink implements PageSink {
+
+    /**
+     * The pages written, by name.
+     */
+    private final ConcurrentMap<String, byte[]> pages =
+            new ConcurrentHashMap<>();
+
+    /**
+     * What has been written.
+     */
+    private final PageStats stats = new PageStats();
+
+    @Override
+    public void write(String name, ByteBuffer page) {
+        byte[] bytes = new byte[page.remaining()];
+        page.get(bytes);
+        this.pages.put(name, bytes);
+        this.stats.recordPage(bytes.length, 0);
+    }
+
+    /**
+     * Returns the bytes of the page {@code name}.
+     *
+     * @param name
+     *            the page's file name
+     * @return its bytes, or null if no such page was written
+     */
+    public byte[] page(String name) {
+        return this.pages.get(name);
+    }
+
+    /**
+     * Returns the names of the pages written.
+     *
+     * @return the page names
+     */
+    public Set<String> names() {
+        return this.pages.keySet();
+    }
+
+    @Override
+    public PageStats stats() {
+        return this.stats;
+    }
+
+    @Override
+    public void close() {
+        // the pages stay available after closing
+    }
+
+}
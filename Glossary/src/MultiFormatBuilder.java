@@ -0,0 +1,154 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import components.map.Map;
+
+/**
+ * Writes a glossary in several formats from one pass over its definitions.
+ * Every definition is tokenized and its links resolved once, in parallel,
+ * into a {@link LinkedDefinition}; one {@link GlossaryRenderer} per format
+ * then renders the whole model on a thread of its own, into a sink of its
+ * own. HTML goes to the build's sink; every other format goes to a tree
+ * named after the output: a subfolder such as {@code out/json} for the file
+ * sink, or an archive such as {@code out-json.zip} next to the HTML one.
+ *
+ * @author Yakob Getu
+ *
+ */
+public final class MultiFormatBuilder {
+
+    /**
+     * Private constructor so this utility class cannot be instantiated.
+     */
+    private MultiFormatBuilder() {
+    }
+
+    /**
+     * Returns where the tree of {@code format} is written for a build into
+     * {@code target} with the sink {@code kind}.
+     *
+     * @param kind
+     *            the kind of sink of the build
+     * @param target
+     *            the output folder or archive of the build
+     * @param format
+     *            the format
+     * @return the folder or archive of the format
+     */
+    static String treeTarget(String kind, String target, String format) {
+        String result;
+        if (kind.equals(PageSink.FILE)) {
+            result = Paths.get(target, format).toString();
+        } else {
+            String name = Paths.get(target).getFileName().toString();
+            int dot = name.lastIndexOf('.');
+            if (dot <= 0) {
+                result = target + "-" + format;
+            } else {
+                int at = target.length() - name.length() + dot;
+                result = target.substring(0, at) + "-" + format
+                        + target.substring(at);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Writes the glossary {@code m} in every format {@code options} asks
+     * for, the HTML pages to {@code sink}.
+     *
+     * @param terms
+     *            the sorted terms of {@code m}
+     * @param m
+     *            the map containing all the terms and definitions
+     * @param linker
+     *            the linker for the terms of {@code m}
+     * @param references
+     *            the link graph of {@code m}, or null for no "Referenced by"
+     *            sections
+     * @param options
+     *            the formats, and the sink kind and output of the build
+     * @param sink
+     *            where the HTML pages are written
+     * @param metrics
+     *            where the stages are timed
+     * @throws UncheckedIOException
+     *             if the folder of a format cannot be created
+     */
+    public static void build(Iterable<String> terms, Map<String, String> m,
+            TermLinker linker, LinkGraph references, GlossaryOptions options,
+            PageSink sink, BuildMetrics metrics) {
+        // Copy the definitions out of the map, which is not safe to read
+        // from several threads
+        metrics.start("resolve");
+        List<String> termList = new ArrayList<>();
+        List<String> definitions = new ArrayList<>();
+        for (String term : terms) {
+            termList.add(term);
+            definitions.add(m.value(term));
+        }
+        LinkedDefinition[] model = new LinkedDefinition[termList.size()];
+        Arrays.parallelSetAll(model, i -> LinkedDefinition
+                .resolve(termList.get(i), definitions.get(i), linker));
+        List<LinkedDefinition> entries = Arrays.asList(model);
+
+        metrics.start("render");
+        List<String> formats = options.formats();
+        List<PageSink> opened = new ArrayList<>();
+        ExecutorService pool = Executors.newFixedThreadPool(formats.size());
+        try {
+            List<Future<?>> done = new ArrayList<>();
+            for (String format : formats) {
+                GlossaryRenderer renderer = GlossaryRenderer
+                        .forFormat(format, linker, options);
+                PageSink target = sink;
+                if (!format.equals(GlossaryRenderer.HTML)) {
+                    String tree = treeTarget(options.sink(),
+                            options.outputFolder(), format);
+                    if (options.sink().equals(PageSink.FILE)) {
+                        Files.createDirectories(Paths.get(tree));
+                    }
+                    target = PageSink.open(options.sink(), tree);
+                    opened.add(target);
+                }
+                PageSink formatSink = target;
+                done.add(pool.submit(() -> {
+                    renderer.renderIndex(entries, formatSink);
+                    for (LinkedDefinition entry : entries) {
+                        renderer.renderTerm(entry, references, formatSink);
+                        formatSink.stats().recordDefinition(
+                                entry.tokenCount(), entry.linkCount());
+                    }
+                }));
+            }
+            for (Future<?> format : done) {
+                format.get();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("rendering interrupted", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            pool.shutdownNow();
+            for (PageSink target : opened) {
+                target.close();
+            }
+        }
+    }
+
+}
@@ -0,0 +1,205 @@
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A reorder buffer in front of a sink, so work that finishes in any order is
+ * still written in the order it was started. Each piece of work, a single
+ * page or a whole stage of a build, takes a part of the sink from
+ * {@link #part} in the order its pages must appear in, writes its pages to
+ * the part and closes it. Pages of the oldest part still open go straight to
+ * the target; pages of later parts are copied and held until every part
+ * before theirs is closed, and are then written in the order they came.
+ *
+ * <p>
+ * The bytes held are capped. A writer whose part is not the oldest waits
+ * while the cap is reached, and the oldest part never waits, so as long as
+ * the work writing it does not wait on later work the buffer always drains.
+ *
+ * @author Yakob Getu
+ *
+ */
+public final class OrderedSink {
+
+    /**
+     * Bytes held for later parts before their writers wait, by default.
+     */
+    public static final long DEFAULT_MAX_HELD = 1L << 26;
+
+    /**
+     * Where the pages are written, in order.
+     */
+    private final PageSink target;
+
+    /**
+     * Bytes held for later parts before their writers wait.
+     */
+    private final long maxHeld;
+
+    /**
+     * The parts whose pages are not all written yet, oldest first.
+     */
+    private final ArrayDeque<Part> parts = new ArrayDeque<>();
+
+    /**
+     * Bytes of the pages held.
+     */
+    private long held;
+
+    /**
+     * One piece of work's share of the sink.
+     */
+    private final class Part implements PageSink {
+
+        /**
+         * Names of the pages held, in the order they were written.
+         */
+        private final List<String> names = new ArrayList<>();
+
+        /**
+         * The pages held, each the bytes of the name in the same place.
+         */
+        private final List<byte[]> pages = new ArrayList<>();
+
+        /**
+         * Whether the work writing the part is done.
+         */
+        private boolean closed;
+
+        @Override
+        public void write(String name, ByteBuffer page) {
+            OrderedSink.this.write(this, name, page);
+        }
+
+        @Override
+        public PageStats stats() {
+            return OrderedSink.this.target.stats();
+        }
+
+        @Override
+        public boolean ordered() {
+            return OrderedSink.this.target.ordered();
+        }
+
+        /**
+         * Hands the part over to the next; the target is left open.
+         */
+        @Override
+        public void close() {
+            OrderedSink.this.close(this);
+        }
+
+    }
+
+    /**
+     * Creates a reorder buffer writing to {@code target} and holding up to
+     * {@link #DEFAULT_MAX_HELD} bytes.
+     *
+     * @param target
+     *            where the pages are written
+     */
+    public OrderedSink(PageSink target) {
+        this(target, DEFAULT_MAX_HELD);
+    }
+
+    /**
+     * Creates a reorder buffer writing to {@code target} and holding up to
+     * {@code maxHeld} bytes.
+     *
+     * @param target
+     *            where the pages are written
+     * @param maxHeld
+     *            bytes held for later parts before their writers wait
+     * @requires maxHeld > 0
+     */
+    public OrderedSink(PageSink target, long maxHeld) {
+        assert maxHeld > 0 : "Violation of: maxHeld > 0";
+        this.target = target;
+        this.maxHeld = maxHeld;
+    }
+
+    /**
+     * Returns the next part of the sink. Its pages are written after those
+     * of every part returned before it and before those of every part
+     * returned after it; closing it, once, hands the target over to the
+     * next. A part is written by one thread at a time.
+     *
+     * @return the part
+     */
+    public synchronized PageSink part() {
+        Part part = new Part();
+        this.parts.addLast(part);
+        return part;
+    }
+
+    /**
+     * Writes the page {@code name} of {@code part}, or holds a copy of it if
+     * an older part is still open.
+     *
+     * @param part
+     *            the part written
+     * @param name
+     *            the page's file name
+     * @param page
+     *            the page's bytes, left consumed
+     * @throws IllegalStateException
+     *             if the thread is interrupted while waiting for room
+     */
+    private synchronized void write(Part part, String name,
+            ByteBuffer page) {
+        assert !part.closed : "Violation of: part is open";
+        int size = page.remaining();
+        // A page larger than the cap is still let through once nothing else
+        // is held
+        while (part != this.parts.peekFirst() && this.held > 0
+                && this.held + size > this.maxHeld) {
+            try {
+                this.wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("ordered write interrupted",
+                        e);
+            }
+        }
+        if (part == this.parts.peekFirst()) {
+            this.target.write(name, page);
+        } else {
+            byte[] bytes = new byte[size];
+            page.get(bytes);
+            part.names.add(name);
+            part.pages.add(bytes);
+            this.held += size;
+        }
+    }
+
+    /**
+     * Closes {@code part} and writes the pages of every part it was the last
+     * to hold up.
+     *
+     * @param part
+     *            the part closed
+     */
+    private synchronized void close(Part part) {
+        if (!part.closed) {
+            part.closed = true;
+            while (!this.parts.isEmpty() && this.parts.peekFirst().closed) {
+                this.parts.removeFirst();
+                Part next = this.parts.peekFirst();
+                if (next != null) {
+                    for (int i = 0; i < next.pages.size(); i++) {
+                        byte[] bytes = next.pages.get(i);
+                        this.target.write(next.names.get(i),
+                                ByteBuffer.wrap(bytes));
+                        this.held -= bytes.length;
+                    }
+                    next.names.clear();
+                    next.pages.clear();
+                }
+            }
+            // Waiting writers may now be the oldest, or fit
+            this.notifyAll();
+        }
+    }
+
+}
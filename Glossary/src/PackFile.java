@@ -0,0 +1,195 @@
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import components.simplewriter.SimpleWriter;
+import components.simplewriter.SimpleWriter1L;
+
+/**
+ * Reads a pack file written by {@link PackSink}. The index is read once from
+ * the end of the file; every page is then read with one positional read, so
+ * a pack can be served from directly. Run as a program, it extracts a pack
+ * into a folder, giving the same files the file sink writes.
+ *
+ * @author Yakob Getu
+ *
+ */
+public final class PackFile implements Closeable {
+
+    /**
+     * Usage message of the extract program.
+     */
+    public static final String USAGE = "usage: PackFile <pack file> "
+            + "<output folder>";
+
+    /**
+     * The pack file.
+     */
+    private final FileChannel channel;
+
+    /**
+     * Offset and length of every page, in the order first written.
+     */
+    private final Map<String, long[]> index = new LinkedHashMap<>();
+
+    /**
+     * Opens the pack file {@code pack} and reads its index.
+     *
+     * @param pack
+     *            the pack file
+     * @throws UncheckedIOException
+     *             if the file cannot be read
+     * @throws IllegalArgumentException
+     *             if the file is not a pack file
+     */
+    public PackFile(Path pack) {
+        try {
+            this.channel = FileChannel.open(pack);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        try {
+            long size = this.channel.size();
+            ByteBuffer trailer = ByteBuffer.allocate(PackSink.TRAILER_BYTES);
+            if (size < PackSink.TRAILER_BYTES) {
+                throw new IllegalArgumentException("not a pack file");
+            }
+            this.readFully(trailer, size - PackSink.TRAILER_BYTES);
+            long indexStart = trailer.getLong(0);
+            if (trailer.getInt(Long.BYTES) != PackSink.MAGIC
+                    || indexStart < 0 || indexStart > size) {
+                throw new IllegalArgumentException("not a pack file");
+            }
+            this.channel.position(indexStart);
+            DataInputStream in = new DataInputStream(new BufferedInputStream(
+                    Channels.newInputStream(this.channel)));
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                byte[] name = new byte[in.readInt()];
+                in.readFully(name);
+                long offset = in.readLong();
+                int length = in.readInt();
+                this.index.put(new String(name, StandardCharsets.UTF_8),
+                        new long[] { offset, length });
+            }
+        } catch (IOException e) {
+            this.close();
+            throw new UncheckedIOException(e);
+        } catch (IllegalArgumentException e) {
+            this.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Fills {@code buffer} from {@code position} of the pack file.
+     *
+     * @param buffer
+     *            the buffer to fill
+     * @param position
+     *            where to read from
+     * @throws IOException
+     *             if the file ends first or cannot be read
+     */
+    private void readFully(ByteBuffer buffer, long position)
+            throws IOException {
+        long at = position;
+        while (buffer.hasRemaining()) {
+            int n = this.channel.read(buffer, at);
+            if (n < 0) {
+                throw new IOException("pack file is truncated");
+            }
+            at += n;
+        }
+    }
+
+    /**
+     * Returns the names of the pages, in the order first written.
+     *
+     * @return the page names
+     */
+    public Set<String> names() {
+        return Collections.unmodifiableSet(this.index.keySet());
+    }
+
+    /**
+     * Returns the bytes of the page {@code name}.
+     *
+     * @param name
+     *            the page's file name
+     * @return its bytes, or null if the pack has no such page
+     * @throws UncheckedIOException
+     *             if the page cannot be read
+     */
+    public byte[] page(String name) {
+        long[] entry = this.index.get(name);
+        byte[] result = null;
+        if (entry != null) {
+            result = new byte[(int) entry[1]];
+            try {
+                this.readFully(ByteBuffer.wrap(result), entry[0]);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Writes every page of the pack to {@code sink}.
+     *
+     * @param sink
+     *            where the pages are written
+     * @return the number of pages
+     */
+    public int extract(PageSink sink) {
+        for (String name : this.index.keySet()) {
+            sink.write(name, ByteBuffer.wrap(this.page(name)));
+        }
+        return this.index.size();
+    }
+
+    @Override
+    public void close() {
+        try {
+            this.channel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Extracts the pack file {@code args[0]} into the existing folder
+     * {@code args[1]}.
+     *
+     * @param args
+     *            the pack file and the output folder
+     */
+    public static void main(String[] args) {
+        SimpleWriter writer = new SimpleWriter1L();
+        if (args.length != 2) {
+            writer.println(USAGE);
+        } else {
+            try (PackFile pack = new PackFile(Paths.get(args[0]))) {
+                PageSink sink = new FileSink(args[1]);
+                int pages = pack.extract(sink);
+                sink.close();
+                writer.println("Extracted " + pages + " pages");
+            }
+        }
+        writer.close();
+    }
+
+}
@@ -0,0 +1,152 @@
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Writes every page into one pack file: the pages' bytes one after the other,
+ * then an index of every page's name, offset and length, then a trailer
+ * giving where the index starts. Pages are appended in the order they are
+ * handed over, through a large buffer, so a glossary of any size is written
+ * with one open file and a system call per buffer filled. A
+ * {@link PackFile} reads pages back by offset or extracts them into a folder
+ * exactly as the file sink would have written them.
+ *
+ * <p>
+ * A page written again is appended again and the index points at its last
+ * copy. Pages written by several threads are serialized.
+ *
+ * @author Yakob Getu
+ *
+ */
+public final class PackSink implements PageSink {
+
+    /**
+     * Last four bytes of a pack file: "GLPK".
+     */
+    static final int MAGIC = 0x474C504B;
+
+    /**
+     * Bytes of the trailer, the index offset and the magic number.
+     */
+    static final int TRAILER_BYTES = Long.BYTES + Integer.BYTES;
+
+    /**
+     * Size of the buffer in front of the pack file.
+     */
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /**
+     * The pack file, as written to.
+     */
+    private final CountingStream file;
+
+    /**
+     * The buffered pack file.
+     */
+    private final DataOutputStream out;
+
+    /**
+     * Offset and length of the last copy of every page, in the order first
+     * written.
+     */
+    private final Map<String, long[]> index = new LinkedHashMap<>();
+
+    /**
+     * Offset the next page is written at.
+     */
+    private long offset;
+
+    /**
+     * Bytes of a page being copied into the pack.
+     */
+    private byte[] copy = new byte[0];
+
+    /**
+     * What has been written.
+     */
+    private final PageStats stats = new PageStats();
+
+    /**
+     * Creates a sink writing the pack file {@code pack}, replacing any file
+     * already there.
+     *
+     * @param pack
+     *            the pack file
+     * @throws UncheckedIOException
+     *             if the file cannot be created
+     */
+    public PackSink(Path pack) {
+        try {
+            this.file = new CountingStream(Files.newOutputStream(pack));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        // open
+        this.stats.recordCalls(1);
+        this.stats.recordOpen();
+        this.out = new DataOutputStream(
+                new BufferedOutputStream(this.file, BUFFER_SIZE));
+    }
+
+    @Override
+    public synchronized void write(String name, ByteBuffer page) {
+        int size = page.remaining();
+        if (this.copy.length < size) {
+            this.copy = new byte[Math.max(size, 2 * this.copy.length)];
+        }
+        page.get(this.copy, 0, size);
+        try {
+            this.out.write(this.copy, 0, size);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        this.index.put(name, new long[] { this.offset, size });
+        this.offset += size;
+        this.stats.recordPage(size, this.file.takeWrites());
+    }
+
+    @Override
+    public PageStats stats() {
+        return this.stats;
+    }
+
+    @Override
+    public boolean ordered() {
+        return true;
+    }
+
+    /**
+     * Appends the index and trailer and closes the pack file.
+     *
+     * @throws UncheckedIOException
+     *             if the index cannot be written
+     */
+    @Override
+    public synchronized void close() {
+        try {
+            this.out.writeInt(this.index.size());
+            for (Map.Entry<String, long[]> entry : this.index.entrySet()) {
+                byte[] name = entry.getKey().getBytes(StandardCharsets.UTF_8);
+                this.out.writeInt(name.length);
+                this.out.write(name);
+                this.out.writeLong(entry.getValue()[0]);
+                this.out.writeInt((int) entry.getValue()[1]);
+            }
+            this.out.writeLong(this.offset);
+            this.out.writeInt(MAGIC);
+            this.out.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        // the index buffers and the close
+        this.stats.recordCalls(this.file.takeWrites() + 1);
+    }
+
+}
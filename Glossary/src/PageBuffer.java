@@ -0,0 +1,204 @@
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * A growable byte buffer a page is rendered into as UTF-8 before being handed
+ * to a {@link PageSink} in one piece. Buffers are meant to be reused: each
+ * thread has one from {@link #forThread}, cleared before every page, so once
+ * it has grown to the largest page no more memory is allocated.
+ *
+ * @author Yakob Getu
+ *
+ */
+public final class PageBuffer {
+
+    /**
+     * Initial capacity, enough for most term pages.
+     */
+    private static final int INITIAL_CAPACITY = 1 << 12;
+
+    /**
+     * The buffer of the current thread.
+     */
+    private static final ThreadLocal<PageBuffer> BUFFERS = ThreadLocal
+            .withInitial(PageBuffer::new);
+
+    /**
+     * Smallest character encoded in two bytes.
+     */
+    private static final char TWO_BYTES = 0x80;
+
+    /**
+     * Smallest character encoded in three bytes.
+     */
+    private static final char THREE_BYTES = 0x800;
+
+    /**
+     * The bytes rendered so far.
+     */
+    private byte[] bytes = new byte[INITIAL_CAPACITY];
+
+    /**
+     * Number of bytes rendered.
+     */
+    private int length;
+
+    /**
+     * Returns the buffer of the current thread, cleared.
+     *
+     * @return the buffer
+     */
+    public static PageBuffer forThread() {
+        PageBuffer buffer = BUFFERS.get();
+        buffer.clear();
+        return buffer;
+    }
+
+    /**
+     * Empties the buffer, keeping its capacity.
+     */
+    public void clear() {
+        this.length = 0;
+    }
+
+    /**
+     * Returns the number of bytes rendered.
+     *
+     * @return the length in bytes
+     */
+    public int length() {
+        return this.length;
+    }
+
+    /**
+     * Makes room for {@code n} more bytes.
+     *
+     * @param n
+     *            the number of bytes about to be added
+     */
+    private void reserve(int n) {
+        if (this.length + n > this.bytes.length) {
+            this.bytes = Arrays.copyOf(this.bytes,
+                    Math.max(this.length + n, 2 * this.bytes.length));
+        }
+    }
+
+    /**
+     * Appends {@code data}, already encoded.
+     *
+     * @param data
+     *            the bytes
+     * @return this buffer
+     */
+    public PageBuffer write(byte[] data) {
+        this.reserve(data.length);
+        System.arraycopy(data, 0, this.bytes, this.length, data.length);
+        this.length += data.length;
+        return this;
+    }
+
+    /**
+     * Appends the UTF-8 encoding of {@code text[start, end)}.
+     *
+     * @param text
+     *            the text
+     * @param start
+     *            index of the first character
+     * @param end
+     *            index just past the last character
+     * @return this buffer
+     * @requires 0 <= start <= end <= |text|
+     */
+    public PageBuffer print(String text, int start, int end) {
+        // at most three bytes per char; a surrogate pair takes four for two
+        this.reserve(3 * (end - start));
+        byte[] b = this.bytes;
+        int n = this.length;
+        int i = start;
+        while (i < end) {
+            char c = text.charAt(i);
+            i++;
+            if (c < TWO_BYTES) {
+                b[n++] = (byte) c;
+            } else if (c < THREE_BYTES) {
+                b[n++] = (byte) (0xC0 | (c >> 6));
+                b[n++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i < end
+                    && Character.isLowSurrogate(text.charAt(i))) {
+                int cp = Character.toCodePoint(c, text.charAt(i));
+                i++;
+                b[n++] = (byte) (0xF0 | (cp >> 18));
+                b[n++] = (byte) (0x80 | ((cp >> 12) & 0x3F));
+                b[n++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+                b[n++] = (byte) (0x80 | (cp & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                // an unpaired surrogate is replaced, as String.getBytes does
+                b[n++] = (byte) '?';
+            } else {
+                b[n++] = (byte) (0xE0 | (c >> 12));
+                b[n++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                b[n++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+        this.length = n;
+        return this;
+    }
+
+    /**
+     * Appends the UTF-8 encoding of {@code text}.
+     *
+     * @param text
+     *            the text
+     * @return this buffer
+     */
+    public PageBuffer print(String text) {
+        return this.print(text, 0, text.length());
+    }
+
+    /**
+     * Appends the UTF-8 encoding of {@code text} and a line break, as
+     * {@code SimpleWriter.println} does.
+     *
+     * @param text
+     *            the text
+     * @return this buffer
+     */
+    public PageBuffer println(String text) {
+        return this.print(text).newLine();
+    }
+
+    /**
+     * Appends a line break.
+     *
+     * @return this buffer
+     */
+    public PageBuffer newLine() {
+        this.reserve(1);
+        this.bytes[this.length] = '\n';
+        this.length++;
+        return this;
+    }
+
+    /**
+     * Returns the bytes rendered, as a buffer sharing this one's storage. It
+     * is only valid until this buffer is next changed.
+     *
+     * @return the rendered bytes, ready to be read
+     */
+    public ByteBuffer bytes() {
+        return ByteBuffer.wrap(this.bytes, 0, this.length);
+    }
+
+    /**
+     * Hands the bytes rendered to {@code sink} as the page {@code name}.
+     *
+     * @param sink
+     *            the sink to write to
+     * @param name
+     *            the page's file name
+     */
+    public void writeTo(PageSink sink, String name) {
+        sink.write(name, this.bytes());
+    }
+
+}
@@ -0,0 +1,122 @@
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Rendered pages kept in memory up to a total size, evicting the least
+ * recently used page first. A page larger than the whole cache is never kept.
+ * All methods may be called by many threads at once.
+ *
+ * @author Yakob Getu
+ *
+ */
+public final class PageCache {
+
+    /**
+     * Most number of bytes of pages kept.
+     */
+    private final long capacity;
+
+    /**
+     * The pages, least recently used first.
+     */
+    private final LinkedHashMap<String, byte[]> pages = new LinkedHashMap<>(
+            16, 0.75f, true);
+
+    /**
+     * Bytes of the pages kept.
+     */
+    private long size;
+
+    /**
+     * Number of lookups that found their page.
+     */
+    private long hits;
+
+    /**
+     * Number of lookups that did not.
+     */
+    private long misses;
+
+    /**
+     * Number of pages evicted to make room.
+     */
+    private long evictions;
+
+    /**
+     * Creates an empty cache holding at most {@code capacity} bytes of pages.
+     *
+     * @param capacity
+     *            the most bytes kept
+     * @requires capacity >= 0
+     */
+    public PageCache(long capacity) {
+        assert capacity >= 0 : "Violation of: capacity >= 0";
+        this.capacity = capacity;
+    }
+
+    /**
+     * Returns the page {@code name}, marking it as the most recently used.
+     *
+     * @param name
+     *            the page's file name
+     * @return its bytes, or null if it is not in the cache
+     */
+    public synchronized byte[] get(String name) {
+        byte[] page = this.pages.get(name);
+        if (page == null) {
+            this.misses++;
+        } else {
+            this.hits++;
+        }
+        return page;
+    }
+
+    /**
+     * Keeps the page {@code name}, evicting the least recently used pages
+     * until it fits.
+     *
+     * @param name
+     *            the page's file name
+     * @param page
+     *            its bytes, not changed afterwards
+     */
+    public synchronized void put(String name, byte[] page) {
+        if (page.length <= this.capacity) {
+            byte[] old = this.pages.put(name, page);
+            if (old != null) {
+                this.size -= old.length;
+            }
+            this.size += page.length;
+            Iterator<Map.Entry<String, byte[]>> eldest = this.pages.entrySet()
+                    .iterator();
+            while (this.size > this.capacity) {
+                this.size -= eldest.next().getValue().length;
+                eldest.remove();
+                this.evictions++;
+            }
+        }
+    }
+
+    /**
+     * Returns the number of bytes of pages kept.
+     *
+     * @return the size of the cache
+     */
+    public synchronized long size() {
+        return this.size;
+    }
+
+    /**
+     * Returns a one-line summary of the cache's use.
+     *
+     * @return the summary
+     */
+    public synchronized String report() {
+        return String.format(
+                "%d pages, %d of %d bytes, %d hits, %d misses, %d evictions",
+                this.pages.size(), this.size, this.capacity, this.hits,
+                this.misses, this.evictions);
+    }
+
+}
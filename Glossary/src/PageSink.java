@@ -0,0 +1,112 @@
+import java.io.Closeable;
+import java.nio.ByteBuffer;
+import java.nio.file.Paths;
+
+/**
+ * Where rendered pages go. A page is handed over whole, as the bytes of a
+ * {@link PageBuffer}, so a sink can write it with a constant number of system
+ * calls. Sinks may be written by many threads at once.
+ *
+ * @author Yakob Getu
+ *
+ */
+public interface PageSink extends Closeable {
+
+    /**
+     * Sink writing every page to its own file in a folder.
+     */
+    String FILE = "file";
+
+    /**
+     * Sink writing every page into one zip archive.
+     */
+    String ZIP = "zip";
+
+    /**
+     * Sink keeping every page in memory.
+     */
+    String MEMORY = "memory";
+
+    /**
+     * Sink appending every page to one pack file with an offset index.
+     */
+    String PACK = "pack";
+
+    /**
+     * Writes the page {@code name} with the remaining bytes of {@code page},
+     * replacing any page of that name already written.
+     *
+     * @param name
+     *            the page's file name, such as {@code index.html}
+     * @param page
+     *            the page's bytes, left consumed
+     * @throws java.io.UncheckedIOException
+     *             if the page cannot be written
+     */
+    void write(String name, ByteBuffer page);
+
+    /**
+     * Returns the counts of what this sink has written.
+     *
+     * @return the statistics
+     */
+    PageStats stats();
+
+    /**
+     * Returns whether the bytes this sink writes depend on the order pages
+     * are written in, as those of an archive do. Writers that finish pages
+     * in an order of their own restore the order they started them in
+     * before writing to such a sink, with an {@link OrderedSink}.
+     *
+     * @return true if the order of the pages is part of the output
+     */
+    default boolean ordered() {
+        return false;
+    }
+
+    /**
+     * Finishes writing. Sinks that write every page immediately need not do
+     * anything.
+     *
+     * @throws java.io.UncheckedIOException
+     *             if the output cannot be finished
+     */
+    @Override
+    void close();
+
+    /**
+     * Creates the sink of kind {@code kind} writing to {@code target}: a
+     * folder for {@link #FILE}, an archive file for {@link #ZIP}, a pack file
+     * for {@link #PACK}, and ignored for {@link #MEMORY}.
+     *
+     * @param kind
+     *            one of {@link #FILE}, {@link #ZIP}, {@link #PACK} or
+     *            {@link #MEMORY}
+     * @param target
+     *            the folder or archive to write to
+     * @return the sink
+     * @throws IllegalArgumentException
+     *             if {@code kind} is not a known sink
+     */
+    static PageSink open(String kind, String target) {
+        PageSink sink;
+        switch (kind) {
+            case FILE:
+                sink = new FileSink(target);
+                break;
+            case ZIP:
+                sink = new ZipSink(Paths.get(target));
+                break;
+            case PACK:
+                sink = new PackSink(Paths.get(target));
+                break;
+            case MEMORY:
+                sink = new MemorySink();
+                break;
+            default:
+                throw new IllegalArgumentException("unknown sink " + kind);
+        }
+        return sink;
+    }
+
+}
@@ -0,0 +1,176 @@
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts what a {@link PageSink} wrote: pages, bytes, and the files opened and
+ * system calls it took to write them, along with the tokens and links of the
+ * definitions rendered into the pages. The counters may be updated by many
+ * threads at once, and cost an add per page, so they are always kept.
+ *
+ * @author Yakob Getu
+ *
+ */
+public final class PageStats {
+
+    /**
+     * Number of pages written.
+     */
+    private final LongAdder pages = new LongAdder();
+
+    /**
+     * Number of bytes written.
+     */
+    private final LongAdder bytes = new LongAdder();
+
+    /**
+     * Number of system calls made to write them.
+     */
+    private final LongAdder calls = new LongAdder();
+
+    /**
+     * Number of files opened to write them.
+     */
+    private final LongAdder files = new LongAdder();
+
+    /**
+     * Number of definitions rendered.
+     */
+    private final LongAdder definitions = new LongAdder();
+
+    /**
+     * Number of tokens of the definitions rendered.
+     */
+    private final LongAdder tokens = new LongAdder();
+
+    /**
+     * Number of links rendered in the definitions.
+     */
+    private final LongAdder links = new LongAdder();
+
+    /**
+     * Records one page of {@code pageBytes} bytes, written with
+     * {@code pageCalls} system calls.
+     *
+     * @param pageBytes
+     *            the size of the page
+     * @param pageCalls
+     *            the system calls made to write it
+     */
+    public void recordPage(long pageBytes, long pageCalls) {
+        this.pages.increment();
+        this.bytes.add(pageBytes);
+        this.calls.add(pageCalls);
+    }
+
+    /**
+     * Records {@code n} system calls not belonging to any one page, such as
+     * those made flushing or closing an archive.
+     *
+     * @param n
+     *            the number of system calls
+     */
+    public void recordCalls(long n) {
+        this.calls.add(n);
+    }
+
+    /**
+     * Records a file opened for writing.
+     */
+    public void recordOpen() {
+        this.files.increment();
+    }
+
+    /**
+     * Records one definition rendered, of {@code definitionTokens} tokens of
+     * which {@code definitionLinks} were linked to terms.
+     *
+     * @param definitionTokens
+     *            the tokens of the definition, each link counting as one
+     * @param definitionLinks
+     *            the links rendered
+     */
+    public void recordDefinition(long definitionTokens, long definitionLinks) {
+        this.definitions.increment();
+        this.tokens.add(definitionTokens);
+        this.links.add(definitionLinks);
+    }
+
+    /**
+     * Returns the number of pages written.
+     *
+     * @return the page count
+     */
+    public long pages() {
+        return this.pages.sum();
+    }
+
+    /**
+     * Returns the number of bytes written.
+     *
+     * @return the byte count
+     */
+    public long bytes() {
+        return this.bytes.sum();
+    }
+
+    /**
+     * Returns the number of system calls made.
+     *
+     * @return the system call count
+     */
+    public long calls() {
+        return this.calls.sum();
+    }
+
+    /**
+     * Returns the number of files opened.
+     *
+     * @return the file count
+     */
+    public long files() {
+        return this.files.sum();
+    }
+
+    /**
+     * Returns the number of definitions rendered.
+     *
+     * @return the definition count
+     */
+    public long definitions() {
+        return this.definitions.sum();
+    }
+
+    /**
+     * Returns the number of tokens of the definitions rendered.
+     *
+     * @return the token count
+     */
+    public long tokens() {
+        return this.tokens.sum();
+    }
+
+    /**
+     * Returns the number of links rendered in the definitions.
+     *
+     * @return the link count
+     */
+    public long links() {
+        return this.links.sum();
+    }
+
+    /**
+     * Returns a one-line summary of the counts, per page and in total.
+     *
+     * @return the summary
+     */
+    public String report() {
+        long n = this.pages();
+        long b = this.bytes();
+        long c = this.calls();
+        double perPage = Math.max(n, 1);
+        return String.format(
+                "%d pages, %d bytes (%.1f per page), %d system calls "
+                        + "(%.2f per page)",
+                n, b, b / perPage, c, c / perPage);
+    }
+
+}
@@ -0,0 +1,265 @@
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A page template compiled once into its static text, already encoded as
+ * UTF-8 bytes, and the slots between them. A slot is written
+ * {@code {{name}}} in the template source. Rendering copies the bytes and
+ * fills the slots straight into a {@link PageBuffer}, so no page text is
+ * concatenated at run time.
+ *
+ * @author Yakob Getu
+ *
+ */
+public final class PageTemplate {
+
+    /**
+     * The slots a template can have.
+     */
+    public enum Slot {
+
+        /**
+         * The term, as text.
+         */
+        TERM("term"),
+
+        /**
+         * The link to the term's page.
+         */
+        HREF("href"),
+
+        /**
+         * The rendered definition of a term page.
+         */
+        BODY("body"),
+
+        /**
+         * The rendered list of entries of the index page.
+         */
+        LINKS("links"),
+
+        /**
+         * The rendered "Referenced by" section of a term page.
+         */
+        REFERENCED_BY("referencedBy");
+
+        /**
+         * Name of the slot in template sources.
+         */
+        private final String slotName;
+
+        /**
+         * Creates a slot.
+         *
+         * @param slotName
+         *            name of the slot in template sources
+         */
+        Slot(String slotName) {
+            this.slotName = slotName;
+        }
+
+        /**
+         * Returns the slot named {@code name}.
+         *
+         * @param name
+         *            the name in a template source
+         * @return the slot, or null if there is none of that name
+         */
+        static Slot named(String name) {
+            Slot result = null;
+            for (Slot slot : values()) {
+                if (slot.slotName.equals(name)) {
+                    result = slot;
+                }
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Renders the content of a {@link Slot#BODY}, {@link Slot#LINKS} or
+     * {@link Slot#REFERENCED_BY} slot.
+     */
+    public interface Content {
+
+        /**
+         * Renders the content into {@code out}.
+         *
+         * @param out
+         *            the page being rendered
+         */
+        void render(PageBuffer out);
+    }
+
+    /**
+     * Opens a slot in a template source.
+     */
+    private static final String OPEN = "{{";
+
+    /**
+     * Closes a slot in a template source.
+     */
+    private static final String CLOSE = "}}";
+
+    /**
+     * The source the template was compiled from.
+     */
+    private final String source;
+
+    /**
+     * The static text: {@code text[i]} comes before {@code slots[i]}, and the
+     * last entry after the last slot.
+     */
+    private final byte[][] text;
+
+    /**
+     * The slots, in order.
+     */
+    private final Slot[] slots;
+
+    /**
+     * Creates a compiled template.
+     *
+     * @param source
+     *            the template source
+     * @param text
+     *            the static text around the slots
+     * @param slots
+     *            the slots
+     */
+    private PageTemplate(String source, byte[][] text, Slot[] slots) {
+        this.source = source;
+        this.text = text;
+        this.slots = slots;
+    }
+
+    /**
+     * Compiles {@code source}, which may only use the slots in
+     * {@code allowed}.
+     *
+     * @param source
+     *            the template source
+     * @param allowed
+     *            the slots the template may use
+     * @return the compiled template
+     * @throws IllegalArgumentException
+     *             if a slot is unknown, not allowed or not closed
+     */
+    public static PageTemplate compile(String source, Set<Slot> allowed) {
+        List<byte[]> text = new ArrayList<>();
+        List<Slot> slots = new ArrayList<>();
+        int start = 0;
+        int open = source.indexOf(OPEN);
+        while (open >= 0) {
+            int close = source.indexOf(CLOSE, open + OPEN.length());
+            if (close < 0) {
+                throw new IllegalArgumentException(
+                        "unclosed slot at offset " + open);
+            }
+            String name = source.substring(open + OPEN.length(), close)
+                    .trim();
+            Slot slot = Slot.named(name);
+            if (slot == null || !allowed.contains(slot)) {
+                throw new IllegalArgumentException(
+                        "unexpected slot {{" + name + "}}");
+            }
+            text.add(source.substring(start, open)
+                    .getBytes(StandardCharsets.UTF_8));
+            slots.add(slot);
+            start = close + CLOSE.length();
+            open = source.indexOf(OPEN, start);
+        }
+        text.add(source.substring(start).getBytes(StandardCharsets.UTF_8));
+        return new PageTemplate(source, text.toArray(new byte[0][]),
+                slots.toArray(new Slot[0]));
+    }
+
+    /**
+     * Compiles {@code source}, which may use any slot.
+     *
+     * @param source
+     *            the template source
+     * @return the compiled template
+     * @throws IllegalArgumentException
+     *             if a slot is unknown or not closed
+     */
+    public static PageTemplate compile(String source) {
+        return compile(source, EnumSet.allOf(Slot.class));
+    }
+
+    /**
+     * Returns the source the template was compiled from.
+     *
+     * @return the source
+     */
+    public String source() {
+        return this.source;
+    }
+
+    /**
+     * Renders the template into {@code out}, filling {@link Slot#TERM} with
+     * {@code term}, {@link Slot#HREF} with {@code href}, and
+     * {@link Slot#BODY} and {@link Slot#LINKS} with {@code content}. A
+     * {@link Slot#REFERENCED_BY} slot is left empty.
+     *
+     * @param out
+     *            the page being rendered
+     * @param term
+     *            the term
+     * @param href
+     *            the link to the term's page
+     * @param content
+     *            renders the body or links, or null if the template has
+     *            neither
+     */
+    public void render(PageBuffer out, String term, String href,
+            Content content) {
+        this.render(out, term, href, content, null);
+    }
+
+    /**
+     * Renders the template into {@code out} as
+     * {@link #render(PageBuffer, String, String, Content)} does, also filling
+     * {@link Slot#REFERENCED_BY} with {@code referencedBy}.
+     *
+     * @param out
+     *            the page being rendered
+     * @param term
+     *            the term
+     * @param href
+     *            the link to the term's page
+     * @param content
+     *            renders the body or links, or null if the template has
+     *            neither
+     * @param referencedBy
+     *            renders the "Referenced by" section, or null to leave it
+     *            empty
+     */
+    public void render(PageBuffer out, String term, String href,
+            Content content, Content referencedBy) {
+        for (int i = 0; i < this.slots.length; i++) {
+            out.write(this.text[i]);
+            switch (this.slots[i]) {
+                case TERM:
+                    out.print(term);
+                    break;
+                case HREF:
+                    out.print(href);
+                    break;
+                case REFERENCED_BY:
+                    if (referencedBy != null) {
+                        referencedBy.render(out);
+                    }
+                    break;
+                default:
+                    content.render(out);
+                    break;
+            }
+        }
+        out.write(this.text[this.slots.length]);
+    }
+
+}
@@ -0,0 +1,292 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.EnumSet;
+
+/**
+ * The compiled templates pages are rendered from: the term page, the index
+ * page, a link within a definition, an entry of the index, a shard of a
+ * sharded index and the "Referenced by" section of a term page. The
+ * default templates render pages exactly as the glossary always has, adding
+ * the "Referenced by" section only when reverse links are asked for; any of
+ * them can be replaced by a file of the same name in a template folder.
+ *
+ * @author Yakob Getu
+ *
+ */
+public final class PageTemplates {
+
+    /**
+     * File name of the term page template.
+     */
+    public static final String TERM_PAGE = "term.html";
+
+    /**
+     * File name of the index page template.
+     */
+    public static final String INDEX_PAGE = "index.html";
+
+    /**
+     * File name of the template of a link within a definition.
+     */
+    public static final String LINK = "link.html";
+
+    /**
+     * File name of the template of an index entry.
+     */
+    public static final String INDEX_ENTRY = "index-entry.html";
+
+    /**
+     * File name of the template of an index shard.
+     */
+    public static final String INDEX_SHARD = "index-shard.html";
+
+    /**
+     * File name of the template of the "Referenced by" section.
+     */
+    public static final String REFERENCED_BY = "referenced-by.html";
+
+    /**
+     * Default term page template.
+     */
+    static final String DEFAULT_TERM_PAGE = "<html>\n<head>\n\t<title>"
+            + "{{term}}</title>\n</head>\n"
+            + "<body>\n<h2><b><i><font color=\"red\">{{term}}</font></i>"
+            + "</b></h2>\n\n<blockquote>{{body}}</blockquote>\n"
+            + "{{referencedBy}}<hr />\r\n"
+            + "<p>Return to <a href=\"index.html\">index</a>."
+            + "</p>\r\n</body>\r\n</html>\n";
+
+    /**
+     * Default index page template.
+     */
+    static final String DEFAULT_INDEX_PAGE = "<html>\r\n<head>\r\n"
+            + "<title>Glossary</title>\r\n</head>\n"
+            + "<body>\r\n<h2>Glossary</h2>\r\n<hr />\r\n<h3>Index</h3>\r\n"
+            + "<ul>\n{{links}}</ul>\r\n</body>\r\n</html>\n";
+
+    /**
+     * Default template of a link within a definition.
+     */
+    static final String DEFAULT_LINK = "<a href=\"{{href}}\">{{term}}</a>\n";
+
+    /**
+     * Default template of an index entry.
+     */
+    static final String DEFAULT_INDEX_ENTRY = "<li><a href=\"{{href}}\">"
+            + "{{term}}</a></li>\n";
+
+    /**
+     * Default template of an index shard.
+     */
+    static final String DEFAULT_INDEX_SHARD = "<html>\r\n<head>\r\n"
+            + "<title>Glossary: {{term}}</title>\r\n</head>\n"
+            + "<body>\r\n<h2>Glossary: {{term}}</h2>\r\n"
+            + "<p>Return to <a href=\"index.html\">index</a>.</p>\r\n"
+            + "<hr />\r\n<ul>\n{{links}}</ul>\r\n</body>\r\n</html>\n";
+
+    /**
+     * Default template of the "Referenced by" section, whose entries are
+     * rendered by the index entry template.
+     */
+    static final String DEFAULT_REFERENCED_BY = "<h3>Referenced by</h3>\n"
+            + "<ul>\n{{links}}</ul>\n";
+
+    /**
+     * The default templates.
+     */
+    public static final PageTemplates DEFAULT = new PageTemplates(
+            DEFAULT_TERM_PAGE, DEFAULT_INDEX_PAGE, DEFAULT_LINK,
+            DEFAULT_INDEX_ENTRY, DEFAULT_INDEX_SHARD, DEFAULT_REFERENCED_BY);
+
+    /**
+     * The term page template.
+     */
+    private final PageTemplate termPage;
+
+    /**
+     * The index page template.
+     */
+    private final PageTemplate indexPage;
+
+    /**
+     * The template of a link within a definition.
+     */
+    private final PageTemplate link;
+
+    /**
+     * The template of an index entry.
+     */
+    private final PageTemplate indexEntry;
+
+    /**
+     * The template of an index shard.
+     */
+    private final PageTemplate indexShard;
+
+    /**
+     * The template of the "Referenced by" section.
+     */
+    private final PageTemplate referencedBy;
+
+    /**
+     * Compiles a set of templates from their sources.
+     *
+     * @param termPage
+     *            source of the term page template
+     * @param indexPage
+     *            source of the index page template
+     * @param link
+     *            source of the template of a link within a definition
+     * @param indexEntry
+     *            source of the template of an index entry
+     * @param indexShard
+     *            source of the template of an index shard
+     * @param referencedBy
+     *            source of the template of the "Referenced by" section
+     * @throws IllegalArgumentException
+     *             if a template uses a slot it cannot fill
+     */
+    public PageTemplates(String termPage, String indexPage, String link,
+            String indexEntry, String indexShard, String referencedBy) {
+        this.termPage = PageTemplate.compile(termPage,
+                EnumSet.of(PageTemplate.Slot.TERM, PageTemplate.Slot.HREF,
+                        PageTemplate.Slot.BODY,
+                        PageTemplate.Slot.REFERENCED_BY));
+        this.indexPage = PageTemplate.compile(indexPage,
+                EnumSet.of(PageTemplate.Slot.LINKS));
+        this.link = PageTemplate.compile(link,
+                EnumSet.of(PageTemplate.Slot.TERM, PageTemplate.Slot.HREF));
+        this.indexEntry = PageTemplate.compile(indexEntry,
+                EnumSet.of(PageTemplate.Slot.TERM, PageTemplate.Slot.HREF));
+        this.indexShard = PageTemplate.compile(indexShard,
+                EnumSet.of(PageTemplate.Slot.TERM, PageTemplate.Slot.LINKS));
+        this.referencedBy = PageTemplate.compile(referencedBy,
+                EnumSet.of(PageTemplate.Slot.TERM, PageTemplate.Slot.LINKS));
+    }
+
+    /**
+     * Reads {@code name} from {@code folder}, or returns {@code fallback} if
+     * the folder has no such file.
+     *
+     * @param folder
+     *            the template folder
+     * @param name
+     *            the template file name
+     * @param fallback
+     *            the default source
+     * @return the template source
+     * @throws IOException
+     *             if the file cannot be read
+     */
+    private static String source(Path folder, String name, String fallback)
+            throws IOException {
+        Path path = folder.resolve(name);
+        String result = fallback;
+        if (Files.isRegularFile(path)) {
+            result = Files.readString(path, StandardCharsets.UTF_8);
+        }
+        return result;
+    }
+
+    /**
+     * Loads the templates in {@code folder}, using the default for any
+     * template the folder does not have.
+     *
+     * @param folder
+     *            the template folder
+     * @return the templates
+     * @throws UncheckedIOException
+     *             if a template cannot be read
+     * @throws IllegalArgumentException
+     *             if a template uses a slot it cannot fill
+     */
+    public static PageTemplates load(String folder) {
+        Path path = Paths.get(folder);
+        try {
+            return new PageTemplates(
+                    source(path, TERM_PAGE, DEFAULT_TERM_PAGE),
+                    source(path, INDEX_PAGE, DEFAULT_INDEX_PAGE),
+                    source(path, LINK, DEFAULT_LINK),
+                    source(path, INDEX_ENTRY, DEFAULT_INDEX_ENTRY),
+                    source(path, INDEX_SHARD, DEFAULT_INDEX_SHARD),
+                    source(path, REFERENCED_BY, DEFAULT_REFERENCED_BY));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Returns the term page template.
+     *
+     * @return the template, with slots term, href, body and referencedBy
+     */
+    public PageTemplate termPage() {
+        return this.termPage;
+    }
+
+    /**
+     * Returns the index page template.
+     *
+     * @return the template, with slot links
+     */
+    public PageTemplate indexPage() {
+        return this.indexPage;
+    }
+
+    /**
+     * Returns the template of a link within a definition.
+     *
+     * @return the template, with slots term and href
+     */
+    public PageTemplate link() {
+        return this.link;
+    }
+
+    /**
+     * Returns the template of an index entry.
+     *
+     * @return the template, with slots term and href
+     */
+    public PageTemplate indexEntry() {
+        return this.indexEntry;
+    }
+
+    /**
+     * Returns the template of an index shard.
+     *
+     * @return the template, with slots term, for the shard's label, and links
+     */
+    public PageTemplate indexShard() {
+        return this.indexShard;
+    }
+
+    /**
+     * Returns the template of the "Referenced by" section of a term page.
+     *
+     * @return the template, with slots term, for the page's term, and links
+     */
+    public PageTemplate referencedBy() {
+        return this.referencedBy;
+    }
+
+    /**
+     * Returns a hash of every template source, which changes whenever pages
+     * would be rendered differently.
+     *
+     * @return the fingerprint
+     */
+    public String fingerprint() {
+        return Long.toUnsignedString(BuildManifest.contentHash(
+                this.termPage.source() + '\0' + this.indexPage.source() + '\0'
+                        + this.link.source() + '\0'
+                        + this.indexEntry.source() + '\0'
+                        + this.indexShard.source() + '\0'
+                        + this.referencedBy.source()),
+                Character.MAX_RADIX);
+    }
+
+}
@@ -0,0 +1,234 @@
+import java.util.Iterator;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+
+import components.map.Map;
+import components.queue.Queue;
+
+/**
+ * Generates term pages concurrently on a fixed pool of worker threads. A
+ * semaphore caps the number of pages in flight, so the number of open files
+ * and of definitions held in memory stays bounded however many terms are
+ * queued. Pages finish in whatever order the workers get to them; a sink
+ * whose output depends on that order gets them through an
+ * {@link OrderedSink}, in the order of the entries, so the output is the
+ * same whatever the number of threads.
+ *
+ * @author Yakob Getu
+ *
+ */
+public final class ParallelPageGenerator {
+
+    /**
+     * Number of worker threads.
+     */
+    private final int threads;
+
+    /**
+     * Maximum number of pages submitted but not yet written.
+     */
+    private final int maxInFlight;
+
+    /**
+     * The templates pages are rendered from.
+     */
+    private final PageTemplates templates;
+
+    /**
+     * Creates a generator with {@code threads} workers and at most
+     * {@code maxOpenFiles} pages in flight, rendering the default templates.
+     *
+     * @param threads
+     *            the number of worker threads
+     * @param maxOpenFiles
+     *            the maximum number of pages being written at once
+     * @requires threads > 0 and maxOpenFiles > 0
+     */
+    public ParallelPageGenerator(int threads, int maxOpenFiles) {
+        this(threads, maxOpenFiles, PageTemplates.DEFAULT);
+    }
+
+    /**
+     * Creates a generator with {@code threads} workers and at most
+     * {@code maxOpenFiles} pages in flight, rendering {@code templates}.
+     *
+     * @param threads
+     *            the number of worker threads
+     * @param maxOpenFiles
+     *            the maximum number of pages being written at once
+     * @param templates
+     *            the templates pages are rendered from
+     * @requires threads > 0 and maxOpenFiles > 0
+     */
+    public ParallelPageGenerator(int threads, int maxOpenFiles,
+            PageTemplates templates) {
+        assert threads > 0 : "Violation of: threads > 0";
+        assert maxOpenFiles > 0 : "Violation of: maxOpenFiles > 0";
+        this.threads = threads;
+        this.maxInFlight = maxOpenFiles;
+        this.templates = templates;
+    }
+
+    /**
+     * Generates the page of every term in {@code terms} into {@code folder}.
+     * Each page is the same as {@code GlossaryClass.generatePage} writes for
+     * it. Definitions are looked up in {@code m} on the calling thread, and
+     * {@code linker} is only read, so it is shared by all workers.
+     *
+     * @param terms
+     *            the terms to generate pages for
+     * @param m
+     *            the map containing all the terms and definitions
+     * @param folder
+     *            the output folder of all the html files
+     * @param linker
+     *            the linker for the terms of {@code m}, shared by all workers
+     * @throws IllegalStateException
+     *             if generating a page fails or the thread is interrupted
+     * @requires [every term in terms is in DOMAIN(m)]
+     * @ensures [a page for every term in terms is written to folder]
+     */
+    public void generatePages(Queue<String> terms, Map<String, String> m,
+            String folder, TermLinker linker) {
+        this.generatePages(terms, m, new FileSink(folder), linker);
+    }
+
+    /**
+     * Generates the page of every term in {@code terms} into {@code sink}.
+     * Definitions are looked up in {@code m} on the calling thread.
+     *
+     * @param terms
+     *            the terms to generate pages for
+     * @param m
+     *            the map containing all the terms and definitions
+     * @param sink
+     *            where the pages are written, shared by all workers
+     * @param linker
+     *            the linker for the terms of {@code m}, shared by all workers
+     * @throws IllegalStateException
+     *             if generating a page fails or the thread is interrupted
+     * @requires [every term in terms is in DOMAIN(m)]
+     * @ensures [a page for every term in terms is written to sink]
+     */
+    public void generatePages(Queue<String> terms, Map<String, String> m,
+            PageSink sink, TermLinker linker) {
+        this.generatePages(GlossaryEntry.entries(terms, m), sink, linker);
+    }
+
+    /**
+     * Generates the page of every entry of {@code entries} into {@code sink}.
+     * Entries are only taken from {@code entries} when a worker is free to
+     * render them, so they can be streamed from disk. Each worker renders
+     * into its own reused {@code PageBuffer}.
+     *
+     * @param entries
+     *            the terms and definitions to generate pages for
+     * @param sink
+     *            where the pages are written, shared by all workers
+     * @param linker
+     *            the linker for all the terms of the glossary, shared by all
+     *            workers
+     * @throws IllegalStateException
+     *             if generating a page fails or the thread is interrupted
+     * @ensures [a page for every entry of entries is written to sink]
+     */
+    public void generatePages(Iterator<GlossaryEntry> entries, PageSink sink,
+            TermLinker linker) {
+        this.generatePages(entries, sink, linker, null);
+    }
+
+    /**
+     * Generates the page of every entry of {@code entries} into {@code sink}
+     * as {@link #generatePages(Iterator, PageSink, TermLinker)} does, with
+     * the "Referenced by" section {@code references} gives each page.
+     *
+     * @param entries
+     *            the terms and definitions to generate pages for
+     * @param sink
+     *            where the pages are written, shared by all workers
+     * @param linker
+     *            the linker for all the terms of the glossary, shared by all
+     *            workers
+     * @param references
+     *            the link graph of the glossary, only read and so shared by
+     *            all workers, or null for no "Referenced by" sections
+     * @throws IllegalStateException
+     *             if generating a page fails or the thread is interrupted
+     * @ensures [a page for every entry of entries is written to sink]
+     */
+    public void generatePages(Iterator<GlossaryEntry> entries, PageSink sink,
+            TermLinker linker, LinkGraph references) {
+        this.generatePages(entries, sink, linker, references, null);
+    }
+
+    /**
+     * Generates the page of every entry of {@code entries} into {@code sink}
+     * as {@link #generatePages(Iterator, PageSink, TermLinker, LinkGraph)}
+     * does, recording the terms every definition links to in {@code links}.
+     *
+     * @param entries
+     *            the terms and definitions to generate pages for
+     * @param sink
+     *            where the pages are written, shared by all workers
+     * @param linker
+     *            the linker for all the terms of the glossary, shared by all
+     *            workers
+     * @param references
+     *            the link graph of the glossary, only read and so shared by
+     *            all workers, or null for no "Referenced by" sections
+     * @param links
+     *            where the links of every definition are recorded, or null
+     * @throws IllegalStateException
+     *             if generating a page fails or the thread is interrupted
+     * @ensures [a page for every entry of entries is written to sink]
+     */
+    public void generatePages(Iterator<GlossaryEntry> entries, PageSink sink,
+            TermLinker linker, LinkGraph references,
+            LinkGraph.Collector links) {
+        ExecutorService pool = Executors.newFixedThreadPool(this.threads);
+        Semaphore inFlight = new Semaphore(this.maxInFlight);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        OrderedSink ordered = null;
+        if (sink.ordered()) {
+            ordered = new OrderedSink(sink);
+        }
+        try {
+            while (entries.hasNext() && failure.get() == null) {
+                GlossaryEntry entry = entries.next();
+                // Wait for a slot so only maxInFlight pages are ever open
+                inFlight.acquire();
+                // Taken in the order of the entries, whatever order the
+                // pages finish in
+                PageSink page = ordered == null ? sink : ordered.part();
+                pool.execute(() -> {
+                    try {
+                        GlossaryClass.generatePage(entry.term(),
+                                entry.definition(), linker, this.templates,
+                                references, links, page);
+                    } catch (RuntimeException | Error e) {
+                        failure.compareAndSet(null, e);
+                    } finally {
+                        if (page != sink) {
+                            page.close();
+                        }
+                        inFlight.release();
+                    }
+                });
+            }
+            // Every slot is free again once the last page is written
+            inFlight.acquire(this.maxInFlight);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("page generation interrupted", e);
+        } finally {
+            pool.shutdownNow();
+        }
+        if (failure.get() != null) {
+            throw new IllegalStateException("page generation failed",
+                    failure.get());
+        }
+    }
+
+}
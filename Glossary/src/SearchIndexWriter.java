@@ -0,0 +1,318 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Writes a search index for the glossary next to its pages, so the
+ * {@code search.html} page can look terms up in the browser without a server.
+ * The sorted terms are split into chunks of JSON arrays, and a small
+ * {@code search-index.json} lists the first term of every chunk; a prefix
+ * lookup binary searches that list, then loads only the chunks holding the
+ * prefix. Optionally, an inverted index maps every word of the definitions to
+ * the ids of the terms using it, chunked the same way by word.
+ *
+ * <p>
+ * A term's id is its position in the sorted terms, so chunk
+ * {@code id / chunkSize} holds it.
+ *
+ * @author Yakob Getu
+ *
+ */
+public final class SearchIndexWriter {
+
+    /**
+     * Mode writing only the term prefix index.
+     */
+    public static final String TERMS = "terms";
+
+    /**
+     * Mode writing the term prefix index and the inverted word index.
+     */
+    public static final String WORDS = "words";
+
+    /**
+     * Name of the file listing the chunks.
+     */
+    public static final String INDEX_NAME = "search-index.json";
+
+    /**
+     * Number of terms, or words, per chunk by default: about 10 to 50 KB of
+     * JSON, quick to fetch and parse.
+     */
+    public static final int DEFAULT_CHUNK_SIZE = 1024;
+
+    /**
+     * Static files copied next to the index.
+     */
+    private static final String[] ASSETS = { "search.html", "search.js" };
+
+    /**
+     * Number of terms, or words, per chunk.
+     */
+    private final int chunkSize;
+
+    /**
+     * Whether to write the inverted word index.
+     */
+    private final boolean words;
+
+    /**
+     * Creates a writer putting {@code chunkSize} entries in each chunk.
+     *
+     * @param chunkSize
+     *            the number of terms or words per chunk
+     * @param words
+     *            whether to write the inverted index of definition words
+     * @requires chunkSize > 0
+     */
+    public SearchIndexWriter(int chunkSize, boolean words) {
+        assert chunkSize > 0 : "Violation of: chunkSize > 0";
+        this.chunkSize = chunkSize;
+        this.words = words;
+    }
+
+    /**
+     * Returns the name of chunk {@code n} of {@code kind}.
+     *
+     * @param kind
+     *            {@link #TERMS} or {@link #WORDS}
+     * @param n
+     *            the chunk number, from 0
+     * @return the chunk's file name
+     */
+    public static String chunkName(String kind, int n) {
+        return "search-" + kind + "-" + n + ".json";
+    }
+
+    /**
+     * Appends {@code s} to {@code out} as a JSON string.
+     *
+     * @param out
+     *            the buffer
+     * @param s
+     *            the string
+     */
+    static void quote(PageBuffer out, String s) {
+        final char firstPrintable = 0x20;
+        final String hex = "0123456789abcdef";
+        out.print("\"");
+        int start = 0;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == '"' || c == '\\' || c < firstPrintable) {
+                out.print(s, start, i);
+                if (c == '"' || c == '\\') {
+                    out.print("\\" + c);
+                } else {
+                    out.print("\\u00").print(hex, c >> 4, (c >> 4) + 1)
+                            .print(hex, c & 0xF, (c & 0xF) + 1);
+                }
+                start = i + 1;
+            }
+        }
+        out.print(s, start, s.length()).print("\"");
+    }
+
+    /**
+     * Postings of one word: the ids of the terms whose definitions use it, in
+     * increasing order and without repeats.
+     */
+    private static final class Postings {
+
+        /**
+         * The ids.
+         */
+        private int[] ids = new int[2];
+
+        /**
+         * Number of ids.
+         */
+        private int size;
+
+        /**
+         * Adds {@code id}, unless it was the last one added.
+         *
+         * @param id
+         *            the term id
+         */
+        void add(int id) {
+            if (this.size == 0 || this.ids[this.size - 1] != id) {
+                if (this.size == this.ids.length) {
+                    this.ids = Arrays.copyOf(this.ids, 2 * this.size);
+                }
+                this.ids[this.size] = id;
+                this.size++;
+            }
+        }
+    }
+
+    /**
+     * Closes the chunk rendered in {@code page} and writes it as chunk
+     * {@code n} of {@code kind}.
+     *
+     * @param kind
+     *            {@link #TERMS} or {@link #WORDS}
+     * @param n
+     *            the chunk number
+     * @param page
+     *            the rendered chunk, without its closing bracket
+     * @param sink
+     *            where the chunk is written
+     */
+    private static void writeChunk(String kind, int n, PageBuffer page,
+            PageSink sink) {
+        page.print("]").newLine();
+        page.writeTo(sink, chunkName(kind, n));
+    }
+
+    /**
+     * Writes the search index of {@code entries}, and the page and script
+     * that search it, to {@code sink}.
+     *
+     * @param entries
+     *            the terms and definitions, in index order
+     * @param separators
+     *            the separators between words of definitions
+     * @param sink
+     *            where the files are written
+     * @return the number of terms indexed
+     * @throws UncheckedIOException
+     *             if the search page or script cannot be read
+     */
+    public int write(Iterator<GlossaryEntry> entries,
+            SeparatorTable separators, PageSink sink) {
+        HashMap<String, Postings> postings = new HashMap<>();
+        List<String> firstTerms = new ArrayList<>();
+        PageBuffer page = PageBuffer.forThread();
+        TokenCursor cursor = new TokenCursor(separators);
+        int id = 0;
+        while (entries.hasNext()) {
+            GlossaryEntry entry = entries.next();
+            if (id % this.chunkSize == 0) {
+                if (id > 0) {
+                    writeChunk(TERMS, firstTerms.size() - 1, page, sink);
+                    page.clear();
+                }
+                firstTerms.add(entry.term());
+                page.print("[");
+            } else {
+                page.print(",");
+            }
+            page.newLine();
+            quote(page, entry.term());
+            if (this.words) {
+                String definition = entry.definition();
+                cursor.reset(definition, 0);
+                while (cursor.next()) {
+                    if (!cursor.isSeparator()) {
+                        String word = definition
+                                .substring(cursor.start(), cursor.end())
+                                .toLowerCase(Locale.ROOT);
+                        postings.computeIfAbsent(word, w -> new Postings())
+                                .add(id);
+                    }
+                }
+            }
+            id++;
+        }
+        if (id > 0) {
+            writeChunk(TERMS, firstTerms.size() - 1, page, sink);
+        }
+
+        List<String> firstWords = new ArrayList<>();
+        if (this.words) {
+            String[] sorted = postings.keySet().toArray(new String[0]);
+            Arrays.sort(sorted);
+            page.clear();
+            for (int i = 0; i < sorted.length; i++) {
+                if (i % this.chunkSize == 0) {
+                    if (i > 0) {
+                        writeChunk(WORDS, firstWords.size() - 1, page, sink);
+                        page.clear();
+                    }
+                    firstWords.add(sorted[i]);
+                    page.print("[");
+                } else {
+                    page.print(",");
+                }
+                page.newLine().print("[");
+                quote(page, sorted[i]);
+                Postings p = postings.get(sorted[i]);
+                for (int j = 0; j < p.size; j++) {
+                    page.print(",").print(Integer.toString(p.ids[j]));
+                }
+                page.print("]");
+            }
+            if (sorted.length > 0) {
+                writeChunk(WORDS, firstWords.size() - 1, page, sink);
+            }
+        }
+
+        page.clear();
+        page.print("{\"chunkSize\":").print(Integer.toString(this.chunkSize))
+                .print(",\"terms\":").print(Integer.toString(id));
+        writeFirsts(page, TERMS, firstTerms);
+        if (this.words) {
+            writeFirsts(page, WORDS, firstWords);
+        }
+        page.println("}");
+        page.writeTo(sink, INDEX_NAME);
+
+        for (String asset : ASSETS) {
+            copyAsset(asset, sink);
+        }
+        return id;
+    }
+
+    /**
+     * Appends the first entries of the chunks of {@code kind} to the index.
+     *
+     * @param page
+     *            the index being rendered
+     * @param kind
+     *            {@link #TERMS} or {@link #WORDS}
+     * @param firsts
+     *            the first entry of every chunk
+     */
+    private static void writeFirsts(PageBuffer page, String kind,
+            List<String> firsts) {
+        page.print(",\"").print(kind).print("Chunks\":[");
+        for (int i = 0; i < firsts.size(); i++) {
+            if (i > 0) {
+                page.print(",");
+            }
+            quote(page, firsts.get(i));
+        }
+        page.print("]");
+    }
+
+    /**
+     * Copies the resource {@code name} to {@code sink}.
+     *
+     * @param name
+     *            the resource, next to this class
+     * @param sink
+     *            where it is written
+     * @throws UncheckedIOException
+     *             if the resource cannot be read
+     */
+    private static void copyAsset(String name, PageSink sink) {
+        try (InputStream in = SearchIndexWriter.class
+                .getResourceAsStream(name)) {
+            if (in == null) {
+                throw new IOException("missing resource " + name);
+            }
+            sink.write(name, ByteBuffer.wrap(in.readAllBytes()));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+}
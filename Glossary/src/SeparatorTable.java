@@ -0,0 +1,151 @@
+import java.util.Arrays;
+
+import components.set.Set;
+
+/**
+ * A set of separator characters compiled into a primitive lookup table. ASCII
+ * separators are bits of two {@code long}s, and any others are kept in a
+ * sorted array, so a lookup never boxes a {@code char} and the table never
+ * changes after it is built. Tokens are reported as offsets into the text
+ * rather than as new strings.
+ *
+ * @author Yakob Getu
+ *
+ */
+public final class SeparatorTable {
+
+    /**
+     * Number of characters covered by each bitmap word.
+     */
+    private static final int WORD_BITS = 64;
+
+    /**
+     * The separators between words in definitions.
+     */
+    public static final SeparatorTable DEFAULT = of(
+            TermLinker.DEFAULT_SEPARATORS);
+
+    /**
+     * Bits of the separators in [0, 64).
+     */
+    private final long low;
+
+    /**
+     * Bits of the separators in [64, 128).
+     */
+    private final long high;
+
+    /**
+     * The separators from 128 up, sorted.
+     */
+    private final char[] others;
+
+    /**
+     * Creates a table.
+     *
+     * @param low
+     *            bits of the separators in [0, 64)
+     * @param high
+     *            bits of the separators in [64, 128)
+     * @param others
+     *            the separators from 128 up, sorted
+     */
+    private SeparatorTable(long low, long high, char[] others) {
+        this.low = low;
+        this.high = high;
+        this.others = others;
+    }
+
+    /**
+     * Compiles the characters of {@code separators} into a table.
+     *
+     * @param separators
+     *            the separator characters
+     * @return the table
+     */
+    public static SeparatorTable of(String separators) {
+        long low = 0;
+        long high = 0;
+        StringBuilder others = new StringBuilder();
+        for (int i = 0; i < separators.length(); i++) {
+            char c = separators.charAt(i);
+            if (c < WORD_BITS) {
+                low |= 1L << c;
+            } else if (c < 2 * WORD_BITS) {
+                high |= 1L << (c - WORD_BITS);
+            } else {
+                others.append(c);
+            }
+        }
+        char[] sorted = others.toString().toCharArray();
+        Arrays.sort(sorted);
+        return new SeparatorTable(low, high, sorted);
+    }
+
+    /**
+     * Compiles the characters of {@code separators} into a table.
+     *
+     * @param separators
+     *            the separator characters
+     * @return the table
+     */
+    public static SeparatorTable of(Set<Character> separators) {
+        StringBuilder characters = new StringBuilder(separators.size());
+        for (Character c : separators) {
+            characters.append(c.charValue());
+        }
+        return of(characters.toString());
+    }
+
+    /**
+     * Returns whether {@code c} is a separator.
+     *
+     * @param c
+     *            the character
+     * @return true if {@code c} is in this table
+     */
+    public boolean contains(char c) {
+        boolean result;
+        if (c < WORD_BITS) {
+            result = (this.low & (1L << c)) != 0;
+        } else if (c < 2 * WORD_BITS) {
+            result = (this.high & (1L << (c - WORD_BITS))) != 0;
+        } else {
+            result = this.others.length > 0
+                    && Arrays.binarySearch(this.others, c) >= 0;
+        }
+        return result;
+    }
+
+    /**
+     * Returns the end of the word or separator string of {@code text} that
+     * starts at {@code position}: the maximal run of characters that are all
+     * separators, or all not separators, like the first character.
+     *
+     * @param text
+     *            the text to scan
+     * @param position
+     *            the starting index
+     * @return the index just past the token, or {@code position} if it is at
+     *         the end of {@code text}
+     * @requires 0 <= position <= |text|
+     * @ensures <pre>
+     * position <= tokenEnd <= |text|  and
+     * [text[position, tokenEnd) is the first word or separator string of
+     *  text starting at position]
+     * </pre>
+     */
+    public int tokenEnd(String text, int position) {
+        int end = position;
+        if (end < text.length()) {
+            boolean separator = this.contains(text.charAt(end));
+            end++;
+            while (end < text.length()
+                    && this.contains(text.charAt(end)) == separator) {
+                end++;
+            }
+        }
+        return end;
+    }
+
+}
@@ -0,0 +1,233 @@
+import java.text.Collator;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Writes the index of a large glossary as many small shard pages and a
+ * top-level {@code index.html} that links to each shard. Shards hold either
+ * the terms sharing a first letter or a fixed number of terms. The sorted
+ * terms are streamed once: only the terms of the current shard and the label
+ * of every shard are held in memory, and the navigation index is written
+ * last.
+ *
+ * @author Yakob Getu
+ *
+ */
+public final class ShardedIndex {
+
+    /**
+     * Mode that shards the index by the first character of each term.
+     */
+    public static final String BY_LETTER = "letter";
+
+    /**
+     * Number of terms per shard, or 0 to shard by first character.
+     */
+    private final int shardSize;
+
+    /**
+     * Compares first letters at primary strength, so letters differing only
+     * in case or accents share a shard, or null to compare code points.
+     */
+    private final Collator letters;
+
+    /**
+     * Creates a sharder from {@code mode}: {@link #BY_LETTER}, or the number
+     * of terms per shard.
+     *
+     * @param mode
+     *            how to shard the index
+     * @throws IllegalArgumentException
+     *             if {@code mode} is neither {@link #BY_LETTER} nor a positive
+     *             number
+     */
+    public ShardedIndex(String mode) {
+        this(mode, null);
+    }
+
+    /**
+     * Creates a sharder from {@code mode} for terms sorted as
+     * {@code collation} does. A locale's dictionary order interleaves case
+     * and accents, so shards by letter then hold every term whose first
+     * letter the locale tells apart only by them, and are labelled with the
+     * first letter of their first term.
+     *
+     * @param mode
+     *            how to shard the index
+     * @param collation
+     *            the locale the terms are sorted in, or null for UTF-16 code
+     *            unit order
+     * @throws IllegalArgumentException
+     *             if {@code mode} is neither {@link #BY_LETTER} nor a positive
+     *             number
+     */
+    public ShardedIndex(String mode, Locale collation) {
+        if (collation == null) {
+            this.letters = null;
+        } else {
+            this.letters = Collator.getInstance(collation);
+            this.letters.setStrength(Collator.PRIMARY);
+        }
+        if (mode.equals(BY_LETTER)) {
+            this.shardSize = 0;
+        } else {
+            int size;
+            try {
+                size = Integer.parseInt(mode);
+            } catch (NumberFormatException e) {
+                size = 0;
+            }
+            if (size <= 0) {
+                throw new IllegalArgumentException("index shards must be "
+                        + BY_LETTER + " or a positive number, got " + mode);
+            }
+            this.shardSize = size;
+        }
+    }
+
+    /**
+     * Returns the file name of shard {@code n}.
+     *
+     * @param n
+     *            the shard number, from 1
+     * @return the shard's file name
+     */
+    public static String shardName(int n) {
+        return "index-" + n + ".html";
+    }
+
+    /**
+     * Returns whether {@code term} starts a new shard after {@code shard}.
+     *
+     * @param shard
+     *            the terms of the current shard
+     * @param term
+     *            the next term
+     * @return true if {@code term} belongs in the next shard
+     * @requires shard is not empty
+     */
+    private boolean startsShard(List<String> shard, String term) {
+        boolean result;
+        if (this.shardSize > 0) {
+            result = shard.size() == this.shardSize;
+        } else {
+            String first = firstCharacter(shard.get(0));
+            String next = firstCharacter(term);
+            if (this.letters == null) {
+                result = !next.equals(first);
+            } else {
+                result = this.letters.compare(next, first) != 0;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the first character of {@code term}.
+     *
+     * @param term
+     *            the term
+     * @return its first code point, or the empty string if it has none
+     */
+    private static String firstCharacter(String term) {
+        String result = "";
+        if (!term.isEmpty()) {
+            result = term.substring(0, term.offsetByCodePoints(0, 1));
+        }
+        return result;
+    }
+
+    /**
+     * Returns the label of {@code shard} in the navigation index.
+     *
+     * @param shard
+     *            the terms of the shard
+     * @return its first character when sharding by letter, otherwise the
+     *         range of terms it holds
+     * @requires shard is not empty
+     */
+    private String label(List<String> shard) {
+        String first = shard.get(0);
+        String last = shard.get(shard.size() - 1);
+        String result;
+        if (this.shardSize == 0) {
+            result = firstCharacter(first);
+        } else if (shard.size() == 1) {
+            result = first;
+        } else {
+            result = first + " - " + last;
+        }
+        return result;
+    }
+
+    /**
+     * Writes {@code shard} as shard number {@code n}.
+     *
+     * @param shard
+     *            the terms of the shard
+     * @param label
+     *            the shard's label
+     * @param n
+     *            the shard number
+     * @param templates
+     *            the templates of the shard and its entries
+     * @param sink
+     *            where the page is written
+     */
+    private static void writeShard(List<String> shard, String label, int n,
+            PageTemplates templates, PageSink sink) {
+        PageBuffer page = PageBuffer.forThread();
+        PageTemplate entry = templates.indexEntry();
+        templates.indexShard().render(page, label, null, links -> {
+            for (String term : shard) {
+                entry.render(links, term, TermLinker.href(term), null);
+            }
+        });
+        page.writeTo(sink, shardName(n));
+    }
+
+    /**
+     * Writes the shards of {@code terms} and the navigation index linking to
+     * them to {@code sink}.
+     *
+     * @param terms
+     *            the terms, in index order
+     * @param templates
+     *            the templates of the index, its shards and their entries
+     * @param sink
+     *            where the pages are written
+     * @return the number of shards written
+     * @ensures [sink has index.html and one page per shard]
+     */
+    public int write(Iterable<String> terms, PageTemplates templates,
+            PageSink sink) {
+        List<String> labels = new ArrayList<>();
+        List<String> shard = new ArrayList<>();
+        for (String term : terms) {
+            if (!shard.isEmpty() && this.startsShard(shard, term)) {
+                labels.add(this.label(shard));
+                writeShard(shard, labels.get(labels.size() - 1),
+                        labels.size(), templates, sink);
+                shard.clear();
+            }
+            shard.add(term);
+        }
+        if (!shard.isEmpty()) {
+            labels.add(this.label(shard));
+            writeShard(shard, labels.get(labels.size() - 1), labels.size(),
+                    templates, sink);
+        }
+
+        PageBuffer page = PageBuffer.forThread();
+        PageTemplate entry = templates.indexEntry();
+        templates.indexPage().render(page, null, null, links -> {
+            for (int i = 0; i < labels.size(); i++) {
+                entry.render(links, labels.get(i), shardName(i + 1), null);
+            }
+        });
+        page.writeTo(sink, "index.html");
+        return labels.size();
+    }
+
+}
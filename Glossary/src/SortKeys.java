@@ -0,0 +1,68 @@
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * An order of terms given by binary sort keys: terms are ordered as their
+ * keys are, byte by byte as unsigned numbers, and terms with equal keys by
+ * {@link String#compareTo}. Computing the key of each term once and sorting
+ * on the keys is faster than an order that must do the work of a key on
+ * every comparison, and keys written to disk with their terms can be merged
+ * without computing them again.
+ *
+ * @author Yakob Getu
+ *
+ */
+public interface SortKeys {
+
+    /**
+     * Returns the sort key of {@code term}. Implementations may be called
+     * from any number of threads at once.
+     *
+     * @param term
+     *            the term
+     * @return its sort key
+     */
+    byte[] key(String term);
+
+    /**
+     * Compares two terms by their keys, then by the terms themselves if the
+     * keys are equal.
+     *
+     * @param key1
+     *            the key of the first term
+     * @param term1
+     *            the first term
+     * @param key2
+     *            the key of the second term
+     * @param term2
+     *            the second term
+     * @return a negative integer, zero, or a positive integer as the first
+     *         term is less than, equal to, or greater than the second
+     */
+    static int compare(byte[] key1, String term1, byte[] key2, String term2) {
+        int result = Arrays.compareUnsigned(key1, key2);
+        if (result == 0) {
+            result = term1.compareTo(term2);
+        }
+        return result;
+    }
+
+    /**
+     * Sorts {@code terms} into the order of their keys, computing the key of
+     * each term once. Keys are computed in parallel.
+     *
+     * @param terms
+     *            the terms to sort
+     * @updates terms
+     * @ensures terms = [#terms ordered by their keys, then by compareTo]
+     */
+    default void sort(String[] terms) {
+        String[] sorted = Arrays.stream(terms).parallel()
+                .map(term -> Map.entry(this.key(term), term))
+                .sorted((a, b) -> compare(a.getKey(), a.getValue(),
+                        b.getKey(), b.getValue()))
+                .map(Map.Entry::getValue).toArray(String[]::new);
+        System.arraycopy(sorted, 0, terms, 0, terms.length);
+    }
+
+}
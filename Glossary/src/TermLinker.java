@@ -0,0 +1,424 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import components.map.Map;
+
+/**
+ * Finds glossary terms in definition text. All terms are compiled once into a
+ * character trie, so a definition is scanned by walking the trie from each
+ * word start instead of hashing every token. Terms may contain separators, so
+ * multi-word terms such as "specialized terms" are found too. A match must
+ * start at the start of a word and end at the end of one, and the longest
+ * matching term wins.
+ *
+ * <p>
+ * The trie is never changed after construction, so one linker can be shared
+ * by any number of threads.
+ *
+ * @author Yakob Getu
+ *
+ */
+public final class TermLinker {
+
+    /**
+     * The separators between words in definitions.
+     */
+    public static final String DEFAULT_SEPARATORS = " \t,.";
+
+    /**
+     * Index of the root node of the trie.
+     */
+    private static final int ROOT = 0;
+
+    /**
+     * Initial number of slots in the edge table; always a power of two.
+     */
+    private static final int INITIAL_SLOTS = 64;
+
+    /**
+     * Constant used to scatter edge keys across the table.
+     */
+    private static final long HASH_MULTIPLIER = 0x9E3779B97F4A7C15L;
+
+    /**
+     * The separators between words.
+     */
+    private final SeparatorTable separators;
+
+    /**
+     * Open-addressing edge table keys: (parent node, character) packed into a
+     * long plus one, or 0 for an empty slot.
+     */
+    private long[] edgeKeys = new long[INITIAL_SLOTS];
+
+    /**
+     * Child node of the edge in the same slot of {@code edgeKeys}.
+     */
+    private int[] edgeChildren = new int[INITIAL_SLOTS];
+
+    /**
+     * Number of edges in the table.
+     */
+    private int edgeCount;
+
+    /**
+     * One plus the number of the term each node ends, counting distinct
+     * terms in the order they were given from 0, or 0 if it ends none.
+     */
+    private int[] termNumbers = new int[INITIAL_SLOTS];
+
+    /**
+     * Number of nodes in the trie, including the root.
+     */
+    private int nodeCount = 1;
+
+    /**
+     * Number of distinct terms in the trie.
+     */
+    private int termCount;
+
+    /**
+     * Creates a linker for {@code terms} with words separated by
+     * {@code separators}.
+     *
+     * @param terms
+     *            the glossary terms
+     * @param separators
+     *            the characters that separate words
+     */
+    public TermLinker(Iterable<String> terms, String separators) {
+        this.separators = SeparatorTable.of(separators);
+        for (String term : terms) {
+            this.addTerm(term);
+        }
+    }
+
+    /**
+     * Creates a linker for the terms of {@code m} with words separated by
+     * {@link #DEFAULT_SEPARATORS}.
+     *
+     * @param m
+     *            the map containing all the terms and definitions
+     * @return the linker
+     */
+    public static TermLinker forGlossary(Map<String, String> m) {
+        List<String> terms = new ArrayList<>(m.size());
+        for (Map.Pair<String, String> entry : m) {
+            terms.add(entry.key());
+        }
+        return new TermLinker(terms, DEFAULT_SEPARATORS);
+    }
+
+    /**
+     * Returns the file name of the page of {@code term}.
+     *
+     * @param term
+     *            the term
+     * @return the name of the page file
+     */
+    public static String pageName(String term) {
+        return pageName(term, ".html");
+    }
+
+    /**
+     * Returns the name of the file of {@code term} with extension
+     * {@code extension}.
+     *
+     * @param term
+     *            the term
+     * @param extension
+     *            the extension of the file, such as {@code .json}
+     * @return the name of the file
+     */
+    public static String pageName(String term, String extension) {
+        return term + extension;
+    }
+
+    /**
+     * Returns the relative link to the page of {@code term}. Spaces in
+     * multi-word terms are percent-encoded.
+     *
+     * @param term
+     *            the term
+     * @return the link to the page of the term
+     */
+    public static String href(String term) {
+        return href(term, ".html");
+    }
+
+    /**
+     * Returns the relative link to the file of {@code term} with extension
+     * {@code extension}. Spaces in multi-word terms are percent-encoded.
+     *
+     * @param term
+     *            the term
+     * @param extension
+     *            the extension of the file, such as {@code .json}
+     * @return the link to the file of the term
+     */
+    public static String href(String term, String extension) {
+        String name = term;
+        if (name.indexOf(' ') >= 0) {
+            name = name.replace(" ", "%20");
+        }
+        return name + extension;
+    }
+
+    /**
+     * Returns whether {@code c} separates words.
+     *
+     * @param c
+     *            the character
+     * @return true if {@code c} is a separator
+     */
+    public boolean isSeparator(char c) {
+        return this.separators.contains(c);
+    }
+
+    /**
+     * Returns the separators between words.
+     *
+     * @return the separator table
+     */
+    public SeparatorTable separators() {
+        return this.separators;
+    }
+
+    /**
+     * Returns the number of distinct terms the linker finds.
+     *
+     * @return the number of terms
+     */
+    public int termCount() {
+        return this.termCount;
+    }
+
+    /**
+     * Returns the end of the longest term in {@code text} that starts at
+     * {@code start} and ends at the end of a word.
+     *
+     * @param text
+     *            the text to search
+     * @param start
+     *            the index the term must start at
+     * @return the index just past the matched term, or -1 if no term starts
+     *         at {@code start}
+     * @requires 0 <= start < |text|
+     * @ensures <pre>
+     * match = -1  or
+     *  (text[start, match) is a term  and
+     *   [start is the start of a word and match is the end of a word in text]
+     *   and [no longer such term starts at start])
+     * </pre>
+     */
+    public int match(String text, int start) {
+        int end = -1;
+        if (!this.isSeparator(text.charAt(start))
+                && (start == 0 || this.isSeparator(text.charAt(start - 1)))) {
+            int node = ROOT;
+            int i = start;
+            while (node >= 0 && i < text.length()) {
+                node = this.child(node, text.charAt(i));
+                i++;
+                if (node >= 0 && this.termNumbers[node] > 0
+                        && (i == text.length()
+                                || this.isSeparator(text.charAt(i)))) {
+                    end = i;
+                }
+            }
+        }
+        return end;
+    }
+
+    /**
+     * Returns the number of the term {@code text[start, end)}: the distinct
+     * terms given to the constructor are numbered from 0 in the order they
+     * were given, so a linker created from the terms in index order numbers
+     * each term with its index. The characters are looked up in the trie
+     * again, which is cheap straight after {@link #match} found them.
+     *
+     * @param text
+     *            the text holding the term
+     * @param start
+     *            the index the term starts at
+     * @param end
+     *            the index just past the term
+     * @return the number of the term, or -1 if it is not a term
+     * @requires 0 <= start <= end <= |text|
+     */
+    public int number(String text, int start, int end) {
+        int node = ROOT;
+        int i = start;
+        while (node >= 0 && i < end) {
+            node = this.child(node, text.charAt(i));
+            i++;
+        }
+        int result = -1;
+        if (node > ROOT) {
+            result = this.termNumbers[node] - 1;
+        }
+        return result;
+    }
+
+    /**
+     * Returns the terms linked from {@code text}, in order and with repeats,
+     * exactly as {@code GlossaryClass.generatePage} links them. As there, the
+     * last character of {@code text}, the space that ends every definition,
+     * is not scanned.
+     *
+     * @param text
+     *            the definition to scan
+     * @return the linked terms
+     */
+    public List<String> links(String text) {
+        List<String> result = new ArrayList<>();
+        int position = 0;
+        while (position < text.length() - 1) {
+            int end = this.match(text, position);
+            if (end > 0) {
+                result.add(text.substring(position, end));
+                position = end;
+            } else {
+                position++;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Adds {@code term} to the trie.
+     *
+     * @param term
+     *            the term to add
+     */
+    private void addTerm(String term) {
+        int node = ROOT;
+        for (int i = 0; i < term.length(); i++) {
+            int next = this.child(node, term.charAt(i));
+            if (next < 0) {
+                next = this.addNode();
+                this.addEdge(node, term.charAt(i), next);
+            }
+            node = next;
+        }
+        if (node != ROOT && this.termNumbers[node] == 0) {
+            this.termCount++;
+            this.termNumbers[node] = this.termCount;
+        }
+    }
+
+    /**
+     * Adds a new node to the trie.
+     *
+     * @return the index of the new node
+     */
+    private int addNode() {
+        if (this.nodeCount == this.termNumbers.length) {
+            this.termNumbers = Arrays.copyOf(this.termNumbers,
+                    2 * this.termNumbers.length);
+        }
+        int node = this.nodeCount;
+        this.nodeCount++;
+        return node;
+    }
+
+    /**
+     * Packs the edge from {@code node} on {@code c} into a table key.
+     *
+     * @param node
+     *            the parent node
+     * @param c
+     *            the character on the edge
+     * @return the key, never 0
+     */
+    private static long edgeKey(int node, char c) {
+        final int charBits = 16;
+        return (((long) node << charBits) | c) + 1;
+    }
+
+    /**
+     * Returns the first slot to probe for {@code key} in a table with
+     * {@code mask + 1} slots.
+     *
+     * @param key
+     *            the edge key
+     * @param mask
+     *            the table size minus one
+     * @return the slot
+     */
+    private static int slot(long key, int mask) {
+        final int shift = 32;
+        long h = key * HASH_MULTIPLIER;
+        return (int) (h ^ (h >>> shift)) & mask;
+    }
+
+    /**
+     * Returns the child of {@code node} on {@code c}.
+     *
+     * @param node
+     *            the parent node
+     * @param c
+     *            the character on the edge
+     * @return the child node, or -1 if there is no such edge
+     */
+    private int child(int node, char c) {
+        long key = edgeKey(node, c);
+        int mask = this.edgeKeys.length - 1;
+        int i = slot(key, mask);
+        int result = -1;
+        while (result < 0 && this.edgeKeys[i] != 0) {
+            if (this.edgeKeys[i] == key) {
+                result = this.edgeChildren[i];
+            }
+            i = (i + 1) & mask;
+        }
+        return result;
+    }
+
+    /**
+     * Adds the edge from {@code node} on {@code c} to {@code child}.
+     *
+     * @param node
+     *            the parent node
+     * @param c
+     *            the character on the edge
+     * @param child
+     *            the child node
+     */
+    private void addEdge(int node, char c, int child) {
+        // Keep the table at most half full so probe runs stay short
+        if (2 * (this.edgeCount + 1) > this.edgeKeys.length) {
+            long[] oldKeys = this.edgeKeys;
+            int[] oldChildren = this.edgeChildren;
+            this.edgeKeys = new long[2 * oldKeys.length];
+            this.edgeChildren = new int[2 * oldKeys.length];
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != 0) {
+                    this.insert(oldKeys[i], oldChildren[i]);
+                }
+            }
+        }
+        this.insert(edgeKey(node, c), child);
+        this.edgeCount++;
+    }
+
+    /**
+     * Puts {@code key} and {@code child} into the first free slot.
+     *
+     * @param key
+     *            the edge key
+     * @param child
+     *            the child node
+     */
+    private void insert(long key, int child) {
+        int mask = this.edgeKeys.length - 1;
+        int i = slot(key, mask);
+        while (this.edgeKeys[i] != 0) {
+            i = (i + 1) & mask;
+        }
+        this.edgeKeys[i] = key;
+        this.edgeChildren[i] = child;
+    }
+
+}
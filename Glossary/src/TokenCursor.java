@@ -0,0 +1,97 @@
+/**
+ * Walks the words and separator strings of a text without allocating. The
+ * cursor is reused: {@link #reset} points it at a new text, and every call to
+ * {@link #next} moves it to the next token, whose bounds are then available as
+ * offsets.
+ *
+ * @author Yakob Getu
+ *
+ */
+public final class TokenCursor {
+
+    /**
+     * The separators between words.
+     */
+    private final SeparatorTable separators;
+
+    /**
+     * The text being walked.
+     */
+    private String text = "";
+
+    /**
+     * Start of the current token.
+     */
+    private int start;
+
+    /**
+     * End of the current token; the next token starts here.
+     */
+    private int end;
+
+    /**
+     * Creates a cursor splitting text at {@code separators}.
+     *
+     * @param separators
+     *            the separators between words
+     */
+    public TokenCursor(SeparatorTable separators) {
+        this.separators = separators;
+    }
+
+    /**
+     * Points the cursor at {@code newText}, before its token starting at
+     * {@code position}.
+     *
+     * @param newText
+     *            the text to walk
+     * @param position
+     *            the index of the first token
+     * @requires 0 <= position <= |newText|
+     */
+    public void reset(String newText, int position) {
+        this.text = newText;
+        this.start = position;
+        this.end = position;
+    }
+
+    /**
+     * Moves to the next token.
+     *
+     * @return true if there is another token, false at the end of the text
+     */
+    public boolean next() {
+        this.start = this.end;
+        this.end = this.separators.tokenEnd(this.text, this.start);
+        return this.end > this.start;
+    }
+
+    /**
+     * Returns the start of the current token.
+     *
+     * @return the index of its first character
+     */
+    public int start() {
+        return this.start;
+    }
+
+    /**
+     * Returns the end of the current token.
+     *
+     * @return the index just past its last character
+     */
+    public int end() {
+        return this.end;
+    }
+
+    /**
+     * Returns whether the current token is a separator string.
+     *
+     * @return true for a separator string, false for a word
+     * @requires [next() has returned true]
+     */
+    public boolean isSeparator() {
+        return this.separators.contains(this.text.charAt(this.start));
+    }
+
+}
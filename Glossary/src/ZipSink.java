@@ -0,0 +1,106 @@
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Writes every page as an entry of one zip archive. Entries are appended one
+ * page at a time through a large buffer, so system calls are made per buffer
+ * filled rather than per page; they are counted where they reach the file.
+ * Pages written by several threads are serialized.
+ *
+ * @author Yakob Getu
+ *
+ */
+public final class ZipSink implements PageSink {
+
+    /**
+     * Size of the buffer in front of the archive file.
+     */
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /**
+     * The archive file, as written to.
+     */
+    private final CountingStream file;
+
+    /**
+     * The archive.
+     */
+    private final ZipOutputStream zip;
+
+    /**
+     * Bytes of a page being copied into the archive.
+     */
+    private byte[] copy = new byte[0];
+
+    /**
+     * What has been written.
+     */
+    private final PageStats stats = new PageStats();
+
+    /**
+     * Creates a sink writing the archive {@code archive}, replacing any file
+     * already there.
+     *
+     * @param archive
+     *            the archive file
+     * @throws UncheckedIOException
+     *             if the file cannot be created
+     */
+    public ZipSink(Path archive) {
+        try {
+            this.file = new CountingStream(Files.newOutputStream(archive));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        // open
+        this.stats.recordCalls(1);
+        this.stats.recordOpen();
+        this.zip = new ZipOutputStream(
+                new BufferedOutputStream(this.file, BUFFER_SIZE));
+    }
+
+    @Override
+    public synchronized void write(String name, ByteBuffer page) {
+        int size = page.remaining();
+        if (this.copy.length < size) {
+            this.copy = new byte[Math.max(size, 2 * this.copy.length)];
+        }
+        page.get(this.copy, 0, size);
+        try {
+            this.zip.putNextEntry(new ZipEntry(name));
+            this.zip.write(this.copy, 0, size);
+            this.zip.closeEntry();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        this.stats.recordPage(size, this.file.takeWrites());
+    }
+
+    @Override
+    public PageStats stats() {
+        return this.stats;
+    }
+
+    @Override
+    public boolean ordered() {
+        return true;
+    }
+
+    @Override
+    public synchronized void close() {
+        try {
+            this.zip.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        // the last buffer and the close
+        this.stats.recordCalls(this.file.takeWrites() + 1);
+    }
+
+}
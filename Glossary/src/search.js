@@ -0,0 +1,129 @@
+/*
+ * Glossary search. Loads search-index.json once, then only the chunks a
+ * query needs: terms starting with a prefix are found by binary search over
+ * the first term of every chunk and then within the chunks, and words of
+ * definitions through the inverted index, when one was generated.
+ *
+ * Terms are sorted by UTF-16 code unit, which is how JavaScript compares
+ * strings, so the binary searches need no collation.
+ */
+var GlossarySearch = (function () {
+    'use strict';
+
+    var indexPromise = null;
+    var chunks = {};
+
+    function load(url) {
+        return fetch(url).then(function (response) {
+            if (!response.ok) {
+                throw new Error(url + ': ' + response.status);
+            }
+            return response.json();
+        });
+    }
+
+    function index() {
+        if (indexPromise === null) {
+            indexPromise = load('search-index.json');
+        }
+        return indexPromise;
+    }
+
+    function chunk(kind, n) {
+        var key = kind + n;
+        if (!(key in chunks)) {
+            chunks[key] = load('search-' + kind + '-' + n + '.json');
+        }
+        return chunks[key];
+    }
+
+    // Index of the first element of sorted array a whose key is >= value.
+    function lowerBound(a, value, key) {
+        var lo = 0;
+        var hi = a.length;
+        while (lo < hi) {
+            var mid = (lo + hi) >>> 1;
+            if (key(a[mid]) < value) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    function identity(x) {
+        return x;
+    }
+
+    // Number of the first chunk that can hold values starting with prefix:
+    // the last chunk whose first entry sorts before prefix.
+    function firstChunk(firsts, prefix) {
+        return Math.max(0, lowerBound(firsts, prefix, identity) - 1);
+    }
+
+    // Number of the chunk that holds value: the last chunk whose first
+    // entry is not after value.
+    function chunkOf(firsts, value) {
+        var n = lowerBound(firsts, value, identity);
+        return n < firsts.length && firsts[n] === value ? n : Math.max(0, n - 1);
+    }
+
+    function href(term) {
+        return term.replace(/ /g, '%20') + '.html';
+    }
+
+    // Up to limit terms starting with prefix, in order.
+    function byPrefix(prefix, limit) {
+        return index().then(function (ix) {
+            var found = [];
+            function scan(n) {
+                if (n >= ix.termsChunks.length || found.length >= limit) {
+                    return found;
+                }
+                return chunk('terms', n).then(function (terms) {
+                    var i = lowerBound(terms, prefix, identity);
+                    while (i < terms.length && found.length < limit
+                            && terms[i].lastIndexOf(prefix, 0) === 0) {
+                        found.push(terms[i]);
+                        i++;
+                    }
+                    return i === terms.length ? scan(n + 1) : found;
+                });
+            }
+            return scan(firstChunk(ix.termsChunks, prefix));
+        });
+    }
+
+    // The terms whose definitions use word.
+    function byWord(word) {
+        return index().then(function (ix) {
+            if (!ix.wordsChunks || ix.wordsChunks.length === 0) {
+                return [];
+            }
+            var lower = word.toLowerCase();
+            var n = chunkOf(ix.wordsChunks, lower);
+            return chunk('words', n).then(function (words) {
+                var i = lowerBound(words, lower, function (w) {
+                    return w[0];
+                });
+                if (i === words.length || words[i][0] !== lower) {
+                    return [];
+                }
+                var ids = words[i].slice(1);
+                return Promise.all(ids.map(function (id) {
+                    return chunk('terms', Math.floor(id / ix.chunkSize))
+                        .then(function (terms) {
+                            return terms[id % ix.chunkSize];
+                        });
+                }));
+            });
+        });
+    }
+
+    return {
+        byPrefix: byPrefix,
+        byWord: byWord,
+        href: href
+    };
+}());
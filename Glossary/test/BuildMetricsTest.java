@@ -0,0 +1,76 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import components.map.Map;
+import components.map.Map1L;
+
+/**
+ * Tests for the BuildMetrics class.
+ *
+ * @author Yakob Getu
+ */
+public class BuildMetricsTest {
+
+    /**
+     * Routine: Tests that stages are reported in the order they started,
+     * with the counters of the sink.
+     */
+    @Test
+    public void routineReportsStagesAndCounters() {
+        BuildMetrics metrics = new BuildMetrics();
+        metrics.start("parse");
+        metrics.start("pages");
+        PageStats stats = new PageStats();
+        stats.recordOpen();
+        stats.recordPage(100, 3);
+        stats.recordDefinition(12, 2);
+        String report = metrics.report(stats);
+        assertTrue(report.startsWith("{\n  \"stages\": {\n    \"parse\": "
+                + "{ \"wallMillis\": "));
+        assertTrue(report.indexOf("\"parse\"") < report.indexOf("\"pages\""));
+        assertTrue(report.contains("  \"terms\": 1,\n  \"tokens\": 12,\n"
+                + "  \"links\": 2,\n  \"pages\": 1,\n"
+                + "  \"bytesWritten\": 100,\n  \"filesOpened\": 1,\n"
+                + "  \"systemCalls\": 3,\n  \"peakHeapBytes\": "));
+        assertTrue(report.endsWith("\n}\n"));
+    }
+
+    /**
+     * Edge: Tests that a stage run twice adds up, and that a stage never run
+     * has no time.
+     */
+    @Test
+    public void edgeRepeatedAndMissingStages() {
+        BuildMetrics metrics = new BuildMetrics();
+        metrics.start("pages");
+        metrics.end();
+        long first = metrics.wallNanos("pages");
+        metrics.start("pages");
+        metrics.end();
+        metrics.end();
+        assertTrue(metrics.wallNanos("pages") >= first);
+        assertEquals(-1, metrics.wallNanos("sort"));
+        String report = metrics.report(new PageStats());
+        assertEquals(report.indexOf("\"pages\": {"),
+                report.lastIndexOf("\"pages\": {"));
+    }
+
+    /**
+     * Challenging: Tests that rendering a page counts its tokens and links.
+     */
+    @Test
+    public void challengingRenderingCountsTokensAndLinks() {
+        Map<String, String> m = new Map1L<>();
+        m.add("book", " a printed work ");
+        m.add("term", " a word in a book or a glossary book ");
+        MemorySink sink = new MemorySink();
+        GlossaryClass.generatePage("term", m.value("term"),
+                TermLinker.forGlossary(m), PageTemplates.DEFAULT, null, sink);
+        assertEquals(1, sink.stats().definitions());
+        assertEquals(2, sink.stats().links());
+        assertEquals(18, sink.stats().tokens());
+    }
+
+}
@@ -0,0 +1,154 @@
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for the BuildPipeline class and the builds that use it.
+ *
+ * @author Yakob Getu
+ */
+public class BuildPipelineTest {
+
+    /**
+     * Folder the terms file and the builds are written to.
+     */
+    private static final String TEST_DIRECTORY = "test_pipeline";
+
+    /**
+     * The terms file.
+     */
+    private static final String TERMS_FILE = TEST_DIRECTORY + "/terms.txt";
+
+    /**
+     * Creates the folder.
+     *
+     * @throws IOException
+     *             if the folder cannot be created.
+     */
+    @Before
+    public void setUp() throws IOException {
+        Files.createDirectories(Paths.get(TEST_DIRECTORY));
+    }
+
+    /**
+     * Deletes the folder and its files.
+     */
+    @After
+    public void tearDown() {
+        File folder = new File(TEST_DIRECTORY);
+        for (File file : folder.listFiles()) {
+            file.delete();
+        }
+        folder.delete();
+    }
+
+    /**
+     * Writes a terms file of {@code n} terms whose definitions link to
+     * other terms, with one malformed block.
+     *
+     * @param n
+     *            the number of terms
+     * @throws IOException
+     *             if the file cannot be written.
+     */
+    private static void writeTerms(int n) throws IOException {
+        StringBuilder text = new StringBuilder();
+        for (int i = n - 1; i >= 0; i--) {
+            text.append("term").append(i).append("\nlinks to term")
+                    .append((7 * i) % n).append(" and term")
+                    .append((i + 1) % n).append(", see glossary\n\n");
+            if (i == n / 2) {
+                text.append("\n\n");
+            }
+        }
+        text.append("glossary\nthe terms from term0 on\n");
+        Files.write(Paths.get(TERMS_FILE),
+                text.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Routine: Tests that parsing on a thread of its own hands over the same
+     * entries, in the same order, as reading the file directly.
+     *
+     * @throws IOException
+     *             if the terms file cannot be written.
+     */
+    @Test
+    public void routineParseKeepsOrder() throws IOException {
+        writeTerms(3000);
+        List<String> expected = new ArrayList<>();
+        GlossaryReader reader = GlossaryReader.open(TERMS_FILE, e -> {
+        });
+        while (reader.hasNext()) {
+            GlossaryEntry entry = reader.next();
+            expected.add(entry.term() + "|" + entry.definition());
+        }
+        reader.close();
+        List<String> parsed = new ArrayList<>();
+        BuildPipeline.parse(TERMS_FILE, e -> {
+        }, entry -> parsed.add(entry.term() + "|" + entry.definition()));
+        assertEquals(expected, parsed);
+    }
+
+    /**
+     * Edge: Tests that a terms file that cannot be read fails the parse with
+     * the reader's exception.
+     */
+    @Test(expected = UncheckedIOException.class)
+    public void edgeParseMissingFile() {
+        BuildPipeline.parse(TEST_DIRECTORY + "/missing.txt", e -> {
+        }, entry -> {
+        });
+    }
+
+    /**
+     * Challenging: Tests that builds into a pack file on several threads,
+     * with the index, search index and compressed copies overlapping the
+     * pages, write the same bytes as the serial build.
+     *
+     * @throws IOException
+     *             if a file cannot be written or read.
+     */
+    @Test
+    public void challengingThreadedBuildMatchesSerial() throws IOException {
+        writeTerms(2000);
+        String[] flags = { "-sink", "pack", "-search", "words",
+                "-referencedBy", "-gzip", "6" };
+        byte[] serial = null;
+        for (String threads : new String[] { "1", "4", "3" }) {
+            for (String external : new String[] { "0", "1" }) {
+                String pack = TEST_DIRECTORY + "/glossary" + threads
+                        + external + ".pack";
+                List<String> args = new ArrayList<>(
+                        List.of(TERMS_FILE, pack, "-threads", threads));
+                args.addAll(List.of(flags));
+                if (external.equals("1")) {
+                    args.addAll(List.of("-externalSort", "1"));
+                }
+                GlossaryClass.build(
+                        GlossaryOptions.parse(args.toArray(new String[0])),
+                        line -> {
+                        });
+                byte[] bytes = Files.readAllBytes(Paths.get(pack));
+                if (serial == null) {
+                    serial = bytes;
+                } else {
+                    assertArrayEquals(serial, bytes);
+                }
+            }
+        }
+    }
+
+}
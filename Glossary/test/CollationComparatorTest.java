@@ -0,0 +1,133 @@
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Random;
+
+import org.junit.Test;
+
+import components.queue.Queue;
+import components.queue.Queue1L;
+
+/**
+ * Tests for the CollationComparator class.
+ *
+ * @author Yakob Getu
+ */
+public class CollationComparatorTest {
+
+    /**
+     * Routine: Tests that sortQueue orders terms as an English dictionary
+     * does, ignoring case first and keeping accented letters with their base
+     * letters.
+     */
+    @Test
+    public void routineSortQueueCollates() {
+        Queue<String> q = new Queue1L<>();
+        for (String term : new String[] { "Zebra", "\u00e9clair", "fig",
+                "apple", "eagle", "Apple" }) {
+            q.enqueue(term);
+        }
+        GlossaryClass.sortQueue(q,
+                new CollationComparator(Locale.forLanguageTag("en")));
+        String[] expected = { "apple", "Apple", "eagle", "\u00e9clair", "fig",
+                "Zebra" };
+        for (String term : expected) {
+            assertEquals(term, q.dequeue());
+        }
+    }
+
+    /**
+     * Routine: Tests that sortQueueByKeys orders terms as sortQueue does with
+     * the same comparator.
+     */
+    @Test
+    public void routineSortQueueByKeys() {
+        CollationComparator order = new CollationComparator(
+                Locale.forLanguageTag("en"));
+        Queue<String> byKeys = new Queue1L<>();
+        Queue<String> compared = new Queue1L<>();
+        for (String term : new String[] { "Zebra", "\u00e9clair", "fig",
+                "apple", "eagle", "Apple", "a\u0001", "a" }) {
+            byKeys.enqueue(term);
+            compared.enqueue(term);
+        }
+        GlossaryClass.sortQueueByKeys(byKeys, order);
+        GlossaryClass.sortQueue(compared, order);
+        assertEquals(compared.length(), byKeys.length());
+        while (compared.length() > 0) {
+            assertEquals(compared.dequeue(), byKeys.dequeue());
+        }
+    }
+
+    /**
+     * Edge: Tests that strings the collator finds equal are still ordered,
+     * by code unit, and that equal strings compare equal.
+     */
+    @Test
+    public void edgeTiesAreBroken() {
+        CollationComparator order = new CollationComparator(
+                Locale.forLanguageTag("en"));
+        assertTrue(order.compare("a", "a\u0001") < 0);
+        assertTrue(order.compare("a\u0001", "a") > 0);
+        assertEquals(0, order.compare("word", "word"));
+        String[] terms = { "a\u0001", "a", "a" };
+        order.sort(terms);
+        assertArrayEquals(new String[] { "a", "a", "a\u0001" }, terms);
+    }
+
+    /**
+     * Challenging: Tests that sorting on collation keys gives the same order
+     * as comparing with the comparator, for many random terms.
+     */
+    @Test
+    public void challengingKeysMatchComparisons() {
+        final int count = 5000;
+        String letters = "aAbBeE\u00e9\u00c9zZ -'";
+        Random random = new Random(1);
+        String[] terms = new String[count];
+        for (int i = 0; i < count; i++) {
+            StringBuilder term = new StringBuilder();
+            int length = 1 + random.nextInt(6);
+            for (int j = 0; j < length; j++) {
+                term.append(letters.charAt(random.nextInt(letters.length())));
+            }
+            terms[i] = term.toString();
+        }
+        CollationComparator order = new CollationComparator(
+                Locale.forLanguageTag("sv"));
+        String[] expected = terms.clone();
+        Arrays.sort(expected, order);
+        order.sort(terms);
+        assertArrayEquals(expected, terms);
+    }
+
+    /**
+     * Challenging: Tests that comparisons from many threads at once, each
+     * with a collator of its own, give the same order as one thread.
+     */
+    @Test
+    public void challengingParallelComparisons() {
+        final int count = 100000;
+        String letters = "aAbBeE\u00e9\u00c9zZ -'";
+        Random random = new Random(2);
+        String[] terms = new String[count];
+        for (int i = 0; i < count; i++) {
+            StringBuilder term = new StringBuilder();
+            int length = 1 + random.nextInt(8);
+            for (int j = 0; j < length; j++) {
+                term.append(letters.charAt(random.nextInt(letters.length())));
+            }
+            terms[i] = term.toString();
+        }
+        CollationComparator order = new CollationComparator(
+                Locale.forLanguageTag("en"));
+        String[] expected = terms.clone();
+        Arrays.sort(expected, order);
+        Arrays.parallelSort(terms, order);
+        assertArrayEquals(expected, terms);
+    }
+
+}
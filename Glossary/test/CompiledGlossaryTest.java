@@ -0,0 +1,175 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.util.Iterator;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import components.map.Map;
+import components.map.Map1L;
+
+/**
+ * Tests for the CompiledGlossary class.
+ *
+ * @author Yakob Getu
+ */
+public class CompiledGlossaryTest {
+
+    /**
+     * Folder the compiled glossaries are written to.
+     */
+    private static final String COMPILED_DIRECTORY = "test_compiled";
+
+    /**
+     * The compiled glossary file.
+     */
+    private static final String BINARY = COMPILED_DIRECTORY + "/terms.bin";
+
+    /**
+     * The terms file the glossary is compiled from.
+     */
+    private static final String SOURCE = COMPILED_DIRECTORY + "/terms.txt";
+
+    /**
+     * Creates the output folder and the terms file.
+     *
+     * @throws IOException
+     *             if the folder or file cannot be created.
+     */
+    @Before
+    public void setUp() throws IOException {
+        Files.createDirectories(Paths.get(COMPILED_DIRECTORY));
+        Files.writeString(Paths.get(SOURCE), "tea\na drink\n");
+    }
+
+    /**
+     * Deletes the output folder and its files.
+     */
+    @After
+    public void tearDown() {
+        File folder = new File(COMPILED_DIRECTORY);
+        for (File file : folder.listFiles()) {
+            file.delete();
+        }
+        folder.delete();
+    }
+
+    /**
+     * Compiles {@code m}, read from {@code SOURCE}, whose sorted terms are
+     * {@code terms}.
+     *
+     * @param terms
+     *            the terms, in index order
+     * @param m
+     *            the glossary
+     */
+    private static void compile(List<String> terms, Map<String, String> m) {
+        CompiledGlossary.write(BINARY, SOURCE, terms, m, LinkGraph.build(terms,
+                GlossaryEntry.entries(terms, m), TermLinker.forGlossary(m)));
+    }
+
+    /**
+     * Routine: Tests that terms, definitions and links are read back as they
+     * were compiled.
+     */
+    @Test
+    public void routineRoundTrip() {
+        Map<String, String> m = new Map1L<>();
+        m.add("caf\u00e9", " a place serving coffee ");
+        m.add("coffee", " a drink served in a caf\u00e9 ");
+        m.add("tea", " a drink unlike coffee ");
+        List<String> terms = List.of("caf\u00e9", "coffee", "tea");
+        compile(terms, m);
+
+        CompiledGlossary compiled = CompiledGlossary.load(BINARY);
+        assertEquals(3, compiled.size());
+        Iterator<GlossaryEntry> entries = compiled.entries();
+        for (String term : terms) {
+            GlossaryEntry entry = entries.next();
+            assertEquals(term, entry.term());
+            assertEquals(m.value(term), entry.definition());
+        }
+        assertFalse(entries.hasNext());
+        LinkGraph links = compiled.links();
+        int coffee = links.id("coffee");
+        assertEquals(1, links.linkCount(coffee));
+        assertEquals("caf\u00e9", links.term(links.link(coffee, 0)));
+        assertEquals(2, links.referrerCount(coffee));
+    }
+
+    /**
+     * Edge: Tests an empty glossary.
+     */
+    @Test
+    public void edgeEmpty() {
+        compile(List.of(), new Map1L<>());
+        CompiledGlossary compiled = CompiledGlossary.load(BINARY);
+        assertEquals(0, compiled.size());
+        assertFalse(compiled.entries().hasNext());
+        assertEquals(0, compiled.links().size());
+    }
+
+    /**
+     * Challenging: Tests that a compiled glossary older than its terms file,
+     * or a file that is not one, is not current.
+     *
+     * @throws IOException
+     *             if a file cannot be written.
+     */
+    @Test
+    public void challengingStaleOrForeignFile() throws IOException {
+        Path source = Paths.get(SOURCE);
+        assertFalse(CompiledGlossary.isCurrent(BINARY, SOURCE));
+
+        Map<String, String> m = new Map1L<>();
+        m.add("tea", " a drink ");
+        compile(List.of("tea"), m);
+        assertTrue(CompiledGlossary.isCurrent(BINARY, SOURCE));
+
+        Files.setLastModifiedTime(source, FileTime.fromMillis(
+                Files.getLastModifiedTime(Paths.get(BINARY)).toMillis()
+                        + 1000));
+        assertFalse(CompiledGlossary.isCurrent(BINARY, SOURCE));
+
+        Files.writeString(Paths.get(BINARY), "not a compiled glossary");
+        Files.setLastModifiedTime(source, FileTime.fromMillis(0));
+        assertFalse(CompiledGlossary.isCurrent(BINARY, SOURCE));
+    }
+
+    /**
+     * Challenging: Tests that a compiled glossary is not current for a terms
+     * file other than the one it was compiled from, even an older one, nor
+     * for its own terms file once its size changes.
+     *
+     * @throws IOException
+     *             if a file cannot be written.
+     */
+    @Test
+    public void challengingSwitchedSource() throws IOException {
+        Map<String, String> m = new Map1L<>();
+        m.add("tea", " a drink ");
+        compile(List.of("tea"), m);
+        Path other = Paths.get(COMPILED_DIRECTORY, "other.txt");
+        Files.writeString(other, "coffee\na drink\n");
+        Files.setLastModifiedTime(other, FileTime.fromMillis(0));
+        assertTrue(CompiledGlossary.isCurrent(BINARY, SOURCE));
+        assertFalse(CompiledGlossary.isCurrent(BINARY, other.toString()));
+
+        Path source = Paths.get(SOURCE);
+        FileTime modified = Files.getLastModifiedTime(source);
+        Files.writeString(source, "tea\na hot drink\n");
+        Files.setLastModifiedTime(source, modified);
+        assertFalse(CompiledGlossary.isCurrent(BINARY, SOURCE));
+    }
+
+}
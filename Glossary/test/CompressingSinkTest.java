@@ -0,0 +1,153 @@
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.Test;
+
+/**
+ * Tests for the CompressingSink class.
+ *
+ * @author Yakob Getu
+ */
+public class CompressingSinkTest {
+
+    /**
+     * Returns {@code gzip} decompressed.
+     *
+     * @param gzip
+     *            a gzip file
+     * @return its contents
+     * @throws IOException
+     *             if {@code gzip} is not a valid gzip file.
+     */
+    private static byte[] gunzip(byte[] gzip) throws IOException {
+        try (InputStream in = new GZIPInputStream(
+                new ByteArrayInputStream(gzip))) {
+            return in.readAllBytes();
+        }
+    }
+
+    /**
+     * Routine: Tests that every page is written with a compressed copy that
+     * decompresses to it.
+     *
+     * @throws IOException
+     *             if a copy is not valid gzip.
+     */
+    @Test
+    public void routineWritesPageAndCopy() throws IOException {
+        MemorySink memory = new MemorySink();
+        CompressingSink sink = new CompressingSink(memory, 6, true, 1);
+        byte[] page = "<html>\n<p>a page a page a page</p>\n</html>\n"
+                .getBytes(StandardCharsets.UTF_8);
+        sink.write("a.html", ByteBuffer.wrap(page));
+        sink.close();
+        assertArrayEquals(page, memory.page("a.html"));
+        assertArrayEquals(page, gunzip(memory.page("a.html.gz")));
+        assertTrue(sink.report().startsWith(
+                "1 pages from " + page.length + " bytes to "));
+    }
+
+    /**
+     * Edge: Tests that only the compressed copy is written when the original
+     * is not kept, and that an empty page compresses.
+     *
+     * @throws IOException
+     *             if a copy is not valid gzip.
+     */
+    @Test
+    public void edgeCompressedOnly() throws IOException {
+        MemorySink memory = new MemorySink();
+        CompressingSink sink = new CompressingSink(memory, 1, false, 1);
+        sink.write("empty.html", ByteBuffer.allocate(0));
+        sink.close();
+        assertNull(memory.page("empty.html"));
+        assertEquals(0, gunzip(memory.page("empty.html.gz")).length);
+    }
+
+    /**
+     * Challenging: Tests many pages, some incompressible, written from
+     * several threads and compressed on several others.
+     *
+     * @throws IOException
+     *             if a copy is not valid gzip.
+     * @throws InterruptedException
+     *             if a writing thread is interrupted.
+     */
+    @Test
+    public void challengingConcurrentPages()
+            throws IOException, InterruptedException {
+        final int pages = 200;
+        final int size = 5000;
+        byte[][] contents = new byte[pages][];
+        Random random = new Random(1);
+        for (int i = 0; i < pages; i++) {
+            contents[i] = new byte[size];
+            random.nextBytes(contents[i]);
+        }
+        MemorySink memory = new MemorySink();
+        CompressingSink sink = new CompressingSink(memory, 9, false, 3);
+        Thread[] writers = new Thread[2];
+        for (int w = 0; w < writers.length; w++) {
+            final int first = w;
+            writers[w] = new Thread(() -> {
+                for (int i = first; i < pages; i += 2) {
+                    sink.write(i + ".html", ByteBuffer.wrap(contents[i]));
+                }
+            });
+            writers[w].start();
+        }
+        for (Thread writer : writers) {
+            writer.join();
+        }
+        sink.close();
+        assertEquals(pages, memory.names().size());
+        for (int i = 0; i < pages; i++) {
+            assertArrayEquals(contents[i], gunzip(memory.page(i + ".html.gz")));
+        }
+    }
+
+    /**
+     * Edge: Tests that a compressed build failing after its pages are
+     * written stops the compressing threads, serially and on several
+     * threads, instead of leaving them to keep the process alive.
+     *
+     * @throws InterruptedException
+     *             if waiting for a thread is interrupted.
+     */
+    @Test
+    public void edgeFailedBuildStopsThreads() throws InterruptedException {
+        final long wait = 5000;
+        for (String threads : new String[] { "1", "4" }) {
+            try {
+                GlossaryClass.build(GlossaryOptions.parse(new String[] {
+                        "data/terms.txt", "out", "-sink", "memory", "-gzip",
+                        "6", "-threads", threads, "-analyze",
+                        "missing/analysis.txt" }), line -> {
+                        });
+                fail("the build did not fail");
+            } catch (UncheckedIOException e) {
+                // The analysis cannot be written, after every page
+            }
+            for (Thread thread : Thread.getAllStackTraces().keySet()) {
+                if (thread.getName().equals(CompressingSink.THREAD_NAME)) {
+                    thread.join(wait);
+                    assertFalse(thread.isAlive());
+                }
+            }
+        }
+    }
+
+}
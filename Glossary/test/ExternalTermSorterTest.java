@@ -0,0 +1,271 @@
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import components.map.Map;
+import components.map.Map1L;
+import components.queue.Queue;
+import components.queue.Queue1L;
+
+/**
+ * Tests for the ExternalTermSorter and ExternalSortBuilder classes.
+ *
+ * @author Yakob Getu
+ */
+public class ExternalTermSorterTest {
+
+    /**
+     * Folder the sorter spills to and the external build writes to.
+     */
+    private static final String EXTERNAL_DIRECTORY = "test_external";
+
+    /**
+     * Folder the in-memory build writes to, for comparison.
+     */
+    private static final String MEMORY_DIRECTORY = "test_memory";
+
+    /**
+     * Creates the output folders.
+     *
+     * @throws IOException
+     *             if a folder cannot be created.
+     */
+    @Before
+    public void setUp() throws IOException {
+        Files.createDirectories(Paths.get(EXTERNAL_DIRECTORY));
+        Files.createDirectories(Paths.get(MEMORY_DIRECTORY));
+    }
+
+    /**
+     * Deletes the output folders and their files.
+     */
+    @After
+    public void tearDown() {
+        for (String name : new String[] { EXTERNAL_DIRECTORY,
+                MEMORY_DIRECTORY }) {
+            File folder = new File(name);
+            for (File file : folder.listFiles()) {
+                file.delete();
+            }
+            folder.delete();
+        }
+    }
+
+    /**
+     * Returns the terms of {@code sorter} as a list.
+     *
+     * @param sorter
+     *            a finished sorter
+     * @return its terms, in order
+     */
+    private static List<String> terms(ExternalTermSorter sorter) {
+        List<String> result = new ArrayList<>();
+        for (String term : sorter.terms()) {
+            result.add(term);
+        }
+        return result;
+    }
+
+    /**
+     * Routine: Tests that terms spilled over many runs merge in order, each
+     * with its own definition.
+     */
+    @Test
+    public void routineMergeRuns() {
+        Path folder = Paths.get(EXTERNAL_DIRECTORY);
+        String[] input = { "pear", "apple", "fig", "banana", "cherry", "date" };
+        try (DefinitionStore store = new DefinitionStore(
+                folder.resolve("definitions"));
+                ExternalTermSorter sorter = new ExternalTermSorter(
+                        new GlossaryClass.StringComparator(), 1, folder)) {
+            for (String term : input) {
+                sorter.add(term, store.append("a " + term));
+            }
+            store.finish();
+            sorter.finish();
+            assertEquals(input.length, sorter.runCount());
+            assertEquals(List.of("apple", "banana", "cherry", "date", "fig",
+                    "pear"), terms(sorter));
+            Iterator<GlossaryEntry> entries = sorter.entries(store);
+            for (String term : terms(sorter)) {
+                GlossaryEntry entry = entries.next();
+                assertEquals(term, entry.term());
+                assertEquals("a " + term, entry.definition());
+            }
+        }
+    }
+
+    /**
+     * Routine: Tests that more runs than one merge takes are merged in
+     * passes, stably, leaving only the sorted file.
+     */
+    @Test
+    public void routineMergeInPasses() {
+        final int n = 500;
+        Path folder = Paths.get(EXTERNAL_DIRECTORY);
+        try (ExternalTermSorter sorter = new ExternalTermSorter(
+                String.CASE_INSENSITIVE_ORDER, 1, folder)) {
+            List<String> expected = new ArrayList<>();
+            for (int i = 0; i < n; i++) {
+                String term = "t" + (i * 7 % (n / 4));
+                if (i % 2 == 1) {
+                    term = term.toUpperCase();
+                }
+                sorter.add(term, i);
+                expected.add(term);
+            }
+            expected.sort(String.CASE_INSENSITIVE_ORDER);
+            sorter.finish();
+            assertEquals(2, sorter.fanIn());
+            assertEquals(n, sorter.runCount());
+            assertEquals(expected, terms(sorter));
+            assertArrayEquals(new String[] { "sorted" },
+                    new File(EXTERNAL_DIRECTORY).list());
+        }
+    }
+
+    /**
+     * Routine: Tests that terms sorted on collation keys are merged in
+     * passes in the collation order, each with its own definition.
+     */
+    @Test
+    public void routineMergeOnCollationKeys() {
+        Path folder = Paths.get(EXTERNAL_DIRECTORY);
+        CollationComparator order = new CollationComparator(Locale.ENGLISH);
+        String[] input = { "Zebra", "\u00e9clair", "fig", "apple", "eagle",
+                "Apple", "\u00c9clair", "zebra", "a\u0001", "a" };
+        try (DefinitionStore store = new DefinitionStore(
+                folder.resolve("definitions"));
+                ExternalTermSorter sorter = new ExternalTermSorter(order,
+                        order, 1, folder)) {
+            for (String term : input) {
+                sorter.add(term, store.append("a " + term));
+            }
+            store.finish();
+            sorter.finish();
+            assertEquals(input.length, sorter.runCount());
+            List<String> expected = new ArrayList<>(List.of(input));
+            expected.sort(order);
+            assertEquals(expected, terms(sorter));
+            Iterator<GlossaryEntry> entries = sorter.entries(store);
+            for (String term : expected) {
+                GlossaryEntry entry = entries.next();
+                assertEquals(term, entry.term());
+                assertEquals("a " + term, entry.definition());
+            }
+        }
+    }
+
+    /**
+     * Edge: Tests sorting no terms at all.
+     */
+    @Test
+    public void edgeEmpty() {
+        try (ExternalTermSorter sorter = new ExternalTermSorter(
+                new GlossaryClass.StringComparator(), 1,
+                Paths.get(EXTERNAL_DIRECTORY))) {
+            sorter.finish();
+            assertTrue(terms(sorter).isEmpty());
+        }
+    }
+
+    /**
+     * Challenging: Tests that terms equal under the ordering keep their input
+     * order across runs.
+     */
+    @Test
+    public void challengingStableAcrossRuns() {
+        try (ExternalTermSorter sorter = new ExternalTermSorter(
+                String.CASE_INSENSITIVE_ORDER, 1,
+                Paths.get(EXTERNAL_DIRECTORY))) {
+            for (String term : new String[] { "b", "A", "B", "a", "c" }) {
+                sorter.add(term, 0);
+            }
+            sorter.finish();
+            assertEquals(List.of("A", "a", "b", "B", "c"), terms(sorter));
+        }
+    }
+
+    /**
+     * Challenging: Tests that an external build writes the same pages as an
+     * in-memory build and leaves no temporary files behind.
+     *
+     * @throws IOException
+     *             if a page cannot be read.
+     */
+    @Test
+    public void challengingMatchesInMemoryBuild() throws IOException {
+        Queue<String> terms = new Queue1L<>();
+        Map<String, String> m = new Map1L<>();
+        GlossaryReader reader = GlossaryReader.open("data/terms.txt",
+                GlossaryReader.STRICT);
+        while (reader.hasNext()) {
+            GlossaryEntry entry = reader.next();
+            terms.enqueue(entry.term());
+            m.add(entry.term(), entry.definition());
+        }
+        reader.close();
+        GlossaryClass.sortQueue(terms, new GlossaryClass.StringComparator());
+        GlossaryClass.generateIndexPage(terms, MEMORY_DIRECTORY);
+        GlossaryClass.generatePages(terms, m, MEMORY_DIRECTORY,
+                TermLinker.forGlossary(m),
+                new GlossaryOptions("", MEMORY_DIRECTORY));
+        GlossaryOptions options = GlossaryOptions.parse(new String[] {
+                "data/terms.txt", EXTERNAL_DIRECTORY, "-externalSort", "1" });
+        int pages = ExternalSortBuilder.build(options,
+                new GlossaryClass.StringComparator(), GlossaryReader.STRICT,
+                new FileSink(EXTERNAL_DIRECTORY));
+        String[] names = new File(MEMORY_DIRECTORY).list();
+        assertEquals(pages + 1, names.length);
+        assertEquals(names.length, new File(EXTERNAL_DIRECTORY).list().length);
+        for (String name : names) {
+            assertArrayEquals(
+                    Files.readAllBytes(Paths.get(MEMORY_DIRECTORY, name)),
+                    Files.readAllBytes(Paths.get(EXTERNAL_DIRECTORY, name)));
+        }
+    }
+
+    /**
+     * Edge: Tests that a build failing after the terms are spilled still
+     * deletes its temporary files.
+     *
+     * @throws IOException
+     *             if the terms file cannot be written.
+     */
+    @Test
+    public void edgeFailedBuildDeletesTemporaryFiles() throws IOException {
+        String input = MEMORY_DIRECTORY + "/terms.txt";
+        Files.write(Paths.get(input),
+                "fig\na fruit\n\n\n\npear\nanother fruit\n"
+                        .getBytes(StandardCharsets.UTF_8));
+        GlossaryOptions options = GlossaryOptions.parse(new String[] {
+                input, EXTERNAL_DIRECTORY, "-externalSort", "1" });
+        try {
+            ExternalSortBuilder.build(options,
+                    new GlossaryClass.StringComparator(), e -> {
+                        throw new IllegalStateException("malformed");
+                    }, new FileSink(EXTERNAL_DIRECTORY));
+            fail("the build did not fail");
+        } catch (IllegalStateException e) {
+            assertEquals("malformed", e.getMessage());
+        }
+        assertEquals(0, new File(EXTERNAL_DIRECTORY).list().length);
+    }
+
+}
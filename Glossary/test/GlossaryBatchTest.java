@@ -0,0 +1,128 @@
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for the GlossaryBatch class.
+ *
+ * @author Yakob Getu
+ */
+public class GlossaryBatchTest {
+
+    /**
+     * Folder the first glossary is written to.
+     */
+    private static final String FIRST_DIRECTORY = "test_batch_first";
+
+    /**
+     * Folder the second glossary is written to.
+     */
+    private static final String SECOND_DIRECTORY = "test_batch_second";
+
+    /**
+     * Creates the output folders.
+     *
+     * @throws IOException
+     *             if a folder cannot be created.
+     */
+    @Before
+    public void setUp() throws IOException {
+        Files.createDirectories(Paths.get(FIRST_DIRECTORY));
+        Files.createDirectories(Paths.get(SECOND_DIRECTORY));
+    }
+
+    /**
+     * Deletes the output folders and their files.
+     */
+    @After
+    public void tearDown() {
+        for (String name : new String[] { FIRST_DIRECTORY,
+                SECOND_DIRECTORY }) {
+            File folder = new File(name);
+            for (File file : folder.listFiles()) {
+                file.delete();
+            }
+            folder.delete();
+        }
+    }
+
+    /**
+     * Routine: Tests that every glossary of the manifest is built, and the
+     * outcomes are reported in manifest order.
+     *
+     * @throws IOException
+     *             if a page cannot be read.
+     */
+    @Test
+    public void routineBuildsEveryGlossary() throws IOException {
+        List<GlossaryBatch.Result> results = new ArrayList<>();
+        int failures = GlossaryBatch.buildAll(
+                List.of("data/terms.txt " + FIRST_DIRECTORY,
+                        "data/terms.txt " + SECOND_DIRECTORY
+                                + " -threads 2"),
+                2, results::add);
+        assertEquals(0, failures);
+        assertEquals(2, results.size());
+        assertEquals("data/terms.txt " + FIRST_DIRECTORY,
+                results.get(0).line());
+        for (GlossaryBatch.Result result : results) {
+            assertNull(result.failure());
+            assertEquals(8, result.stats().pages());
+            assertTrue(result.report().contains(": 8 pages in "));
+        }
+        for (String page : new String[] { "index.html", "term.html" }) {
+            assertArrayEquals(
+                    Files.readAllBytes(Paths.get(FIRST_DIRECTORY, page)),
+                    Files.readAllBytes(Paths.get(SECOND_DIRECTORY, page)));
+        }
+    }
+
+    /**
+     * Edge: Tests that blank and comment lines are skipped.
+     */
+    @Test
+    public void edgeSkipsBlankAndCommentLines() {
+        List<GlossaryBatch.Result> results = new ArrayList<>();
+        int failures = GlossaryBatch.buildAll(
+                List.of("", "# departmental glossaries", "   ",
+                        "  data/terms.txt " + FIRST_DIRECTORY + "  "),
+                1, results::add);
+        assertEquals(0, failures);
+        assertEquals(1, results.size());
+        assertEquals("data/terms.txt " + FIRST_DIRECTORY,
+                results.get(0).line());
+    }
+
+    /**
+     * Challenging: Tests that glossaries that cannot be built are reported
+     * without stopping the others.
+     */
+    @Test
+    public void challengingFailuresDoNotStopTheBatch() {
+        List<GlossaryBatch.Result> results = new ArrayList<>();
+        int failures = GlossaryBatch.buildAll(List.of(
+                "data/terms.txt " + FIRST_DIRECTORY + " -bogus 1",
+                "data/terms.txt " + FIRST_DIRECTORY + " -serve 8080",
+                "data/terms.txt " + SECOND_DIRECTORY), 2, results::add);
+        assertEquals(2, failures);
+        assertTrue(results.get(0).failure().startsWith("unknown option"));
+        assertTrue(results.get(0).report().contains(": failed, "));
+        assertEquals("-serve cannot be used in a batch",
+                results.get(1).failure());
+        assertNull(results.get(2).failure());
+        assertTrue(new File(SECOND_DIRECTORY, "index.html").isFile());
+    }
+
+}
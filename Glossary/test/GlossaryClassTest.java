@@ -144,6 +144,47 @@ public class GlossaryClassTest {
         assertEquals(0, q.length());
     }
 
+    /**
+     * Challenging: Tests that sorting keeps equal values in their original
+     * relative order.
+     */
+    @Test
+    public void testSortQueueStableForEqualValues() {
+        Queue<String> q = new Queue1L<>();
+        q.enqueue("banana");
+        q.enqueue("Apple");
+        q.enqueue("apple");
+        q.enqueue("Banana");
+        GlossaryClass.sortQueue(q, String.CASE_INSENSITIVE_ORDER);
+        assertEquals("Apple", q.dequeue());
+        assertEquals("apple", q.dequeue());
+        assertEquals("banana", q.dequeue());
+        assertEquals("Banana", q.dequeue());
+    }
+
+    /**
+     * Routine: Tests that sorting gives the same order as the original
+     * selection sort.
+     */
+    @Test
+    public void routineSortQueueMatchesSelectionSort() {
+        Queue<String> q = new Queue1L<>();
+        Queue<String> expected = new Queue1L<>();
+        String[] words = { "term", "word", "book", "glossary", "meaning",
+                "book", "definition", "language" };
+        for (String word : words) {
+            q.enqueue(word);
+            expected.enqueue(word);
+        }
+        Comparator<String> order = new GlossaryClass.StringComparator();
+        GlossaryClass.sortQueue(q, order);
+        GlossaryClass.selectionSortQueue(expected, order);
+        assertEquals(expected.length(), q.length());
+        while (expected.length() > 0) {
+            assertEquals(expected.dequeue(), q.dequeue());
+        }
+    }
+
     /**
      * Test cases for generateAndAddElements method.
      */
@@ -269,6 +310,19 @@ public class GlossaryClassTest {
         assertEquals("Three", result);
     }
 
+    /**
+     * Edge: Tests a separator string that runs to the end of the text.
+     */
+    @Test
+    public void edgeFindNextWordOrSeparatorTrailingSeparators() {
+        Set<Character> separators = new Set1L<>();
+        separators.add('.');
+        separators.add(' ');
+        String result = GlossaryClass.findNextWordOrSeparator("end. ", 3,
+                separators);
+        assertEquals(". ", result);
+    }
+
     /**
      * Test cases for generatePage method.
      */
@@ -317,6 +371,27 @@ public class GlossaryClassTest {
         assertTrue(new File(TEST_DIRECTORY + "/Term.html").exists());
     }
 
+    /**
+     * Challenging: Tests that a multi-word term is linked as one phrase.
+     *
+     * @throws IOException
+     *             if the page cannot be read.
+     */
+    @Test
+    public void testGeneratePageLinksMultiWordTerm() throws IOException {
+        Map<String, String> glossary = new Map1L<>();
+        glossary.add("glossary", " a list of specialized terms, with book ");
+        glossary.add("specialized terms", " words of a field ");
+        glossary.add("terms", " more than one term ");
+        GlossaryClass.generatePage("glossary", glossary, TEST_DIRECTORY);
+
+        String page = new String(Files
+                .readAllBytes(Paths.get(TEST_DIRECTORY, "glossary.html")));
+        assertTrue(page.contains("<a href=\"specialized%20terms.html\">"
+                + "specialized terms</a>\n, \n"));
+        assertTrue(!page.contains("<a href=\"terms.html\">"));
+    }
+
     /**
      * Test cases for generateIndexPage method.
      */
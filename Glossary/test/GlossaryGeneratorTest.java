@@ -0,0 +1,174 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * Tests for the GlossaryGenerator class.
+ *
+ * @author Yakob Getu
+ */
+public class GlossaryGeneratorTest {
+
+    /**
+     * Returns the terms file {@code generator} writes.
+     *
+     * @param generator
+     *            the generator
+     * @return the terms file contents
+     * @throws IOException
+     *             never, as the file is written to a string
+     */
+    private static String generate(GlossaryGenerator generator)
+            throws IOException {
+        StringWriter out = new StringWriter();
+        generator.write(out);
+        return out.toString();
+    }
+
+    /**
+     * Reads every entry of {@code text}, failing on a malformed block.
+     *
+     * @param text
+     *            the terms file contents
+     * @return the entries read
+     */
+    private static List<GlossaryEntry> readAll(String text) {
+        List<GlossaryEntry> entries = new ArrayList<>();
+        GlossaryReader reader = new GlossaryReader(new StringReader(text),
+                GlossaryReader.STRICT);
+        reader.forEachRemaining(entries::add);
+        reader.close();
+        return entries;
+    }
+
+    /**
+     * Routine: Tests that a generated file reads back strictly, with as many
+     * distinct terms as asked for.
+     *
+     * @throws IOException
+     *             never
+     */
+    @Test
+    public void routineReadsBackStrictly() throws IOException {
+        List<GlossaryEntry> entries = readAll(generate(
+                new GlossaryGenerator(2000).lines(3).unicode(20)));
+        assertEquals(2000, entries.size());
+        for (GlossaryEntry entry : entries) {
+            assertFalse(entry.term().trim().isEmpty());
+            assertTrue(entry.definition().trim().endsWith("."));
+        }
+    }
+
+    /**
+     * Routine: Tests that the same seed writes the same file and another
+     * seed a different one.
+     *
+     * @throws IOException
+     *             never
+     */
+    @Test
+    public void routineSeedIsReproducible() throws IOException {
+        String first = generate(new GlossaryGenerator(300).seed(7));
+        assertEquals(first, generate(new GlossaryGenerator(300).seed(7)));
+        assertFalse(first.equals(generate(new GlossaryGenerator(300).seed(8))));
+    }
+
+    /**
+     * Edge: Tests fixed-length definitions without references, each on one
+     * line.
+     *
+     * @throws IOException
+     *             never
+     */
+    @Test
+    public void edgeFixedLengthsWithoutLinks() throws IOException {
+        String text = generate(new GlossaryGenerator(50)
+                .words(5, GlossaryGenerator.FIXED).links(0));
+        List<GlossaryEntry> entries = readAll(text);
+        List<String> terms = new ArrayList<>();
+        for (GlossaryEntry entry : entries) {
+            terms.add(entry.term());
+        }
+        for (GlossaryEntry entry : entries) {
+            String[] words = entry.definition().trim().split("[ ,.]+");
+            assertEquals(5, words.length);
+            for (String word : words) {
+                assertFalse(terms.contains(word));
+            }
+        }
+        assertEquals(50 * 3, text.split("\n", -1).length - 1);
+    }
+
+    /**
+     * Challenging: Tests that definitions are split over several lines and
+     * every term has Unicode content when asked for.
+     *
+     * @throws IOException
+     *             never
+     */
+    @Test
+    public void challengingMultiLineUnicode() throws IOException {
+        String text = generate(new GlossaryGenerator(200)
+                .words(20, GlossaryGenerator.UNIFORM).lines(4).unicode(100));
+        assertTrue(text.split("\n", -1).length - 1 > 200 * 3);
+        for (GlossaryEntry entry : readAll(text)) {
+            boolean unicode = false;
+            for (char c : entry.term().toCharArray()) {
+                unicode |= c > '\u007f';
+            }
+            assertTrue(entry.term(), unicode);
+        }
+    }
+
+    /**
+     * Challenging: Tests that the command-line options configure the same
+     * generator as the methods.
+     *
+     * @throws IOException
+     *             never
+     */
+    @Test
+    public void challengingParseOptions() throws IOException {
+        assertEquals(
+                generate(new GlossaryGenerator(40).seed(3)
+                        .words(8, GlossaryGenerator.UNIFORM).lines(2)),
+                generate(GlossaryGenerator.parse(new String[] { "out.txt",
+                        "40", "-seed", "3", "-lengths", "uniform", "-words",
+                        "8", "-lines", "2" })));
+    }
+
+    /**
+     * Challenging: Tests that a percentage over 100 is rejected.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testParseBadPercentage() {
+        GlossaryGenerator.parse(
+                new String[] { "out.txt", "10", "-links", "101" });
+    }
+
+    /**
+     * Challenging: Tests that an unknown length distribution is rejected.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testParseUnknownDistribution() {
+        GlossaryGenerator.parse(
+                new String[] { "out.txt", "10", "-lengths", "normal" });
+    }
+
+    /**
+     * Challenging: Tests that an option without a value is rejected.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testParseMissingValue() {
+        GlossaryGenerator.parse(new String[] { "out.txt", "10", "-lines" });
+    }
+
+}
@@ -0,0 +1,229 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * Tests for the GlossaryOptions class.
+ *
+ * @author Yakob Getu
+ */
+public class GlossaryOptionsTest {
+
+    /**
+     * Routine: Tests parsing the input, output and thread options.
+     */
+    @Test
+    public void routineParseThreads() {
+        GlossaryOptions options = GlossaryOptions.parse(new String[] {
+                "terms.txt", "out", "-threads", "4", "-maxOpenFiles", "3" });
+        assertEquals("terms.txt", options.inputFile());
+        assertEquals("out", options.outputFolder());
+        assertEquals(4, options.threads());
+        assertEquals(3, options.maxOpenFiles());
+    }
+
+    /**
+     * Edge: Tests the defaults when only the input and output are given.
+     */
+    @Test
+    public void edgeParseDefaults() {
+        GlossaryOptions options = GlossaryOptions
+                .parse(new String[] { "terms.txt", "out" });
+        assertEquals(1, options.threads());
+        assertEquals(2, options.maxOpenFiles());
+    }
+
+    /**
+     * Challenging: Tests that an unknown option is rejected.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testParseUnknownOption() {
+        GlossaryOptions.parse(new String[] { "terms.txt", "out", "-x", "1" });
+    }
+
+    /**
+     * Challenging: Tests that a non-numeric thread count is rejected.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testParseBadThreadCount() {
+        GlossaryOptions
+                .parse(new String[] { "terms.txt", "out", "-threads", "many" });
+    }
+
+    /**
+     * Routine: Tests parsing the external sort budget.
+     */
+    @Test
+    public void routineParseExternalSort() {
+        GlossaryOptions options = GlossaryOptions.parse(
+                new String[] { "terms.txt", "out", "-externalSort", "64" });
+        assertEquals(64L << 20, options.externalSortBudget());
+        assertEquals(0, GlossaryOptions
+                .parse(new String[] { "terms.txt", "out" })
+                .externalSortBudget());
+    }
+
+    /**
+     * Challenging: Tests that an external sort cannot also be incremental.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testParseExternalSortIncremental() {
+        GlossaryOptions.parse(new String[] { "terms.txt", "out",
+                "-externalSort", "64", "-incremental" });
+    }
+
+    /**
+     * Challenging: Tests that an external sort cannot also load a compiled
+     * glossary.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testParseExternalSortCompiled() {
+        GlossaryOptions.parse(new String[] { "terms.txt", "out",
+                "-externalSort", "64", "-compiled", "terms.bin" });
+    }
+
+    /**
+     * Challenging: Tests that writing only compressed pages needs a
+     * compression level, which is at most 9.
+     */
+    @Test
+    public void challengingParseGzip() {
+        assertEquals(9, GlossaryOptions.parse(
+                new String[] { "terms.txt", "out", "-gzip", "9", "-gzipOnly" })
+                .gzipLevel());
+        for (String[] args : new String[][] {
+                { "terms.txt", "out", "-gzipOnly" },
+                { "terms.txt", "out", "-gzip", "10" } }) {
+            try {
+                GlossaryOptions.parse(args);
+                fail("accepted " + String.join(" ", args));
+            } catch (IllegalArgumentException e) {
+                // expected
+            }
+        }
+    }
+
+    /**
+     * Challenging: Tests that serving takes a port and a cache size, and
+     * cannot be combined with an incremental or external sort build.
+     */
+    @Test
+    public void challengingParseServe() {
+        GlossaryOptions options = GlossaryOptions.parse(new String[] {
+                "terms.txt", "out", "-serve", "8080", "-cacheMegabytes", "2" });
+        assertEquals(8080, options.servePort());
+        assertEquals(2L << 20, options.cacheBytes());
+        for (String[] args : new String[][] {
+                { "terms.txt", "out", "-serve", "65536" },
+                { "terms.txt", "out", "-serve", "80", "-incremental" },
+                { "terms.txt", "out", "-serve", "80", "-externalSort",
+                        "1" } }) {
+            try {
+                GlossaryOptions.parse(args);
+                fail("accepted " + String.join(" ", args));
+            } catch (IllegalArgumentException e) {
+                // expected
+            }
+        }
+    }
+
+    /**
+     * Challenging: Tests that a collation locale is parsed, and refused when
+     * malformed or combined with the search index or a compiled glossary.
+     */
+    @Test
+    public void challengingParseCollate() {
+        assertEquals("fr", GlossaryOptions.parse(
+                new String[] { "terms.txt", "out", "-collate", "fr-CA" })
+                .collation().getLanguage());
+        for (String[] args : new String[][] {
+                { "terms.txt", "out", "-collate", "!" },
+                { "terms.txt", "out", "-collate", "en", "-search", "terms" },
+                { "terms.txt", "out", "-collate", "en", "-compiled", "c" } }) {
+            try {
+                GlossaryOptions.parse(args);
+                fail("accepted " + String.join(" ", args));
+            } catch (IllegalArgumentException e) {
+                // expected
+            }
+        }
+    }
+
+    /**
+     * Challenging: Tests that formats are parsed without repeats, and refused
+     * when unknown or combined with a build that writes HTML only.
+     */
+    @Test
+    public void challengingParseFormats() {
+        assertEquals(List.of("json", "html"),
+                GlossaryOptions.parse(new String[] { "terms.txt", "out",
+                        "-formats", "json,html,json" }).formats());
+        assertEquals(List.of("html"), GlossaryOptions
+                .parse(new String[] { "terms.txt", "out" }).formats());
+        for (String[] args : new String[][] {
+                { "terms.txt", "out", "-formats", "html,pdf" },
+                { "terms.txt", "out", "-formats", "json", "-incremental" },
+                { "terms.txt", "out", "-formats", "json", "-serve", "80" } }) {
+            try {
+                GlossaryOptions.parse(args);
+                fail("accepted " + String.join(" ", args));
+            } catch (IllegalArgumentException e) {
+                // expected
+            }
+        }
+    }
+
+    /**
+     * Challenging: Tests that watching is parsed, and refused with a build
+     * it cannot keep up to date.
+     */
+    @Test
+    public void challengingParseWatch() {
+        assertTrue(GlossaryOptions
+                .parse(new String[] { "terms.txt", "out", "-watch" }).watch());
+        assertFalse(GlossaryOptions.parse(new String[] { "terms.txt", "out" })
+                .watch());
+        for (String[] args : new String[][] {
+                { "terms.txt", "out", "-watch", "-incremental" },
+                { "terms.txt", "out", "-watch", "-serve", "80" },
+                { "terms.txt", "out", "-watch", "-sink", "zip" },
+                { "terms.txt", "out", "-watch", "-formats", "json" } }) {
+            try {
+                GlossaryOptions.parse(args);
+                fail("accepted " + String.join(" ", args));
+            } catch (IllegalArgumentException e) {
+                // expected
+            }
+        }
+    }
+
+    /**
+     * Challenging: Tests that -analyze takes a report file and is rejected
+     * when nothing is built.
+     */
+    @Test
+    public void challengingParseAnalyze() {
+        assertEquals("links.json", GlossaryOptions.parse(new String[] {
+                "terms.txt", "out", "-analyze", "links.json" }).analysis());
+        assertEquals(null, GlossaryOptions
+                .parse(new String[] { "terms.txt", "out" }).analysis());
+        for (String[] args : new String[][] {
+                { "terms.txt", "out", "-analyze" },
+                { "terms.txt", "out", "-analyze", "a.json", "-watch" },
+                { "terms.txt", "out", "-analyze", "a.json", "-serve",
+                        "80" } }) {
+            try {
+                GlossaryOptions.parse(args);
+                fail("accepted " + String.join(" ", args));
+            } catch (IllegalArgumentException e) {
+                // expected
+            }
+        }
+    }
+
+}
@@ -0,0 +1,113 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * Tests for the GlossaryReader class.
+ *
+ * @author Yakob Getu
+ */
+public class GlossaryReaderTest {
+
+    /**
+     * Reads every entry of {@code text}, collecting malformed blocks into
+     * {@code problems}.
+     *
+     * @param text
+     *            the terms file contents
+     * @param problems
+     *            receives the malformed blocks
+     * @return the entries read
+     */
+    private static List<GlossaryEntry> readAll(String text,
+            List<GlossaryFormatException> problems) {
+        List<GlossaryEntry> entries = new ArrayList<>();
+        GlossaryReader reader = new GlossaryReader(new StringReader(text),
+                problems::add);
+        reader.forEachRemaining(entries::add);
+        reader.close();
+        return entries;
+    }
+
+    /**
+     * Routine: Tests reading single and multi-line definitions.
+     */
+    @Test
+    public void routineReadEntries() {
+        List<GlossaryFormatException> problems = new ArrayList<>();
+        List<GlossaryEntry> entries = readAll("meaning\nsomething to convey\n\n"
+                + "glossary\na list of terms,\nnear the end of a book\n\n",
+                problems);
+        assertEquals(2, entries.size());
+        assertEquals("meaning", entries.get(0).term());
+        assertEquals(" something to convey ", entries.get(0).definition());
+        assertEquals("glossary", entries.get(1).term());
+        assertEquals(" a list of terms, near the end of a book ",
+                entries.get(1).definition());
+        assertTrue(problems.isEmpty());
+    }
+
+    /**
+     * Edge: Tests a last block that ends at the end of the file instead of
+     * an empty line.
+     */
+    @Test
+    public void edgeReadLastBlockWithoutEmptyLine() {
+        List<GlossaryFormatException> problems = new ArrayList<>();
+        List<GlossaryEntry> entries = readAll("book\na printed work\n",
+                problems);
+        assertEquals(1, entries.size());
+        assertEquals(" a printed work ", entries.get(0).definition());
+        assertTrue(problems.isEmpty());
+    }
+
+    /**
+     * Edge: Tests reading an empty file.
+     */
+    @Test
+    public void edgeReadEmpty() {
+        GlossaryReader reader = new GlossaryReader(new StringReader(""),
+                GlossaryReader.STRICT);
+        assertFalse(reader.hasNext());
+        reader.close();
+    }
+
+    /**
+     * Challenging: Tests that malformed blocks are reported and skipped while
+     * the blocks around them are still read.
+     */
+    @Test
+    public void testReadReportsMalformedBlocks() {
+        List<GlossaryFormatException> problems = new ArrayList<>();
+        List<GlossaryEntry> entries = readAll("term\nfirst\n\n\n"
+                + "word\nsecond\n\nterm\nagain\n\nlonely\n\nbook\nlast\n",
+                problems);
+        assertEquals(3, entries.size());
+        assertEquals("term", entries.get(0).term());
+        assertEquals("word", entries.get(1).term());
+        assertEquals("book", entries.get(2).term());
+        assertEquals(3, problems.size());
+        assertEquals(4, problems.get(0).line());
+        assertEquals(8, problems.get(1).line());
+        assertEquals(11, problems.get(2).line());
+    }
+
+    /**
+     * Challenging: Tests that the strict handler rejects a duplicate term.
+     */
+    @Test(expected = GlossaryFormatException.class)
+    public void testReadStrictRejectsDuplicate() {
+        GlossaryReader reader = new GlossaryReader(
+                new StringReader("term\nfirst\n\nterm\nagain\n\n"),
+                GlossaryReader.STRICT);
+        reader.forEachRemaining(entry -> {
+        });
+    }
+
+}
@@ -0,0 +1,123 @@
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.List;
+
+import org.junit.Test;
+
+import components.map.Map;
+import components.map.Map1L;
+
+/**
+ * Tests for the GlossaryServer class.
+ *
+ * @author Yakob Getu
+ */
+public class GlossaryServerTest {
+
+    /**
+     * The terms the server has pages for, in index order.
+     */
+    private static final List<String> TERMS = List.of("cache", "page cache",
+            "request", "server");
+
+    /**
+     * Returns a small glossary with a multi-word term, whose page is
+     * requested with its space percent-encoded, and a term ("page") that
+     * only starts one.
+     *
+     * @return the glossary
+     */
+    private static Map<String, String> glossary() {
+        Map<String, String> m = new Map1L<>();
+        m.add("cache", " memory holding results to use again ");
+        m.add("page cache", " a cache of the pages a server has rendered ");
+        m.add("request", " what a browser sends a server for one page ");
+        m.add("server", " answers each request from its page cache ");
+        return m;
+    }
+
+    /**
+     * Routine: Tests that a term page is rendered as the build renders it,
+     * and then served from the cache.
+     */
+    @Test
+    public void routineRendersTermPageOnce() {
+        Map<String, String> m = glossary();
+        TermLinker linker = TermLinker.forGlossary(m);
+        GlossaryOptions options = new GlossaryOptions("terms.txt", "out");
+        GlossaryServer server = new GlossaryServer(TERMS, m, linker, null,
+                options);
+        MemorySink expected = new MemorySink();
+        GlossaryClass.generatePage("page cache", m.value("page cache"),
+                linker, options.templates(), null, expected);
+        byte[] page = server.page("/page cache.html");
+        assertArrayEquals(expected.page("page cache.html"), page);
+        assertSame(page, server.page("/page cache.html"));
+        assertTrue(server.cache().report().contains("1 hits, 1 misses"));
+    }
+
+    /**
+     * Edge: Tests that the index is served at the root and that unknown
+     * pages, even the first word of a term, are not found.
+     */
+    @Test
+    public void edgeIndexAndMissingPages() {
+        Map<String, String> m = glossary();
+        GlossaryOptions options = new GlossaryOptions("terms.txt", "out");
+        GlossaryServer server = new GlossaryServer(TERMS, m,
+                TermLinker.forGlossary(m), null, options);
+        MemorySink expected = new MemorySink();
+        GlossaryClass.generateIndex(TERMS, options, expected);
+        assertArrayEquals(expected.page("index.html"), server.page("/"));
+        assertArrayEquals(expected.page("index.html"),
+                server.page("/index.html"));
+        assertNull(server.page("/page.html"));
+        assertNull(server.page("/cache.txt"));
+    }
+
+    /**
+     * Challenging: Tests pages fetched over HTTP from a running server, the
+     * page of a multi-word term by its percent-encoded link.
+     *
+     * @throws IOException
+     *             if the server cannot be reached.
+     */
+    @Test
+    public void challengingServesOverHttp() throws IOException {
+        Map<String, String> m = glossary();
+        GlossaryServer server = new GlossaryServer(TERMS, m,
+                TermLinker.forGlossary(m), null,
+                new GlossaryOptions("terms.txt", "out"));
+        server.start(0);
+        try {
+            String root = "http://localhost:" + server.port() + "/";
+            HttpURLConnection connection = (HttpURLConnection) new URL(
+                    root + TermLinker.href("page cache")).openConnection();
+            assertEquals(200, connection.getResponseCode());
+            assertEquals("text/html; charset=utf-8",
+                    connection.getContentType());
+            try (InputStream in = connection.getInputStream()) {
+                assertArrayEquals(server.page("/page cache.html"),
+                        in.readAllBytes());
+            }
+            connection = (HttpURLConnection) new URL(root + "page.html")
+                    .openConnection();
+            assertEquals(404, connection.getResponseCode());
+            connection = (HttpURLConnection) new URL(root + "server.html")
+                    .openConnection();
+            connection.setRequestMethod("DELETE");
+            assertEquals(405, connection.getResponseCode());
+        } finally {
+            server.stop();
+        }
+    }
+
+}
@@ -0,0 +1,286 @@
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for the GlossaryWatcher class.
+ *
+ * @author Yakob Getu
+ */
+public class GlossaryWatcherTest {
+
+    /**
+     * Folder the watcher writes to.
+     */
+    private static final String WATCH_DIRECTORY = "test_watch";
+
+    /**
+     * Folder a full build writes to, for comparison.
+     */
+    private static final String FULL_DIRECTORY = "test_watch_full";
+
+    /**
+     * Folder holding the watched terms file.
+     */
+    private static final String TERMS_DIRECTORY = "test_watch_terms";
+
+    /**
+     * The watched terms file.
+     */
+    private static final String TERMS_FILE = TERMS_DIRECTORY + "/terms.txt";
+
+    /**
+     * The blocks of a small glossary.
+     */
+    private static final String[] GLOSSARY = {
+            "term\na word whose definition is in a glossary\n",
+            "word\na string of characters\n",
+            "glossary\na list of terms near the end of a book\n",
+            "definition\nwords that give meaning to a term\n" };
+
+    /**
+     * Creates the folders.
+     *
+     * @throws IOException
+     *             if a folder cannot be created.
+     */
+    @Before
+    public void setUp() throws IOException {
+        for (String name : new String[] { WATCH_DIRECTORY, FULL_DIRECTORY,
+                TERMS_DIRECTORY }) {
+            Files.createDirectories(Paths.get(name));
+        }
+    }
+
+    /**
+     * Deletes the folders and their files.
+     */
+    @After
+    public void tearDown() {
+        for (String name : new String[] { WATCH_DIRECTORY, FULL_DIRECTORY,
+                TERMS_DIRECTORY }) {
+            File folder = new File(name);
+            for (File file : folder.listFiles()) {
+                file.delete();
+            }
+            folder.delete();
+        }
+    }
+
+    /**
+     * Writes {@code blocks} to the terms file.
+     *
+     * @param blocks
+     *            the blocks, each a term line and definition lines
+     * @throws IOException
+     *             if the file cannot be written.
+     */
+    private static void writeTerms(String... blocks) throws IOException {
+        Files.write(Paths.get(TERMS_FILE),
+                String.join("\n", blocks).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Returns a watcher of the terms file with {@code flags}.
+     *
+     * @param flags
+     *            build flags after the input file and output folder
+     * @return the watcher
+     */
+    private static GlossaryWatcher watcher(String... flags) {
+        List<String> args = new ArrayList<>(
+                List.of(TERMS_FILE, WATCH_DIRECTORY, "-watch"));
+        args.addAll(Arrays.asList(flags));
+        return new GlossaryWatcher(
+                GlossaryOptions.parse(args.toArray(new String[0])),
+                new GlossaryClass.StringComparator(), line -> {
+                });
+    }
+
+    /**
+     * Asserts that the watch folder holds exactly the files a full build of
+     * the terms file with {@code flags} writes.
+     *
+     * @param flags
+     *            build flags after the input file and output folder
+     * @throws IOException
+     *             if a page cannot be read.
+     */
+    private static void assertMatchesFullBuild(String... flags)
+            throws IOException {
+        for (File file : new File(FULL_DIRECTORY).listFiles()) {
+            file.delete();
+        }
+        List<String> args = new ArrayList<>(
+                List.of(TERMS_FILE, FULL_DIRECTORY));
+        args.addAll(Arrays.asList(flags));
+        GlossaryClass.build(GlossaryOptions.parse(args.toArray(new String[0])),
+                line -> {
+                });
+        String[] pages = new File(FULL_DIRECTORY).list();
+        Arrays.sort(pages);
+        String[] watched = new File(WATCH_DIRECTORY).list();
+        Arrays.sort(watched);
+        assertArrayEquals(pages, watched);
+        for (String page : pages) {
+            assertArrayEquals(
+                    Files.readAllBytes(Paths.get(FULL_DIRECTORY, page)),
+                    Files.readAllBytes(Paths.get(WATCH_DIRECTORY, page)));
+        }
+    }
+
+    /**
+     * Routine: Tests that the first update writes every page and the index,
+     * and an unchanged file writes nothing.
+     *
+     * @throws IOException
+     *             if a file cannot be written or read.
+     */
+    @Test
+    public void routineFirstUpdateWritesEverything() throws IOException {
+        writeTerms(GLOSSARY);
+        GlossaryWatcher watcher = watcher();
+        IncrementalBuilder.Result result = watcher.update();
+        assertEquals(GLOSSARY.length, result.pagesWritten());
+        assertTrue(result.indexWritten());
+        assertMatchesFullBuild();
+
+        result = watcher.update();
+        assertEquals(0, result.pagesWritten());
+        assertFalse(result.indexWritten());
+    }
+
+    /**
+     * Routine: Tests that a changed definition rewrites only its own page.
+     *
+     * @throws IOException
+     *             if a file cannot be written or read.
+     */
+    @Test
+    public void routineChangedDefinitionRewritesOnePage() throws IOException {
+        writeTerms(GLOSSARY);
+        GlossaryWatcher watcher = watcher();
+        watcher.update();
+        writeTerms(GLOSSARY[0], "word\na string of characters\nin a language\n",
+                GLOSSARY[2], GLOSSARY[3]);
+        IncrementalBuilder.Result result = watcher.update();
+        assertEquals(1, result.pagesWritten());
+        assertEquals(0, result.pagesDeleted());
+        assertFalse(result.indexWritten());
+        assertMatchesFullBuild();
+    }
+
+    /**
+     * Challenging: Tests that adding a term rewrites the pages that now link
+     * to it, removing one deletes its page and rewrites those that linked to
+     * it, and the "Referenced by" sections follow.
+     *
+     * @throws IOException
+     *             if a file cannot be written or read.
+     */
+    @Test
+    public void challengingAddedAndRemovedTerms() throws IOException {
+        writeTerms(GLOSSARY);
+        GlossaryWatcher watcher = watcher("-referencedBy");
+        watcher.update();
+
+        // "glossary" now links to book, which lists it as a referrer
+        writeTerms(GLOSSARY[0], GLOSSARY[1], GLOSSARY[2], GLOSSARY[3],
+                "book\na printed work\n");
+        IncrementalBuilder.Result result = watcher.update();
+        assertEquals(2, result.pagesWritten());
+        assertTrue(result.indexWritten());
+        assertMatchesFullBuild("-referencedBy");
+
+        // "term" linked to "glossary", which was the only referrer of "book"
+        writeTerms(GLOSSARY[0], GLOSSARY[1], GLOSSARY[3],
+                "book\na printed work\n");
+        result = watcher.update();
+        assertEquals(1, result.pagesDeleted());
+        assertTrue(result.indexWritten());
+        assertMatchesFullBuild("-referencedBy");
+    }
+
+    /**
+     * Challenging: Tests that a term repeated outside the changed blocks
+     * keeps its first definition, and gets its second once the first is
+     * removed.
+     *
+     * @throws IOException
+     *             if a file cannot be written or read.
+     */
+    @Test
+    public void challengingRepeatedTerm() throws IOException {
+        writeTerms(GLOSSARY);
+        GlossaryWatcher watcher = watcher("-referencedBy");
+        watcher.update();
+
+        writeTerms(GLOSSARY[0], GLOSSARY[1], GLOSSARY[2], GLOSSARY[3],
+                "term\na glossary entry\n");
+        IncrementalBuilder.Result result = watcher.update();
+        assertEquals(0, result.pagesWritten());
+        assertMatchesFullBuild("-referencedBy");
+
+        writeTerms(GLOSSARY[1], GLOSSARY[2], GLOSSARY[3],
+                "term\na glossary entry\n");
+        result = watcher.update();
+        assertEquals(0, result.pagesDeleted());
+        assertMatchesFullBuild("-referencedBy");
+    }
+
+    /**
+     * Challenging: Tests that saving the terms file while it is watched
+     * rewrites the page of the changed block.
+     *
+     * @throws IOException
+     *             if a file cannot be written or read.
+     * @throws InterruptedException
+     *             if the test is interrupted.
+     */
+    @Test
+    public void challengingWatchRewritesOnSave()
+            throws IOException, InterruptedException {
+        writeTerms(GLOSSARY);
+        GlossaryWatcher watcher = watcher();
+        Thread thread = new Thread(watcher::watch);
+        thread.start();
+        try {
+            File page = new File(WATCH_DIRECTORY, "word.html");
+            long deadline = System.currentTimeMillis() + 10_000;
+            while (!page.isFile() && System.currentTimeMillis() < deadline) {
+                Thread.sleep(20);
+            }
+            // Let the watch service register before saving
+            Thread.sleep(200);
+            writeTerms(GLOSSARY[0], "word\na string of letters\n",
+                    GLOSSARY[2], GLOSSARY[3]);
+            String text = "";
+            while (!text.contains("letters")
+                    && System.currentTimeMillis() < deadline) {
+                Thread.sleep(20);
+                text = new String(Files.readAllBytes(page.toPath()),
+                        StandardCharsets.UTF_8);
+            }
+            assertTrue(text.contains("letters"));
+        } finally {
+            thread.interrupt();
+            thread.join();
+        }
+        assertMatchesFullBuild();
+    }
+
+}
@@ -0,0 +1,166 @@
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for the GraphAnalysis class.
+ *
+ * @author Yakob Getu
+ */
+public class GraphAnalysisTest {
+
+    /**
+     * Folder the glossary and its report are written to.
+     */
+    private static final String TEST_DIRECTORY = "test_analysis";
+
+    /**
+     * Creates the folder.
+     *
+     * @throws IOException
+     *             if the folder cannot be created.
+     */
+    @Before
+    public void setUp() throws IOException {
+        Files.createDirectories(Paths.get(TEST_DIRECTORY));
+    }
+
+    /**
+     * Deletes the folder and its files.
+     */
+    @After
+    public void tearDown() {
+        File folder = new File(TEST_DIRECTORY);
+        for (File file : folder.listFiles()) {
+            file.delete();
+        }
+        folder.delete();
+    }
+
+    /**
+     * Returns the graph whose term {@code i} is named {@code "t" + i} and
+     * links to the terms of {@code rows[i]}.
+     *
+     * @param rows
+     *            the links of every term
+     * @return the graph
+     */
+    private static LinkGraph graph(int[][] rows) {
+        String[] terms = new String[rows.length];
+        int[] linkStart = new int[rows.length + 1];
+        int edges = 0;
+        for (int i = 0; i < rows.length; i++) {
+            terms[i] = "t" + i;
+            linkStart[i] = edges;
+            edges += rows[i].length;
+        }
+        linkStart[rows.length] = edges;
+        int[] links = new int[edges];
+        for (int i = 0; i < rows.length; i++) {
+            System.arraycopy(rows[i], 0, links, linkStart[i], rows[i].length);
+        }
+        return LinkGraph.of(terms, linkStart, links);
+    }
+
+    /**
+     * Routine: Tests the orphans, dead ends and cycles of a graph with two
+     * cycles, one reachable from the other.
+     */
+    @Test
+    public void routineCountsAndCycles() {
+        // 0 -> 1 -> 2 -> 0, 2 -> 3, 3 <-> 4, 5 -> 0, 6 alone
+        GraphAnalysis analysis = GraphAnalysis.of(graph(new int[][] {
+                { 1 }, { 2 }, { 0, 3 }, { 4 }, { 3 }, { 0 }, {} }));
+        assertEquals(2, analysis.orphans());
+        assertEquals(1, analysis.deadEnds());
+        assertEquals(4, analysis.components());
+        int[][] cycles = analysis.cycles();
+        assertEquals(2, cycles.length);
+        assertArrayEquals(new int[] { 0, 1, 2 }, cycles[0]);
+        assertArrayEquals(new int[] { 3, 4 }, cycles[1]);
+    }
+
+    /**
+     * Edge: Tests an empty graph.
+     */
+    @Test
+    public void edgeEmpty() {
+        GraphAnalysis analysis = GraphAnalysis.of(graph(new int[0][]));
+        assertEquals(0, analysis.orphans());
+        assertEquals(0, analysis.deadEnds());
+        assertEquals(0, analysis.components());
+        assertEquals(0, analysis.cycles().length);
+        PageBuffer buffer = analysis.report();
+        String report = new String(buffer.bytes().array(), 0,
+                buffer.length(), StandardCharsets.UTF_8);
+        assertTrue(report.contains("\"mostReferenced\": null,"));
+        assertTrue(report.contains("\"cycles\": []"));
+    }
+
+    /**
+     * Challenging: Tests a chain of links far longer than a thread's stack
+     * could follow recursively, closed into one cycle.
+     */
+    @Test
+    public void challengingLongCycle() {
+        final int n = 200_000;
+        int[][] rows = new int[n][];
+        for (int i = 0; i < n; i++) {
+            rows[i] = new int[] { (i + 1) % n };
+        }
+        GraphAnalysis analysis = GraphAnalysis.of(graph(rows));
+        assertEquals(1, analysis.components());
+        assertEquals(n, analysis.cycles()[0].length);
+        assertEquals(0, analysis.orphans());
+
+        rows[n - 1] = new int[0];
+        analysis = GraphAnalysis.of(graph(rows));
+        assertEquals(n, analysis.components());
+        assertEquals(0, analysis.cycles().length);
+        assertEquals(1, analysis.orphans());
+        assertEquals(1, analysis.deadEnds());
+    }
+
+    /**
+     * Challenging: Tests that a build with {@code -analyze} writes the report
+     * of its glossary's links.
+     *
+     * @throws IOException
+     *             if a file cannot be written or read.
+     */
+    @Test
+    public void challengingBuildWritesReport() throws IOException {
+        String terms = TEST_DIRECTORY + "/terms.txt";
+        String report = TEST_DIRECTORY + "/report.json";
+        Files.write(Paths.get(terms), ("book\na printed work\n\n"
+                + "glossary\na list of term definitions near the end of a"
+                + " book\n\n"
+                + "term\na word whose definition is in a glossary\n\n"
+                + "word\na string of characters, as in a term\n")
+                        .getBytes(StandardCharsets.UTF_8));
+        GlossaryClass.build(GlossaryOptions.parse(
+                new String[] { terms, TEST_DIRECTORY, "-analyze", report }),
+                line -> {
+                });
+        String json = new String(Files.readAllBytes(Paths.get(report)),
+                StandardCharsets.UTF_8);
+        assertTrue(json.contains("\"termsCount\": 4,"));
+        assertTrue(json.contains("\"orphans\": []"));
+        assertTrue(json.contains("\"deadEnds\": [\"book\"]"));
+        assertTrue(json.contains(
+                "\"mostReferenced\": { \"term\": \"term\", \"count\": 2 }"));
+        assertTrue(json.contains(
+                "\"cycles\": [\n    [\"glossary\", \"term\", \"word\"]\n"));
+    }
+
+}
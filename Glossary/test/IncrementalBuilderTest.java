@@ -0,0 +1,281 @@
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import components.map.Map;
+import components.map.Map1L;
+import components.queue.Queue;
+import components.queue.Queue1L;
+
+/**
+ * Tests for the IncrementalBuilder class.
+ *
+ * @author Yakob Getu
+ */
+public class IncrementalBuilderTest {
+
+    /**
+     * Folder the incremental builds write to.
+     */
+    private static final String INCREMENTAL_DIRECTORY = "test_incremental";
+
+    /**
+     * Folder a full build writes to, for comparison.
+     */
+    private static final String FULL_DIRECTORY = "test_full";
+
+    /**
+     * Creates the output folders.
+     *
+     * @throws IOException
+     *             if a folder cannot be created.
+     */
+    @Before
+    public void setUp() throws IOException {
+        Files.createDirectories(Paths.get(INCREMENTAL_DIRECTORY));
+        Files.createDirectories(Paths.get(FULL_DIRECTORY));
+    }
+
+    /**
+     * Deletes the output folders and their files.
+     */
+    @After
+    public void tearDown() {
+        for (String name : new String[] { INCREMENTAL_DIRECTORY,
+                FULL_DIRECTORY }) {
+            File folder = new File(name);
+            for (File file : folder.listFiles()) {
+                file.delete();
+            }
+            folder.delete();
+        }
+    }
+
+    /**
+     * Builds {@code m} incrementally into the incremental folder.
+     *
+     * @param m
+     *            the glossary
+     * @return what the build did
+     */
+    private static IncrementalBuilder.Result build(Map<String, String> m) {
+        return build(m, new GlossaryOptions("", ""));
+    }
+
+    /**
+     * Builds {@code m} incrementally into the incremental folder with
+     * {@code options}.
+     *
+     * @param m
+     *            the glossary
+     * @param options
+     *            the build options
+     * @return what the build did
+     */
+    private static IncrementalBuilder.Result build(Map<String, String> m,
+            GlossaryOptions options) {
+        Queue<String> terms = new Queue1L<>();
+        for (Map.Pair<String, String> entry : m) {
+            terms.enqueue(entry.key());
+        }
+        GlossaryClass.sortQueue(terms, new GlossaryClass.StringComparator());
+        return IncrementalBuilder.build(terms, m, INCREMENTAL_DIRECTORY,
+                TermLinker.forGlossary(m), options);
+    }
+
+    /**
+     * Asserts that the incremental folder holds exactly the pages a full
+     * build of {@code m} writes.
+     *
+     * @param m
+     *            the glossary
+     * @throws IOException
+     *             if a page cannot be read.
+     */
+    private static void assertMatchesFullBuild(Map<String, String> m)
+            throws IOException {
+        for (File file : new File(FULL_DIRECTORY).listFiles()) {
+            file.delete();
+        }
+        Queue<String> terms = new Queue1L<>();
+        for (Map.Pair<String, String> entry : m) {
+            terms.enqueue(entry.key());
+        }
+        GlossaryClass.sortQueue(terms, new GlossaryClass.StringComparator());
+        GlossaryClass.generateIndexPage(terms, FULL_DIRECTORY);
+        for (String term : terms) {
+            GlossaryClass.generatePage(term, m, FULL_DIRECTORY);
+        }
+        String[] pages = new File(FULL_DIRECTORY).list();
+        assertEquals(pages.length + 1,
+                new File(INCREMENTAL_DIRECTORY).list().length);
+        for (String page : pages) {
+            assertArrayEquals(
+                    Files.readAllBytes(Paths.get(FULL_DIRECTORY, page)),
+                    Files.readAllBytes(Paths.get(INCREMENTAL_DIRECTORY, page)));
+        }
+    }
+
+    /**
+     * Returns a small glossary.
+     *
+     * @return the glossary
+     */
+    private static Map<String, String> glossary() {
+        Map<String, String> m = new Map1L<>();
+        m.add("term", " a word whose definition is in a glossary ");
+        m.add("word", " a string of characters ");
+        m.add("glossary", " a list of terms near the end of a book ");
+        m.add("definition", " words that give meaning to a term ");
+        return m;
+    }
+
+    /**
+     * Routine: Tests that the first build writes every page and the index.
+     *
+     * @throws IOException
+     *             if a page cannot be read.
+     */
+    @Test
+    public void routineFirstBuildWritesEverything() throws IOException {
+        Map<String, String> m = glossary();
+        IncrementalBuilder.Result result = build(m);
+        assertEquals(m.size(), result.pagesWritten());
+        assertTrue(result.indexWritten());
+        assertMatchesFullBuild(m);
+    }
+
+    /**
+     * Edge: Tests that an unchanged glossary writes nothing.
+     */
+    @Test
+    public void edgeUnchangedBuildWritesNothing() {
+        build(glossary());
+        IncrementalBuilder.Result result = build(glossary());
+        assertEquals(0, result.pagesWritten());
+        assertEquals(0, result.pagesDeleted());
+        assertFalse(result.indexWritten());
+    }
+
+    /**
+     * Routine: Tests that a changed definition rewrites only its own page.
+     *
+     * @throws IOException
+     *             if a page cannot be read.
+     */
+    @Test
+    public void routineChangedDefinitionRewritesOnePage() throws IOException {
+        build(glossary());
+        Map<String, String> m = glossary();
+        m.replaceValue("word", " a string of characters in a language ");
+        IncrementalBuilder.Result result = build(m);
+        assertEquals(1, result.pagesWritten());
+        assertFalse(result.indexWritten());
+        assertMatchesFullBuild(m);
+    }
+
+    /**
+     * Challenging: Tests that adding a term rewrites the pages that now link
+     * to it, and removing one rewrites the pages that linked to it.
+     *
+     * @throws IOException
+     *             if a page cannot be read.
+     */
+    @Test
+    public void testAddedAndRemovedTermsRewriteLinkingPages()
+            throws IOException {
+        build(glossary());
+        Map<String, String> m = glossary();
+        m.add("book", " a printed work ");
+        IncrementalBuilder.Result result = build(m);
+        // book itself, and glossary which now links to it
+        assertEquals(2, result.pagesWritten());
+        assertTrue(result.indexWritten());
+        assertMatchesFullBuild(m);
+
+        m.remove("term");
+        result = build(m);
+        // definition linked to term, so only its page is rewritten
+        assertEquals(1, result.pagesDeleted());
+        assertTrue(result.indexWritten());
+        assertEquals(1, result.pagesWritten());
+        assertMatchesFullBuild(m);
+    }
+
+    /**
+     * Challenging: Tests that with "Referenced by" sections, a definition
+     * that starts linking to a term rewrites that term's page too, and one
+     * that stops linking to it rewrites it again.
+     *
+     * @throws IOException
+     *             if a page cannot be read.
+     */
+    @Test
+    public void challengingChangedLinksRewriteReferencedPages()
+            throws IOException {
+        GlossaryOptions options = GlossaryOptions.parse(
+                new String[] { "", INCREMENTAL_DIRECTORY, "-referencedBy" });
+        build(glossary(), options);
+        Map<String, String> m = glossary();
+        m.replaceValue("word", " a string of characters in a glossary ");
+        IncrementalBuilder.Result result = build(m, options);
+        // word itself, and glossary which word now links to
+        assertEquals(2, result.pagesWritten());
+        String glossaryPage = Files.readString(
+                Paths.get(INCREMENTAL_DIRECTORY, "glossary.html"));
+        assertTrue(glossaryPage.contains(
+                "<li><a href=\"word.html\">word</a></li>"));
+
+        result = build(glossary(), options);
+        assertEquals(2, result.pagesWritten());
+        glossaryPage = Files.readString(
+                Paths.get(INCREMENTAL_DIRECTORY, "glossary.html"));
+        assertFalse(glossaryPage.contains("word.html"));
+    }
+
+    /**
+     * Edge: Tests that switching from {@code -gzip} to {@code -gzipOnly}
+     * rebuilds everything and leaves no uncompressed page behind.
+     */
+    @Test
+    public void edgeGzipOnlyDeletesPlainPages() {
+        for (String[] flags : new String[][] { { "-gzip", "6" },
+                { "-gzip", "6", "-gzipOnly" } }) {
+            String[] args = new String[flags.length + 2];
+            args[0] = "";
+            args[1] = INCREMENTAL_DIRECTORY;
+            System.arraycopy(flags, 0, args, 2, flags.length);
+            GlossaryOptions options = GlossaryOptions.parse(args);
+            Map<String, String> m = glossary();
+            Queue<String> terms = new Queue1L<>();
+            for (Map.Pair<String, String> entry : m) {
+                terms.enqueue(entry.key());
+            }
+            GlossaryClass.sortQueue(terms,
+                    new GlossaryClass.StringComparator());
+            CompressingSink sink = new CompressingSink(
+                    new FileSink(INCREMENTAL_DIRECTORY), options.gzipLevel(),
+                    !options.gzipOnly(), 1);
+            IncrementalBuilder.Result result = IncrementalBuilder.build(terms,
+                    m, INCREMENTAL_DIRECTORY, sink, TermLinker.forGlossary(m),
+                    options);
+            sink.close();
+            assertEquals(m.size(), result.pagesWritten());
+        }
+        for (String name : new File(INCREMENTAL_DIRECTORY).list()) {
+            assertTrue(name, name.endsWith(CompressingSink.SUFFIX)
+                    || name.equals(BuildManifest.FILE_NAME));
+        }
+    }
+
+}
@@ -0,0 +1,198 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.junit.Test;
+
+import components.map.Map;
+import components.map.Map1L;
+
+/**
+ * Tests for the LinkGraph class.
+ *
+ * @author Yakob Getu
+ */
+public class LinkGraphTest {
+
+    /**
+     * The terms of {@link #glossary()}, in index order.
+     */
+    private static final List<String> TERMS = List.of("book", "glossary",
+            "term", "word");
+
+    /**
+     * Returns a small glossary.
+     *
+     * @return the glossary
+     */
+    private static Map<String, String> glossary() {
+        Map<String, String> m = new Map1L<>();
+        m.add("book", " a printed work ");
+        m.add("glossary", " a list of term definitions near the end of a"
+                + " book ");
+        m.add("term", " a word whose definition is in a glossary ");
+        m.add("word", " a string of characters, as in a term ");
+        return m;
+    }
+
+    /**
+     * Builds the graph of {@code m}.
+     *
+     * @param m
+     *            the glossary
+     * @return the graph
+     */
+    private static LinkGraph graph(Map<String, String> m) {
+        return LinkGraph.build(TERMS, GlossaryEntry.entries(TERMS, m),
+                TermLinker.forGlossary(m));
+    }
+
+    /**
+     * Routine: Tests that the links are kept in order and inverted into
+     * referrers in index order.
+     */
+    @Test
+    public void routineLinksAndReferrers() {
+        LinkGraph graph = graph(glossary());
+        assertEquals(4, graph.size());
+        int term = graph.id("term");
+        assertEquals(2, term);
+        assertEquals(2, graph.linkCount(term));
+        assertEquals("word", graph.term(graph.link(term, 0)));
+        assertEquals("glossary", graph.term(graph.link(term, 1)));
+        assertEquals(2, graph.referrerCount(term));
+        assertEquals("glossary", graph.term(graph.referrer(term, 0)));
+        assertEquals("word", graph.term(graph.referrer(term, 1)));
+        assertEquals(1, graph.referrerCount(graph.id("book")));
+        assertEquals(0, graph.linkCount(graph.id("book")));
+    }
+
+    /**
+     * Edge: Tests an empty glossary.
+     */
+    @Test
+    public void edgeEmpty() {
+        Map<String, String> m = new Map1L<>();
+        LinkGraph graph = LinkGraph.build(List.of(),
+                GlossaryEntry.entries(List.of(), m), TermLinker.forGlossary(m));
+        assertEquals(0, graph.size());
+        assertEquals(-1, graph.id("term"));
+    }
+
+    /**
+     * Challenging: Tests that repeated links count once and a term never
+     * refers to itself.
+     */
+    @Test
+    public void challengingRepeatsAndSelfLinks() {
+        Map<String, String> m = glossary();
+        m.replaceValue("book", " a book about a word, a word and a book ");
+        LinkGraph graph = graph(m);
+        int book = graph.id("book");
+        assertEquals(1, graph.linkCount(book));
+        assertEquals("word", graph.term(graph.link(book, 0)));
+        assertEquals(1, graph.referrerCount(book));
+        assertEquals("glossary", graph.term(graph.referrer(book, 0)));
+        assertEquals(2, graph.referrerCount(graph.id("word")));
+    }
+
+    /**
+     * Challenging: Tests that replacing rows keeps the other rows and
+     * inverts the new ones, for the first, a middle and the last term.
+     */
+    @Test
+    public void challengingWithRows() {
+        LinkGraph graph = graph(glossary());
+        java.util.Map<Integer, int[]> rows = new java.util.HashMap<>();
+        rows.put(graph.id("book"), new int[] { graph.id("term"),
+                graph.id("glossary") });
+        rows.put(graph.id("term"), new int[0]);
+        rows.put(graph.id("word"), new int[] { graph.id("book") });
+        LinkGraph changed = graph.withRows(rows);
+        assertEquals(4, changed.size());
+        int book = changed.id("book");
+        assertEquals(2, changed.linkCount(book));
+        assertEquals("term", changed.term(changed.link(book, 0)));
+        assertEquals("glossary", changed.term(changed.link(book, 1)));
+        int glossary = changed.id("glossary");
+        assertEquals(graph.linkCount(glossary), changed.linkCount(glossary));
+        assertEquals(graph.link(glossary, 0), changed.link(glossary, 0));
+        assertEquals(0, changed.linkCount(changed.id("term")));
+        assertEquals(1, changed.linkCount(changed.id("word")));
+        assertEquals(2, changed.referrerCount(book));
+        assertEquals("glossary", changed.term(changed.referrer(book, 0)));
+        assertEquals("word", changed.term(changed.referrer(book, 1)));
+        assertEquals(0, changed.referrerCount(changed.id("word")));
+        assertEquals(2, changed.referrerCount(changed.id("term")));
+    }
+
+    /**
+     * Challenging: Tests that the rows recorded while pages are rendered, on
+     * one thread or several, make the same graph as building it.
+     */
+    @Test
+    public void challengingCollectorMatchesBuild() {
+        Map<String, String> m = glossary();
+        m.replaceValue("book", " a book about a word, a word and a term ");
+        TermLinker linker = new TermLinker(TERMS,
+                TermLinker.DEFAULT_SEPARATORS);
+        LinkGraph built = graph(m);
+        LinkGraph.Collector serial = new LinkGraph.Collector(TERMS, linker);
+        for (String term : TERMS) {
+            GlossaryClass.generatePage(term, m.value(term), linker,
+                    PageTemplates.DEFAULT, null, serial, new MemorySink());
+        }
+        LinkGraph.Collector parallel = new LinkGraph.Collector(TERMS,
+                linker);
+        new ParallelPageGenerator(2, 2).generatePages(
+                GlossaryEntry.entries(TERMS, m), new MemorySink(), linker,
+                null, parallel);
+        for (LinkGraph collected : List.of(serial.graph(), parallel.graph())) {
+            assertEquals(built.size(), collected.size());
+            for (int id = 0; id < built.size(); id++) {
+                assertEquals(built.term(id), collected.term(id));
+                assertEquals(id, collected.id(built.term(id)));
+                assertEquals(built.linkCount(id), collected.linkCount(id));
+                for (int k = 0; k < built.linkCount(id); k++) {
+                    assertEquals(built.link(id, k), collected.link(id, k));
+                }
+                assertEquals(built.referrerCount(id),
+                        collected.referrerCount(id));
+            }
+        }
+    }
+
+    /**
+     * Routine: Tests that a term page lists its referrers, and a page nothing
+     * links to is rendered as it is without a graph.
+     */
+    @Test
+    public void routineReferencedBySection() {
+        Map<String, String> m = glossary();
+        TermLinker linker = TermLinker.forGlossary(m);
+        LinkGraph graph = graph(m);
+        MemorySink sink = new MemorySink();
+        GlossaryClass.generatePage("term", m.value("term"), linker,
+                PageTemplates.DEFAULT, graph, sink);
+        String page = new String(sink.page("term.html"),
+                StandardCharsets.UTF_8);
+        assertTrue(page.contains("</blockquote>\n<h3>Referenced by</h3>\n"
+                + "<ul>\n<li><a href=\"glossary.html\">glossary</a></li>\n"
+                + "<li><a href=\"word.html\">word</a></li>\n</ul>\n<hr />"));
+
+        m.add("index", " a list of terms ");
+        MemorySink plain = new MemorySink();
+        GlossaryClass.generatePage("index", m.value("index"), linker,
+                PageTemplates.DEFAULT, graph, sink);
+        GlossaryClass.generatePage("index", m.value("index"), linker, plain);
+        assertEquals(new String(plain.page("index.html"),
+                StandardCharsets.UTF_8),
+                new String(sink.page("index.html"), StandardCharsets.UTF_8));
+        assertFalse(new String(sink.page("index.html"),
+                StandardCharsets.UTF_8).contains("Referenced by"));
+    }
+
+}
@@ -0,0 +1,161 @@
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import components.map.Map;
+import components.map.Map1L;
+
+/**
+ * Tests for the MultiFormatBuilder class and the renderers it runs.
+ *
+ * @author Yakob Getu
+ */
+public class MultiFormatBuilderTest {
+
+    /**
+     * Folder the builds write to.
+     */
+    private static final String FORMATS_DIRECTORY = "test_formats";
+
+    /**
+     * The terms rendered in every format, in index order.
+     */
+    private static final List<String> TERMS = List.of("html", "json",
+            "markup language");
+
+    /**
+     * Returns a small glossary whose definitions hold characters each format
+     * escapes, and a multi-word term whose links are percent-encoded.
+     *
+     * @return the glossary
+     */
+    private static Map<String, String> glossary() {
+        Map<String, String> m = new Map1L<>();
+        m.add("html", " the markup language of web pages, with tags like"
+                + " <p> & <b> ");
+        m.add("json", " a \"text\" format for data, such as a page in html ");
+        m.add("markup language", " marks up text with *emphasis* or [links],"
+                + " as html does ");
+        return m;
+    }
+
+    /**
+     * Creates the output folder.
+     *
+     * @throws IOException
+     *             if the folder cannot be created.
+     */
+    @Before
+    public void setUp() throws IOException {
+        Files.createDirectories(Paths.get(FORMATS_DIRECTORY));
+    }
+
+    /**
+     * Deletes the output folder and its trees.
+     */
+    @After
+    public void tearDown() {
+        File folder = new File(FORMATS_DIRECTORY);
+        for (File file : folder.listFiles()) {
+            if (file.isDirectory()) {
+                for (File page : file.listFiles()) {
+                    page.delete();
+                }
+            }
+            file.delete();
+        }
+        folder.delete();
+    }
+
+    /**
+     * Routine: Tests that a term page rendered from the model is the page
+     * generatePage renders from the definition.
+     */
+    @Test
+    public void routineHtmlFromModelMatchesGeneratePage() {
+        Map<String, String> m = glossary();
+        TermLinker linker = TermLinker.forGlossary(m);
+        LinkGraph references = LinkGraph.build(TERMS,
+                GlossaryEntry.entries(TERMS, m), linker);
+        for (String term : TERMS) {
+            MemorySink expected = new MemorySink();
+            GlossaryClass.generatePage(term, m.value(term), linker,
+                    PageTemplates.DEFAULT, references, expected);
+            MemorySink actual = new MemorySink();
+            GlossaryClass.generatePage(
+                    LinkedDefinition.resolve(term, m.value(term), linker),
+                    PageTemplates.DEFAULT, references, actual);
+            assertArrayEquals(expected.page(term + ".html"),
+                    actual.page(term + ".html"));
+        }
+    }
+
+    /**
+     * Edge: Tests where the tree of a format goes for each kind of sink.
+     */
+    @Test
+    public void edgeTreeTargets() {
+        assertEquals(Paths.get("out", "json").toString(),
+                MultiFormatBuilder.treeTarget(PageSink.FILE, "out", "json"));
+        assertEquals("site-markdown.zip", MultiFormatBuilder
+                .treeTarget(PageSink.ZIP, "site.zip", "markdown"));
+        assertEquals("dir.v2/site-json", MultiFormatBuilder
+                .treeTarget(PageSink.PACK, "dir.v2/site", "json"));
+    }
+
+    /**
+     * Challenging: Tests that every format is written from one build, the
+     * HTML as a build without other formats writes it, and the JSON and
+     * Markdown with their own escapes and links.
+     *
+     * @throws IOException
+     *             if a file cannot be read.
+     */
+    @Test
+    public void challengingWritesEveryFormat() throws IOException {
+        Map<String, String> m = glossary();
+        TermLinker linker = TermLinker.forGlossary(m);
+        GlossaryOptions options = GlossaryOptions.parse(new String[] {
+                "terms.txt", FORMATS_DIRECTORY, "-formats",
+                "json,html,markdown" });
+        MemorySink html = new MemorySink();
+        MultiFormatBuilder.build(TERMS, m, linker, null, options, html,
+                new BuildMetrics());
+        MemorySink expected = new MemorySink();
+        GlossaryClass.generateIndex(TERMS, options, expected);
+        assertArrayEquals(expected.page("index.html"),
+                html.page("index.html"));
+        assertEquals(TERMS.size() + 1, html.names().size());
+        assertEquals(TERMS.size(), html.stats().definitions());
+
+        String json = new String(Files.readAllBytes(
+                Paths.get(FORMATS_DIRECTORY, "json", "json.json")),
+                StandardCharsets.UTF_8);
+        assertTrue(json.contains("    { \"text\": \" a \\\"text\\\" format "
+                + "for data, such as a page in \" },\n    { \"link\": "
+                + "\"html\", \"href\": \"html.json\" }\n"));
+        assertEquals("# html\n\nthe [markup language](markup%20language.md)"
+                + " of web pages, with tags like \\<p\\> & \\<b\\>\n",
+                new String(Files.readAllBytes(Paths.get(FORMATS_DIRECTORY,
+                        "markdown", "html.md")), StandardCharsets.UTF_8));
+        assertEquals("# markup language\n\nmarks up text with \\*emphasis\\*"
+                + " or \\[links\\], as [html](html.md) does\n",
+                new String(Files.readAllBytes(Paths.get(FORMATS_DIRECTORY,
+                        "markdown", "markup language.md")),
+                        StandardCharsets.UTF_8));
+        assertEquals(TERMS.size() + 1,
+                new File(FORMATS_DIRECTORY, "markdown").list().length);
+    }
+
+}
@@ -0,0 +1,166 @@
+import static org.junit.Assert.assertEquals;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+/**
+ * Tests for the OrderedSink class.
+ *
+ * @author Yakob Getu
+ */
+public class OrderedSinkTest {
+
+    /**
+     * A sink recording the names of the pages written, in order.
+     */
+    private static final class RecordingSink implements PageSink {
+
+        /**
+         * The names of the pages written, in order.
+         */
+        private final List<String> names = Collections
+                .synchronizedList(new ArrayList<>());
+
+        /**
+         * What has been written.
+         */
+        private final PageStats stats = new PageStats();
+
+        @Override
+        public void write(String name, ByteBuffer page) {
+            page.position(page.limit());
+            this.names.add(name);
+        }
+
+        @Override
+        public PageStats stats() {
+            return this.stats;
+        }
+
+        @Override
+        public boolean ordered() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+        }
+
+    }
+
+    /**
+     * Returns a page of {@code size} bytes.
+     *
+     * @param size
+     *            the number of bytes
+     * @return the page
+     */
+    private static ByteBuffer page(int size) {
+        return ByteBuffer.wrap(new byte[size]);
+    }
+
+    /**
+     * Routine: Tests that pages of later parts are held until the parts
+     * before them are closed, and then written in part order.
+     */
+    @Test
+    public void routinePartsWrittenInOrder() {
+        RecordingSink target = new RecordingSink();
+        OrderedSink sink = new OrderedSink(target);
+        PageSink first = sink.part();
+        PageSink second = sink.part();
+        PageSink third = sink.part();
+        third.write("c1", page(1));
+        second.write("b1", page(1));
+        third.close();
+        first.write("a1", page(1));
+        assertEquals(List.of("a1"), target.names);
+        second.write("b2", page(1));
+        first.close();
+        assertEquals(List.of("a1", "b1", "b2"), target.names);
+        second.write("b3", page(1));
+        second.close();
+        assertEquals(List.of("a1", "b1", "b2", "b3", "c1"), target.names);
+    }
+
+    /**
+     * Edge: Tests that a writer waits once the cap is held, and that a page
+     * larger than the cap is held when nothing else is.
+     *
+     * @throws InterruptedException
+     *             if the writing thread is interrupted.
+     */
+    @Test
+    public void edgeWriterWaitsAtCap() throws InterruptedException {
+        RecordingSink target = new RecordingSink();
+        OrderedSink sink = new OrderedSink(target, 10);
+        PageSink first = sink.part();
+        PageSink second = sink.part();
+        Thread writer = new Thread(() -> {
+            second.write("b1", page(25));
+            second.write("b2", page(5));
+            second.close();
+        });
+        writer.start();
+        writer.join(200);
+        assertEquals(Thread.State.WAITING, writer.getState());
+        assertEquals(0, target.names.size());
+        first.write("a1", page(1));
+        first.close();
+        writer.join();
+        assertEquals(List.of("a1", "b1", "b2"), target.names);
+    }
+
+    /**
+     * Challenging: Tests that pages written by many threads, in random order
+     * and with a small cap, are written in part order.
+     *
+     * @throws InterruptedException
+     *             if a writing thread is interrupted.
+     */
+    @Test
+    public void challengingConcurrentParts() throws InterruptedException {
+        final int parts = 2000;
+        RecordingSink target = new RecordingSink();
+        OrderedSink sink = new OrderedSink(target, 100);
+        List<PageSink> taken = new ArrayList<>();
+        for (int i = 0; i < parts; i++) {
+            taken.add(sink.part());
+        }
+        List<Integer> order = new ArrayList<>();
+        for (int i = 0; i < parts; i++) {
+            order.add(i);
+        }
+        // Shuffle within windows, so the oldest part is always running
+        Random random = new Random(1);
+        final int window = 16;
+        for (int i = 0; i < parts; i += window) {
+            Collections.shuffle(order.subList(i, i + window), random);
+        }
+        ExecutorService pool = Executors.newFixedThreadPool(window);
+        for (int i : order) {
+            pool.execute(() -> {
+                PageSink part = taken.get(i);
+                part.write(i + "a", page(i % 7));
+                part.write(i + "b", page(i % 5));
+                part.close();
+            });
+        }
+        pool.shutdown();
+        pool.awaitTermination(1, TimeUnit.MINUTES);
+        assertEquals(2 * parts, target.names.size());
+        for (int i = 0; i < parts; i++) {
+            assertEquals(i + "a", target.names.get(2 * i));
+            assertEquals(i + "b", target.names.get(2 * i + 1));
+        }
+    }
+
+}
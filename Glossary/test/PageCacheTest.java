@@ -0,0 +1,64 @@
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+
+/**
+ * Tests for the PageCache class.
+ *
+ * @author Yakob Getu
+ */
+public class PageCacheTest {
+
+    /**
+     * Routine: Tests that a page put is found again and counted as a hit.
+     */
+    @Test
+    public void routinePutAndGet() {
+        PageCache cache = new PageCache(100);
+        byte[] page = new byte[10];
+        assertNull(cache.get("a.html"));
+        cache.put("a.html", page);
+        assertArrayEquals(page, cache.get("a.html"));
+        assertEquals(10, cache.size());
+        assertEquals("1 pages, 10 of 100 bytes, 1 hits, 1 misses, "
+                + "0 evictions", cache.report());
+    }
+
+    /**
+     * Edge: Tests that a page larger than the whole cache is not kept, and
+     * that replacing a page counts its new size only.
+     */
+    @Test
+    public void edgeOversizedAndReplaced() {
+        PageCache cache = new PageCache(10);
+        cache.put("big.html", new byte[11]);
+        assertNull(cache.get("big.html"));
+        cache.put("a.html", new byte[4]);
+        cache.put("a.html", new byte[6]);
+        assertEquals(6, cache.size());
+    }
+
+    /**
+     * Challenging: Tests that the least recently used pages are evicted
+     * first, a lookup counting as a use.
+     */
+    @Test
+    public void challengingEvictsLeastRecentlyUsed() {
+        PageCache cache = new PageCache(30);
+        cache.put("a.html", new byte[10]);
+        cache.put("b.html", new byte[10]);
+        cache.put("c.html", new byte[10]);
+        cache.get("a.html");
+        cache.put("d.html", new byte[20]);
+        assertNull(cache.get("b.html"));
+        assertNull(cache.get("c.html"));
+        assertEquals(10, cache.get("a.html").length);
+        assertEquals(20, cache.get("d.html").length);
+        assertEquals(30, cache.size());
+        assertEquals("2 pages, 30 of 30 bytes, 3 hits, 2 misses, "
+                + "2 evictions", cache.report());
+    }
+
+}
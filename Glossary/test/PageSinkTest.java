@@ -0,0 +1,233 @@
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import components.map.Map;
+import components.map.Map1L;
+
+/**
+ * Tests for the PageBuffer class and the PageSink implementations.
+ *
+ * @author Yakob Getu
+ */
+public class PageSinkTest {
+
+    /**
+     * Folder the file sink writes to.
+     */
+    private static final String SINK_DIRECTORY = "test_sink";
+
+    /**
+     * Creates the output folder.
+     *
+     * @throws IOException
+     *             if the folder cannot be created.
+     */
+    @Before
+    public void setUp() throws IOException {
+        Files.createDirectories(Paths.get(SINK_DIRECTORY));
+    }
+
+    /**
+     * Deletes the output folder and its files.
+     */
+    @After
+    public void tearDown() {
+        File folder = new File(SINK_DIRECTORY);
+        for (File file : folder.listFiles()) {
+            file.delete();
+        }
+        folder.delete();
+    }
+
+    /**
+     * Returns a small glossary whose definitions link to each other.
+     *
+     * @return the glossary
+     */
+    private static Map<String, String> glossary() {
+        Map<String, String> m = new Map1L<>();
+        m.add("word", " a string of characters ");
+        m.add("term", " a word whose definition is in a glossary ");
+        m.add("glossary", " a list of term and definition pairs ");
+        return m;
+    }
+
+    /**
+     * Routine: Tests that a page written to a file takes an open, one write
+     * and a close.
+     */
+    @Test
+    public void routineFileSinkCallsPerPage() {
+        Map<String, String> m = glossary();
+        TermLinker linker = TermLinker.forGlossary(m);
+        FileSink sink = new FileSink(SINK_DIRECTORY);
+        for (Map.Pair<String, String> entry : m) {
+            GlossaryClass.generatePage(entry.key(), entry.value(), linker,
+                    sink);
+        }
+        assertEquals(m.size(), sink.stats().pages());
+        assertEquals(3 * m.size(), sink.stats().calls());
+        assertEquals(m.size(), new File(SINK_DIRECTORY).list().length);
+    }
+
+    /**
+     * Routine: Tests that a page kept in memory has the same bytes as the page
+     * written to a file.
+     *
+     * @throws IOException
+     *             if a page cannot be read.
+     */
+    @Test
+    public void routineMemorySinkMatchesFile() throws IOException {
+        Map<String, String> m = glossary();
+        TermLinker linker = TermLinker.forGlossary(m);
+        MemorySink memory = new MemorySink();
+        GlossaryClass.generatePage("term", m.value("term"), linker, memory);
+        GlossaryClass.generatePage("term", m, SINK_DIRECTORY, linker);
+        byte[] file = Files
+                .readAllBytes(Paths.get(SINK_DIRECTORY, "term.html"));
+        assertArrayEquals(file, memory.page("term.html"));
+        assertEquals(file.length, memory.stats().bytes());
+        assertEquals(0, memory.stats().calls());
+    }
+
+    /**
+     * Challenging: Tests that an archive holds every page with the same bytes
+     * as the memory sink, and makes fewer system calls than pages.
+     *
+     * @throws IOException
+     *             if the archive cannot be read.
+     */
+    @Test
+    public void challengingZipSinkMatchesMemory() throws IOException {
+        Map<String, String> m = glossary();
+        TermLinker linker = TermLinker.forGlossary(m);
+        MemorySink memory = new MemorySink();
+        Path archive = Paths.get(SINK_DIRECTORY, "pages.zip");
+        ZipSink zip = new ZipSink(archive);
+        for (Map.Pair<String, String> entry : m) {
+            GlossaryClass.generatePage(entry.key(), entry.value(), linker,
+                    memory);
+            GlossaryClass.generatePage(entry.key(), entry.value(), linker,
+                    zip);
+        }
+        zip.close();
+        int entries = 0;
+        try (ZipInputStream in = new ZipInputStream(
+                Files.newInputStream(archive))) {
+            ZipEntry entry = in.getNextEntry();
+            while (entry != null) {
+                assertArrayEquals(memory.page(entry.getName()),
+                        in.readAllBytes());
+                entries++;
+                entry = in.getNextEntry();
+            }
+        }
+        assertEquals(m.size(), entries);
+        assertEquals(m.size(), zip.stats().pages());
+        // open, one buffer flushed at close, and close
+        assertEquals(3, zip.stats().calls());
+    }
+
+    /**
+     * Challenging: Tests that a pack extracted into a folder gives the same
+     * files as the file sink writes, with a single open of the pack.
+     *
+     * @throws IOException
+     *             if a page cannot be read.
+     */
+    @Test
+    public void challengingPackSinkExtractsLikeFiles() throws IOException {
+        Map<String, String> m = glossary();
+        TermLinker linker = TermLinker.forGlossary(m);
+        Path pack = Paths.get(SINK_DIRECTORY, "pages.pack");
+        PackSink packSink = new PackSink(pack);
+        MemorySink memory = new MemorySink();
+        for (Map.Pair<String, String> entry : m) {
+            GlossaryClass.generatePage(entry.key(), entry.value(), linker,
+                    packSink);
+            GlossaryClass.generatePage(entry.key(), entry.value(), linker,
+                    memory);
+        }
+        packSink.close();
+        // open, one buffer flushed at close, and close
+        assertEquals(3, packSink.stats().calls());
+
+        MemorySink extracted = new MemorySink();
+        try (PackFile file = new PackFile(pack)) {
+            assertEquals(m.size(), file.extract(extracted));
+            assertNull(file.page("missing.html"));
+        }
+        assertEquals(memory.names(), extracted.names());
+        for (String name : memory.names()) {
+            assertArrayEquals(memory.page(name), extracted.page(name));
+        }
+    }
+
+    /**
+     * Edge: Tests that a page written twice is read back as its last copy,
+     * and an empty page as no bytes.
+     */
+    @Test
+    public void edgePackKeepsLastCopy() {
+        Path pack = Paths.get(SINK_DIRECTORY, "pages.pack");
+        PackSink sink = new PackSink(pack);
+        sink.write("a.html", ByteBuffer.wrap(new byte[] { 1, 2, 3 }));
+        sink.write("b.html", ByteBuffer.allocate(0));
+        sink.write("a.html", ByteBuffer.wrap(new byte[] { 4 }));
+        sink.close();
+        try (PackFile file = new PackFile(pack)) {
+            assertEquals(List.of("a.html", "b.html"),
+                    List.copyOf(file.names()));
+            assertArrayEquals(new byte[] { 4 }, file.page("a.html"));
+            assertEquals(0, file.page("b.html").length);
+        }
+    }
+
+    /**
+     * Challenging: Tests that a file that is not a pack is rejected.
+     *
+     * @throws IOException
+     *             if the file cannot be written.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void challengingRejectsNonPack() throws IOException {
+        Path file = Paths.get(SINK_DIRECTORY, "not.pack");
+        Files.writeString(file, "plainly not a pack file");
+        new PackFile(file).close();
+    }
+
+    /**
+     * Edge: Tests that the buffer encodes every kind of character as UTF-8,
+     * including surrogate pairs, and that clearing it keeps nothing.
+     */
+    @Test
+    public void edgeBufferEncodesUtf8() {
+        String text = "a\u00e9\u20ac\ud83d\ude00 \ud800z";
+        PageBuffer buffer = PageBuffer.forThread();
+        buffer.print("stale");
+        buffer = PageBuffer.forThread();
+        buffer.println(text);
+        byte[] actual = new byte[buffer.length()];
+        buffer.bytes().get(actual);
+        assertArrayEquals((text + "\n").getBytes(StandardCharsets.UTF_8),
+                actual);
+    }
+
+}
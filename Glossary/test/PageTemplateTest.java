@@ -0,0 +1,155 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.EnumSet;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import components.map.Map;
+import components.map.Map1L;
+import components.queue.Queue;
+import components.queue.Queue1L;
+
+/**
+ * Tests for the PageTemplate and PageTemplates classes.
+ *
+ * @author Yakob Getu
+ */
+public class PageTemplateTest {
+
+    /**
+     * Folder custom templates are written to.
+     */
+    private static final String TEMPLATE_DIRECTORY = "test_templates";
+
+    /**
+     * Folder the incremental builds write to.
+     */
+    private static final String OUTPUT_DIRECTORY = "test_styled";
+
+    /**
+     * Creates the folders.
+     *
+     * @throws IOException
+     *             if a folder cannot be created.
+     */
+    @Before
+    public void setUp() throws IOException {
+        Files.createDirectories(Paths.get(TEMPLATE_DIRECTORY));
+        Files.createDirectories(Paths.get(OUTPUT_DIRECTORY));
+    }
+
+    /**
+     * Deletes the folders and their files.
+     */
+    @After
+    public void tearDown() {
+        for (String name : new String[] { TEMPLATE_DIRECTORY,
+                OUTPUT_DIRECTORY }) {
+            File folder = new File(name);
+            for (File file : folder.listFiles()) {
+                file.delete();
+            }
+            folder.delete();
+        }
+    }
+
+    /**
+     * Renders {@code template} with the given slot values.
+     *
+     * @param template
+     *            the template
+     * @param term
+     *            the term
+     * @param href
+     *            the link
+     * @param content
+     *            the body or links
+     * @return the rendered text
+     */
+    private static String render(PageTemplate template, String term,
+            String href, String content) {
+        PageBuffer out = PageBuffer.forThread();
+        template.render(out, term, href, body -> body.print(content));
+        byte[] bytes = new byte[out.length()];
+        out.bytes().get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Routine: Tests filling every kind of slot, including one used twice.
+     */
+    @Test
+    public void routineRenderSlots() {
+        PageTemplate template = PageTemplate
+                .compile("<{{term}}|{{ href }}|{{body}}|{{term}}>");
+        assertEquals("<t|t.html|b|t>", render(template, "t", "t.html", "b"));
+    }
+
+    /**
+     * Edge: Tests a template with no slots at all.
+     */
+    @Test
+    public void edgeNoSlots() {
+        PageTemplate template = PageTemplate.compile("plain");
+        assertEquals("plain", render(template, null, null, null));
+    }
+
+    /**
+     * Challenging: Tests that a slot a template cannot fill is rejected.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void challengingRejectsDisallowedSlot() {
+        PageTemplate.compile("{{body}}",
+                EnumSet.of(PageTemplate.Slot.TERM, PageTemplate.Slot.HREF));
+    }
+
+    /**
+     * Challenging: Tests that an unclosed slot is rejected.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void challengingRejectsUnclosedSlot() {
+        PageTemplate.compile("<b>{{term</b>");
+    }
+
+    /**
+     * Routine: Tests that templates from a folder restyle pages, and that an
+     * incremental build then rewrites every page.
+     *
+     * @throws IOException
+     *             if a template cannot be written or a page read.
+     */
+    @Test
+    public void routineFolderTemplatesRestyle() throws IOException {
+        Map<String, String> m = new Map1L<>();
+        m.add("word", " a string of characters ");
+        m.add("term", " a word in a glossary ");
+        Queue<String> terms = new Queue1L<>();
+        terms.enqueue("term");
+        terms.enqueue("word");
+        TermLinker linker = TermLinker.forGlossary(m);
+
+        IncrementalBuilder.build(terms, m, OUTPUT_DIRECTORY, linker,
+                new GlossaryOptions("", OUTPUT_DIRECTORY));
+        Files.writeString(Paths.get(TEMPLATE_DIRECTORY, PageTemplates.LINK),
+                "[{{term}}]({{href}})\n");
+        GlossaryOptions styled = GlossaryOptions.parse(new String[] { "",
+                OUTPUT_DIRECTORY, "-templates", TEMPLATE_DIRECTORY });
+        IncrementalBuilder.Result result = IncrementalBuilder.build(terms, m,
+                OUTPUT_DIRECTORY, linker, styled);
+
+        assertEquals(2, result.pagesWritten());
+        List<String> lines = Files
+                .readAllLines(Paths.get(OUTPUT_DIRECTORY, "term.html"));
+        assertTrue(lines.contains("[word](word.html)"));
+    }
+
+}
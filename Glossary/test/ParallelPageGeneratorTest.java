@@ -0,0 +1,106 @@
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import components.map.Map;
+import components.map.Map1L;
+import components.queue.Queue;
+import components.queue.Queue1L;
+
+/**
+ * Tests for the ParallelPageGenerator class.
+ *
+ * @author Yakob Getu
+ */
+public class ParallelPageGeneratorTest {
+
+    /**
+     * Folder the serial pages are written to.
+     */
+    private static final String SERIAL_DIRECTORY = "test_serial";
+
+    /**
+     * Folder the parallel pages are written to.
+     */
+    private static final String PARALLEL_DIRECTORY = "test_parallel";
+
+    /**
+     * Creates the output folders.
+     *
+     * @throws IOException
+     *             if a folder cannot be created.
+     */
+    @Before
+    public void setUp() throws IOException {
+        Files.createDirectories(Paths.get(SERIAL_DIRECTORY));
+        Files.createDirectories(Paths.get(PARALLEL_DIRECTORY));
+    }
+
+    /**
+     * Deletes the output folders and their files.
+     */
+    @After
+    public void tearDown() {
+        for (String name : new String[] { SERIAL_DIRECTORY,
+                PARALLEL_DIRECTORY }) {
+            File folder = new File(name);
+            for (File file : folder.listFiles()) {
+                file.delete();
+            }
+            folder.delete();
+        }
+    }
+
+    /**
+     * Routine: Tests that parallel pages are byte-identical to serial pages.
+     *
+     * @throws IOException
+     *             if a page cannot be read.
+     */
+    @Test
+    public void routineGeneratePagesMatchesSerial() throws IOException {
+        final int termCount = 50;
+        Map<String, String> glossary = new Map1L<>();
+        Queue<String> terms = new Queue1L<>();
+        for (int i = 0; i < termCount; i++) {
+            String term = "term" + i;
+            glossary.add(term, " see term" + (i + 1) + ", or term0 ");
+            terms.enqueue(term);
+        }
+        for (String term : terms) {
+            GlossaryClass.generatePage(term, glossary, SERIAL_DIRECTORY);
+        }
+        new ParallelPageGenerator(4, 2).generatePages(terms, glossary,
+                PARALLEL_DIRECTORY, TermLinker.forGlossary(glossary));
+
+        assertEquals(termCount, terms.length());
+        for (String term : terms) {
+            assertArrayEquals(
+                    Files.readAllBytes(
+                            Paths.get(SERIAL_DIRECTORY, term + ".html")),
+                    Files.readAllBytes(
+                            Paths.get(PARALLEL_DIRECTORY, term + ".html")));
+        }
+    }
+
+    /**
+     * Edge: Tests generating pages for an empty queue of terms.
+     */
+    @Test
+    public void edgeGeneratePagesEmptyQueue() {
+        Map<String, String> glossary = new Map1L<>();
+        new ParallelPageGenerator(2, 2).generatePages(new Queue1L<String>(),
+                glossary, PARALLEL_DIRECTORY,
+                TermLinker.forGlossary(glossary));
+        assertEquals(0, new File(PARALLEL_DIRECTORY).listFiles().length);
+    }
+
+}
@@ -0,0 +1,118 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.junit.Test;
+
+import components.map.Map;
+import components.map.Map1L;
+
+/**
+ * Tests for the SearchIndexWriter class.
+ *
+ * @author Yakob Getu
+ */
+public class SearchIndexWriterTest {
+
+    /**
+     * Returns the text of file {@code name} of {@code sink}.
+     *
+     * @param sink
+     *            the sink
+     * @param name
+     *            the file name
+     * @return the file text
+     */
+    private static String file(MemorySink sink, String name) {
+        return new String(sink.page(name), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Returns a small glossary.
+     *
+     * @return the glossary
+     */
+    private static Map<String, String> glossary() {
+        Map<String, String> m = new Map1L<>();
+        m.add("apple", " a Red fruit ");
+        m.add("apricot", " an orange fruit ");
+        m.add("banana", " a yellow fruit, not red ");
+        return m;
+    }
+
+    /**
+     * Routine: Tests that terms are chunked in order and the index lists the
+     * first term of every chunk.
+     */
+    @Test
+    public void routineTermChunks() {
+        Map<String, String> m = glossary();
+        MemorySink sink = new MemorySink();
+        int n = new SearchIndexWriter(2, false).write(GlossaryEntry.entries(
+                List.of("apple", "apricot", "banana"), m),
+                SeparatorTable.DEFAULT, sink);
+        assertEquals(3, n);
+        assertEquals("[\n\"apple\",\n\"apricot\"]\n",
+                file(sink, "search-terms-0.json"));
+        assertEquals("[\n\"banana\"]\n", file(sink, "search-terms-1.json"));
+        assertEquals("{\"chunkSize\":2,\"terms\":3,"
+                + "\"termsChunks\":[\"apple\",\"banana\"]}\n",
+                file(sink, SearchIndexWriter.INDEX_NAME));
+        assertNull(sink.page("search-words-0.json"));
+        assertNotNull(sink.page("search.js"));
+        assertNotNull(sink.page("search.html"));
+    }
+
+    /**
+     * Routine: Tests that the inverted index maps each lower-cased word to
+     * the ids of the terms using it, once each.
+     */
+    @Test
+    public void routineWordPostings() {
+        Map<String, String> m = glossary();
+        MemorySink sink = new MemorySink();
+        new SearchIndexWriter(100, true).write(GlossaryEntry.entries(
+                List.of("apple", "apricot", "banana"), m),
+                SeparatorTable.DEFAULT, sink);
+        String words = file(sink, "search-words-0.json");
+        assertTrue(words.contains("[\"fruit\",0,1,2]"));
+        assertTrue(words.contains("[\"red\",0,2]"));
+        assertTrue(words.contains("[\"a\",0,2]"));
+        assertTrue(file(sink, SearchIndexWriter.INDEX_NAME)
+                .contains("\"wordsChunks\":[\"a\"]"));
+    }
+
+    /**
+     * Edge: Tests an empty glossary.
+     */
+    @Test
+    public void edgeEmpty() {
+        MemorySink sink = new MemorySink();
+        new SearchIndexWriter(2, true).write(
+                GlossaryEntry.entries(List.of(), new Map1L<>()),
+                SeparatorTable.DEFAULT, sink);
+        assertEquals("{\"chunkSize\":2,\"terms\":0,\"termsChunks\":[],"
+                + "\"wordsChunks\":[]}\n",
+                file(sink, SearchIndexWriter.INDEX_NAME));
+        assertNull(sink.page("search-terms-0.json"));
+    }
+
+    /**
+     * Challenging: Tests that quotes, backslashes and control characters are
+     * escaped.
+     */
+    @Test
+    public void challengingQuote() {
+        PageBuffer out = PageBuffer.forThread();
+        SearchIndexWriter.quote(out, "a\"b\\c\td");
+        byte[] bytes = new byte[out.length()];
+        out.bytes().get(bytes);
+        assertEquals("\"a\\\"b\\\\c\\u0009d\"",
+                new String(bytes, StandardCharsets.UTF_8));
+    }
+
+}
@@ -0,0 +1,84 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Tests for the SeparatorTable and TokenCursor classes.
+ *
+ * @author Yakob Getu
+ */
+public class SeparatorTableTest {
+
+    /**
+     * Routine: Tests looking up ASCII separators.
+     */
+    @Test
+    public void routineContainsAscii() {
+        SeparatorTable table = SeparatorTable.of(" \t,.~");
+        assertTrue(table.contains(' '));
+        assertTrue(table.contains('\t'));
+        assertTrue(table.contains('~'));
+        assertFalse(table.contains('a'));
+        assertFalse(table.contains('\n'));
+    }
+
+    /**
+     * Challenging: Tests looking up separators outside ASCII.
+     */
+    @Test
+    public void testContainsNonAscii() {
+        SeparatorTable table = SeparatorTable.of(" \u00a0\u3001");
+        assertTrue(table.contains('\u00a0'));
+        assertTrue(table.contains('\u3001'));
+        assertFalse(table.contains('\u00e9'));
+    }
+
+    /**
+     * Routine: Tests the ends of words and separator strings.
+     */
+    @Test
+    public void routineTokenEnd() {
+        SeparatorTable table = SeparatorTable.DEFAULT;
+        String text = "Hello, world.";
+        assertEquals(5, table.tokenEnd(text, 0));
+        assertEquals(7, table.tokenEnd(text, 5));
+        assertEquals(12, table.tokenEnd(text, 7));
+        assertEquals(13, table.tokenEnd(text, 12));
+        assertEquals(13, table.tokenEnd(text, 13));
+    }
+
+    /**
+     * Routine: Tests walking every token of a text with a cursor.
+     */
+    @Test
+    public void routineCursorWalksTokens() {
+        String text = " a list, of terms ";
+        TokenCursor cursor = new TokenCursor(SeparatorTable.DEFAULT);
+        cursor.reset(text, 0);
+        StringBuilder tokens = new StringBuilder();
+        int words = 0;
+        while (cursor.next()) {
+            tokens.append('[').append(text, cursor.start(), cursor.end())
+                    .append(']');
+            if (!cursor.isSeparator()) {
+                words++;
+            }
+        }
+        assertEquals("[ ][a][ ][list][, ][of][ ][terms][ ]",
+                tokens.toString());
+        assertEquals(4, words);
+    }
+
+    /**
+     * Edge: Tests a cursor over an empty text.
+     */
+    @Test
+    public void edgeCursorEmptyText() {
+        TokenCursor cursor = new TokenCursor(SeparatorTable.DEFAULT);
+        cursor.reset("", 0);
+        assertFalse(cursor.next());
+    }
+
+}
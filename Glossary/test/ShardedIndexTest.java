@@ -0,0 +1,162 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import org.junit.Test;
+
+import components.map.Map;
+import components.map.Map1L;
+import components.queue.Queue;
+import components.queue.Queue1L;
+
+/**
+ * Tests for the ShardedIndex class.
+ *
+ * @author Yakob Getu
+ */
+public class ShardedIndexTest {
+
+    /**
+     * Folder the incremental build writes to.
+     */
+    private static final String SHARD_DIRECTORY = "test_shards";
+
+    /**
+     * Returns the text of page {@code name} of {@code sink}.
+     *
+     * @param sink
+     *            the sink
+     * @param name
+     *            the page name
+     * @return the page text
+     */
+    private static String page(MemorySink sink, String name) {
+        return new String(sink.page(name), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Routine: Tests fixed-size shards and the navigation index linking to
+     * them.
+     */
+    @Test
+    public void routineFixedSizeShards() {
+        MemorySink sink = new MemorySink();
+        int shards = new ShardedIndex("2").write(
+                List.of("a", "b", "c", "d", "e"), PageTemplates.DEFAULT, sink);
+        assertEquals(3, shards);
+        assertEquals(4, sink.names().size());
+        String index = page(sink, "index.html");
+        assertTrue(index.contains(
+                "<li><a href=\"index-1.html\">a - b</a></li>\n"));
+        assertTrue(index.contains("<li><a href=\"index-3.html\">e</a></li>\n"));
+        String second = page(sink, "index-2.html");
+        assertTrue(second.contains("<li><a href=\"c.html\">c</a></li>\n"));
+        assertTrue(second.contains("<li><a href=\"d.html\">d</a></li>\n"));
+        assertFalse(second.contains("e.html"));
+    }
+
+    /**
+     * Routine: Tests shards by first character.
+     */
+    @Test
+    public void routineLetterShards() {
+        MemorySink sink = new MemorySink();
+        int shards = new ShardedIndex(ShardedIndex.BY_LETTER).write(
+                List.of("apple", "avocado", "banana", "cherry", "cress"),
+                PageTemplates.DEFAULT, sink);
+        assertEquals(3, shards);
+        assertTrue(page(sink, "index.html")
+                .contains("<li><a href=\"index-3.html\">c</a></li>\n"));
+        assertTrue(page(sink, "index-1.html").contains("avocado.html"));
+        assertTrue(page(sink, "index-3.html").contains("<h2>Glossary: c</h2>"));
+    }
+
+    /**
+     * Routine: Tests that shards by letter of terms in dictionary order hold
+     * every case and accent of a letter, with one label per letter.
+     */
+    @Test
+    public void routineCollatedLetterShards() {
+        List<String> terms = new ArrayList<>(List.of("Bob", "apricot",
+                "\u00c1rbol", "banana", "Apple", "apple"));
+        terms.sort(new CollationComparator(Locale.ENGLISH));
+        MemorySink sink = new MemorySink();
+        int shards = new ShardedIndex(ShardedIndex.BY_LETTER, Locale.ENGLISH)
+                .write(terms, PageTemplates.DEFAULT, sink);
+        assertEquals(2, shards);
+        String index = page(sink, "index.html");
+        assertTrue(index.contains("<li><a href=\"index-1.html\">a</a></li>\n"
+                + "<li><a href=\"index-2.html\">b</a></li>\n"));
+        String first = page(sink, "index-1.html");
+        for (String term : List.of("apple", "Apple", "apricot",
+                "\u00c1rbol")) {
+            assertTrue(term, first.contains(">" + term + "</a>"));
+        }
+        assertTrue(page(sink, "index-2.html").contains(">Bob</a>"));
+    }
+
+    /**
+     * Edge: Tests that an empty glossary still gets a navigation index.
+     */
+    @Test
+    public void edgeNoTerms() {
+        MemorySink sink = new MemorySink();
+        assertEquals(0, new ShardedIndex("10").write(List.of(),
+                PageTemplates.DEFAULT, sink));
+        assertEquals(1, sink.names().size());
+    }
+
+    /**
+     * Challenging: Tests that an invalid shard mode is rejected.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void challengingRejectsBadMode() {
+        new ShardedIndex("0");
+    }
+
+    /**
+     * Challenging: Tests that an incremental build with fewer shards deletes
+     * the shards left over from the previous build.
+     *
+     * @throws IOException
+     *             if the folder cannot be created.
+     */
+    @Test
+    public void challengingIncrementalDeletesStaleShards() throws IOException {
+        Files.createDirectories(Paths.get(SHARD_DIRECTORY));
+        try {
+            Map<String, String> m = new Map1L<>();
+            Queue<String> terms = new Queue1L<>();
+            for (String term : new String[] { "a", "b", "c" }) {
+                m.add(term, " letter " + term + " ");
+                terms.enqueue(term);
+            }
+            TermLinker linker = TermLinker.forGlossary(m);
+            IncrementalBuilder.build(terms, m, SHARD_DIRECTORY, linker,
+                    GlossaryOptions.parse(new String[] { "", SHARD_DIRECTORY,
+                            "-indexShards", "1" }));
+            assertTrue(new File(SHARD_DIRECTORY, "index-3.html").exists());
+            IncrementalBuilder.build(terms, m, SHARD_DIRECTORY, linker,
+                    GlossaryOptions.parse(new String[] { "", SHARD_DIRECTORY,
+                            "-indexShards", "2" }));
+            assertTrue(new File(SHARD_DIRECTORY, "index-2.html").exists());
+            assertFalse(new File(SHARD_DIRECTORY, "index-3.html").exists());
+        } finally {
+            File folder = new File(SHARD_DIRECTORY);
+            for (File file : folder.listFiles()) {
+                file.delete();
+            }
+            folder.delete();
+        }
+    }
+
+}
@@ -0,0 +1,115 @@
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+/**
+ * Tests for the TermLinker class.
+ *
+ * @author Yakob Getu
+ */
+public class TermLinkerTest {
+
+    /**
+     * Builds a linker for {@code terms} with the default separators.
+     *
+     * @param terms
+     *            the glossary terms
+     * @return the linker
+     */
+    private static TermLinker linker(String... terms) {
+        return new TermLinker(Arrays.asList(terms),
+                TermLinker.DEFAULT_SEPARATORS);
+    }
+
+    /**
+     * Routine: Tests matching a single-word term.
+     */
+    @Test
+    public void routineMatchSingleWord() {
+        TermLinker linker = linker("book", "term");
+        final int bookEnd = 13;
+        String text = "end of a book.";
+        assertEquals(bookEnd, linker.match(text, text.indexOf("book")));
+        assertEquals(-1, linker.match(text, 0));
+    }
+
+    /**
+     * Challenging: Tests that the longest multi-word term wins over a shorter
+     * one with the same start.
+     */
+    @Test
+    public void testMatchLongestMultiWord() {
+        TermLinker linker = linker("specialized", "specialized terms",
+                "terms");
+        String text = " difficult or specialized terms, with";
+        int start = text.indexOf("specialized");
+        assertEquals(text.indexOf(','), linker.match(text, start));
+    }
+
+    /**
+     * Challenging: Tests that a term must end at the end of a word.
+     */
+    @Test
+    public void testMatchRespectsWordEnd() {
+        TermLinker linker = linker("term");
+        assertEquals(-1, linker.match("terms of use", 0));
+        assertEquals(-1, linker.match("a term", 3));
+        assertEquals(6, linker.match("a term", 2));
+    }
+
+    /**
+     * Edge: Tests that a term must start at the start of a word.
+     */
+    @Test
+    public void edgeMatchRespectsWordStart() {
+        TermLinker linker = linker("book");
+        assertEquals(-1, linker.match("notebook", 4));
+    }
+
+    /**
+     * Edge: Tests duplicate and many terms.
+     */
+    @Test
+    public void edgeManyTerms() {
+        final int count = 5000;
+        String[] terms = new String[count + 1];
+        for (int i = 0; i < count; i++) {
+            terms[i] = "t" + i;
+        }
+        terms[count] = "t0";
+        TermLinker linker = linker(terms);
+        assertEquals(count, linker.termCount());
+        assertEquals(5, linker.match("t4999", 0));
+        assertEquals(-1, linker.match("t5000", 0));
+    }
+
+    /**
+     * Challenging: Tests that terms are numbered in the order first given,
+     * with prefixes of terms and repeats not numbered.
+     */
+    @Test
+    public void challengingNumber() {
+        TermLinker linker = linker("specialized terms", "book", "specialized",
+                "book");
+        String text = "a book of specialized terms";
+        assertEquals(1, linker.number(text, 2, 6));
+        assertEquals(0, linker.number(text, 10, text.length()));
+        assertEquals(2, linker.number(text, 10, 21));
+        assertEquals(-1, linker.number(text, 10, 15));
+        assertEquals(-1, linker.number(text, 0, 1));
+        assertEquals(-1, linker.number(text, 2, 2));
+    }
+
+    /**
+     * Routine: Tests links to single and multi-word terms.
+     */
+    @Test
+    public void routineHref() {
+        assertEquals("book.html", TermLinker.href("book"));
+        assertEquals("specialized%20terms.html",
+                TermLinker.href("specialized terms"));
+    }
+
+}
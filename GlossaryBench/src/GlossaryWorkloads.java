@@ -0,0 +1,172 @@
+import java.util.Comparator;
+import java.util.Locale;
+
+import org.openjdk.jmh.infra.Blackhole;
+
+import bench.Workloads;
+import components.map.Map;
+import components.queue.Queue;
+import components.set.Set;
+import components.set.Set1L;
+
+/**
+ * The generator code the benchmarks in {@code bench} measure. It sits in the
+ * default package with the generator, which the benchmarks cannot import,
+ * and is loaded by {@link Workloads#load}.
+ *
+ * @author Yakob Getu
+ *
+ */
+public final class GlossaryWorkloads implements Workloads {
+
+    /**
+     * Operations on one glossary.
+     */
+    private static final class Glossary implements Workloads.Glossary {
+
+        /**
+         * The terms and definitions.
+         */
+        private final Map<String, String> map;
+
+        /**
+         * The linker for the terms of the map.
+         */
+        private final TermLinker linker;
+
+        /**
+         * The separators between words in definitions.
+         */
+        private final Set<Character> separators = new Set1L<>();
+
+        /**
+         * A cursor over definitions, reused by every operation.
+         */
+        private final TokenCursor cursor = new TokenCursor(
+                SeparatorTable.DEFAULT);
+
+        /**
+         * A sink keeping pages in memory, to measure rendering alone.
+         */
+        private final MemorySink memory = new MemorySink();
+
+        /**
+         * Builds the linker and separators of the glossary {@code m}.
+         *
+         * @param m
+         *            the terms and definitions
+         */
+        Glossary(Map<String, String> m) {
+            this.map = m;
+            this.linker = TermLinker.forGlossary(m);
+            GlossaryClass.generateAndAddElements(
+                    TermLinker.DEFAULT_SEPARATORS, this.separators);
+        }
+
+        @Override
+        public int linkTerms(String definition) {
+            int links = 0;
+            int position = 0;
+            while (position < definition.length() - 1) {
+                int end = this.linker.match(definition, position);
+                if (end > 0) {
+                    links++;
+                    position = end;
+                } else {
+                    position++;
+                }
+            }
+            return links;
+        }
+
+        @Override
+        public int linkKeys(String definition) {
+            int links = 0;
+            int position = 0;
+            while (position < definition.length() - 1) {
+                String token = GlossaryClass.findNextWordOrSeparator(
+                        definition, position, this.separators);
+                if (this.map.hasKey(token)) {
+                    links++;
+                }
+                position += token.length();
+            }
+            return links;
+        }
+
+        @Override
+        public void tokenize(String definition, Blackhole sink) {
+            int position = 0;
+            while (position < definition.length() - 1) {
+                String token = GlossaryClass.findNextWordOrSeparator(
+                        definition, position, this.separators);
+                sink.consume(token);
+                position += token.length();
+            }
+        }
+
+        @Override
+        public void tokenCursor(String definition, Blackhole sink) {
+            this.cursor.reset(definition, 0);
+            while (this.cursor.next()) {
+                sink.consume(this.cursor.start());
+                sink.consume(this.cursor.end());
+            }
+        }
+
+        @Override
+        public void generatePage(String term, String folder) {
+            GlossaryClass.generatePage(term, this.map, folder, this.linker);
+        }
+
+        @Override
+        public void renderPage(String term) {
+            GlossaryClass.generatePage(term, this.map.value(term),
+                    this.linker, this.memory);
+        }
+
+    }
+
+    @Override
+    public Comparator<String> stringOrder() {
+        return new GlossaryClass.StringComparator();
+    }
+
+    @Override
+    public void sortQueue(Queue<String> q, Comparator<String> order) {
+        GlossaryClass.sortQueue(q, order);
+    }
+
+    @Override
+    public void collatedSortQueue(Queue<String> q, Locale locale) {
+        GlossaryClass.sortQueueByKeys(q, new CollationComparator(locale));
+    }
+
+    @Override
+    public void selectionSortQueue(Queue<String> q,
+            Comparator<String> order) {
+        GlossaryClass.selectionSortQueue(q, order);
+    }
+
+    @Override
+    public Workloads.Glossary glossary(Map<String, String> m) {
+        return new Glossary(m);
+    }
+
+    @Override
+    public void generateIndexPage(Queue<String> terms, String folder) {
+        GlossaryClass.generateIndexPage(terms, folder);
+    }
+
+    @Override
+    public void generateTerms(int size, String fileName) {
+        new GlossaryGenerator(size).write(fileName);
+    }
+
+    @Override
+    public long build(String[] args) {
+        return GlossaryClass.build(GlossaryOptions.parse(args), line -> {
+        }).pages();
+    }
+
+}
@@ -0,0 +1,222 @@
+package bench;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compares two JMH result files written with {@code -rf csv} and reports the
+ * change of every score, including the GC profiler's allocation metrics. A
+ * change is flagged when it is worse than the threshold and larger than the
+ * combined error of both runs.
+ *
+ * @author Yakob Getu
+ *
+ */
+public final class BenchmarkComparison {
+
+    /**
+     * Private constructor so this utility class cannot be instantiated.
+     */
+    private BenchmarkComparison() {
+    }
+
+    /**
+     * Relative change, in percent, below which differences are noise.
+     */
+    private static final double THRESHOLD_PERCENT = 5.0;
+
+    /**
+     * One row of a JMH result file.
+     */
+    private static final class Score {
+
+        /**
+         * The score.
+         */
+        private final double value;
+
+        /**
+         * The error of the score.
+         */
+        private final double error;
+
+        /**
+         * The unit of the score, such as ops/s or ms/op.
+         */
+        private final String unit;
+
+        /**
+         * Creates a score.
+         *
+         * @param value
+         *            the score
+         * @param error
+         *            its error
+         * @param unit
+         *            its unit
+         */
+        Score(double value, double error, String unit) {
+            this.value = value;
+            this.error = error;
+            this.unit = unit;
+        }
+    }
+
+    /**
+     * Splits one CSV line into fields, removing quotes.
+     *
+     * @param line
+     *            the line
+     * @return the fields
+     */
+    private static List<String> fields(String line) {
+        List<String> result = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == '"') {
+                quoted = !quoted;
+            } else if (c == ',' && !quoted) {
+                result.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        result.add(field.toString());
+        return result;
+    }
+
+    /**
+     * Parses a number that JMH may have written as NaN or left empty.
+     *
+     * @param text
+     *            the number
+     * @return the value, or NaN
+     */
+    private static double number(String text) {
+        double result = Double.NaN;
+        if (!text.isEmpty()) {
+            try {
+                result = Double.parseDouble(text);
+            } catch (NumberFormatException e) {
+                result = Double.NaN;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Reads the scores of a JMH CSV result file, keyed by benchmark name and
+     * parameter values.
+     *
+     * @param fileName
+     *            the result file
+     * @return the scores in file order
+     * @throws UncheckedIOException
+     *             if the file cannot be read
+     */
+    static Map<String, Score> read(String fileName) {
+        final int scoreColumn = 4;
+        final int errorColumn = 5;
+        final int unitColumn = 6;
+        final int firstParamColumn = 7;
+        List<String> lines;
+        try {
+            lines = Files.readAllLines(Paths.get(fileName),
+                    StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        Map<String, Score> scores = new LinkedHashMap<>();
+        List<String> header = fields(lines.get(0));
+        for (String line : lines.subList(1, lines.size())) {
+            List<String> row = fields(line);
+            StringBuilder key = new StringBuilder(row.get(0));
+            for (int i = firstParamColumn; i < row.size(); i++) {
+                if (!row.get(i).isEmpty()) {
+                    key.append(' ')
+                            .append(header.get(i).replace("Param: ", ""))
+                            .append('=').append(row.get(i));
+                }
+            }
+            scores.put(key.toString(),
+                    new Score(number(row.get(scoreColumn)),
+                            number(row.get(errorColumn)),
+                            row.get(unitColumn)));
+        }
+        return scores;
+    }
+
+    /**
+     * Prints how every score of {@code current} changed from
+     * {@code baseline}.
+     *
+     * @param baselineFile
+     *            the JMH CSV result file of the baseline run
+     * @param currentFile
+     *            the JMH CSV result file of the run being judged
+     * @return the number of regressions found
+     */
+    public static int compare(String baselineFile, String currentFile) {
+        final double percent = 100.0;
+        Map<String, Score> baseline = read(baselineFile);
+        Map<String, Score> current = read(currentFile);
+        int regressions = 0;
+        System.out.printf("%-70s %14s %14s %9s%n", "benchmark", "baseline",
+                "current", "change");
+        for (Map.Entry<String, Score> entry : current.entrySet()) {
+            Score now = entry.getValue();
+            Score before = baseline.get(entry.getKey());
+            if (before == null) {
+                System.out.printf("%-70s %14s %14.3f %9s %s%n",
+                        entry.getKey(), "-", now.value, "new", now.unit);
+            } else {
+                double change = (now.value - before.value) / before.value
+                        * percent;
+                // Throughput is better higher; times and allocation lower
+                boolean higherIsBetter = now.unit.startsWith("ops/");
+                double worse = higherIsBetter ? -change : change;
+                double noise = Math.abs(now.value - before.value);
+                boolean significant = noise > now.error + before.error
+                        || Double.isNaN(now.error + before.error);
+                String verdict = "";
+                if (worse > THRESHOLD_PERCENT && significant) {
+                    verdict = "REGRESSION";
+                    regressions++;
+                } else if (-worse > THRESHOLD_PERCENT && significant) {
+                    verdict = "improved";
+                }
+                System.out.printf("%-70s %14.3f %14.3f %+8.1f%% %s %s%n",
+                        entry.getKey(), before.value, now.value, change,
+                        now.unit, verdict);
+            }
+        }
+        return regressions;
+    }
+
+    /**
+     * Main method.
+     *
+     * @param args
+     *            the baseline and current JMH CSV result files
+     */
+    public static void main(String[] args) {
+        if (args.length != 2) {
+            System.out.println(
+                    "usage: BenchmarkComparison <baseline.csv> <current.csv>");
+        } else {
+            int regressions = compare(args[0], args[1]);
+            System.out.println(regressions + " regression(s)");
+        }
+    }
+
+}
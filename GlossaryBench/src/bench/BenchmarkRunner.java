@@ -0,0 +1,58 @@
+package bench;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs every glossary benchmark with the GC profiler, so each score comes
+ * with its allocation rate, and writes the results as CSV. When a baseline
+ * result file is given, the new results are compared against it.
+ *
+ * @author Yakob Getu
+ *
+ */
+public final class BenchmarkRunner {
+
+    /**
+     * Private constructor so this utility class cannot be instantiated.
+     */
+    private BenchmarkRunner() {
+    }
+
+    /**
+     * Main method.
+     *
+     * @param args
+     *            the result file to write, then optionally a baseline result
+     *            file to compare with, then optionally the benchmark sizes to
+     *            run instead of all of them
+     * @throws RunnerException
+     *             if a benchmark fails
+     */
+    public static void main(String[] args) throws RunnerException {
+        if (args.length < 1) {
+            System.out.println("usage: BenchmarkRunner <results.csv> "
+                    + "[baseline.csv] [size...]");
+            return;
+        }
+        ChainedOptionsBuilder options = new OptionsBuilder()
+                .include("Benchmark\\.").addProfiler(GCProfiler.class)
+                .resultFormat(ResultFormatType.CSV).result(args[0]);
+        if (args.length > 2) {
+            String[] sizes = new String[args.length - 2];
+            System.arraycopy(args, 2, sizes, 0, sizes.length);
+            options = options.param("size", sizes);
+        }
+        new Runner(options.build()).run();
+        if (args.length > 1) {
+            int regressions = BenchmarkComparison.compare(args[1], args[0]);
+            System.out.println(regressions + " regression(s) against "
+                    + args[1]);
+        }
+    }
+
+}
@@ -0,0 +1,108 @@
+package bench;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import components.map.Map;
+
+/**
+ * Benchmark state shared by the tokenize, link and page benchmarks: a
+ * synthetic glossary at each benchmark size, the generator's operations on
+ * it, and a cursor that walks round its terms so each operation works on the
+ * next definition.
+ *
+ * @author Yakob Getu
+ *
+ */
+@State(Scope.Thread)
+public class GlossaryState {
+
+    /**
+     * Number of terms in the glossary.
+     */
+    @Param({ "1000", "100000", "1000000" })
+    public int size;
+
+    /**
+     * The terms, in shuffled order.
+     */
+    private String[] terms;
+
+    /**
+     * The map containing all the terms and definitions.
+     */
+    private Map<String, String> map;
+
+    /**
+     * The generator's operations on the map.
+     */
+    private Workloads.Glossary glossary;
+
+    /**
+     * Index of the next term to work on.
+     */
+    private int next;
+
+    /**
+     * Builds the glossary, its linker and its tokenizers.
+     */
+    @Setup(Level.Trial)
+    public void createGlossary() {
+        SyntheticGlossary synthetic = new SyntheticGlossary(this.size);
+        this.terms = synthetic.terms();
+        this.map = synthetic.map();
+        this.glossary = Workloads.load().glossary(this.map);
+    }
+
+    /**
+     * Returns the next term, wrapping round after the last one.
+     *
+     * @return the term
+     */
+    public String nextTerm() {
+        String term = this.terms[this.next];
+        this.next = (this.next + 1) % this.terms.length;
+        return term;
+    }
+
+    /**
+     * Returns the terms, in shuffled order.
+     *
+     * @return the terms
+     */
+    public String[] terms() {
+        return this.terms;
+    }
+
+    /**
+     * Returns the map containing all the terms and definitions.
+     *
+     * @return the glossary map
+     */
+    public Map<String, String> map() {
+        return this.map;
+    }
+
+    /**
+     * Returns the definition of the next term, wrapping round after the last
+     * one.
+     *
+     * @return the definition
+     */
+    public String nextDefinition() {
+        return this.map.value(this.nextTerm());
+    }
+
+    /**
+     * Returns the generator's operations on the map.
+     *
+     * @return the operations
+     */
+    public Workloads.Glossary glossary() {
+        return this.glossary;
+    }
+
+}
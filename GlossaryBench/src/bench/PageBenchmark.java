@@ -0,0 +1,130 @@
+package bench;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import components.queue.Queue;
+import components.queue.Queue1L;
+
+/**
+ * Measures rendering and writing term pages with
+ * {@code GlossaryClass.generatePage} and the index page with
+ * {@code GlossaryClass.generateIndexPage}.
+ *
+ * @author Yakob Getu
+ *
+ */
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class PageBenchmark {
+
+    /**
+     * The generator's page writers.
+     */
+    private static final Workloads WORKLOADS = Workloads.load();
+
+    /**
+     * A scratch output folder and the sorted terms for the index.
+     */
+    @State(Scope.Thread)
+    public static class Output {
+
+        /**
+         * The scratch output folder.
+         */
+        private File folder;
+
+        /**
+         * The sorted terms.
+         */
+        private final Queue<String> sorted = new Queue1L<>();
+
+        /**
+         * Creates the output folder and sorts the terms.
+         *
+         * @param glossary
+         *            the glossary being rendered
+         * @throws IOException
+         *             if the folder cannot be created
+         */
+        @Setup(Level.Trial)
+        public void createFolder(GlossaryState glossary) throws IOException {
+            this.folder = Files.createTempDirectory("glossary-bench").toFile();
+            for (String term : glossary.terms()) {
+                this.sorted.enqueue(term);
+            }
+            WORKLOADS.sortQueue(this.sorted, WORKLOADS.stringOrder());
+        }
+
+        /**
+         * Deletes the output folder.
+         */
+        @TearDown(Level.Trial)
+        public void deleteFolder() {
+            for (File file : this.folder.listFiles()) {
+                file.delete();
+            }
+            this.folder.delete();
+        }
+    }
+
+    /**
+     * Renders and writes the page of the next term.
+     *
+     * @param glossary
+     *            the glossary being rendered
+     * @param output
+     *            the output folder
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public void generatePage(GlossaryState glossary, Output output) {
+        glossary.glossary().generatePage(glossary.nextTerm(),
+                output.folder.getPath());
+    }
+
+    /**
+     * Renders the page of the next term into memory, without touching the
+     * file system.
+     *
+     * @param glossary
+     *            the glossary being rendered
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public void renderPage(GlossaryState glossary) {
+        glossary.glossary().renderPage(glossary.nextTerm());
+    }
+
+    /**
+     * Renders and writes the index page of every term.
+     *
+     * @param output
+     *            the output folder and sorted terms
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public void generateIndexPage(Output output) {
+        WORKLOADS.generateIndexPage(output.sorted, output.folder.getPath());
+    }
+
+}
@@ -0,0 +1,241 @@
+package bench;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Runs the full build on generated glossaries of increasing size and records
+ * how its time and peak heap grow, so quadratic work, such as a selection
+ * sort or a definition built by repeated concatenation, shows up long before
+ * a glossary large enough to hang is built. Each size is built once, after
+ * a warm-up build of the smallest size, into a fresh output folder that is
+ * deleted afterwards; the terms files and a metrics report per size are kept
+ * in the work folder so a slow size can be built again by hand.
+ *
+ * <p>
+ * Between two sizes the growth exponent is log(t2 / t1) / log(n2 / n1): 1
+ * for linear work, about 1.1 for n log n over a factor of ten, and 2 for
+ * quadratic work. Steps growing faster than {@link #SUPERLINEAR} are
+ * flagged.
+ *
+ * @author Yakob Getu
+ *
+ */
+public final class ScaleHarness {
+
+    /**
+     * Growth exponent above which a step is flagged.
+     */
+    private static final double SUPERLINEAR = 1.5;
+
+    /**
+     * Sizes built when none are given.
+     */
+    private static final int[] DEFAULT_SIZES = { 1000, 10000, 100000,
+            1000000 };
+
+    /**
+     * Nanoseconds per millisecond.
+     */
+    private static final double NANOS_PER_MILLI = 1e6;
+
+    /**
+     * The generator and build.
+     */
+    private static final Workloads WORKLOADS = Workloads.load();
+
+    /**
+     * Private constructor so this utility class cannot be instantiated.
+     */
+    private ScaleHarness() {
+    }
+
+    /**
+     * Clears the peak use of every heap memory pool.
+     */
+    private static void resetPeakHeap() {
+        for (MemoryPoolMXBean pool : ManagementFactory
+                .getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                pool.resetPeakUsage();
+            }
+        }
+    }
+
+    /**
+     * Returns the highest heap use since the peaks were last cleared.
+     *
+     * @return the peak heap in bytes
+     */
+    private static long peakHeap() {
+        long result = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory
+                .getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP
+                    && pool.getPeakUsage() != null) {
+                result += pool.getPeakUsage().getUsed();
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Deletes {@code file} and, if it is a folder, everything in it.
+     *
+     * @param file
+     *            the file or folder
+     */
+    private static void delete(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+
+    /**
+     * Returns the growth exponent between two measurements.
+     *
+     * @param n1
+     *            the smaller size
+     * @param v1
+     *            the measurement at {@code n1}
+     * @param n2
+     *            the larger size
+     * @param v2
+     *            the measurement at {@code n2}
+     * @return log(v2 / v1) / log(n2 / n1)
+     */
+    private static double exponent(int n1, double v1, int n2, double v2) {
+        return Math.log(v2 / v1) / Math.log((double) n2 / n1);
+    }
+
+    /**
+     * Generates a glossary of {@code size} terms in {@code work} and builds
+     * it with {@code flags}.
+     *
+     * @param work
+     *            the work folder
+     * @param size
+     *            the number of terms
+     * @param flags
+     *            build flags after the input file and output folder
+     * @return the build time in nanoseconds, the peak heap in bytes and the
+     *         number of pages written
+     */
+    private static long[] measure(String work, int size, List<String> flags) {
+        String terms = Paths.get(work, "terms-" + size + ".txt").toString();
+        String output = Paths.get(work, "out-" + size).toString();
+        if (!new File(terms).exists()) {
+            WORKLOADS.generateTerms(size, terms);
+        }
+        File folder = new File(output);
+        delete(folder);
+        folder.mkdirs();
+
+        List<String> args = new ArrayList<>(List.of(terms, output,
+                "-metrics",
+                Paths.get(work, "metrics-" + size + ".json").toString()));
+        args.addAll(flags);
+        String[] options = args.toArray(new String[0]);
+        System.gc();
+        resetPeakHeap();
+        long start = System.nanoTime();
+        long pages = WORKLOADS.build(options);
+        long nanos = System.nanoTime() - start;
+        long heap = peakHeap();
+        delete(folder);
+        return new long[] { nanos, heap, pages };
+    }
+
+    /**
+     * Main method.
+     *
+     * @param args
+     *            the work folder, the results file, then optionally the sizes
+     *            to build, then optionally {@code --} and build flags
+     * @throws IOException
+     *             if the work folder or results file cannot be written
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.out.println("usage: ScaleHarness <work folder> "
+                    + "<results.csv> [size...] [-- build flag...]");
+            return;
+        }
+        List<String> flags = new ArrayList<>();
+        List<Integer> sizes = new ArrayList<>();
+        int i = 2;
+        while (i < args.length && !args[i].equals("--")) {
+            sizes.add(Integer.parseInt(args[i]));
+            i++;
+        }
+        flags.addAll(Arrays.asList(args).subList(Math.min(i + 1, args.length),
+                args.length));
+        if (sizes.isEmpty()) {
+            for (int size : DEFAULT_SIZES) {
+                sizes.add(size);
+            }
+        }
+        sizes.sort(null);
+        Files.createDirectories(Paths.get(args[0]));
+
+        // Warm up so the smallest size is not timed in the interpreter
+        measure(args[0], sizes.get(0), flags);
+
+        int flagged = 0;
+        try (PrintWriter csv = new PrintWriter(Files.newBufferedWriter(
+                Paths.get(args[1]), StandardCharsets.UTF_8))) {
+            csv.println("terms,millis,peakHeapBytes,pages,nanosPerTerm,"
+                    + "timeExponent,heapExponent");
+            long[] previous = null;
+            int previousSize = 0;
+            for (int size : sizes) {
+                long[] result = measure(args[0], size, flags);
+                String timeExponent = "";
+                String heapExponent = "";
+                if (previous != null && size > previousSize) {
+                    double time = exponent(previousSize, previous[0], size,
+                            result[0]);
+                    double heap = exponent(previousSize, previous[1], size,
+                            result[1]);
+                    timeExponent = String.format(Locale.ROOT, "%.2f", time);
+                    heapExponent = String.format(Locale.ROOT, "%.2f", heap);
+                    if (time > SUPERLINEAR || heap > SUPERLINEAR) {
+                        flagged++;
+                        System.out.println("Superlinear growth from "
+                                + previousSize + " to " + size
+                                + " terms: time n^" + timeExponent
+                                + ", heap n^" + heapExponent);
+                    }
+                }
+                String line = String.format(Locale.ROOT,
+                        "%d,%.3f,%d,%d,%.1f,%s,%s", size,
+                        result[0] / NANOS_PER_MILLI, result[1], result[2],
+                        (double) result[0] / size, timeExponent,
+                        heapExponent);
+                csv.println(line);
+                csv.flush();
+                System.out.println(line);
+                previous = result;
+                previousSize = size;
+            }
+        }
+        System.out.println(flagged + " superlinear step(s) over n^"
+                + SUPERLINEAR);
+    }
+
+}
@@ -0,0 +1,188 @@
+package bench;
+
+import java.text.Collator;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import components.queue.Queue;
+import components.queue.Queue1L;
+
+/**
+ * Measures {@code GlossaryClass.sortQueue}, and the original selection sort
+ * it replaced as a baseline at the one size where that still finishes. The
+ * locale-aware sort on precomputed collation keys is measured against both
+ * code unit order and a {@link Collator} compared on every comparison.
+ *
+ * @author Yakob Getu
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class SortQueueBenchmark {
+
+    /**
+     * The generator's sorts and orders.
+     */
+    private static final Workloads WORKLOADS = Workloads.load();
+
+    /**
+     * A queue of shuffled terms, refilled before every sort.
+     */
+    public abstract static class ShuffledQueue {
+
+        /**
+         * The shuffled terms.
+         */
+        private String[] shuffled;
+
+        /**
+         * The queue to sort.
+         */
+        private final Queue<String> queue = new Queue1L<>();
+
+        /**
+         * Builds a glossary of {@code size} terms.
+         *
+         * @param size
+         *            the number of terms
+         */
+        final void createGlossary(int size) {
+            this.shuffled = new SyntheticGlossary(size).terms();
+        }
+
+        /**
+         * Returns the queue to sort.
+         *
+         * @return the queue
+         */
+        final Queue<String> queue() {
+            return this.queue;
+        }
+
+        /**
+         * Refills the queue in shuffled order.
+         */
+        @Setup(Level.Invocation)
+        public void fillQueue() {
+            this.queue.clear();
+            for (String term : this.shuffled) {
+                this.queue.enqueue(term);
+            }
+        }
+    }
+
+    /**
+     * Shuffled terms at every benchmark size.
+     */
+    @State(Scope.Thread)
+    public static class Terms extends ShuffledQueue {
+
+        /**
+         * Number of terms in the glossary.
+         */
+        @Param({ "1000", "100000", "1000000" })
+        public int size;
+
+        /**
+         * Builds the glossary.
+         */
+        @Setup(Level.Trial)
+        public void setUp() {
+            this.createGlossary(this.size);
+        }
+    }
+
+    /**
+     * Shuffled terms at the one size the quadratic baseline can sort.
+     */
+    @State(Scope.Thread)
+    public static class SmallTerms extends ShuffledQueue {
+
+        /**
+         * Number of terms in the glossary.
+         */
+        @Param({ "1000" })
+        public int smallSize;
+
+        /**
+         * Builds the glossary.
+         */
+        @Setup(Level.Trial)
+        public void setUp() {
+            this.createGlossary(this.smallSize);
+        }
+    }
+
+    /**
+     * Sorts the queue with {@code sortQueue}.
+     *
+     * @param terms
+     *            the queue to sort
+     * @return the sorted queue
+     */
+    @Benchmark
+    public Queue<String> sortQueue(Terms terms) {
+        WORKLOADS.sortQueue(terms.queue(), WORKLOADS.stringOrder());
+        return terms.queue();
+    }
+
+    /**
+     * Sorts the queue with the original selection sort.
+     *
+     * @param terms
+     *            the queue to sort
+     * @return the sorted queue
+     */
+    @Benchmark
+    public Queue<String> selectionSortQueue(SmallTerms terms) {
+        WORKLOADS.selectionSortQueue(terms.queue(),
+                WORKLOADS.stringOrder());
+        return terms.queue();
+    }
+
+    /**
+     * Sorts the queue with {@code sortQueueByKeys} in English dictionary
+     * order, on precomputed collation keys.
+     *
+     * @param terms
+     *            the queue to sort
+     * @return the sorted queue
+     */
+    @Benchmark
+    public Queue<String> collatedSortQueue(Terms terms) {
+        WORKLOADS.collatedSortQueue(terms.queue(), Locale.ENGLISH);
+        return terms.queue();
+    }
+
+    /**
+     * Sorts the queue with {@code sortQueue} in English dictionary order,
+     * collating both terms on every comparison.
+     *
+     * @param terms
+     *            the queue to sort
+     * @return the sorted queue
+     */
+    @Benchmark
+    public Queue<String> collatorSortQueue(Terms terms) {
+        Collator collator = Collator.getInstance(Locale.ENGLISH);
+        WORKLOADS.sortQueue(terms.queue(), collator::compare);
+        return terms.queue();
+    }
+
+}
@@ -0,0 +1,99 @@
+package bench;
+
+import java.util.Random;
+
+import components.map.Map;
+import components.map.Map1L;
+
+/**
+ * A reproducible random glossary for benchmarks. Terms are "term0",
+ * "term1", ... in shuffled order, and every definition mixes plain words with
+ * references to other terms, separated by spaces and commas.
+ *
+ * @author Yakob Getu
+ *
+ */
+public final class SyntheticGlossary {
+
+    /**
+     * Number of words in each definition.
+     */
+    private static final int DEFINITION_WORDS = 12;
+
+    /**
+     * One in this many definition words is a glossary term.
+     */
+    private static final int TERM_EVERY = 4;
+
+    /**
+     * Seed for the random glossary, so every run measures the same input.
+     */
+    private static final long SEED = 42L;
+
+    /**
+     * The terms, in shuffled order.
+     */
+    private final String[] terms;
+
+    /**
+     * The map containing all the terms and definitions.
+     */
+    private final Map<String, String> map = new Map1L<>();
+
+    /**
+     * Creates a glossary of {@code size} terms.
+     *
+     * @param size
+     *            the number of terms
+     */
+    public SyntheticGlossary(int size) {
+        Random random = new Random(SEED);
+        this.terms = new String[size];
+        for (int i = 0; i < size; i++) {
+            this.terms[i] = "term" + i;
+        }
+        for (int i = size - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            String swap = this.terms[i];
+            this.terms[i] = this.terms[j];
+            this.terms[j] = swap;
+        }
+        StringBuilder definition = new StringBuilder();
+        for (String term : this.terms) {
+            definition.setLength(0);
+            for (int j = 0; j < DEFINITION_WORDS; j++) {
+                definition.append(' ');
+                if (random.nextInt(TERM_EVERY) == 0) {
+                    definition.append("term").append(random.nextInt(size));
+                } else {
+                    definition.append("word").append(j);
+                }
+                if (j % TERM_EVERY == TERM_EVERY - 1) {
+                    definition.append(',');
+                }
+            }
+            definition.append(' ');
+            this.map.add(term, definition.toString());
+        }
+    }
+
+    /**
+     * Returns the terms in shuffled order. The array is shared, so callers
+     * must not change it.
+     *
+     * @return the terms
+     */
+    public String[] terms() {
+        return this.terms;
+    }
+
+    /**
+     * Returns the map containing all the terms and definitions.
+     *
+     * @return the glossary map
+     */
+    public Map<String, String> map() {
+        return this.map;
+    }
+
+}
@@ -0,0 +1,52 @@
+package bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures finding the glossary terms in one definition with a
+ * {@code TermLinker}, against the original lookup of every token with
+ * {@code Map.hasKey}.
+ *
+ * @author Yakob Getu
+ *
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class TermLinkBenchmark {
+
+    /**
+     * Counts the links in the next definition with the linker.
+     *
+     * @param glossary
+     *            the glossary to link
+     * @return the number of links
+     */
+    @Benchmark
+    public int linker(GlossaryState glossary) {
+        return glossary.glossary().linkTerms(glossary.nextDefinition());
+    }
+
+    /**
+     * Counts the links in the next definition by looking up every token.
+     *
+     * @param glossary
+     *            the glossary to link
+     * @return the number of links
+     */
+    @Benchmark
+    public int hasKey(GlossaryState glossary) {
+        return glossary.glossary().linkKeys(glossary.nextDefinition());
+    }
+
+}
@@ -0,0 +1,194 @@
+package bench;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.Comparator;
+import java.util.Locale;
+
+import org.openjdk.jmh.infra.Blackhole;
+
+import components.map.Map;
+import components.queue.Queue;
+
+/**
+ * The generator code the benchmarks and the scale harness measure. JMH needs
+ * benchmarks in a named package, and a named package cannot import the
+ * generator's classes from the default package, so this package reaches
+ * them through this interface, implemented in the default package by
+ * {@code GlossaryWorkloads} and loaded once by name. Each call does the work
+ * of one benchmark operation, so the one indirect call it adds is the same
+ * for the code before and after a change.
+ *
+ * @author Yakob Getu
+ *
+ */
+public interface Workloads {
+
+    /**
+     * Name of the class implementing this interface.
+     */
+    String IMPLEMENTATION = "GlossaryWorkloads";
+
+    /**
+     * Operations on one glossary, with its linker and tokenizers built once.
+     */
+    interface Glossary {
+
+        /**
+         * Counts the terms {@code definition} links to, matched with the
+         * generator's trie linker.
+         *
+         * @param definition
+         *            the definition to scan
+         * @return the number of links
+         */
+        int linkTerms(String definition);
+
+        /**
+         * Counts the tokens of {@code definition} that are terms, looking
+         * every token up in the glossary's map.
+         *
+         * @param definition
+         *            the definition to scan
+         * @return the number of links
+         */
+        int linkKeys(String definition);
+
+        /**
+         * Splits {@code definition} into words and separators with
+         * {@code findNextWordOrSeparator}.
+         *
+         * @param definition
+         *            the definition to split
+         * @param sink
+         *            consumes every token
+         */
+        void tokenize(String definition, Blackhole sink);
+
+        /**
+         * Splits {@code definition} into words with the compiled token
+         * cursor.
+         *
+         * @param definition
+         *            the definition to split
+         * @param sink
+         *            consumes the bounds of every word
+         */
+        void tokenCursor(String definition, Blackhole sink);
+
+        /**
+         * Writes the page of {@code term} to a file in {@code folder}.
+         *
+         * @param term
+         *            the term
+         * @param folder
+         *            the output folder
+         */
+        void generatePage(String term, String folder);
+
+        /**
+         * Renders the page of {@code term} into memory.
+         *
+         * @param term
+         *            the term
+         */
+        void renderPage(String term);
+
+    }
+
+    /**
+     * Returns the implementation of this interface.
+     *
+     * @return the workloads
+     * @throws IllegalStateException
+     *             if the implementation is not on the classpath
+     */
+    static Workloads load() {
+        try {
+            return (Workloads) Class.forName(IMPLEMENTATION)
+                    .getDeclaredConstructor().newInstance();
+        } catch (ClassNotFoundException | NoSuchMethodException
+                | InstantiationException | IllegalAccessException
+                | InvocationTargetException e) {
+            throw new IllegalStateException(
+                    "cannot load " + IMPLEMENTATION, e);
+        }
+    }
+
+    /**
+     * Returns the generator's plain string order.
+     *
+     * @return the order
+     */
+    Comparator<String> stringOrder();
+
+    /**
+     * Sorts {@code q} with the generator's merge sort.
+     *
+     * @param q
+     *            the queue to sort
+     * @param order
+     *            the order
+     */
+    void sortQueue(Queue<String> q, Comparator<String> order);
+
+    /**
+     * Sorts {@code q} in the dictionary order of {@code locale} with the
+     * generator's sort on collation keys.
+     *
+     * @param q
+     *            the queue to sort
+     * @param locale
+     *            the locale
+     */
+    void collatedSortQueue(Queue<String> q, Locale locale);
+
+    /**
+     * Sorts {@code q} with the selection sort the merge sort replaced.
+     *
+     * @param q
+     *            the queue to sort
+     * @param order
+     *            the order
+     */
+    void selectionSortQueue(Queue<String> q, Comparator<String> order);
+
+    /**
+     * Returns the operations on the glossary {@code m}.
+     *
+     * @param m
+     *            the terms and definitions
+     * @return the glossary
+     */
+    Glossary glossary(Map<String, String> m);
+
+    /**
+     * Writes the index page of the sorted terms {@code terms} to
+     * {@code folder}.
+     *
+     * @param terms
+     *            the terms, in index order
+     * @param folder
+     *            the output folder
+     */
+    void generateIndexPage(Queue<String> terms, String folder);
+
+    /**
+     * Writes a generated terms file of {@code size} terms.
+     *
+     * @param size
+     *            the number of terms
+     * @param fileName
+     *            the terms file
+     */
+    void generateTerms(int size, String fileName);
+
+    /**
+     * Builds a glossary as {@code GlossaryClass} does from {@code args}.
+     *
+     * @param args
+     *            the command line arguments
+     * @return the number of pages written
+     */
+    long build(String[] args);
+
+}